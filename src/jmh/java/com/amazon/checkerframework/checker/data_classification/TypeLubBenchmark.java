@@ -0,0 +1,105 @@
+// Copyright 2017 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+// SPDX-License-Identifier: Apache-2.0
+package com.amazon.checkerframework.checker.data_classification;
+
+import com.amazon.checkerframework.checker.data_classification.benchmark.CheckerHarness;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import javax.lang.model.element.AnnotationMirror;
+import org.checkerframework.framework.type.AnnotatedTypeMirror;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures findLeastUpperBoundOfType, which the factory runs on the type of every field and method
+ * return type when it infers the classification of a class. The types are nested generics and
+ * arrays with a classification on each of four components, e.g.
+ * {@code Map<@Public String, List<@Confidential Set<@Restricted Integer> @Public []>>}, and never
+ * reach @Critical, so the whole type is walked.
+ *
+ * <p>Every invocation walks the type; the factory caches the inferred bound of each class instead.
+ * With one distinct type the walk always runs over the same objects; with 512, cycled through in
+ * order, it runs over objects that are rarely in the CPU caches, as during class inference.
+ *
+ * <p>The benchmark is in the checker's package because the method it measures is package-private.
+ *
+ * <p>Run on two commits to compare them: {@code ./gradlew jmh -PjmhArgs=TypeLubBenchmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgs = {"-Xmx2g"})
+public class TypeLubBenchmark {
+
+    /** The classifications written on the components of the types, all below @Critical. */
+    private static final String[] LEVELS = {"@Public", "@Confidential", "@HighlyConfidential", "@Restricted"};
+
+    /** The number of distinct types to cycle through. */
+    @Param({"1", "512"})
+    public int distinctTypes;
+
+    /** The factory of a finished compilation. */
+    private DataClassificationAnnotatedTypeFactory factory;
+
+    /** The types, in the order they are queried. */
+    private AnnotatedTypeMirror[] types;
+
+    /** The index of the next type to query. */
+    private int next;
+
+    @Setup
+    public void setUp() {
+        new CheckerHarness().inspect(Collections.singletonMap("NestedGenerics", nestedGenerics(distinctTypes)), f -> {
+            factory = f;
+            List<AnnotatedTypeMirror> fields = CheckerHarness.fieldTypes(f, "NestedGenerics");
+            types = fields.toArray(new AnnotatedTypeMirror[0]);
+        });
+    }
+
+    @Benchmark
+    public AnnotationMirror leastUpperBoundOfType() {
+        AnnotatedTypeMirror type = types[next];
+        next = next + 1 == types.length ? 0 : next + 1;
+        return factory.getLeastUpperBoundOfType(type);
+    }
+
+    /**
+     * Generates a class with the given number of fields whose types are distinct nested generics:
+     * two shapes, each with every combination of {@link #LEVELS} on its four components.
+     *
+     * @param fields the number of fields, at most 512
+     * @return the source of class NestedGenerics
+     */
+    static String nestedGenerics(final int fields) {
+        StringBuilder source = new StringBuilder()
+                .append("import com.amazon.checkerframework.checker.data_classification.qual.*;\n")
+                .append("import java.util.*;\n\n")
+                .append("public class NestedGenerics {\n");
+        for (int i = 0; i < fields; i++) {
+            String q0 = LEVELS[i & 3];
+            String q1 = LEVELS[(i >> 2) & 3];
+            String q2 = LEVELS[(i >> 4) & 3];
+            String q3 = LEVELS[(i >> 6) & 3];
+            if ((i >> 8) == 0) {
+                source.append(String.format("    Map<%s String, List<%s Set<%s Integer> %s []>> f%d;%n",
+                        q0, q1, q2, q3, i));
+            } else {
+                source.append(String.format("    %s List<%s Map<%s String, %s Object>> [] f%d;%n",
+                        q0, q1, q2, q3, i));
+            }
+        }
+        return source.append("}\n").toString();
+    }
+}
@@ -0,0 +1,193 @@
+// Copyright 2017 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+// SPDX-License-Identifier: Apache-2.0
+package com.amazon.checkerframework.checker.data_classification.benchmark;
+
+import com.amazon.checkerframework.checker.data_classification.DataClassificationAnnotatedTypeFactory;
+import com.amazon.checkerframework.checker.data_classification.DataClassificationChecker;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import javax.annotation.processing.Processor;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.util.ElementFilter;
+import javax.tools.Diagnostic;
+import javax.tools.DiagnosticCollector;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.SimpleJavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
+import org.checkerframework.framework.type.AnnotatedTypeMirror;
+
+/**
+ * Runs DCC in-process on generated sources, the same way the tests run it, so that benchmarks
+ * measure the checker rather than JVM startup.
+ */
+public final class CheckerHarness {
+
+    /** The stub file the tests pass to the checker; benchmarks run from the project directory. */
+    public static final String JDK_STUB =
+            "src/main/java/com/amazon/checkerframework/checker/data_classification/jdk.astub";
+
+    /** The system compiler. */
+    private final JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+
+    /** The javac options for every run. */
+    private final List<String> options;
+
+    /**
+     * Creates a harness that passes jdk.astub with -Astubs, as the tests do.
+     *
+     * @param checkerOptions extra options for the checker, e.g. {@code -AdccInferenceMode=hierarchy}
+     */
+    public CheckerHarness(final String... checkerOptions) {
+        this("-Astubs=" + JDK_STUB, Arrays.asList(checkerOptions));
+    }
+
+    /**
+     * @param jdkAnnotations the option that supplies the JDK annotations
+     * @param checkerOptions extra options for the checker
+     */
+    private CheckerHarness(final String jdkAnnotations, final List<String> checkerOptions) {
+        options = new ArrayList<>(Arrays.asList(
+                "-proc:only",
+                "-classpath", System.getProperty("java.class.path"),
+                "-Anomsgtext",
+                jdkAnnotations));
+        options.addAll(checkerOptions);
+    }
+
+    /**
+     * Creates a harness that supplies the JDK annotations some other way than -Astubs=jdk.astub.
+     *
+     * @param jdkAnnotations the option that supplies them, e.g. {@code -AdccStubIndex=<file>}
+     * @param checkerOptions extra options for the checker
+     * @return the harness
+     */
+    public static CheckerHarness withJdkAnnotations(final String jdkAnnotations, final String... checkerOptions) {
+        return new CheckerHarness(jdkAnnotations, Arrays.asList(checkerOptions));
+    }
+
+    /**
+     * Type-checks a set of compilation units.
+     *
+     * @param sources the source of each compilation unit, keyed by the name of its top-level class
+     * @return the diagnostics issued by javac and the checker
+     */
+    public List<Diagnostic<? extends JavaFileObject>> check(final Map<String, String> sources) {
+        return run(sources, new DataClassificationChecker());
+    }
+
+    /**
+     * Type-checks a set of compilation units and hands the checker's type factory to {@code
+     * inspector} at the end of the compilation. The inspector can look up the annotated types of the
+     * declarations in the sources, and keep them and the factory to call the checker's hot paths
+     * directly, without the rest of the compiler.
+     *
+     * @param sources   the source of each compilation unit, keyed by the name of its top-level class
+     * @param inspector called with the type factory once every compilation unit has been checked
+     * @return the diagnostics issued by javac and the checker
+     */
+    public List<Diagnostic<? extends JavaFileObject>> inspect(final Map<String, String> sources,
+            final Consumer<DataClassificationAnnotatedTypeFactory> inspector) {
+        return run(sources, new DataClassificationChecker() {
+            @Override
+            public void typeProcessingOver() {
+                inspector.accept((DataClassificationAnnotatedTypeFactory) getTypeFactory());
+                super.typeProcessingOver();
+            }
+        });
+    }
+
+    /**
+     * @param factory   a type factory handed to an inspector
+     * @param className the name of a top-level class in the sources
+     * @return the annotated types of the class' fields, in declaration order
+     */
+    public static List<AnnotatedTypeMirror> fieldTypes(final DataClassificationAnnotatedTypeFactory factory,
+            final String className) {
+        List<AnnotatedTypeMirror> types = new ArrayList<>();
+        for (VariableElement field : ElementFilter.fieldsIn(members(factory, className))) {
+            types.add(factory.getAnnotatedType(field));
+        }
+        return types;
+    }
+
+    /**
+     * @param factory    a type factory handed to an inspector
+     * @param className  the name of a top-level class in the sources
+     * @param methodName the name of one of its methods
+     * @return the annotated types of the method's parameters
+     */
+    public static List<AnnotatedTypeMirror> parameterTypes(final DataClassificationAnnotatedTypeFactory factory,
+            final String className, final String methodName) {
+        for (ExecutableElement method : ElementFilter.methodsIn(members(factory, className))) {
+            if (method.getSimpleName().contentEquals(methodName)) {
+                return factory.getAnnotatedType(method).getParameterTypes();
+            }
+        }
+        throw new IllegalArgumentException("No method " + className + "." + methodName);
+    }
+
+    /**
+     * @param factory   a type factory handed to an inspector
+     * @param className the name of a top-level class in the sources
+     * @return the class' members
+     */
+    private static List<? extends Element> members(final DataClassificationAnnotatedTypeFactory factory,
+            final String className) {
+        TypeElement type = factory.getElementUtils().getTypeElement(className);
+        if (type == null) {
+            throw new IllegalArgumentException("No class " + className);
+        }
+        return type.getEnclosedElements();
+    }
+
+    /**
+     * @param sources the source of each compilation unit, keyed by the name of its top-level class
+     * @param checker the checker to run
+     * @return the diagnostics issued by javac and the checker
+     */
+    private List<Diagnostic<? extends JavaFileObject>> run(final Map<String, String> sources,
+            final Processor checker) {
+        List<JavaFileObject> units = new ArrayList<>();
+        for (Map.Entry<String, String> source : sources.entrySet()) {
+            units.add(new SourceFile(source.getKey(), source.getValue()));
+        }
+        DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<>();
+        StandardJavaFileManager fileManager = compiler.getStandardFileManager(diagnostics, null, null);
+        JavaCompiler.CompilationTask task =
+                compiler.getTask(null, fileManager, diagnostics, options, null, units);
+        task.setProcessors(Collections.singletonList(checker));
+        task.call();
+        return diagnostics.getDiagnostics();
+    }
+
+    /** A compilation unit held in memory. */
+    private static final class SourceFile extends SimpleJavaFileObject {
+
+        /** The source text. */
+        private final String source;
+
+        /**
+         * @param className the name of the top-level class, in the unnamed package
+         * @param source    the source text
+         */
+        SourceFile(final String className, final String source) {
+            super(URI.create("string:///" + className + Kind.SOURCE.extension), Kind.SOURCE);
+            this.source = source;
+        }
+
+        @Override
+        public CharSequence getCharContent(final boolean ignoreEncodingErrors) {
+            return source;
+        }
+    }
+}
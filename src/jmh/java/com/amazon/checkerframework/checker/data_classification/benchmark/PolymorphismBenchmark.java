@@ -0,0 +1,109 @@
+// Copyright 2017 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+// SPDX-License-Identifier: Apache-2.0
+package com.amazon.checkerframework.checker.data_classification.benchmark;
+
+import com.amazon.checkerframework.checker.data_classification.ClassificationPolymorphism;
+import com.amazon.checkerframework.checker.data_classification.DataClassificationAnnotatedTypeFactory;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import javax.lang.model.element.AnnotationMirror;
+import org.checkerframework.framework.type.AnnotatedTypeMirror;
+import org.checkerframework.javacutil.AnnotationMirrorMap;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures ClassificationPolymorphism#replace, which substitutes the instantiation of
+ * @PolyClassification into each component of a method's type at every call. The replacements map
+ * @PolyClassification to @Confidential and @PolyClassification("a") to @Critical, as if both had
+ * been resolved at a call site. Since replace modifies the type, each invocation replaces into a
+ * fresh copy; {@link #copyOnly} measures the copy alone, to subtract from {@link #replace}.
+ *
+ * <p>Run on two commits to compare them: {@code ./gradlew jmh -PjmhArgs=PolymorphismBenchmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgs = {"-Xmx2g"})
+public class PolymorphismBenchmark {
+
+    /** The source whose method parameters are the types to replace into. */
+    static final String TARGETS =
+            "import com.amazon.checkerframework.checker.data_classification.qual.*;\n\n"
+            + "public class Targets {\n"
+            + "    void targets(@PolyClassification Object poly, @PolyClassification(\"use\") Object polyUse,\n"
+            + "            @PolyClassification(\"a\") Object polyWithValue, @Confidential Object monomorphic) {}\n"
+            + "}\n";
+
+    /** The names of the parameters of {@code Targets.targets}, in order. */
+    private static final List<String> TARGET_NAMES = Arrays.asList("poly", "polyUse", "polyWithValue", "monomorphic");
+
+    /** The parameter of {@code Targets.targets} whose type is replaced into. */
+    @Param({"poly", "polyUse", "polyWithValue", "monomorphic"})
+    public String target;
+
+    /** Exposes the protected replace method. */
+    private static final class Replacer extends ClassificationPolymorphism {
+
+        /** @param factory the type factory of a running compilation */
+        Replacer(final DataClassificationAnnotatedTypeFactory factory) {
+            super(factory.getProcessingEnv(), factory);
+        }
+
+        /**
+         * @param type         the type to replace into
+         * @param replacements the instantiation of each polymorphic qualifier
+         */
+        void run(final AnnotatedTypeMirror type, final AnnotationMirrorMap<AnnotationMirror> replacements) {
+            replace(type, replacements);
+        }
+    }
+
+    /** The polymorphism implementation under test. */
+    private Replacer replacer;
+
+    /** The instantiation of each polymorphic qualifier. */
+    private final AnnotationMirrorMap<AnnotationMirror> replacements = new AnnotationMirrorMap<>();
+
+    /** The type to replace into; never modified. */
+    private AnnotatedTypeMirror template;
+
+    @Setup
+    public void setUp() {
+        new CheckerHarness().inspect(Collections.singletonMap("Targets", TARGETS), factory -> {
+            replacer = new Replacer(factory);
+            List<AnnotatedTypeMirror> parameters = CheckerHarness.parameterTypes(factory, "Targets", "targets");
+            AnnotationMirror top = factory.getCanonicalPublicAnnotation();
+            replacements.put(parameters.get(0).getAnnotationInHierarchy(top),
+                    parameters.get(3).getAnnotationInHierarchy(top));
+            replacements.put(parameters.get(2).getAnnotationInHierarchy(top),
+                    factory.getCanonicalCriticalAnnotation());
+            template = parameters.get(TARGET_NAMES.indexOf(target));
+        });
+    }
+
+    @Benchmark
+    public AnnotatedTypeMirror replace() {
+        AnnotatedTypeMirror type = template.deepCopy();
+        replacer.run(type, replacements);
+        return type;
+    }
+
+    @Benchmark
+    public AnnotatedTypeMirror copyOnly() {
+        return template.deepCopy();
+    }
+}
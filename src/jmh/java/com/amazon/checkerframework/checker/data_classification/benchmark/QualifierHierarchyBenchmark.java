@@ -0,0 +1,113 @@
+// Copyright 2017 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+// SPDX-License-Identifier: Apache-2.0
+package com.amazon.checkerframework.checker.data_classification.benchmark;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import javax.lang.model.element.AnnotationMirror;
+import org.checkerframework.framework.type.AnnotatedTypeMirror;
+import org.checkerframework.framework.type.QualifierHierarchy;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Measures DataClassificationQualifierHierarchy's subtype, LUB and GLB queries on their own. Each
+ * invocation asks the query for every ordered pair of a set of qualifiers, taken from the
+ * parameters of a compiled method so that they are the mirrors the checker really sees: either
+ * the classification levels alone, which are answered from the lattice table, or a mix of levels
+ * and @PolyClassification with and without values, which goes through the *WithElements methods.
+ *
+ * <p>A LUB or GLB of two @PolyClassification values may be a new value, whose mirror can only be
+ * built while the compiler is running. Setup therefore runs every query once inside the
+ * compilation; the measured queries then find those mirrors interned, as all but the first query
+ * for a pair do in a real compilation.
+ *
+ * <p>Run on two commits to compare them: {@code ./gradlew jmh -PjmhArgs=QualifierHierarchyBenchmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgs = {"-Xmx2g"})
+public class QualifierHierarchyBenchmark {
+
+    /** The source whose method parameters carry the qualifiers, one method per set. */
+    static final String QUALIFIERS =
+            "import com.amazon.checkerframework.checker.data_classification.qual.*;\n\n"
+            + "public class Qualifiers {\n"
+            + "    void levels(@Public Object a, @Confidential Object b, @HighlyConfidential Object c,\n"
+            + "            @Restricted Object d, @Critical Object e) {}\n"
+            + "    void poly(@Public Object a, @PolyClassification Object b, @PolyClassification(\"use\") Object c,\n"
+            + "            @PolyClassification(\"a\") Object d, @PolyClassification(\"a, b\") Object e,\n"
+            + "            @PolyClassification(\"b, c\") Object f, @Critical Object g) {}\n"
+            + "}\n";
+
+    /** The set of qualifiers: the name of a method in {@link #QUALIFIERS}. */
+    @Param({"levels", "poly"})
+    public String qualifiers;
+
+    /** The qualifier hierarchy of a finished compilation. */
+    private QualifierHierarchy hierarchy;
+
+    /** The first qualifier of each pair. */
+    private AnnotationMirror[] left;
+
+    /** The second qualifier of each pair. */
+    private AnnotationMirror[] right;
+
+    @Setup
+    public void setUp() {
+        new CheckerHarness().inspect(Collections.singletonMap("Qualifiers", QUALIFIERS), factory -> {
+            hierarchy = factory.getQualifierHierarchy();
+            List<AnnotationMirror> mirrors = new ArrayList<>();
+            for (AnnotatedTypeMirror type : CheckerHarness.parameterTypes(factory, "Qualifiers", qualifiers)) {
+                mirrors.add(type.getAnnotationInHierarchy(factory.getCanonicalPublicAnnotation()));
+            }
+            int pairs = mirrors.size() * mirrors.size();
+            left = new AnnotationMirror[pairs];
+            right = new AnnotationMirror[pairs];
+            for (int i = 0; i < pairs; i++) {
+                left[i] = mirrors.get(i / mirrors.size());
+                right[i] = mirrors.get(i % mirrors.size());
+            }
+            for (int i = 0; i < pairs; i++) {
+                hierarchy.leastUpperBoundQualifiersOnly(left[i], right[i]);
+                hierarchy.greatestLowerBoundQualifiersOnly(left[i], right[i]);
+            }
+        });
+    }
+
+    @Benchmark
+    public void isSubtype(final Blackhole blackhole) {
+        for (int i = 0; i < left.length; i++) {
+            blackhole.consume(hierarchy.isSubtypeQualifiersOnly(left[i], right[i]));
+        }
+    }
+
+    @Benchmark
+    public void leastUpperBound(final Blackhole blackhole) {
+        for (int i = 0; i < left.length; i++) {
+            blackhole.consume(hierarchy.leastUpperBoundQualifiersOnly(left[i], right[i]));
+        }
+    }
+
+    @Benchmark
+    public void greatestLowerBound(final Blackhole blackhole) {
+        for (int i = 0; i < left.length; i++) {
+            blackhole.consume(hierarchy.greatestLowerBoundQualifiersOnly(left[i], right[i]));
+        }
+    }
+}
@@ -0,0 +1,89 @@
+// Copyright 2017 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+// SPDX-License-Identifier: Apache-2.0
+package com.amazon.checkerframework.checker.data_classification.benchmark;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the cost of checking method invocations on a fluent API, where every call goes through
+ * DataClassificationVisitor#skipReceiverSubtypeCheck. The generated file calls the methods of a
+ * builder class whose inferred qualifier is @Confidential through a @Confidential receiver, in
+ * chains of ten, so the file type-checks without errors.
+ *
+ * <p>Run on two commits to compare them: {@code ./gradlew jmh -PjmhArgs=ReceiverCheckBenchmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgs = {"-Xmx2g"})
+public class ReceiverCheckBenchmark {
+
+    /** The number of method invocations in the generated file. */
+    @Param({"50000"})
+    public int calls;
+
+    /** The generated compilation unit. */
+    private Map<String, String> sources;
+
+    /** The checker runner. */
+    private CheckerHarness harness;
+
+    @Setup
+    public void setUp() {
+        sources = Collections.singletonMap("FluentCalls", fluentCalls(calls));
+        harness = new CheckerHarness();
+    }
+
+    @Benchmark
+    public int checkFluentCalls() {
+        return harness.check(sources).size();
+    }
+
+    /**
+     * Generates a class with the given number of fluent method invocations, ten per statement and
+     * a hundred per method.
+     *
+     * @param calls the number of invocations
+     * @return the source of class FluentCalls
+     */
+    static String fluentCalls(final int calls) {
+        StringBuilder source = new StringBuilder()
+                .append("import com.amazon.checkerframework.checker.data_classification.qual.*;\n\n")
+                .append("public class FluentCalls {\n")
+                .append("    static class Builder {\n")
+                .append("        @Confidential String secret;\n")
+                .append("        Builder name(String s) { return this; }\n")
+                .append("        Builder id(int i) { return this; }\n")
+                .append("        Builder flag(boolean b) { return this; }\n")
+                .append("    }\n");
+        String[] links = {".name(\"v\")", ".id(%d)", ".flag(true)"};
+        int emitted = 0;
+        for (int method = 0; emitted < calls; method++) {
+            source.append("    void m").append(method).append("(@Confidential Builder b) {\n");
+            for (int statement = 0; statement < 10 && emitted < calls; statement++) {
+                source.append("        b");
+                for (int link = 0; link < 10; link++, emitted++) {
+                    source.append(String.format(links[link % links.length], link));
+                }
+                source.append(";\n");
+            }
+            source.append("    }\n");
+        }
+        return source.append("}\n").toString();
+    }
+}
@@ -0,0 +1,91 @@
+// Copyright 2017 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+// SPDX-License-Identifier: Apache-2.0
+package com.amazon.checkerframework.checker.data_classification.benchmark;
+
+import com.amazon.checkerframework.checker.data_classification.StubIndexCompiler;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares the startup cost of reading the JDK annotations from jdk.astub (-Astubs) with reading
+ * them from its precompiled index (-AdccStubIndex). The checked file is a single small class that
+ * calls a few of the annotated methods, so the time is dominated by setting up the checker.
+ *
+ * <p>Each iteration is one compilation, in a JVM that has already loaded the checker; the first
+ * compilation of a fresh JVM also pays for class loading, which is the same in both modes.
+ *
+ * <p>Run with {@code ./gradlew jmh -PjmhArgs=StubLoadingBenchmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 10)
+@Measurement(iterations = 30)
+@Fork(value = 3, jvmArgs = {"-Xmx1g"})
+public class StubLoadingBenchmark {
+
+    /** Where the JDK annotations come from: {@code stubFile} or {@code stubIndex}. */
+    @Param({"stubFile", "stubIndex"})
+    public String jdkAnnotations;
+
+    /** The compilation unit. */
+    private Map<String, String> sources;
+
+    /** The index compiled from jdk.astub, in stubIndex mode. */
+    private Path index;
+
+    /** The checker runner. */
+    private CheckerHarness harness;
+
+    @Setup
+    public void setUp() throws IOException {
+        sources = Collections.singletonMap("Startup", startupSource());
+        if ("stubIndex".equals(jdkAnnotations)) {
+            index = Files.createTempFile("jdk", ".dccstub");
+            Files.delete(index);
+            StubIndexCompiler.compile(Collections.singletonList(Paths.get(CheckerHarness.JDK_STUB)), index);
+            harness = CheckerHarness.withJdkAnnotations("-AdccStubIndex=" + index);
+        } else {
+            harness = new CheckerHarness();
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        if (index != null) {
+            Files.deleteIfExists(index);
+        }
+    }
+
+    @Benchmark
+    public int checkSmallClass() {
+        return harness.check(sources).size();
+    }
+
+    /** @return the source of class Startup */
+    static String startupSource() {
+        return "import com.amazon.checkerframework.checker.data_classification.qual.*;\n\n"
+                + "public class Startup {\n"
+                + "    @Confidential String describe(@Confidential String secret, int n) {\n"
+                + "        return new StringBuilder(secret).append(n).toString().trim();\n"
+                + "    }\n"
+                + "}\n";
+    }
+}
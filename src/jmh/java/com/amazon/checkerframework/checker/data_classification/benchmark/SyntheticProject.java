@@ -0,0 +1,167 @@
+// Copyright 2017 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+// SPDX-License-Identifier: Apache-2.0
+package com.amazon.checkerframework.checker.data_classification.benchmark;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Generates synthetic Java projects for measuring how the checker scales. The output only depends
+ * on the parameters, including the seed, so the same project can be checked on two commits.
+ *
+ * <p>Each class {@code C<n>} has:
+ *
+ * <ul>
+ *   <li>fields whose types are {@code String} or generics nested to the configured depth, a
+ *       fraction of them annotated with a classification below @Critical;
+ *   <li>a getter for each field, annotated like the field;
+ *   <li>static worker methods that pass a string through calls of the String and StringBuilder
+ *       methods annotated in jdk.astub, and through a worker method of another class.
+ * </ul>
+ *
+ * The generated code type-checks without errors, so the measurements don't include reporting.
+ */
+public final class SyntheticProject {
+
+    /** The classifications written on annotated members. */
+    private static final String[] LEVELS = {"@Public", "@Confidential", "@HighlyConfidential", "@Restricted"};
+
+    /** The jdk.astub calls the worker methods chain, as a format applied to the previous local. */
+    private static final String[] JDK_CALLS = {
+        "%s.trim()",
+        "%s.toUpperCase()",
+        "%s.toLowerCase()",
+        "%s.substring(0)",
+        "new StringBuilder(%s).append(\"-\").toString()",
+        "new StringBuilder().append(%s).substring(0)",
+    };
+
+    /** The name of the project, used to key its results. */
+    public final String name;
+
+    /** The number of classes. */
+    public final int classes;
+
+    /** The number of fields (and getters) per class. */
+    public final int fieldsPerClass;
+
+    /** How deeply the generic field types are nested, e.g. 2 for {@code List<Map<String, String>>}. */
+    public final int genericDepth;
+
+    /** The fraction of fields that are annotated, between 0 and 1. */
+    public final double annotatedFraction;
+
+    /** The number of jdk.astub calls in each worker method. */
+    public final int jdkCallsPerMethod;
+
+    /** The seed of the generator. */
+    public final long seed;
+
+    /**
+     * @param name              the name of the project
+     * @param classes           the number of classes
+     * @param fieldsPerClass    the number of fields per class
+     * @param genericDepth      how deeply generic field types are nested
+     * @param annotatedFraction the fraction of fields that are annotated
+     * @param jdkCallsPerMethod the number of jdk.astub calls in each worker method
+     * @param seed              the seed of the generator
+     */
+    public SyntheticProject(final String name, final int classes, final int fieldsPerClass, final int genericDepth,
+            final double annotatedFraction, final int jdkCallsPerMethod, final long seed) {
+        this.name = name;
+        this.classes = classes;
+        this.fieldsPerClass = fieldsPerClass;
+        this.genericDepth = genericDepth;
+        this.annotatedFraction = annotatedFraction;
+        this.jdkCallsPerMethod = jdkCallsPerMethod;
+        this.seed = seed;
+    }
+
+    /**
+     * Generates the project.
+     *
+     * @return the source of each class, keyed by its name, in the unnamed package
+     */
+    public Map<String, String> generate() {
+        Random random = new Random(seed);
+        Map<String, String> sources = new LinkedHashMap<>();
+        for (int c = 0; c < classes; c++) {
+            sources.put("C" + c, generateClass(c, random));
+        }
+        return sources;
+    }
+
+    /**
+     * @param sources the sources of a project
+     * @return the number of lines in them
+     */
+    public static int lines(final Map<String, String> sources) {
+        int lines = 0;
+        for (String source : sources.values()) {
+            for (int i = 0; i < source.length(); i++) {
+                if (source.charAt(i) == '\n') {
+                    lines++;
+                }
+            }
+        }
+        return lines;
+    }
+
+    /**
+     * @param index  the index of the class
+     * @param random the generator's random numbers
+     * @return the source of class {@code C<index>}
+     */
+    private String generateClass(final int index, final Random random) {
+        StringBuilder source = new StringBuilder()
+                .append("import com.amazon.checkerframework.checker.data_classification.qual.*;\n")
+                .append("import java.util.*;\n\n")
+                .append("public class C").append(index).append(" {\n");
+        StringBuilder getters = new StringBuilder();
+        for (int f = 0; f < fieldsPerClass; f++) {
+            String annotation = random.nextDouble() < annotatedFraction
+                    ? LEVELS[random.nextInt(LEVELS.length)] + " "
+                    : "";
+            String type = random.nextBoolean() ? "String" : nestedType(genericDepth, random);
+            source.append("    ").append(annotation).append(type).append(" f").append(f).append(";\n");
+            getters.append("\n    ").append(annotation).append(type).append(" getF").append(f).append("() {\n")
+                    .append("        return f").append(f).append(";\n")
+                    .append("    }\n");
+        }
+        source.append(getters);
+
+        int workers = fieldsPerClass / 2 + 1;
+        for (int w = 0; w < workers; w++) {
+            source.append("\n    static String work").append(w).append("(String in) {\n");
+            String previous = "in";
+            for (int call = 0; call < jdkCallsPerMethod; call++) {
+                String local = "v" + call;
+                source.append("        String ").append(local).append(" = ")
+                        .append(String.format(JDK_CALLS[random.nextInt(JDK_CALLS.length)], previous))
+                        .append(";\n");
+                previous = local;
+            }
+            // Call into a class generated earlier, so the call graph has no cycles.
+            if (index > 0) {
+                previous = "C" + random.nextInt(index) + ".work0(" + previous + ")";
+            }
+            source.append("        return ").append(previous).append(";\n")
+                    .append("    }\n");
+        }
+        return source.append("}\n").toString();
+    }
+
+    /**
+     * @param depth  the number of generic types to nest
+     * @param random the generator's random numbers
+     * @return a type such as {@code List<Map<String, String>>}
+     */
+    private static String nestedType(final int depth, final Random random) {
+        if (depth == 0) {
+            return "String";
+        }
+        String inner = nestedType(depth - 1, random);
+        return random.nextBoolean() ? "List<" + inner + ">" : "Map<String, " + inner + ">";
+    }
+}
@@ -0,0 +1,299 @@
+// Copyright 2017 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+// SPDX-License-Identifier: Apache-2.0
+package com.amazon.checkerframework.checker.data_classification.benchmark;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.lang.management.ThreadMXBean;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import javax.tools.Diagnostic;
+import javax.tools.JavaFileObject;
+
+/**
+ * Runs the checker end to end on {@link SyntheticProject synthetic projects} and compares its
+ * throughput with a committed baseline. For each project it reports:
+ *
+ * <ul>
+ *   <li>{@code msPerKloc}: the median wall time of a compilation, per thousand lines;
+ *   <li>{@code peakHeapMb}: the highest heap use seen during a compilation;
+ *   <li>{@code allocMbPerKloc} and {@code allocMbPerSec}: the memory the compiling thread
+ *       allocated, per thousand lines and per second.
+ * </ul>
+ *
+ * The run fails if {@code peakHeapMb} or {@code allocMbPerKloc} exceeds the baseline by more than
+ * the tolerance. Both only depend on the checker and the JVM, and vary by a few percent between
+ * runs. The allocation rate is only reported: it goes up when the checker gets faster at
+ * allocating the same memory, which is not a regression.
+ *
+ * <p>The wall time depends on the hardware and on the load of the machine, so {@code msPerKloc}
+ * is only gated with {@code -gateTime}, against a baseline recorded with {@code -update} on the
+ * machine that runs the comparison. The committed baseline has no timings, so {@code -gateTime}
+ * fails until they have been recorded there.
+ *
+ * <p>Usage: {@code ./gradlew checkerThroughput [-PupdateBaseline] [-PgateTime]}, or
+ *
+ * <pre>
+ * ThroughputHarness &lt;baseline.json&gt; [-update] [-gateTime] [-runs &lt;n&gt;] [-tolerance &lt;fraction&gt;] [-projects &lt;name,...&gt;]
+ * </pre>
+ */
+public final class ThroughputHarness {
+
+    /** The projects measured by default. */
+    static final List<SyntheticProject> PROJECTS = Collections.unmodifiableList(Arrays.asList(
+            new SyntheticProject("small", 50, 8, 1, 0.3, 4, 1),
+            new SyntheticProject("wide", 200, 8, 1, 0.3, 4, 2),
+            new SyntheticProject("deepGenerics", 50, 8, 5, 0.5, 2, 3),
+            new SyntheticProject("callHeavy", 50, 4, 1, 0.1, 24, 4)));
+
+    /** The metrics always compared with the baseline; higher is worse for all of them. */
+    static final List<String> GATED_METRICS = Collections.unmodifiableList(
+            Arrays.asList("peakHeapMb", "allocMbPerKloc"));
+
+    /** The timing metric, only compared with the baseline with {@code -gateTime}. */
+    static final String TIME_METRIC = "msPerKloc";
+
+    /** The number of unmeasured compilations of each project, to warm up the JIT. */
+    private static final int WARMUP_RUNS = 2;
+
+    /** One mebibyte. */
+    private static final double MB = 1024 * 1024;
+
+    /** The checker runner. */
+    private final CheckerHarness harness = new CheckerHarness();
+
+    /**
+     * Compiles a project repeatedly and measures the compilations.
+     *
+     * @param project the project
+     * @param runs    the number of measured compilations
+     * @return the metrics, keyed by name
+     */
+    Map<String, Double> measure(final SyntheticProject project, final int runs) {
+        Map<String, String> sources = project.generate();
+        double kloc = SyntheticProject.lines(sources) / 1000.0;
+        for (int i = 0; i < WARMUP_RUNS; i++) {
+            check(sources, project);
+        }
+
+        double[] millis = new double[runs];
+        long peakHeap = 0;
+        long allocated = 0;
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        boolean countsAllocations = allocatedBytes(threads) >= 0;
+        for (int i = 0; i < runs; i++) {
+            System.gc();
+            for (MemoryPoolMXBean pool : heapPools()) {
+                pool.resetPeakUsage();
+            }
+            long allocationStart = allocatedBytes(threads);
+            long start = System.nanoTime();
+            check(sources, project);
+            millis[i] = (System.nanoTime() - start) / 1e6;
+            allocated += allocatedBytes(threads) - allocationStart;
+            long heap = 0;
+            for (MemoryPoolMXBean pool : heapPools()) {
+                heap += pool.getPeakUsage().getUsed();
+            }
+            peakHeap = Math.max(peakHeap, heap);
+        }
+        double totalMillis = Arrays.stream(millis).sum();
+        Arrays.sort(millis);
+
+        Map<String, Double> metrics = new LinkedHashMap<>();
+        metrics.put("kloc", kloc);
+        metrics.put("msPerKloc", millis[runs / 2] / kloc);
+        metrics.put("peakHeapMb", peakHeap / MB);
+        if (countsAllocations) {
+            metrics.put("allocMbPerKloc", allocated / MB / runs / kloc);
+            metrics.put("allocMbPerSec", allocated / MB / (totalMillis / 1000));
+        }
+        return metrics;
+    }
+
+    /**
+     * @param sources the sources of a project
+     * @param project the project, for messages
+     */
+    private void check(final Map<String, String> sources, final SyntheticProject project) {
+        for (Diagnostic<? extends JavaFileObject> diagnostic : harness.check(sources)) {
+            if (diagnostic.getKind() == Diagnostic.Kind.ERROR) {
+                // The projects are generated to type-check, so an error means the checker changed.
+                throw new IllegalStateException("Unexpected error in " + project.name + ": " + diagnostic);
+            }
+        }
+    }
+
+    /** @return the memory pools of the heap */
+    private static List<MemoryPoolMXBean> heapPools() {
+        List<MemoryPoolMXBean> pools = new ArrayList<>();
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP) {
+                pools.add(pool);
+            }
+        }
+        return pools;
+    }
+
+    /**
+     * @param threads the JVM's thread bean
+     * @return the bytes allocated by the current thread so far, or -1 if the JVM can't tell
+     */
+    private static long allocatedBytes(final ThreadMXBean threads) {
+        if (threads instanceof com.sun.management.ThreadMXBean) {
+            return ((com.sun.management.ThreadMXBean) threads).getThreadAllocatedBytes(Thread.currentThread().getId());
+        }
+        return -1;
+    }
+
+    /**
+     * Compares measurements with a baseline.
+     *
+     * @param baseline  the baseline metrics of each project
+     * @param current   the current metrics of each project
+     * @param metrics   the metrics to compare
+     * @param tolerance how much worse than the baseline a metric may be, as a fraction
+     * @return a message for each regression, and for each metric the baseline lacks
+     */
+    static List<String> regressions(final Map<String, Map<String, Double>> baseline,
+            final Map<String, Map<String, Double>> current, final List<String> metrics, final double tolerance) {
+        List<String> regressions = new ArrayList<>();
+        for (Map.Entry<String, Map<String, Double>> project : current.entrySet()) {
+            Map<String, Double> expected = baseline.get(project.getKey());
+            if (expected == null) {
+                continue;
+            }
+            for (String metric : metrics) {
+                Double was = expected.get(metric);
+                Double now = project.getValue().get(metric);
+                if (was == null && now != null) {
+                    regressions.add(project.getKey() + ": the baseline has no " + metric
+                            + "; record it with -update on this machine");
+                } else if (was != null && now != null && now > was * (1 + tolerance)) {
+                    regressions.add(String.format(Locale.ROOT, "%s: %s went from %.1f to %.1f (+%.0f%%)",
+                            project.getKey(), metric, was, now, (now / was - 1) * 100));
+                }
+            }
+        }
+        return regressions;
+    }
+
+    /**
+     * Reads a baseline written by {@link #write}.
+     *
+     * @param json the baseline file's contents
+     * @return the metrics of each project
+     */
+    static Map<String, Map<String, Double>> read(final String json) {
+        Map<String, Map<String, Double>> results = new LinkedHashMap<>();
+        Matcher project = Pattern.compile("\"(\\w+)\"\\s*:\\s*\\{([^{}]*)\\}").matcher(json);
+        while (project.find()) {
+            Map<String, Double> metrics = new LinkedHashMap<>();
+            Matcher metric = Pattern.compile("\"(\\w+)\"\\s*:\\s*(-?[0-9.eE+-]+)").matcher(project.group(2));
+            while (metric.find()) {
+                metrics.put(metric.group(1), Double.parseDouble(metric.group(2)));
+            }
+            results.put(project.group(1), metrics);
+        }
+        return results;
+    }
+
+    /**
+     * @param results the metrics of each project
+     * @return the results as a JSON object, with one member per project
+     */
+    static String write(final Map<String, Map<String, Double>> results) {
+        StringBuilder json = new StringBuilder("{\n");
+        int p = 0;
+        for (Map.Entry<String, Map<String, Double>> project : results.entrySet()) {
+            json.append("  \"").append(project.getKey()).append("\": {");
+            int m = 0;
+            for (Map.Entry<String, Double> metric : project.getValue().entrySet()) {
+                json.append(m++ == 0 ? "" : ", ").append('"').append(metric.getKey()).append("\": ")
+                        .append(String.format(Locale.ROOT, "%.1f", metric.getValue()));
+            }
+            json.append(++p < results.size() ? "},\n" : "}\n");
+        }
+        return json.append("}\n").toString();
+    }
+
+    /**
+     * Measures the projects and compares them with the baseline, or records a new baseline.
+     *
+     * @param args {@code <baseline.json> [-update] [-gateTime] [-runs <n>] [-tolerance <fraction>]
+     *             [-projects <name,...>]}
+     * @throws IOException if the baseline can't be read or written
+     */
+    public static void main(final String[] args) throws IOException {
+        Path baselineFile = null;
+        boolean update = false;
+        boolean gateTime = false;
+        int runs = 3;
+        double tolerance = 0.25;
+        List<String> only = null;
+        for (int i = 0; i < args.length; i++) {
+            if ("-update".equals(args[i])) {
+                update = true;
+            } else if ("-gateTime".equals(args[i])) {
+                gateTime = true;
+            } else if ("-runs".equals(args[i]) && i + 1 < args.length) {
+                runs = Integer.parseInt(args[++i]);
+            } else if ("-tolerance".equals(args[i]) && i + 1 < args.length) {
+                tolerance = Double.parseDouble(args[++i]);
+            } else if ("-projects".equals(args[i]) && i + 1 < args.length) {
+                only = Arrays.asList(args[++i].split(","));
+            } else {
+                baselineFile = Paths.get(args[i]);
+            }
+        }
+        if (baselineFile == null || runs < 1) {
+            System.err.println("Usage: ThroughputHarness <baseline.json> [-update] [-gateTime] [-runs <n>] "
+                    + "[-tolerance <fraction>] [-projects <name,...>]");
+            System.exit(1);
+        }
+
+        ThroughputHarness harness = new ThroughputHarness();
+        Map<String, Map<String, Double>> results = new LinkedHashMap<>();
+        for (SyntheticProject project : PROJECTS) {
+            if (only != null && !only.contains(project.name)) {
+                continue;
+            }
+            Map<String, Double> metrics = harness.measure(project, runs);
+            results.put(project.name, metrics);
+            System.out.println(project.name + ": " + metrics);
+        }
+
+        if (update || !Files.exists(baselineFile)) {
+            Files.write(baselineFile, write(results).getBytes(StandardCharsets.UTF_8));
+            System.out.println("Wrote baseline " + baselineFile);
+            return;
+        }
+        String json = new String(Files.readAllBytes(baselineFile), StandardCharsets.UTF_8);
+        List<String> metrics = new ArrayList<>(GATED_METRICS);
+        if (gateTime) {
+            metrics.add(TIME_METRIC);
+        }
+        List<String> regressions = regressions(read(json), results, metrics, tolerance);
+        for (String regression : regressions) {
+            System.err.println("Regression: " + regression);
+        }
+        if (!regressions.isEmpty()) {
+            System.exit(1);
+        }
+        System.out.printf(Locale.ROOT, "No regression of %s beyond %.0f%% of %s%n", metrics, tolerance * 100,
+                baselineFile);
+    }
+}
@@ -0,0 +1,83 @@
+// Copyright 2017 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+// SPDX-License-Identifier: Apache-2.0
+package com.amazon.checkerframework.checker.data_classification.benchmark;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the cost of checking generic instantiations, each of which goes through
+ * DataClassificationVisitor#checkTypeArguments. The generated file mixes unannotated type
+ * arguments (which are passed to the framework's check unchanged), annotated ones (which are
+ * filtered out) and nested parameterized types, in the proportions typical of collection- and
+ * stream-heavy code.
+ *
+ * <p>Run with {@code ./gradlew jmh -PjmhArgs=TypeArgumentsBenchmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgs = {"-Xmx2g"})
+public class TypeArgumentsBenchmark {
+
+    /** The number of generic instantiations in the generated file, roughly. */
+    @Param({"20000"})
+    public int instantiations;
+
+    /** The generated compilation unit. */
+    private Map<String, String> sources;
+
+    /** The checker runner. */
+    private CheckerHarness harness;
+
+    @Setup
+    public void setUp() {
+        sources = Collections.singletonMap("GenericUses", genericUses(instantiations));
+        harness = new CheckerHarness();
+    }
+
+    @Benchmark
+    public int checkGenericUses() {
+        return harness.check(sources).size();
+    }
+
+    /**
+     * Generates a class with about the given number of generic instantiations, ten per method
+     * body.
+     *
+     * @param instantiations the number of instantiations
+     * @return the source of class GenericUses
+     */
+    static String genericUses(final int instantiations) {
+        StringBuilder source = new StringBuilder()
+                .append("import com.amazon.checkerframework.checker.data_classification.qual.*;\n")
+                .append("import java.util.*;\n\n")
+                .append("public class GenericUses {\n");
+        for (int method = 0; method * 10 < instantiations; method++) {
+            source.append("    void m").append(method).append("() {\n")
+                    .append("        List<String> a = new ArrayList<>();\n")
+                    .append("        List<@Confidential String> b = new ArrayList<>();\n")
+                    .append("        Map<String, List<Integer>> c = new HashMap<>();\n")
+                    .append("        Map<String, List<@HighlyConfidential Integer>> d = new HashMap<>();\n")
+                    .append("        Map<String, String> e = Collections.<String, String>emptyMap();\n")
+                    .append("        a.add(\"x\");\n")
+                    .append("        c.put(\"k\", a.isEmpty() ? null : new ArrayList<Integer>());\n")
+                    .append("    }\n");
+        }
+        return source.append("}\n").toString();
+    }
+}
@@ -0,0 +1,122 @@
+// Copyright 2017 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+// SPDX-License-Identifier: Apache-2.0
+package com.amazon.checkerframework.checker.data_classification;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.security.CodeSource;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.function.Predicate;
+import org.checkerframework.common.basetype.BaseTypeChecker;
+
+/**
+ * The salts of the persistent caches: everything outside the sources that a cached result depends
+ * on, so that an entry written under other inputs is never reused.
+ *
+ * <p>A salt holds the Java version, the location, size and modification time of the checker's and
+ * the Checker Framework's jars, and the values of the given options. For the options that name
+ * files, such as {@code -Astubs} and {@code -AdccLevels}, it also holds a digest of each file's
+ * contents, so that editing a stub file invalidates the entries just like passing another one.
+ */
+final class CacheSalt {
+
+    /** The options whose values are lists of files, separated by the path separator. */
+    private static final Set<String> FILE_OPTIONS = Collections.unmodifiableSet(new HashSet<>(Arrays.asList(
+            "stubs", "dccLevels", "dccClassSummaryIndex", "dccStubIndex")));
+
+    private CacheSalt() {
+    }
+
+    /**
+     * @param checker the checker
+     * @param options which of the checker's options the cached results depend on
+     * @return the salt
+     */
+    static String of(final BaseTypeChecker checker, final Predicate<String> options) {
+        StringBuilder salt = new StringBuilder()
+                .append(System.getProperty("java.version")).append('\n')
+                .append(build(DataClassificationChecker.class)).append('\n')
+                .append(build(BaseTypeChecker.class)).append('\n');
+        for (Map.Entry<String, String> option : new TreeMap<>(checker.getOptions()).entrySet()) {
+            if (!options.test(option.getKey())) {
+                continue;
+            }
+            salt.append(option.getKey()).append('=').append(option.getValue()).append('\n');
+            if (FILE_OPTIONS.contains(option.getKey()) && option.getValue() != null) {
+                for (String file : option.getValue().split(File.pathSeparator)) {
+                    salt.append(file).append(' ').append(contentHash(file)).append('\n');
+                }
+            }
+        }
+        return salt.toString();
+    }
+
+    /**
+     * @param type a class
+     * @return the location, size and modification time of the jar or directory it was loaded from
+     */
+    private static String build(final Class<?> type) {
+        CodeSource source = type.getProtectionDomain().getCodeSource();
+        if (source == null || source.getLocation() == null) {
+            return type.getName();
+        }
+        try {
+            File file = new File(source.getLocation().toURI());
+            return file + " " + file.length() + " " + file.lastModified();
+        } catch (URISyntaxException | IllegalArgumentException e) {
+            return source.getLocation().toString();
+        }
+    }
+
+    /**
+     * @param file the name of a file
+     * @return a hex-encoded digest of its contents, or "-" if it isn't a readable file (e.g. a stub
+     *         bundled with the checker, which the checker's build covers)
+     */
+    private static String contentHash(final String file) {
+        Path path;
+        try {
+            path = Paths.get(file);
+        } catch (InvalidPathException e) {
+            return "-";
+        }
+        if (file.isEmpty() || !Files.isRegularFile(path)) {
+            return "-";
+        }
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            // Every Java platform is required to support SHA-256.
+            throw new AssertionError(e);
+        }
+        byte[] buffer = new byte[8192];
+        try (InputStream in = Files.newInputStream(path)) {
+            for (int read = in.read(buffer); read >= 0; read = in.read(buffer)) {
+                digest.update(buffer, 0, read);
+            }
+        } catch (IOException e) {
+            // Can't be hashed, so make sure no entry written now is ever reused.
+            digest.update(Long.toString(System.nanoTime()).getBytes(StandardCharsets.UTF_8));
+        }
+        StringBuilder hex = new StringBuilder();
+        for (byte b : digest.digest()) {
+            hex.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+        }
+        return hex.toString();
+    }
+}
@@ -0,0 +1,194 @@
+// Copyright 2017 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+// SPDX-License-Identifier: Apache-2.0
+package com.amazon.checkerframework.checker.data_classification;
+
+import com.sun.source.tree.CompilationUnitTree;
+import com.sun.source.tree.Tree;
+import com.sun.source.util.SourcePositions;
+import com.sun.source.util.TreePath;
+import com.sun.source.util.Trees;
+import java.io.IOException;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileSystemNotFoundException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import javax.lang.model.element.PackageElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.util.ElementFilter;
+import javax.lang.model.util.Elements;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+/**
+ * Decides which code -AdccDiff checks and reports, given the changed lines of a {@link DiffScope}:
+ *
+ * <ul>
+ *   <li>a compilation unit that declares or refers to a class whose inferred bound changed is
+ *       checked and reported in full, since any use of the class may have become an error;
+ *   <li>another changed unit is only reported on its changed lines, and its methods without
+ *       changed lines are not visited;
+ *   <li>every other unit is not checked.
+ * </ul>
+ *
+ * A bound changed if it differs from the one the summary store (-AdccSummaryCache) recorded in the
+ * last compilation, typically of the target branch. Without a store, every class in a changed file
+ * counts as changed.
+ */
+final class ChangeImpact {
+
+    /** How much of a compilation unit is checked and reported. */
+    enum Reach {
+        /** Not checked. */
+        NONE,
+        /** Checked, but only reported on changed lines. */
+        CHANGED_LINES,
+        /** Checked and reported in full. */
+        ALL
+    }
+
+    /** The changed lines. */
+    private final DiffScope scope;
+
+    /** The compiler's trees. */
+    private final Trees trees;
+
+    /**
+     * The qualified names of the classes whose bound changed, and of their top-level classes, since
+     * nested classes are mostly referred to through them.
+     */
+    private final Set<String> boundChanged = new HashSet<>();
+
+    /** The reach of each compilation unit seen so far. */
+    private final Map<CompilationUnitTree, Reach> reaches = new IdentityHashMap<>();
+
+    /**
+     * Finds the classes of the changed files whose bound changed. This must happen before they are
+     * checked, since inferring them replaces the bounds recorded in the summary store.
+     *
+     * @param scope   the changed lines
+     * @param factory the checker's type factory
+     * @param trees   the compiler's trees
+     */
+    ChangeImpact(final DiffScope scope, final DataClassificationAnnotatedTypeFactory factory, final Trees trees) {
+        this.scope = scope;
+        this.trees = trees;
+        Elements elements = factory.getElementUtils();
+        for (Path file : scope.files()) {
+            String text;
+            try {
+                text = new String(Files.readAllBytes(file), StandardCharsets.UTF_8);
+            } catch (IOException e) {
+                // Deleted, or not relative to the working directory; its classes can't be found.
+                continue;
+            }
+            PackageElement pkg = elements.getPackageElement(UnitReferences.packageOf(text));
+            if (pkg != null) {
+                for (TypeElement type : ElementFilter.typesIn(pkg.getEnclosedElements())) {
+                    addIfBoundChanged(type, type, file, factory);
+                }
+            }
+        }
+    }
+
+    /**
+     * @param type     a class, and recursively its nested classes
+     * @param topLevel the top-level class that encloses it
+     * @param file     a changed file
+     * @param factory  the checker's type factory
+     */
+    private void addIfBoundChanged(final TypeElement type, final TypeElement topLevel, final Path file,
+            final DataClassificationAnnotatedTypeFactory factory) {
+        TreePath path = trees.getPath(type);
+        Path source = path == null ? null : pathOf(path.getCompilationUnit());
+        if (source == null || !source.endsWith(file)) {
+            return;
+        }
+        if (factory.classBoundChanged(type)) {
+            boundChanged.add(type.getQualifiedName().toString());
+            boundChanged.add(topLevel.getQualifiedName().toString());
+        }
+        for (TypeElement nested : ElementFilter.typesIn(type.getEnclosedElements())) {
+            addIfBoundChanged(nested, topLevel, file, factory);
+        }
+    }
+
+    /**
+     * @param unit a compilation unit
+     * @return the path of its source file, or null if it isn't a file
+     */
+    private static @Nullable Path pathOf(final CompilationUnitTree unit) {
+        URI uri = unit.getSourceFile().toUri();
+        try {
+            return Paths.get(uri);
+        } catch (IllegalArgumentException | FileSystemNotFoundException e) {
+            return null;
+        }
+    }
+
+    /**
+     * @param unit a compilation unit
+     * @return how much of it is checked and reported
+     */
+    Reach reach(final CompilationUnitTree unit) {
+        Reach reach = reaches.get(unit);
+        if (reach == null) {
+            Path source = pathOf(unit);
+            String text;
+            try {
+                text = unit.getSourceFile().getCharContent(true).toString();
+            } catch (IOException e) {
+                text = null;
+            }
+            if (text == null || UnitReferences.refersTo(text, boundChanged::contains)) {
+                reach = Reach.ALL;
+            } else if (source != null && scope.rangesOf(source) != null) {
+                reach = Reach.CHANGED_LINES;
+            } else {
+                reach = Reach.NONE;
+            }
+            reaches.put(unit, reach);
+        }
+        return reach;
+    }
+
+    /**
+     * @param unit the compilation unit being checked
+     * @param tree a tree in it
+     * @return whether the tree is not reported, because it is in a unit only reported on its changed
+     *         lines and contains none of them
+     */
+    boolean isOutside(final CompilationUnitTree unit, final Tree tree) {
+        if (reach(unit) != Reach.CHANGED_LINES) {
+            return false;
+        }
+        List<long[]> ranges = scope.rangesOf(pathOf(unit));
+        SourcePositions positions = trees.getSourcePositions();
+        long start = positions.getStartPosition(unit, tree);
+        long end = positions.getEndPosition(unit, tree);
+        if (ranges == null || start < 0) {
+            return false;
+        }
+        long first = unit.getLineMap().getLineNumber(start);
+        long last = end < start ? first : unit.getLineMap().getLineNumber(end);
+        return !DiffScope.overlaps(ranges, first, last);
+    }
+
+    /** @return a one-line summary of the units seen, for a note */
+    String summary() {
+        int all = 0;
+        int changedLines = 0;
+        for (Reach reach : reaches.values()) {
+            all += reach == Reach.ALL ? 1 : 0;
+            changedLines += reach == Reach.CHANGED_LINES ? 1 : 0;
+        }
+        return "DCC diff scope: " + boundChanged.size() + " classes with changed bounds; checked "
+                + all + " compilation units in full and " + changedLines + " on changed lines, skipped "
+                + (reaches.size() - all - changedLines);
+    }
+}
@@ -0,0 +1,168 @@
+// Copyright 2017 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+// SPDX-License-Identifier: Apache-2.0
+package com.amazon.checkerframework.checker.data_classification;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * A command-line client of {@link CheckerDaemon} that takes the same arguments as {@code javac
+ * -processor DataClassificationChecker}, so it can replace it in scripts. Source files and the
+ * classpath are made absolute before they are sent; every other argument is passed to javac as is.
+ * Diagnostics are printed in javac's format.
+ *
+ * <p>Usage:
+ *
+ * <pre>
+ * CheckerClient [-portFile &lt;file&gt;] [-stop] [-classpath &lt;path&gt;] [&lt;javac option&gt;...] &lt;source&gt;...
+ * </pre>
+ *
+ * The exit status is 0 if the check found no errors, 1 if it did, and 2 if the daemon can't be
+ * reached.
+ */
+public final class CheckerClient {
+
+    private CheckerClient() {
+    }
+
+    /**
+     * @param path a path, possibly relative to the current directory
+     * @return the path, absolute
+     */
+    private static String absolute(final String path) {
+        return Paths.get(path).toAbsolutePath().normalize().toString();
+    }
+
+    /**
+     * @param classpath a classpath
+     * @return the classpath with every entry absolute
+     */
+    private static String absoluteClasspath(final String classpath) {
+        List<String> entries = new ArrayList<>();
+        for (String entry : classpath.split(File.pathSeparator, -1)) {
+            entries.add(absolute(entry.isEmpty() ? "." : entry));
+        }
+        return String.join(File.pathSeparator, entries);
+    }
+
+    /**
+     * Sends a request and prints the response.
+     *
+     * @param args {@code [-portFile <file>] [-stop] [-classpath <path>] [<javac option>...] <source>...}
+     * @throws IOException if the response can't be read
+     */
+    public static void main(final String[] args) throws IOException {
+        Path portFile = CheckerDaemon.defaultPortFile();
+        boolean stop = false;
+        String classpath = System.getenv("CLASSPATH") == null ? "." : System.getenv("CLASSPATH");
+        List<String> options = new ArrayList<>();
+        List<String> sources = new ArrayList<>();
+        for (int i = 0; i < args.length; i++) {
+            String arg = args[i];
+            if ("-portFile".equals(arg) && i + 1 < args.length) {
+                portFile = Paths.get(args[++i]);
+            } else if ("-stop".equals(arg)) {
+                stop = true;
+            } else if (("-classpath".equals(arg) || "-cp".equals(arg) || "--class-path".equals(arg))
+                    && i + 1 < args.length) {
+                classpath = args[++i];
+            } else if (arg.endsWith(".java") && !arg.startsWith("-")) {
+                sources.add(absolute(arg));
+            } else {
+                options.add(arg);
+            }
+        }
+        if (!stop && sources.isEmpty()) {
+            System.err.println("Usage: CheckerClient [-portFile <file>] [-stop] [-classpath <path>] "
+                    + "[<javac option>...] <source>...");
+            System.exit(2);
+        }
+
+        String[] daemon;
+        try {
+            daemon = new String(Files.readAllBytes(portFile), StandardCharsets.UTF_8).trim().split(" ");
+        } catch (IOException e) {
+            System.err.println("No DCC daemon is running: cannot read " + portFile);
+            System.exit(2);
+            return;
+        }
+        if (daemon.length != 2) {
+            System.err.println("Malformed DCC daemon port file " + portFile);
+            System.exit(2);
+        }
+
+        int errors = 0;
+        boolean ok = false;
+        try (Socket socket = new Socket(InetAddress.getLoopbackAddress(), Integer.parseInt(daemon[0]));
+                Writer out = new BufferedWriter(new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8));
+                BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8))) {
+            out.write(CheckerDaemon.PROTOCOL + " " + daemon[1] + "\n");
+            if (stop) {
+                out.write("stop\n");
+            } else {
+                out.write("check\n");
+                out.write("classpath " + LineFields.escape(absoluteClasspath(classpath)) + "\n");
+                for (String option : options) {
+                    out.write("option " + LineFields.escape(option) + "\n");
+                }
+                for (String source : sources) {
+                    out.write("source " + LineFields.escape(source) + "\n");
+                }
+                out.write("end\n");
+            }
+            out.flush();
+
+            String line;
+            while ((line = in.readLine()) != null) {
+                if (line.startsWith("result ")) {
+                    ok = "result ok".equals(line);
+                    break;
+                }
+                if (line.startsWith("diagnostic ")) {
+                    String[] fields = line.substring("diagnostic ".length()).split("\t", 5);
+                    if (fields.length == 5) {
+                        errors += "ERROR".equals(fields[0]) ? 1 : 0;
+                        System.err.println(format(fields));
+                    }
+                }
+            }
+        } catch (IOException e) {
+            System.err.println("Cannot reach the DCC daemon on port " + daemon[0] + ": " + e.getMessage());
+            System.exit(2);
+        }
+        if (errors > 0) {
+            System.err.println(errors + (errors == 1 ? " error" : " errors"));
+        }
+        System.exit(ok ? 0 : 1);
+    }
+
+    /**
+     * @param fields the kind, file, line, column and message of a diagnostic line
+     * @return the diagnostic as javac prints it, e.g. {@code A.java:3: error: message}
+     */
+    private static String format(final String[] fields) {
+        String kind = fields[0].toLowerCase(Locale.ROOT).replace("mandatory_", "").replace('_', ' ');
+        String kindLabel = "other".equals(kind) ? "" : kind + ": ";
+        String file = LineFields.unescape(fields[1]);
+        String message = LineFields.unescape(fields[4]);
+        if (file.isEmpty()) {
+            return kindLabel + message;
+        }
+        String location = "-1".equals(fields[2]) ? file : file + ":" + fields[2];
+        return location + ": " + kindLabel + message;
+    }
+}
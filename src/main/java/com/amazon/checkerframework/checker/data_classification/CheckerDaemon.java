@@ -0,0 +1,334 @@
+// Copyright 2017 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+// SPDX-License-Identifier: Apache-2.0
+package com.amazon.checkerframework.checker.data_classification;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import javax.tools.Diagnostic;
+import javax.tools.DiagnosticCollector;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.SimpleJavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
+
+/**
+ * A long-lived process that type-checks sources with DCC on request, so that small modules don't
+ * pay for JVM startup, loading the Checker Framework and JIT warmup on every compilation. Stub
+ * indexes and class summary indexes are loaded once and shared by all requests (see {@link
+ * SharedIndexes}), so -AdccStubIndex is much cheaper here than -Astubs, whose parsed stubs belong
+ * to a single compilation.
+ *
+ * <p>The daemon listens on a loopback port and writes the port and a random token, which clients
+ * must present, to a port file readable only by its owner. Requests are handled concurrently, each
+ * by its own compilation. {@link CheckerClient} is a command-line client.
+ *
+ * <p>The protocol is line-based UTF-8. A request is the line {@code dcc-daemon-1 <token>}, then
+ * {@code check} or {@code stop}; a check continues with {@code classpath <path>}, one {@code option
+ * <option>} line per javac argument, one {@code source <file>} line per source file, and {@code
+ * end}. Paths should be absolute, since they are resolved in the daemon's working directory. The
+ * response is one {@code diagnostic <kind>\t<file>\t<line>\t<column>\t<message>} line per
+ * diagnostic, then {@code result ok} or {@code result error}. Fields are escaped with {@link
+ * LineFields#escape}.
+ *
+ * <p>Usage:
+ *
+ * <pre>
+ * CheckerDaemon [-port &lt;n&gt;] [-portFile &lt;file&gt;] [-threads &lt;n&gt;] [&lt;checker option&gt;...]
+ * </pre>
+ *
+ * The checker options, e.g. {@code -AdccStubIndex}, are passed to every compilation before the
+ * request's own options, and to a warm-up compilation at startup.
+ */
+public final class CheckerDaemon {
+
+    /** The first word of every request, naming the protocol version. */
+    static final String PROTOCOL = "dcc-daemon-1";
+
+    /** How long the daemon waits for a client to send its request, in milliseconds. */
+    private static final int REQUEST_TIMEOUT_MILLIS = 60_000;
+
+    /** The system compiler. */
+    private final JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+
+    /** The token clients must present. */
+    private final String token;
+
+    /** The checker options passed to every compilation. */
+    private final List<String> defaultOptions;
+
+    /** Runs the requests. */
+    private final ExecutorService workers;
+
+    /** The listening socket. */
+    private final ServerSocket server;
+
+    /**
+     * @param port           the loopback port to listen on, or 0 for any free port
+     * @param threads        the number of requests checked at the same time
+     * @param defaultOptions the checker options passed to every compilation
+     * @throws IOException if the port can't be opened
+     */
+    CheckerDaemon(final int port, final int threads, final List<String> defaultOptions) throws IOException {
+        byte[] random = new byte[16];
+        new SecureRandom().nextBytes(random);
+        StringBuilder hex = new StringBuilder();
+        for (byte b : random) {
+            hex.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+        }
+        this.token = hex.toString();
+        this.defaultOptions = new ArrayList<>(defaultOptions);
+        this.workers = Executors.newFixedThreadPool(threads);
+        this.server = new ServerSocket(port, 50, InetAddress.getLoopbackAddress());
+    }
+
+    /** @return the port the daemon listens on */
+    int port() {
+        return server.getLocalPort();
+    }
+
+    /** @return the token clients must present */
+    String token() {
+        return token;
+    }
+
+    /**
+     * @return the default port file of the current user, in the temporary directory
+     */
+    static Path defaultPortFile() {
+        return Paths.get(System.getProperty("java.io.tmpdir"), "dcc-daemon-" + System.getProperty("user.name") + ".port");
+    }
+
+    /**
+     * Writes the port file, readable only by its owner where the file system supports it.
+     *
+     * @param portFile the file
+     * @throws IOException if the file can't be written
+     */
+    void writePortFile(final Path portFile) throws IOException {
+        Files.deleteIfExists(portFile);
+        try {
+            Files.createFile(portFile, PosixFilePermissions.asFileAttribute(PosixFilePermissions.fromString("rw-------")));
+        } catch (UnsupportedOperationException e) {
+            Files.createFile(portFile);
+        }
+        Files.write(portFile, (port() + " " + token + "\n").getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Checks a tiny in-memory class, so that the checker's classes are loaded and the default
+     * options' indexes are read before the first request.
+     */
+    void warmUp() {
+        JavaFileObject source = new SimpleJavaFileObject(URI.create("string:///Warm.java"), JavaFileObject.Kind.SOURCE) {
+            @Override
+            public CharSequence getCharContent(final boolean ignoreEncodingErrors) {
+                return "class Warm { String s = \"dcc\".trim(); }";
+            }
+        };
+        List<String> options = new ArrayList<>();
+        options.add("-proc:only");
+        options.add("-classpath");
+        options.add(System.getProperty("java.class.path"));
+        options.addAll(defaultOptions);
+        JavaCompiler.CompilationTask task = compiler.getTask(new StringWriter(), null,
+                new DiagnosticCollector<>(), options, null, Collections.singletonList(source));
+        task.setProcessors(Collections.singletonList(new DataClassificationChecker()));
+        task.call();
+    }
+
+    /** Accepts connections until a client sends {@code stop}. */
+    void serve() {
+        while (!server.isClosed()) {
+            Socket socket;
+            try {
+                socket = server.accept();
+            } catch (IOException e) {
+                if (!server.isClosed()) {
+                    System.err.println("CheckerDaemon: " + e.getMessage());
+                }
+                continue;
+            }
+            workers.execute(() -> handle(socket));
+        }
+        workers.shutdown();
+    }
+
+    /**
+     * Reads a request from a connection and answers it.
+     *
+     * @param socket the connection
+     */
+    private void handle(final Socket socket) {
+        try (Socket connection = socket;
+                BufferedReader in = new BufferedReader(
+                        new InputStreamReader(connection.getInputStream(), StandardCharsets.UTF_8));
+                Writer out = new BufferedWriter(
+                        new OutputStreamWriter(connection.getOutputStream(), StandardCharsets.UTF_8))) {
+            connection.setSoTimeout(REQUEST_TIMEOUT_MILLIS);
+            if (!(PROTOCOL + " " + token).equals(in.readLine())) {
+                out.write("result error\n");
+                return;
+            }
+            String command = in.readLine();
+            if ("stop".equals(command)) {
+                out.write("result ok\n");
+                out.flush();
+                server.close();
+                return;
+            }
+            if (!"check".equals(command)) {
+                out.write("result error\n");
+                return;
+            }
+            String classpath = ".";
+            List<String> options = new ArrayList<>();
+            List<String> sources = new ArrayList<>();
+            String line;
+            while ((line = in.readLine()) != null && !"end".equals(line)) {
+                int space = line.indexOf(' ');
+                String key = space < 0 ? line : line.substring(0, space);
+                String value = space < 0 ? "" : LineFields.unescape(line.substring(space + 1));
+                if ("classpath".equals(key)) {
+                    classpath = value;
+                } else if ("option".equals(key)) {
+                    options.add(value);
+                } else if ("source".equals(key)) {
+                    sources.add(value);
+                }
+            }
+            // The request is complete; checking may take longer than the client took to send it.
+            connection.setSoTimeout(0);
+            boolean ok = check(classpath, options, sources, out);
+            out.write(ok ? "result ok\n" : "result error\n");
+        } catch (SocketException e) {
+            // The client went away; there is nobody to answer.
+        } catch (IOException e) {
+            System.err.println("CheckerDaemon: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Checks a request's sources and writes the diagnostics.
+     *
+     * @param classpath the classpath of the sources
+     * @param options   the request's javac options
+     * @param sources   the source files
+     * @param out       where to write the diagnostic lines
+     * @return whether the check succeeded without errors
+     * @throws IOException if the diagnostics can't be written
+     */
+    private boolean check(final String classpath, final List<String> options, final List<String> sources,
+            final Writer out) throws IOException {
+        List<String> arguments = new ArrayList<>();
+        arguments.add("-proc:only");
+        arguments.add("-classpath");
+        arguments.add(classpath);
+        arguments.addAll(defaultOptions);
+        arguments.addAll(options);
+        DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<>();
+        StringWriter output = new StringWriter();
+        boolean ok;
+        try (StandardJavaFileManager files = compiler.getStandardFileManager(null, Locale.ROOT, StandardCharsets.UTF_8)) {
+            JavaCompiler.CompilationTask task = compiler.getTask(output, files, diagnostics, arguments, null,
+                    files.getJavaFileObjectsFromStrings(sources));
+            task.setProcessors(Collections.singletonList(new DataClassificationChecker()));
+            ok = task.call();
+        } catch (RuntimeException e) {
+            // Invalid javac options, missing files, or a UserError thrown by the checker.
+            Throwable cause = e.getCause() != null ? e.getCause() : e;
+            String message = String.valueOf(cause.getMessage());
+            // javac's messages for invalid options already start with their kind.
+            writeDiagnostic(out, Diagnostic.Kind.ERROR, "", -1, -1,
+                    message.startsWith("error: ") ? message.substring("error: ".length()) : message);
+            return false;
+        }
+        for (Diagnostic<? extends JavaFileObject> diagnostic : diagnostics.getDiagnostics()) {
+            JavaFileObject source = diagnostic.getSource();
+            writeDiagnostic(out, diagnostic.getKind(), source == null ? "" : source.getName(),
+                    diagnostic.getLineNumber(), diagnostic.getColumnNumber(), diagnostic.getMessage(Locale.ROOT));
+        }
+        if (output.getBuffer().length() > 0) {
+            writeDiagnostic(out, Diagnostic.Kind.NOTE, "", -1, -1, output.toString().trim());
+        }
+        return ok;
+    }
+
+    /**
+     * @param out     the response
+     * @param kind    the kind of diagnostic
+     * @param file    the file it is about, or empty
+     * @param line    its line, or -1
+     * @param column  its column, or -1
+     * @param message its message
+     * @throws IOException if the line can't be written
+     */
+    private static void writeDiagnostic(final Writer out, final Diagnostic.Kind kind, final String file,
+            final long line, final long column, final String message) throws IOException {
+        out.write("diagnostic " + kind + '\t' + LineFields.escape(file) + '\t' + line + '\t' + column + '\t'
+                + LineFields.escape(message) + '\n');
+    }
+
+    /**
+     * Starts a daemon and serves requests until a client stops it.
+     *
+     * @param args {@code [-port <n>] [-portFile <file>] [-threads <n>] [<checker option>...]}
+     * @throws IOException if the port or the port file can't be opened
+     */
+    public static void main(final String[] args) throws IOException {
+        int port = 0;
+        int threads = Runtime.getRuntime().availableProcessors();
+        Path portFile = defaultPortFile();
+        List<String> options = new ArrayList<>();
+        for (int i = 0; i < args.length; i++) {
+            if ("-port".equals(args[i]) && i + 1 < args.length) {
+                port = Integer.parseInt(args[++i]);
+            } else if ("-portFile".equals(args[i]) && i + 1 < args.length) {
+                portFile = Paths.get(args[++i]);
+            } else if ("-threads".equals(args[i]) && i + 1 < args.length) {
+                threads = Integer.parseInt(args[++i]);
+            } else if (args[i].startsWith("-A")) {
+                options.add(args[i]);
+            } else {
+                System.err.println("Usage: CheckerDaemon [-port <n>] [-portFile <file>] [-threads <n>] "
+                        + "[<checker option>...]");
+                System.exit(1);
+            }
+        }
+        if (threads < 1) {
+            threads = 1;
+        }
+
+        CheckerDaemon daemon = new CheckerDaemon(port, threads, options);
+        daemon.warmUp();
+        daemon.writePortFile(portFile);
+        System.out.println("CheckerDaemon listening on port " + daemon.port() + ", port file " + portFile);
+        try {
+            daemon.serve();
+        } finally {
+            Files.deleteIfExists(portFile);
+        }
+    }
+}
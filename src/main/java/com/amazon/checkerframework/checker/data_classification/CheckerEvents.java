@@ -0,0 +1,82 @@
+// Copyright 2017 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+// SPDX-License-Identifier: Apache-2.0
+package com.amazon.checkerframework.checker.data_classification;
+
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+/**
+ * Emits Java Flight Recorder events for the checker's phases, so that recordings of a build show
+ * where the checker spends its time: one event per top-level class checked, per class whose
+ * members were walked to infer its bound, and per stub load.
+ *
+ * <p>The events are defined in {@link JfrCheckerEvents}, which is only loaded, reflectively, if
+ * the JVM has the {@code jdk.jfr} module (JDK 11, or a JDK 8 update with the backport). On other
+ * JVMs every method here does nothing. Each {@code begin} method returns null unless a recording
+ * has enabled the event, so a checker without an active recording neither allocates nor reads the
+ * clock.
+ */
+abstract class CheckerEvents {
+
+    /** The events of this JVM. */
+    static final CheckerEvents INSTANCE = load();
+
+    /** The name of the implementation that depends on {@code jdk.jfr}. */
+    private static final String JFR_EVENTS = "com.amazon.checkerframework.checker.data_classification.JfrCheckerEvents";
+
+    /** @return the JFR events, or events that do nothing if this JVM has no JFR */
+    private static CheckerEvents load() {
+        try {
+            Class.forName("jdk.jfr.Event", false, CheckerEvents.class.getClassLoader());
+            return (CheckerEvents) Class.forName(JFR_EVENTS).getDeclaredConstructor().newInstance();
+        } catch (ReflectiveOperationException | LinkageError e) {
+            return new CheckerEvents() { };
+        }
+    }
+
+    /** @return a started class check event, or null if it is not recorded */
+    @Nullable Object beginClassCheck() {
+        return null;
+    }
+
+    /**
+     * Commits an event returned by {@link #beginClassCheck}.
+     *
+     * @param event     the event, or null
+     * @param file      the source file of the checked class
+     * @param className the qualified name of the checked top-level class
+     */
+    void commitClassCheck(final @Nullable Object event, final String file, final String className) {
+    }
+
+    /** @return a started class inference event, or null if it is not recorded */
+    @Nullable Object beginClassInference() {
+        return null;
+    }
+
+    /**
+     * Commits an event returned by {@link #beginClassInference}.
+     *
+     * @param event     the event, or null
+     * @param className the qualified name of the class
+     * @param members   the number of members walked
+     * @param qualifier the inferred bound of the class
+     */
+    void commitClassInference(final @Nullable Object event, final String className, final int members,
+            final String qualifier) {
+    }
+
+    /** @return a started stub load event, or null if it is not recorded */
+    @Nullable Object beginStubLoad() {
+        return null;
+    }
+
+    /**
+     * Commits an event returned by {@link #beginStubLoad}.
+     *
+     * @param event   the event, or null
+     * @param source  the stub files or index loaded
+     * @param entries the number of methods loaded, or -1 if unknown
+     */
+    void commitStubLoad(final @Nullable Object event, final String source, final int entries) {
+    }
+}
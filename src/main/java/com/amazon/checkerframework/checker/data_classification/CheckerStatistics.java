@@ -0,0 +1,147 @@
+// Copyright 2017 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+// SPDX-License-Identifier: Apache-2.0
+package com.amazon.checkerframework.checker.data_classification;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Counters for -AdccStats: how often the checker's expensive operations run, and how long each
+ * compilation unit took to check. The factory only creates an instance when the option is passed,
+ * and every counter update is guarded by a null check, so the checker pays nothing otherwise.
+ *
+ * <p>The counters are plain fields, updated by the factory, its qualifier hierarchy and the
+ * visitor, which all run on the compiler's thread.
+ */
+final class CheckerStatistics {
+
+    /** The number of slowest compilation units listed in the report. */
+    static final int SLOWEST_FILES = 20;
+
+    /** Calls of {@link DataClassificationAnnotatedTypeFactory#fromElement}. */
+    long fromElementCalls;
+
+    /** Classes whose members were walked to infer their bound. */
+    long classInferenceWalks;
+
+    /** Subtype queries between two classification levels, and those involving a poly qualifier. */
+    long subtypeQueries, polySubtypeQueries;
+
+    /** Least upper bound queries between two levels, and those involving a poly qualifier. */
+    long lubQueries, polyLubQueries;
+
+    /** Greatest lower bound queries between two levels, and those involving a poly qualifier. */
+    long glbQueries, polyGlbQueries;
+
+    /** Calls of DataClassificationVisitor#replacePoly. */
+    long replacePolyCalls;
+
+    /** Compilation units that -AdccPrescan found irrelevant and didn't check. */
+    long prescanSkippedUnits;
+
+    /**
+     * The time spent checking each compilation unit, in nanoseconds, keyed by the name of its source
+     * file, which identifies the unit.
+     */
+    private final Map<String, Long> unitNanos = new HashMap<>();
+
+    /**
+     * Adds the time spent checking a top-level class to the time of its compilation unit. The
+     * framework checks a unit once per top-level class it declares, so a unit is only timed as a
+     * whole by summing its classes.
+     *
+     * @param file  the name of the source file of the class' compilation unit
+     * @param nanos the time it took to check the class
+     */
+    void addClassTime(final String file, final long nanos) {
+        unitNanos.merge(file, nanos, Long::sum);
+    }
+
+    /**
+     * Writes the report.
+     *
+     * @param file            where to write it
+     * @param classCache      the factory's class cache, whose statistics are included
+     * @param polyBoundHits   how often the visitor reused the poly bound of a method
+     * @param polyBoundMisses how often it computed one
+     * @throws IOException if the file can't be written
+     */
+    void write(final Path file, final ClassClassificationCache classCache,
+            final long polyBoundHits, final long polyBoundMisses) throws IOException {
+        List<Map.Entry<String, Long>> units = new ArrayList<>(unitNanos.entrySet());
+        units.sort(Map.Entry.<String, Long>comparingByValue().reversed().thenComparing(Map.Entry.comparingByKey()));
+        long totalNanos = 0;
+        for (Map.Entry<String, Long> unit : units) {
+            totalNanos += unit.getValue();
+        }
+
+        try (Writer out = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            out.write("{\n");
+            out.write("  \"compilationUnits\": " + units.size() + ",\n");
+            out.write("  \"checkMs\": " + millis(totalNanos) + ",\n");
+            out.write("  \"fromElementCalls\": " + fromElementCalls + ",\n");
+            out.write("  \"classInferenceWalks\": " + classInferenceWalks + ",\n");
+            out.write("  \"classCache\": {\"hits\": " + classCache.hits() + ", \"misses\": " + classCache.misses()
+                    + ", \"evictions\": " + classCache.evictions()
+                    + ", \"inferenceMs\": " + millis(classCache.inferenceNanos()) + "},\n");
+            out.write("  \"subtypeQueries\": " + split(subtypeQueries, polySubtypeQueries) + ",\n");
+            out.write("  \"lubQueries\": " + split(lubQueries, polyLubQueries) + ",\n");
+            out.write("  \"glbQueries\": " + split(glbQueries, polyGlbQueries) + ",\n");
+            out.write("  \"replacePolyCalls\": " + replacePolyCalls + ",\n");
+            out.write("  \"prescanSkippedUnits\": " + prescanSkippedUnits + ",\n");
+            out.write("  \"polyBoundCache\": {\"hits\": " + polyBoundHits + ", \"misses\": " + polyBoundMisses + "},\n");
+            out.write("  \"slowestFiles\": [");
+            for (int i = 0; i < units.size() && i < SLOWEST_FILES; i++) {
+                out.write(i == 0 ? "\n" : ",\n");
+                out.write("    {\"file\": " + quote(units.get(i).getKey())
+                        + ", \"ms\": " + millis(units.get(i).getValue()) + "}");
+            }
+            out.write(units.isEmpty() ? "]\n" : "\n  ]\n");
+            out.write("}\n");
+        }
+    }
+
+    /**
+     * @param levels queries between two classification levels
+     * @param poly   queries involving a poly qualifier
+     * @return a JSON object with both counts
+     */
+    private static String split(final long levels, final long poly) {
+        return "{\"nonPoly\": " + levels + ", \"poly\": " + poly + "}";
+    }
+
+    /**
+     * @param nanos a duration in nanoseconds
+     * @return the duration in milliseconds, as a JSON number
+     */
+    private static String millis(final long nanos) {
+        return String.format(Locale.ROOT, "%.3f", nanos / 1e6);
+    }
+
+    /**
+     * @param text a string
+     * @return the string as a JSON string literal
+     */
+    private static String quote(final String text) {
+        StringBuilder quoted = new StringBuilder("\"");
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c == '"' || c == '\\') {
+                quoted.append('\\').append(c);
+            } else if (c < 0x20) {
+                quoted.append(String.format("\\u%04x", (int) c));
+            } else {
+                quoted.append(c);
+            }
+        }
+        return quoted.append('"').toString();
+    }
+}
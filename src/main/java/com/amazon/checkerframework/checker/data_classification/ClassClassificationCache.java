@@ -0,0 +1,186 @@
+// Copyright 2017 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+// SPDX-License-Identifier: Apache-2.0
+package com.amazon.checkerframework.checker.data_classification;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.Element;
+import org.checkerframework.checker.nullness.qual.Nullable;
+import org.checkerframework.javacutil.AnnotationMirrorMap;
+
+/**
+ * The cache of class types used by {@link DataClassificationAnnotatedTypeFactory#fromElement}.
+ *
+ * <p>This is an LRU cache like the ones the framework creates with {@code
+ * CollectionsPlume.createLruCache}, but it is sized independently of the framework-wide
+ * -AatfCacheSize option, and it counts hits, misses, evictions and the time spent re-inferring
+ * classes that were not in the cache, so that its size can be tuned for large modules.
+ *
+ * <p>Only the qualifier of each class is kept, as a byte code into a table of the distinct
+ * qualifiers seen, which holds the levels and any polymorphic qualifier with values. Caching the
+ * annotated types themselves kept large framework object graphs alive for every class. The
+ * factory re-materializes the type of a class from its declared type, which the framework caches,
+ * and the cached qualifier. Boxed bytes are shared, so an entry costs one map entry.
+ *
+ * <p>The keys stay boxed: elements only have identity, which no primitive key can stand for without
+ * collisions, so a primitive-keyed map would not save anything over the map entry itself.
+ */
+final class ClassClassificationCache {
+
+    /** The maximum number of classes held by the cache. */
+    private final int capacity;
+
+    /**
+     * The code of a class whose type is just its declared type: a class whose inference is in
+     * progress, see {@link #guard}, or that has no qualifier.
+     */
+    static final byte NO_QUALIFIER = -1;
+
+    /** The cached qualifier codes, in access order. */
+    private final Map<Element, Byte> entries;
+
+    /** The distinct qualifiers seen, indexed by code. */
+    private final List<AnnotationMirror> qualifiers = new ArrayList<>();
+
+    /** The code of each qualifier in {@link #qualifiers}. */
+    private final AnnotationMirrorMap<Byte> codes = new AnnotationMirrorMap<>();
+
+    /**
+     * Statistics. A miss is only counted when a class declared in source had to be inferred, not
+     * when a lookup for a class from a classfile (which is only cached here if it is in the class
+     * summary index) fails.
+     */
+    private long hits, misses, evictions, inferenceNanos;
+
+    /**
+     * Creates a new, empty cache.
+     *
+     * @param capacity the maximum number of classes to hold
+     */
+    ClassClassificationCache(final int capacity) {
+        this.capacity = capacity;
+        this.entries = new LinkedHashMap<Element, Byte>(16, 0.75f, true) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(final Map.Entry<Element, Byte> eldest) {
+                if (size() > ClassClassificationCache.this.capacity) {
+                    evictions++;
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * Looks up the qualifier of a class, recording a hit if it is found.
+     *
+     * @param elt the class element
+     * @return the code of the cached qualifier, to be decoded with {@link #qualifier}, or null if
+     *         the class is not in the cache
+     */
+    @Nullable
+    Byte get(final Element elt) {
+        Byte code = entries.get(elt);
+        if (code != null) {
+            hits++;
+        }
+        return code;
+    }
+
+    /**
+     * @param code the code of a cached qualifier
+     * @return the qualifier, or null for {@link #NO_QUALIFIER}
+     */
+    @Nullable
+    AnnotationMirror qualifier(final byte code) {
+        return code == NO_QUALIFIER ? null : qualifiers.get(code);
+    }
+
+    /**
+     * Caches the declared type of a class whose inference starts, so that the members that refer
+     * back to the class see its declared type instead of inferring it again. Unlike {@link #put},
+     * this needs no code in the table of qualifiers, so the guard is always in place.
+     *
+     * @param elt the class element
+     */
+    void guard(final Element elt) {
+        entries.put(elt, NO_QUALIFIER);
+    }
+
+    /**
+     * Caches the qualifier of a class. If the table of qualifiers is full, which takes more than
+     * a hundred distinct qualifiers, the class is not cached, and its {@link #guard} is dropped
+     * so that the class is inferred again rather than seen with its declared type.
+     *
+     * @param elt       the class element
+     * @param qualifier its qualifier, or null if it has none
+     */
+    void put(final Element elt, final @Nullable AnnotationMirror qualifier) {
+        Byte code = NO_QUALIFIER;
+        if (qualifier != null) {
+            code = codes.get(qualifier);
+            if (code == null) {
+                if (qualifiers.size() > Byte.MAX_VALUE) {
+                    entries.remove(elt);
+                    return;
+                }
+                code = (byte) qualifiers.size();
+                qualifiers.add(qualifier);
+                codes.put(qualifier, code);
+            }
+        }
+        entries.put(elt, code);
+    }
+
+    /**
+     * Records a miss: a class had to be inferred because it was not in the cache.
+     *
+     * @param nanos the time the inference took
+     */
+    void recordInference(final long nanos) {
+        misses++;
+        inferenceNanos += nanos;
+    }
+
+    /** @return the number of lookups that found their class */
+    long hits() {
+        return hits;
+    }
+
+    /** @return the number of classes that had to be inferred */
+    long misses() {
+        return misses;
+    }
+
+    /** @return the number of classes evicted to make room for others */
+    long evictions() {
+        return evictions;
+    }
+
+    /** @return the time spent inferring classes that were not cached, in nanoseconds */
+    long inferenceNanos() {
+        return inferenceNanos;
+    }
+
+    /** @return a one-line summary of the cache statistics, suitable for printing */
+    String statistics() {
+        long lookups = hits + misses;
+        return String.format(
+                "DCC class cache: capacity=%d, size=%d, qualifiers=%d, lookups=%d, hits=%d (%.1f%%), misses=%d,"
+                        + " evictions=%d, inference time=%.1f ms",
+                capacity,
+                entries.size(),
+                qualifiers.size(),
+                lookups,
+                hits,
+                lookups == 0 ? 0.0 : 100.0 * hits / lookups,
+                misses,
+                evictions,
+                inferenceNanos / 1e6);
+    }
+}
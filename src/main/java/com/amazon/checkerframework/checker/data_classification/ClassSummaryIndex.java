@@ -0,0 +1,120 @@
+// Copyright 2017 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+// SPDX-License-Identifier: Apache-2.0
+package com.amazon.checkerframework.checker.data_classification;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import org.checkerframework.checker.nullness.qual.Nullable;
+import org.checkerframework.javacutil.UserError;
+
+/**
+ * An index of the inferred classifications of classes that are only available as classfiles, such
+ * as the classes in dependency jars.
+ *
+ * <p>{@link DataClassificationAnnotatedTypeFactory#fromElement} can only infer the bound of a class
+ * whose source is being compiled, because the inference walks the class' members. For any other
+ * class it would fall back to the annotation written on the class declaration, which misses the
+ * classifications of the class' fields and methods. An index, produced ahead of time from the
+ * dependency's classfiles by {@link ClassSummaryIndexBuilder}, supplies the missing bound.
+ *
+ * <p>An index file starts with the line {@value #HEADER}, followed by one line per class: the
+ * class' binary name and the fully-qualified name of its inferred qualifier, separated by a single
+ * space. Classes whose inferred qualifier is the bottom of the hierarchy are omitted.
+ */
+final class ClassSummaryIndex {
+
+    /** The first line of every index file. Bumped whenever the format or the inference changes. */
+    static final String HEADER = "dcc-class-index-1";
+
+    /** The inferred qualifier names, keyed by the binary names of the classes. */
+    private final Map<String, String> qualifiers;
+
+    /**
+     * Creates an index from a map of binary names to qualifier names.
+     *
+     * @param qualifiers the inferred qualifier names, keyed by binary class names
+     */
+    ClassSummaryIndex(final Map<String, String> qualifiers) {
+        this.qualifiers = Collections.unmodifiableMap(qualifiers);
+    }
+
+    /**
+     * @param binaryName the binary name of a class
+     * @return the fully-qualified name of the class' inferred qualifier, or null if it isn't indexed
+     */
+    @Nullable
+    String get(final String binaryName) {
+        return qualifiers.get(binaryName);
+    }
+
+    /** @return the number of classes in the index */
+    int size() {
+        return qualifiers.size();
+    }
+
+    /**
+     * Reads one or more index files and merges them. If a class appears in several files, the first
+     * one wins, so the files should be listed in classpath order.
+     *
+     * @param paths the value of -AdccClassSummaryIndex: index files separated by the platform's path
+     *              separator
+     * @return the merged index
+     * @throws UserError if a file can't be read or isn't an index
+     */
+    static ClassSummaryIndex read(final String paths) {
+        Map<String, String> qualifiers = new HashMap<>();
+        for (String path : paths.split(File.pathSeparator)) {
+            if (path.isEmpty()) {
+                continue;
+            }
+            try (BufferedReader reader = Files.newBufferedReader(Paths.get(path), StandardCharsets.UTF_8)) {
+                if (!HEADER.equals(reader.readLine())) {
+                    throw new UserError("%s is not a DCC class summary index (expected %s on its first line)",
+                            path, HEADER);
+                }
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    int space = line.indexOf(' ');
+                    if (space <= 0 || space == line.length() - 1) {
+                        throw new UserError("Malformed line in class summary index %s: %s", path, line);
+                    }
+                    qualifiers.putIfAbsent(line.substring(0, space), line.substring(space + 1));
+                }
+            } catch (IOException e) {
+                throw new UserError("Cannot read class summary index %s: %s", path, e.getMessage());
+            }
+        }
+        return new ClassSummaryIndex(qualifiers);
+    }
+
+    /**
+     * Writes an index file. Entries are sorted by class name, so that the same classfiles always
+     * produce the same file.
+     *
+     * @param file       the file to write
+     * @param qualifiers the inferred qualifier names, keyed by binary class names
+     * @throws IOException if the file cannot be written
+     */
+    static void write(final Path file, final Map<String, String> qualifiers) throws IOException {
+        try (BufferedWriter writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            writer.write(HEADER);
+            writer.newLine();
+            for (Map.Entry<String, String> entry : new TreeMap<>(qualifiers).entrySet()) {
+                writer.write(entry.getKey());
+                writer.write(' ');
+                writer.write(entry.getValue());
+                writer.newLine();
+            }
+        }
+    }
+}
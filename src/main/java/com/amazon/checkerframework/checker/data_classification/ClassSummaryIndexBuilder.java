@@ -0,0 +1,531 @@
+// Copyright 2017 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+// SPDX-License-Identifier: Apache-2.0
+package com.amazon.checkerframework.checker.data_classification;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+/**
+ * Builds a {@link ClassSummaryIndex} from compiled classes, for use with -AdccClassSummaryIndex.
+ *
+ * <p>The builder applies the same rule as {@link DataClassificationAnnotatedTypeFactory#fromElement}
+ * does for classes in source: the bound of a class is the least upper bound of the qualifier on its
+ * declaration, the types of its instance fields and the return types of its instance methods
+ * (including the qualifiers on their type arguments and array components). It reads those
+ * qualifiers straight from the {@code Runtime[In]VisibleTypeAnnotations} attributes of the
+ * classfiles, without loading the classes or running javac. Only explicitly written qualifiers are recorded in a classfile, so the builder
+ * does not see the defaults the checker would have applied to unannotated members.
+ *
+ * <p>Usage:
+ *
+ * <pre>
+ * java -cp checker.jar:dataclassificationchecker.jar \
+ *     com.amazon.checkerframework.checker.data_classification.ClassSummaryIndexBuilder \
+ *     [-levels levels.txt] -o deps.dccidx dependency.jar classes/ ...
+ * </pre>
+ *
+ * Inputs may be jars, directories of classfiles or single classfiles. Entries that are not
+ * classfiles or can't be parsed are skipped, and listed on standard error. Pass the same -levels
+ * file as the -AdccLevels option of the compilations that will use the index.
+ */
+public final class ClassSummaryIndexBuilder {
+
+    /** The package of DCC's qualifiers, in internal form. */
+    private static final String QUAL_PACKAGE =
+            "com/amazon/checkerframework/checker/data_classification/qual/";
+
+    /** Access flags from the JVM specification. */
+    private static final int ACC_STATIC = 0x0008,
+            ACC_BRIDGE = 0x0040,
+            ACC_INTERFACE = 0x0200,
+            ACC_SYNTHETIC = 0x1000,
+            ACC_ANNOTATION = 0x2000,
+            ACC_ENUM = 0x4000,
+            ACC_MODULE = 0x8000;
+
+    /** Type annotation targets from the JVM specification. */
+    private static final int TARGET_FIELD = 0x13, TARGET_METHOD_RETURN = 0x14;
+
+    /** The level names, from bottom to top. */
+    private final List<String> levels;
+
+    /** The ordinals of the levels and their aliases, keyed by annotation descriptor. */
+    private final Map<String, Integer> ordinals = new HashMap<>();
+
+    /** The inferred qualifier names of the classes seen so far, keyed by binary name. */
+    private final Map<String, String> qualifiers = new HashMap<>();
+
+    /** The classfiles skipped so far, e.g. {@code deps.jar!/A.class: malformed classfile}. */
+    private final List<String> skipped = new ArrayList<>();
+
+    /**
+     * Creates a builder.
+     *
+     * @param levels the fully-qualified names of the levels, from bottom to top, as returned by
+     *               {@link ClassificationLattice#readLevelNames}
+     */
+    ClassSummaryIndexBuilder(final List<String> levels) {
+        this.levels = levels;
+        for (int i = 0; i < levels.size(); i++) {
+            ordinals.put(descriptor(levels.get(i)), i);
+        }
+        // The aliases have class retention, so they show up in RuntimeInvisibleTypeAnnotations.
+        aliasOf("AnyConfidentiality", "Critical");
+        aliasOf("NonCritical", "Restricted");
+        aliasOf("NonRestricted", "HighlyConfidential");
+        aliasOf("NonHighlyConfidential", "Confidential");
+        aliasOf("NonConfidential", "Public");
+    }
+
+    /**
+     * Registers an alias of a built-in level.
+     *
+     * @param alias the simple name of the alias
+     * @param level the simple name of the built-in level it stands for
+     */
+    private void aliasOf(final String alias, final String level) {
+        ordinals.put("L" + QUAL_PACKAGE + alias + ";", ordinals.get("L" + QUAL_PACKAGE + level + ";"));
+    }
+
+    /**
+     * @param qualifiedName the canonical name of an annotation
+     * @return the field descriptor of the annotation type, with nested types written as in the
+     *         canonical name
+     */
+    private static String descriptor(final String qualifiedName) {
+        return "L" + qualifiedName.replace('.', '/') + ";";
+    }
+
+    /** @return the inferred qualifier names of the classes added so far, keyed by binary name */
+    Map<String, String> qualifiers() {
+        return qualifiers;
+    }
+
+    /** @return the classfiles skipped so far, each followed by the reason */
+    List<String> skipped() {
+        return skipped;
+    }
+
+    /**
+     * Adds every class in a jar, a directory tree or a single classfile.
+     *
+     * @param input the path of the input
+     * @throws IOException if the input cannot be read
+     */
+    void add(final Path input) throws IOException {
+        if (Files.isDirectory(input)) {
+            List<Path> classFiles;
+            try (Stream<Path> files = Files.walk(input)) {
+                classFiles = files.filter(f -> f.toString().endsWith(".class")).collect(Collectors.toList());
+            }
+            for (Path classFile : classFiles) {
+                addClassFile(classFile);
+            }
+        } else if (input.toString().endsWith(".class")) {
+            addClassFile(input);
+        } else {
+            addJar(input);
+        }
+    }
+
+    /**
+     * Adds a single classfile, which is memory-mapped rather than copied onto the heap.
+     *
+     * @param classFile the path of the classfile
+     * @throws IOException if the file cannot be read
+     */
+    private void addClassFile(final Path classFile) throws IOException {
+        try (FileChannel channel = FileChannel.open(classFile, StandardOpenOption.READ)) {
+            addClass(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()), classFile.toString());
+        }
+    }
+
+    /**
+     * Adds the classes in a jar. Jar entries are usually compressed, so unlike single classfiles
+     * they can't be mapped; each one is inflated into a reused buffer instead.
+     *
+     * @param jar the path of the jar
+     * @throws IOException if the jar cannot be read
+     */
+    private void addJar(final Path jar) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(1 << 16);
+        byte[] chunk = new byte[1 << 16];
+        try (ZipFile zip = new ZipFile(jar.toFile())) {
+            Enumeration<? extends ZipEntry> entries = zip.entries();
+            while (entries.hasMoreElements()) {
+                ZipEntry entry = entries.nextElement();
+                String name = entry.getName();
+                if (!name.endsWith(".class") || name.startsWith("META-INF/")) {
+                    continue;
+                }
+                bytes.reset();
+                try (InputStream in = zip.getInputStream(entry)) {
+                    int n;
+                    while ((n = in.read(chunk)) > 0) {
+                        bytes.write(chunk, 0, n);
+                    }
+                }
+                addClass(ByteBuffer.wrap(bytes.toByteArray()), jar + "!/" + name);
+            }
+        }
+    }
+
+    /**
+     * Parses one classfile and records the inferred qualifier of the class it declares, if that is
+     * above the bottom of the hierarchy. Interfaces, enums, annotations and synthetic classes are
+     * skipped, since the checker never infers a bound for them either.
+     *
+     * @param buf    the contents of the classfile
+     * @param source where the classfile came from, for {@link #skipped}
+     */
+    private void addClass(final ByteBuffer buf, final String source) {
+        try {
+            if (buf.getInt() != 0xCAFEBABE) {
+                skipped.add(source + ": not a classfile");
+                return;
+            }
+            buf.getInt(); // minor and major version
+            ConstantPool pool = new ConstantPool(buf);
+            int access = u2(buf);
+            String className = pool.className(u2(buf));
+            buf.getShort(); // super_class
+            skip(buf, 2 * u2(buf)); // interfaces
+            if ((access & (ACC_INTERFACE | ACC_ANNOTATION | ACC_ENUM | ACC_SYNTHETIC | ACC_MODULE)) != 0) {
+                return;
+            }
+
+            int bound = scanMembers(buf, pool, TARGET_FIELD);
+            bound = Math.max(bound, scanMembers(buf, pool, TARGET_METHOD_RETURN));
+            int attributeCount = u2(buf);
+            for (int i = 0; i < attributeCount; i++) {
+                String name = pool.utf8(u2(buf));
+                int length = buf.getInt();
+                int end = buf.position() + length;
+                if ("RuntimeVisibleAnnotations".equals(name) || "RuntimeInvisibleAnnotations".equals(name)) {
+                    bound = Math.max(bound, scanAnnotations(buf, pool));
+                }
+                buf.position(end);
+            }
+
+            if (bound > 0) {
+                qualifiers.put(className.replace('/', '.'), levels.get(bound));
+            }
+        } catch (BufferUnderflowException | IllegalArgumentException e) {
+            skipped.add(source + ": malformed classfile");
+        }
+    }
+
+    /**
+     * Reads the fields or the methods of a class and returns the highest level written on the type
+     * of an instance field or the return type of an instance method.
+     *
+     * @param buf    positioned at the field or method count
+     * @param pool   the constant pool of the class
+     * @param target {@link #TARGET_FIELD} or {@link #TARGET_METHOD_RETURN}
+     * @return the highest ordinal found, or 0 if there is none
+     */
+    private int scanMembers(final ByteBuffer buf, final ConstantPool pool, final int target) {
+        int bound = 0;
+        int memberCount = u2(buf);
+        for (int i = 0; i < memberCount; i++) {
+            int access = u2(buf);
+            buf.getInt(); // name and descriptor
+            boolean relevant = (access & (ACC_STATIC | ACC_SYNTHETIC | ACC_BRIDGE)) == 0;
+            int attributeCount = u2(buf);
+            for (int j = 0; j < attributeCount; j++) {
+                int nameIndex = u2(buf);
+                int length = buf.getInt();
+                int end = buf.position() + length;
+                if (relevant) {
+                    String name = pool.utf8(nameIndex);
+                    if ("RuntimeVisibleTypeAnnotations".equals(name)
+                            || "RuntimeInvisibleTypeAnnotations".equals(name)) {
+                        bound = Math.max(bound, scanTypeAnnotations(buf, pool, target));
+                    }
+                }
+                buf.position(end);
+            }
+        }
+        return bound;
+    }
+
+    /**
+     * Reads a type annotations attribute.
+     *
+     * @param buf    positioned at the annotation count
+     * @param pool   the constant pool of the class
+     * @param target the only target type to consider
+     * @return the highest ordinal of the annotations with that target, or 0 if there is none
+     */
+    private int scanTypeAnnotations(final ByteBuffer buf, final ConstantPool pool, final int target) {
+        int bound = 0;
+        int count = u2(buf);
+        for (int i = 0; i < count; i++) {
+            int targetType = u1(buf);
+            skipTargetInfo(buf, targetType);
+            skip(buf, 2 * u1(buf)); // type_path; any component counts, as in the checker
+            int ordinal = ordinal(pool.utf8(u2(buf)));
+            skipElementValuePairs(buf);
+            if (targetType == target) {
+                bound = Math.max(bound, ordinal);
+            }
+        }
+        return bound;
+    }
+
+    /**
+     * Reads a declaration annotations attribute.
+     *
+     * @param buf  positioned at the annotation count
+     * @param pool the constant pool of the class
+     * @return the highest ordinal of the annotations, or 0 if there is none
+     */
+    private int scanAnnotations(final ByteBuffer buf, final ConstantPool pool) {
+        int bound = 0;
+        int count = u2(buf);
+        for (int i = 0; i < count; i++) {
+            bound = Math.max(bound, ordinal(pool.utf8(u2(buf))));
+            skipElementValuePairs(buf);
+        }
+        return bound;
+    }
+
+    /**
+     * @param descriptor the descriptor of an annotation type
+     * @return the ordinal of the level, or 0 if the annotation is not a level (which includes
+     *         {@code @PolyClassification}, whose meaning depends on the call site)
+     */
+    private int ordinal(final String descriptor) {
+        Integer ordinal = ordinals.get(descriptor.replace('$', '/'));
+        return ordinal == null ? 0 : ordinal;
+    }
+
+    /**
+     * Skips the target_info of a type annotation (JVMS 4.7.20.1).
+     *
+     * @param buf        positioned at the target_info
+     * @param targetType the target_type that precedes it
+     */
+    private static void skipTargetInfo(final ByteBuffer buf, final int targetType) {
+        switch (targetType) {
+            case 0x00: case 0x01: case 0x16:
+                skip(buf, 1);
+                break;
+            case 0x10: case 0x11: case 0x12: case 0x17:
+            case 0x42: case 0x43: case 0x44: case 0x45: case 0x46:
+                skip(buf, 2);
+                break;
+            case 0x13: case 0x14: case 0x15:
+                break;
+            case 0x40: case 0x41:
+                skip(buf, 6 * u2(buf));
+                break;
+            case 0x47: case 0x48: case 0x49: case 0x4A: case 0x4B:
+                skip(buf, 3);
+                break;
+            default:
+                throw new IllegalArgumentException("unknown type annotation target " + targetType);
+        }
+    }
+
+    /**
+     * Skips the element-value pairs of an annotation.
+     *
+     * @param buf positioned at the pair count
+     */
+    private static void skipElementValuePairs(final ByteBuffer buf) {
+        int pairs = u2(buf);
+        for (int i = 0; i < pairs; i++) {
+            skip(buf, 2); // element_name_index
+            skipElementValue(buf);
+        }
+    }
+
+    /**
+     * Skips an element value (JVMS 4.7.16.1).
+     *
+     * @param buf positioned at the element value's tag
+     */
+    private static void skipElementValue(final ByteBuffer buf) {
+        int tag = u1(buf);
+        switch (tag) {
+            case 'e':
+                skip(buf, 4);
+                break;
+            case '@':
+                skip(buf, 2);
+                skipElementValuePairs(buf);
+                break;
+            case '[':
+                int values = u2(buf);
+                for (int i = 0; i < values; i++) {
+                    skipElementValue(buf);
+                }
+                break;
+            default:
+                skip(buf, 2);
+                break;
+        }
+    }
+
+    /**
+     * @param buf a buffer
+     * @return the next unsigned byte
+     */
+    private static int u1(final ByteBuffer buf) {
+        return buf.get() & 0xFF;
+    }
+
+    /**
+     * @param buf a buffer
+     * @return the next unsigned two-byte value
+     */
+    private static int u2(final ByteBuffer buf) {
+        return buf.getShort() & 0xFFFF;
+    }
+
+    /**
+     * @param buf   a buffer
+     * @param bytes the number of bytes to skip
+     */
+    private static void skip(final ByteBuffer buf, final int bytes) {
+        buf.position(buf.position() + bytes);
+    }
+
+    /**
+     * The parts of a classfile's constant pool the builder needs: the offsets of its UTF-8 entries
+     * and the name indices of its class entries. Strings are only decoded when they are used.
+     */
+    private static final class ConstantPool {
+
+        /** The buffer holding the classfile. */
+        private final ByteBuffer buf;
+
+        /** For each UTF-8 entry, the offset of its length field; for each class entry, its name index. */
+        private final int[] offsets;
+
+        /** The decoded UTF-8 entries, filled in lazily. */
+        private final @Nullable String[] strings;
+
+        /**
+         * Reads the constant pool.
+         *
+         * @param buf positioned at the constant pool count; left positioned after the pool
+         */
+        ConstantPool(final ByteBuffer buf) {
+            this.buf = buf;
+            int count = u2(buf);
+            this.offsets = new int[count];
+            this.strings = new String[count];
+            for (int i = 1; i < count; i++) {
+                int tag = u1(buf);
+                switch (tag) {
+                    case 1: // Utf8
+                        offsets[i] = buf.position();
+                        skip(buf, u2(buf));
+                        break;
+                    case 7: // Class
+                        offsets[i] = u2(buf);
+                        break;
+                    case 8: case 16: case 19: case 20: // String, MethodType, Module, Package
+                        skip(buf, 2);
+                        break;
+                    case 15: // MethodHandle
+                        skip(buf, 3);
+                        break;
+                    case 3: case 4: case 9: case 10: case 11: case 12: case 17: case 18:
+                        skip(buf, 4);
+                        break;
+                    case 5: case 6: // Long and Double take two slots
+                        skip(buf, 8);
+                        i++;
+                        break;
+                    default:
+                        throw new IllegalArgumentException("unknown constant pool tag " + tag);
+                }
+            }
+        }
+
+        /**
+         * @param index the index of a UTF-8 entry
+         * @return its value
+         */
+        String utf8(final int index) {
+            String s = strings[index];
+            if (s == null) {
+                int offset = offsets[index];
+                int length = buf.getShort(offset) & 0xFFFF;
+                byte[] bytes = new byte[length];
+                for (int i = 0; i < length; i++) {
+                    bytes[i] = buf.get(offset + 2 + i);
+                }
+                // Names and descriptors never contain the characters for which modified UTF-8
+                // differs from standard UTF-8.
+                s = new String(bytes, StandardCharsets.UTF_8);
+                strings[index] = s;
+            }
+            return s;
+        }
+
+        /**
+         * @param index the index of a class entry
+         * @return the class' name, in internal form
+         */
+        String className(final int index) {
+            return utf8(offsets[index]);
+        }
+    }
+
+    /**
+     * Builds an index file from the command line; see the class documentation.
+     *
+     * @param args the command-line arguments
+     * @throws IOException if an input can't be read or the index can't be written
+     */
+    public static void main(final String[] args) throws IOException {
+        String levelsFile = null;
+        Path output = null;
+        List<Path> inputs = new ArrayList<>();
+        for (int i = 0; i < args.length; i++) {
+            if ("-levels".equals(args[i]) && i + 1 < args.length) {
+                levelsFile = args[++i];
+            } else if ("-o".equals(args[i]) && i + 1 < args.length) {
+                output = Paths.get(args[++i]);
+            } else {
+                inputs.add(Paths.get(args[i]));
+            }
+        }
+        if (output == null || inputs.isEmpty()) {
+            System.err.println("Usage: ClassSummaryIndexBuilder [-levels <file>] -o <index> <jar|dir|classfile>...");
+            System.exit(1);
+        }
+        ClassSummaryIndexBuilder builder =
+                new ClassSummaryIndexBuilder(ClassificationLattice.readLevelNames(levelsFile));
+        for (Path input : inputs) {
+            builder.add(input);
+        }
+        for (String skip : builder.skipped()) {
+            System.err.println("Skipping " + skip);
+        }
+        ClassSummaryIndex.write(output, builder.qualifiers());
+    }
+}
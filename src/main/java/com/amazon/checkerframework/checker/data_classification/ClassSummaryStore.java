@@ -0,0 +1,164 @@
+// Copyright 2017 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+// SPDX-License-Identifier: Apache-2.0
+package com.amazon.checkerframework.checker.data_classification;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+/**
+ * A persistent, on-disk store of inferred class classifications, used to avoid re-running the
+ * member walk in {@link DataClassificationAnnotatedTypeFactory#fromElement} for classes whose
+ * source has not changed since a previous compilation.
+ *
+ * <p>Each class gets one small file in the store directory, named after the class' binary name.
+ * The file records a content hash of the compilation unit that declared the class and the
+ * fully-qualified name of the inferred qualifier. An entry is only used if the hash recorded in it
+ * matches the hash of the current compilation unit; otherwise it is stale and is overwritten once
+ * the class has been re-inferred.
+ */
+final class ClassSummaryStore {
+
+    /**
+     * Bumped whenever the inference rules or the file format change, so that entries written by an
+     * older checker are never trusted.
+     */
+    private static final String FORMAT_VERSION = "dcc-summary-1";
+
+    /** The suffix of each entry file. */
+    private static final String ENTRY_SUFFIX = ".dcc";
+
+    /** The directory holding the entries. */
+    private final Path directory;
+
+    /**
+     * Extra data mixed into every content hash. Anything that changes the result of inference
+     * without changing the source (e.g. checker options) belongs here.
+     */
+    private final String salt;
+
+    /**
+     * Creates a store rooted at the given directory, creating it if necessary.
+     *
+     * @param directory the directory holding the entries
+     * @param salt      extra data that must match for an entry to be reused
+     * @throws IOException if the directory cannot be created
+     */
+    ClassSummaryStore(final Path directory, final String salt) throws IOException {
+        this.directory = Files.createDirectories(directory);
+        this.salt = FORMAT_VERSION + '\n' + salt;
+    }
+
+    /**
+     * Computes the content hash of a compilation unit, as used for the keys of this store.
+     *
+     * @param source the full text of the compilation unit
+     * @return a hex-encoded digest of the salted source text
+     */
+    String contentHash(final CharSequence source) {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            // Every Java platform is required to support SHA-256.
+            throw new AssertionError(e);
+        }
+        digest.update(salt.getBytes(StandardCharsets.UTF_8));
+        digest.update(source.toString().getBytes(StandardCharsets.UTF_8));
+        StringBuilder hex = new StringBuilder();
+        for (byte b : digest.digest()) {
+            hex.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+        }
+        return hex.toString();
+    }
+
+    /**
+     * Looks up the inferred qualifier of a class.
+     *
+     * @param binaryName  the binary name of the class
+     * @param contentHash the content hash of the class' current compilation unit
+     * @return the fully-qualified name of the stored qualifier, or null if there is no entry or the
+     *         entry is stale
+     * @throws IOException if the entry exists but cannot be read
+     */
+    @Nullable
+    String load(final String binaryName, final String contentHash) throws IOException {
+        try (BufferedReader reader = Files.newBufferedReader(entry(binaryName), StandardCharsets.UTF_8)) {
+            String storedHash = reader.readLine();
+            String qualifier = reader.readLine();
+            if (!contentHash.equals(storedHash) || qualifier == null || qualifier.isEmpty()) {
+                return null;
+            }
+            return qualifier;
+        } catch (NoSuchFileException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Looks up the inferred qualifier of a class as of the compilation that last stored it, whether
+     * or not the class' source has changed since.
+     *
+     * @param binaryName the binary name of the class
+     * @return the fully-qualified name of the stored qualifier, or null if there is no entry
+     * @throws IOException if the entry exists but cannot be read
+     */
+    @Nullable
+    String loadLastStored(final String binaryName) throws IOException {
+        try (BufferedReader reader = Files.newBufferedReader(entry(binaryName), StandardCharsets.UTF_8)) {
+            reader.readLine();
+            String qualifier = reader.readLine();
+            return qualifier == null || qualifier.isEmpty() ? null : qualifier;
+        } catch (NoSuchFileException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Records the inferred qualifier of a class, replacing any previous entry. The entry is written
+     * to a temporary file first and then moved into place, so concurrent compilations sharing a
+     * store never observe a partially-written entry.
+     *
+     * @param binaryName    the binary name of the class
+     * @param contentHash   the content hash of the class' current compilation unit
+     * @param qualifierName the fully-qualified name of the inferred qualifier
+     * @throws IOException if the entry cannot be written
+     */
+    void store(final String binaryName, final String contentHash, final String qualifierName)
+            throws IOException {
+        Path target = entry(binaryName);
+        Path temp = Files.createTempFile(directory, binaryName, ".tmp");
+        try {
+            try (BufferedWriter writer = Files.newBufferedWriter(temp, StandardCharsets.UTF_8)) {
+                writer.write(contentHash);
+                writer.newLine();
+                writer.write(qualifierName);
+                writer.newLine();
+            }
+            try {
+                Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    /**
+     * @param binaryName the binary name of a class
+     * @return the path of the entry file for that class
+     */
+    private Path entry(final String binaryName) {
+        return directory.resolve(binaryName + ENTRY_SUFFIX);
+    }
+}
@@ -0,0 +1,100 @@
+// Copyright 2017 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+// SPDX-License-Identifier: Apache-2.0
+package com.amazon.checkerframework.checker.data_classification;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Set;
+import java.util.TreeSet;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.TypeElement;
+
+/**
+ * The classification ABI of the classes checked in a compilation, for -AdccAbiFingerprint: the
+ * qualifiers of every non-private class, field, method and constructor, as {@link
+ * DataClassificationAnnotatedTypeFactory#fromElement} declares or infers them. Method bodies and
+ * private members don't contribute, so a module whose fingerprint is unchanged doesn't need its
+ * dependents to be re-checked.
+ *
+ * <p>The surface is kept as a sorted set of lines, one per member, so the fingerprint doesn't
+ * depend on the order in which javac checks the classes.
+ */
+final class ClassificationAbi {
+
+    /** The version of the surface format, part of the digest so that format changes are visible. */
+    private static final String FORMAT_VERSION = "1";
+
+    /** The surface lines collected so far. */
+    private final Set<String> surface = new TreeSet<>();
+
+    /**
+     * Adds a class, its members and its non-private nested classes to the surface.
+     *
+     * @param type    a class checked in this compilation
+     * @param factory the factory that computes the class' qualifiers
+     */
+    void addClass(final TypeElement type, final DataClassificationAnnotatedTypeFactory factory) {
+        if (type.getModifiers().contains(Modifier.PRIVATE)) {
+            return;
+        }
+        String className = type.getQualifiedName().toString();
+        surface.add(className + " " + factory.getAnnotatedType(type));
+        for (Element member : type.getEnclosedElements()) {
+            if (member.getModifiers().contains(Modifier.PRIVATE)) {
+                continue;
+            }
+            if (member instanceof TypeElement) {
+                addClass((TypeElement) member, factory);
+            } else if (member.getKind() == ElementKind.FIELD || member.getKind() == ElementKind.ENUM_CONSTANT
+                    || member.getKind() == ElementKind.METHOD || member.getKind() == ElementKind.CONSTRUCTOR) {
+                surface.add(className + "#" + member + " " + factory.getAnnotatedType(member));
+            }
+        }
+    }
+
+    /** @return the hex-encoded SHA-256 digest of the surface */
+    String fingerprint() {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            // Every Java platform is required to support SHA-256.
+            throw new AssertionError(e);
+        }
+        digest.update((FORMAT_VERSION + '\n').getBytes(StandardCharsets.UTF_8));
+        for (String line : surface) {
+            digest.update((line + '\n').getBytes(StandardCharsets.UTF_8));
+        }
+        StringBuilder hex = new StringBuilder();
+        for (byte b : digest.digest()) {
+            hex.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+        }
+        return hex.toString();
+    }
+
+    /**
+     * Writes the fingerprint to a file. The file is left untouched if it already holds the same
+     * fingerprint, so build tools that compare modification times also see it as unchanged.
+     *
+     * @param file the fingerprint file
+     * @throws IOException if the file can't be written
+     */
+    void write(final Path file) throws IOException {
+        byte[] contents = (fingerprint() + '\n').getBytes(StandardCharsets.UTF_8);
+        if (Files.isRegularFile(file) && Arrays.equals(Files.readAllBytes(file), contents)) {
+            return;
+        }
+        Path parent = file.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        Files.write(file, contents);
+    }
+}
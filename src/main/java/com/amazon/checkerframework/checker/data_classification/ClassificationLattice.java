@@ -0,0 +1,184 @@
+// Copyright 2017 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+// SPDX-License-Identifier: Apache-2.0
+package com.amazon.checkerframework.checker.data_classification;
+
+import com.amazon.checkerframework.checker.data_classification.qual.Confidential;
+import com.amazon.checkerframework.checker.data_classification.qual.Critical;
+import com.amazon.checkerframework.checker.data_classification.qual.HighlyConfidential;
+import com.amazon.checkerframework.checker.data_classification.qual.Public;
+import com.amazon.checkerframework.checker.data_classification.qual.Restricted;
+import java.io.IOException;
+import java.lang.annotation.Annotation;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.Element;
+import org.checkerframework.checker.nullness.qual.Nullable;
+import org.checkerframework.javacutil.UserError;
+
+/**
+ * The classification levels of DCC as a precomputed total order.
+ *
+ * <p>Apart from {@code @PolyClassification}, DCC's qualifiers form a chain, so subtyping, least
+ * upper bounds and greatest lower bounds between them reduce to comparing the levels' positions in
+ * the chain. This class maps each level to its ordinal (0 for the bottom, {@code @Public}) and back
+ * to the canonical AnnotationMirror for that level, so that the qualifier hierarchy can answer
+ * those queries without consulting the framework's QualifierKind tables.
+ *
+ * <p>By default the levels are {@code @Public <: @Confidential <: @HighlyConfidential <:
+ * @Restricted <: @Critical}. An organization can declare its own chain (for instance to add an
+ * {@code @Internal} level between {@code @Public} and {@code @Confidential}) in a file passed with
+ * -AdccLevels; see {@link #loadLevels}.
+ */
+final class ClassificationLattice {
+
+    /** The built-in levels, from bottom to top. */
+    static final List<Class<? extends Annotation>> DEFAULT_LEVELS =
+            Collections.unmodifiableList(Arrays.asList(
+                    Public.class,
+                    Confidential.class,
+                    HighlyConfidential.class,
+                    Restricted.class,
+                    Critical.class));
+
+    /** The annotation type elements of the levels, indexed by ordinal. */
+    private final Element[] levelElements;
+
+    /** The canonical annotation mirrors of the levels, indexed by ordinal. */
+    private final AnnotationMirror[] levelMirrors;
+
+    /**
+     * Creates a lattice from the canonical mirrors of its levels.
+     *
+     * @param levels the canonical mirrors of the levels, from bottom to top
+     */
+    ClassificationLattice(final List<AnnotationMirror> levels) {
+        this.levelMirrors = levels.toArray(new AnnotationMirror[0]);
+        this.levelElements = new Element[levelMirrors.length];
+        for (int i = 0; i < levelMirrors.length; i++) {
+            levelElements[i] = levelMirrors[i].getAnnotationType().asElement();
+        }
+    }
+
+    /**
+     * Returns the position of a qualifier in the chain. Annotation type elements are unique within a
+     * compilation, so this is a handful of reference comparisons.
+     *
+     * @param anno a qualifier
+     * @return the ordinal of the qualifier, or -1 if it is not one of the levels (i.e. it is
+     *         polymorphic, or not a DCC qualifier at all)
+     */
+    int ordinal(final AnnotationMirror anno) {
+        Element annoElement = anno.getAnnotationType().asElement();
+        for (int i = 0; i < levelElements.length; i++) {
+            if (levelElements[i] == annoElement) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * @param ordinal the position of a level in the chain
+     * @return the canonical mirror of that level
+     */
+    AnnotationMirror level(final int ordinal) {
+        return levelMirrors[ordinal];
+    }
+
+    /** @return the ordinal of the top level */
+    int top() {
+        return levelMirrors.length - 1;
+    }
+
+    /** @return the number of levels */
+    int size() {
+        return levelMirrors.length;
+    }
+
+    /**
+     * Reads the chain of levels from a configuration file. The file lists the fully-qualified names
+     * of the level annotations, one per line, from the least to the most sensitive. Blank lines and
+     * lines starting with {@code #} are ignored. The chain must contain the built-in levels in their
+     * usual order, starting with {@code @Public} and ending with {@code @Critical}, since the
+     * defaulting rules, the aliases and {@code @PolyClassification} rely on them; custom levels can
+     * be placed anywhere in between, and the file's order overrides the one implied by their
+     * {@code @SubtypeOf} meta-annotations.
+     *
+     * @param configFile  the path passed with -AdccLevels, or null to use {@link #DEFAULT_LEVELS}
+     * @param classLoader the loader to find custom level annotations with
+     * @return the level annotation classes, from bottom to top
+     * @throws UserError if the file can't be read or doesn't describe a valid chain
+     */
+    static List<Class<? extends Annotation>> loadLevels(
+            final @Nullable String configFile, final ClassLoader classLoader) {
+        if (configFile == null || configFile.isEmpty()) {
+            return DEFAULT_LEVELS;
+        }
+        List<Class<? extends Annotation>> levels = new ArrayList<>();
+        for (String name : readLevelNames(configFile)) {
+            Class<?> levelClass;
+            try {
+                levelClass = Class.forName(name, true, classLoader);
+            } catch (ClassNotFoundException e) {
+                throw new UserError("Classification level %s in %s is not on the processor path",
+                        name, configFile);
+            }
+            if (!levelClass.isAnnotation()) {
+                throw new UserError("Classification level %s in %s is not an annotation", name, configFile);
+            }
+            levels.add(levelClass.asSubclass(Annotation.class));
+        }
+        return Collections.unmodifiableList(levels);
+    }
+
+    /**
+     * Reads the names of the levels from a configuration file in the format described in {@link
+     * #loadLevels}, without loading the annotation classes. Tools that only see classfiles, such as
+     * {@link ClassSummaryIndexBuilder}, use this to order the levels.
+     *
+     * @param configFile the path of the file, or null to use {@link #DEFAULT_LEVELS}
+     * @return the fully-qualified names of the levels, from bottom to top
+     * @throws UserError if the file can't be read or doesn't describe a valid chain
+     */
+    static List<String> readLevelNames(final @Nullable String configFile) {
+        List<String> builtInNames = new ArrayList<>();
+        for (Class<? extends Annotation> level : DEFAULT_LEVELS) {
+            builtInNames.add(level.getCanonicalName());
+        }
+        if (configFile == null || configFile.isEmpty()) {
+            return Collections.unmodifiableList(builtInNames);
+        }
+        List<String> lines;
+        try {
+            lines = Files.readAllLines(Paths.get(configFile), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new UserError("Cannot read -AdccLevels file %s: %s", configFile, e.getMessage());
+        }
+        List<String> levels = new ArrayList<>();
+        for (String line : lines) {
+            String name = line.trim();
+            if (name.isEmpty() || name.startsWith("#")) {
+                continue;
+            }
+            if (levels.contains(name)) {
+                throw new UserError("Classification level %s is listed twice in %s", name, configFile);
+            }
+            levels.add(name);
+        }
+        List<String> builtIns = new ArrayList<>(levels);
+        builtIns.retainAll(builtInNames);
+        if (!builtIns.equals(builtInNames)
+                || !levels.get(0).equals(builtInNames.get(0))
+                || !levels.get(levels.size() - 1).equals(builtInNames.get(builtInNames.size() - 1))) {
+            throw new UserError("The classification levels in %s must include all of %s, in that order,"
+                    + " starting with @Public and ending with @Critical", configFile, DEFAULT_LEVELS);
+        }
+        return Collections.unmodifiableList(levels);
+    }
+}
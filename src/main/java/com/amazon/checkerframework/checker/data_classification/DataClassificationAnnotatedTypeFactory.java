@@ -14,27 +14,50 @@ import com.amazon.checkerframework.checker.data_classification.qual.PolyClassifi
 import com.amazon.checkerframework.checker.data_classification.qual.Public;
 import com.amazon.checkerframework.checker.data_classification.qual.Restricted;
 import com.sun.source.tree.ClassTree;
+import com.sun.source.tree.CompilationUnitTree;
 import com.sun.source.tree.MethodTree;
 import com.sun.source.tree.Tree;
+import com.sun.source.util.TreePath;
+import java.io.IOException;
 import java.lang.annotation.Annotation;
+import java.nio.file.Paths;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
 import java.util.Set;
+import java.util.TreeSet;
 import org.checkerframework.javacutil.BugInCF;
 import org.checkerframework.javacutil.TypeSystemError;
+import org.checkerframework.javacutil.UserError;
 import javax.annotation.processing.ProcessingEnvironment;
 import javax.lang.model.element.AnnotationMirror;
 import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
 import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.ArrayType;
+import javax.lang.model.type.DeclaredType;
 import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.type.TypeVariable;
 import javax.lang.model.util.Elements;
+import javax.tools.Diagnostic;
 
 import org.checkerframework.checker.nullness.qual.Nullable;
+import org.checkerframework.framework.util.DefaultQualifierKindHierarchy;
 import org.checkerframework.framework.util.QualifierKind;
+import org.checkerframework.framework.util.QualifierKindHierarchy;
 //import org.checkerframework.checker.nullness.qual;
 import org.checkerframework.common.basetype.BaseAnnotatedTypeFactory;
 import org.checkerframework.common.basetype.BaseTypeChecker;
@@ -49,9 +72,9 @@ import org.checkerframework.framework.type.ElementQualifierHierarchy;
 //import org.checkerframework.framework.util.MultiGraphQualifierHierarchy.MultiGraphFactory;
 import org.checkerframework.javacutil.AnnotationBuilder;
 import org.checkerframework.javacutil.AnnotationUtils;
-import org.checkerframework.javacutil.CollectionUtils;
 import org.checkerframework.javacutil.ElementUtils;
 import org.checkerframework.javacutil.TreeUtils;
+import org.checkerframework.org.plumelib.util.CollectionsPlume;
 import org.checkerframework.javacutil.BugInCF;
 import org.checkerframework.framework.util.QualifierKind;
 
@@ -62,14 +85,70 @@ import org.checkerframework.framework.util.QualifierKind;
  */
 public class DataClassificationAnnotatedTypeFactory extends BaseAnnotatedTypeFactory {
 
+    /** The options that change the bounds inferred from a class' members, for the summary store. */
+    private static final Set<String> SUMMARY_OPTIONS = Collections.unmodifiableSet(new HashSet<>(Arrays.asList(
+            "stubs", "mergeStubsWithSource", "dccStubIndex", "dccLevels")));
+
+    /** The canonical @PolyClassification mirrors, one per distinct set of values. */
+    private final PolyClassificationMirrors polyMirrors = new PolyClassificationMirrors(processingEnv);
+
     /** The canonical representations of the annotations supported by DCC. */
     private final AnnotationMirror critical = AnnotationBuilder.fromClass(elements, Critical.class),
             restricted = AnnotationBuilder.fromClass(elements, Restricted.class),
             highlyConfidential = AnnotationBuilder.fromClass(elements, HighlyConfidential.class),
             confidential = AnnotationBuilder.fromClass(elements, Confidential.class),
             publik = AnnotationBuilder.fromClass(elements, Public.class),
-            poly = newPolyAnnotation(""),
-            polyUse = newPolyAnnotation("use");
+            poly = polyMirrors.get(""),
+            polyUse = polyMirrors.get("use");
+
+    /**
+     * The persistent store of inferred class classifications, or null if -AdccSummaryCache was not
+     * passed (or the store could not be opened).
+     */
+    private final @Nullable ClassSummaryStore summaryStore;
+
+    /**
+     * Content hashes of the compilation units seen so far, so that each source file is only read and
+     * hashed once even if it declares many classes. Only used when {@link #summaryStore} is non-null.
+     */
+    private final Map<CompilationUnitTree, String> compilationUnitHashes = new HashMap<>();
+
+    /**
+     * The inferred classifications shared with concurrent compilations of the same sources, or null
+     * unless the checker was created by {@link ParallelChecker}.
+     */
+    private final @Nullable SharedClassSummaries sharedSummaries;
+
+    /**
+     * The inferred classifications of classes that are only available as classfiles, or null if
+     * -AdccClassSummaryIndex was not passed.
+     */
+    private final @Nullable ClassSummaryIndex classSummaryIndex;
+
+    /**
+     * The supertype-aware class inference, or null unless -AdccInferenceMode=hierarchy was passed.
+     */
+    private final @Nullable HierarchyClassInference hierarchyInference;
+
+    /**
+     * The precompiled stub annotations of JDK methods, or null unless -AdccStubIndex was passed.
+     */
+    private final @Nullable StubIndex stubIndex;
+
+    /**
+     * The mirror of each annotation in {@link #stubIndex}, by 1-based index; built on first use,
+     * once the aliases are registered.
+     */
+    private @Nullable AnnotationMirror @Nullable [] stubIndexAnnotations;
+
+    /**
+     * The {@link #stubIndex} entry of each method looked up so far, or -1 if it has none, so that
+     * the key of a method is built at most once per compilation.
+     */
+    private final Map<ExecutableElement, Integer> stubIndexEntries = new HashMap<>();
+
+    /** The counters for the -AdccStats report, or null unless that option was passed. */
+    private final @Nullable CheckerStatistics statistics;
 
     /**
      * A boilerplate contructor. Follows the standard CF pattern. Also aliases
@@ -84,9 +163,89 @@ public class DataClassificationAnnotatedTypeFactory extends BaseAnnotatedTypeFac
         addAliasedTypeAnnotation(NonRestricted.class, highlyConfidential);
         addAliasedTypeAnnotation(NonHighlyConfidential.class, confidential);
         addAliasedTypeAnnotation(NonConfidential.class, publik);
+        this.summaryStore = openSummaryStore(checker.getOption("dccSummaryCache"));
+        this.sharedSummaries = checker instanceof DataClassificationChecker
+                ? ((DataClassificationChecker) checker).getSharedSummaries()
+                : null;
+        String indexFiles = checker.getOption("dccClassSummaryIndex");
+        this.classSummaryIndex = indexFiles == null ? null : SharedIndexes.classSummaryIndex(indexFiles);
+        this.hierarchyInference = createHierarchyInference(checker.getOption("dccInferenceMode", "members"));
+        this.stubIndex = checker.hasOption("dccStubIndex") ? loadStubIndex(checker.getOption("dccStubIndex")) : null;
+        this.statistics = checker.hasOption("dccStats") ? new CheckerStatistics() : null;
         this.postInit();
     }
 
+    /**
+     * Loads the index requested by -AdccStubIndex, emitting a stub load event.
+     *
+     * @param file the value of the option
+     * @return the index
+     */
+    private static StubIndex loadStubIndex(final @Nullable String file) {
+        Object event = CheckerEvents.INSTANCE.beginStubLoad();
+        StubIndex index = SharedIndexes.stubIndex(file);
+        if (event != null) {
+            CheckerEvents.INSTANCE.commitStubLoad(event, file == null || file.isEmpty() ? "bundled index" : file,
+                    index.size());
+        }
+        return index;
+    }
+
+    @Override
+    protected void parseAnnotationFiles() {
+        Object event = CheckerEvents.INSTANCE.beginStubLoad();
+        super.parseAnnotationFiles();
+        if (event != null) {
+            String stubs = checker.getOption("stubs");
+            CheckerEvents.INSTANCE.commitStubLoad(event, stubs == null ? "default stub files" : stubs, -1);
+        }
+    }
+
+    /**
+     * Opens the persistent class summary store, if one was requested. Failing to open the store is
+     * not fatal: the checker just falls back to inferring every class.
+     *
+     * <p>The store is salted with the checker build and the options that change what a class'
+     * members are inferred as, i.e. the lattice and the stubs, including the contents of their
+     * files.
+     *
+     * @param directory the value of -AdccSummaryCache, or null if the option was not passed
+     * @return the store, or null if none was requested or it could not be opened
+     */
+    private @Nullable ClassSummaryStore openSummaryStore(final @Nullable String directory) {
+        if (directory == null || directory.isEmpty()) {
+            return null;
+        }
+        try {
+            return new ClassSummaryStore(Paths.get(directory), CacheSalt.of(checker, SUMMARY_OPTIONS::contains));
+        } catch (IOException e) {
+            checker.message(Diagnostic.Kind.WARNING,
+                    "Cannot open class summary cache " + directory + ": " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Sets up the class inference mode.
+     *
+     * @param mode the value of -AdccInferenceMode: "members" (the default) infers the bound of a class
+     *             from its own declaration and members only, "hierarchy" also includes the bounds of
+     *             its supertypes and enclosing classes
+     * @return the supertype-aware inference, or null in "members" mode
+     */
+    private @Nullable HierarchyClassInference createHierarchyInference(final String mode) {
+        switch (mode) {
+            case "members":
+                return null;
+            case "hierarchy":
+                return new HierarchyClassInference(
+                        this::ownClassBound,
+                        (a1, a2) -> getQualifierHierarchy().leastUpperBoundQualifiersOnly(a1, a2));
+            default:
+                throw new UserError("Unknown -AdccInferenceMode %s; expected members or hierarchy", mode);
+        }
+    }
+
     /**
      * Return the canonical version of the @Public annotation.
      *
@@ -101,6 +260,11 @@ public class DataClassificationAnnotatedTypeFactory extends BaseAnnotatedTypeFac
         return publik;
     }
 
+    /** @return the canonical version of the @Critical annotation. */
+    public AnnotationMirror getCanonicalCriticalAnnotation() {
+        return critical;
+    }
+
     /** @return the canonical version of the @PolyClassification annotation. */
     public AnnotationMirror getPolyAnnotation() {
         return poly;
@@ -113,18 +277,9 @@ public class DataClassificationAnnotatedTypeFactory extends BaseAnnotatedTypeFac
         return polyUse;
     }
 
-    /**
-     * Creates an AnnotationMirror for {@code @PolyClassification} with {@code arg}
-     * as its value.
-     *
-     * @param arg the argument that will assigned to the value field of the created
-     *            annotation
-     * @return the created AnnotationMirror
-     */
-    private AnnotationMirror newPolyAnnotation(final String arg) {
-        AnnotationBuilder builder = new AnnotationBuilder(processingEnv, PolyClassification.class);
-        builder.setValue("value", arg);
-        return builder.build();
+    /** @return the registry of canonical @PolyClassification mirrors */
+    PolyClassificationMirrors getPolyMirrors() {
+        return polyMirrors;
     }
 
     @Override
@@ -146,14 +301,27 @@ public class DataClassificationAnnotatedTypeFactory extends BaseAnnotatedTypeFac
      */
     @Override
     protected Set<Class<? extends Annotation>> createSupportedTypeQualifiers() {
-        return new LinkedHashSet<>(
-                Arrays.asList(
-                        Critical.class,
-                        Restricted.class,
-                        HighlyConfidential.class,
-                        Confidential.class,
-                        Public.class,
-                        PolyClassification.class));
+        Set<Class<? extends Annotation>> qualifiers = new LinkedHashSet<>(getClassificationLevels());
+        qualifiers.add(PolyClassification.class);
+        return qualifiers;
+    }
+
+    /**
+     * The classification levels, from bottom to top. Read lazily because the framework asks for the
+     * supported qualifiers while this factory is still being constructed.
+     */
+    private @Nullable List<Class<? extends Annotation>> classificationLevels;
+
+    /**
+     * @return the classification levels, from bottom to top: either the built-in ones or those
+     *         declared in the file passed with -AdccLevels
+     */
+    private List<Class<? extends Annotation>> getClassificationLevels() {
+        if (classificationLevels == null) {
+            classificationLevels = ClassificationLattice.loadLevels(
+                    checker.getOption("dccLevels"), checker.getClass().getClassLoader());
+        }
+        return classificationLevels;
     }
 
     /**
@@ -162,7 +330,14 @@ public class DataClassificationAnnotatedTypeFactory extends BaseAnnotatedTypeFac
      * subtyping relationship.
      */
 
-    private class DataClassificationQualifierHierarchy extends MostlyNoElementQualifierHierarchy {
+    private class DataClassificationQualifierHierarchy extends ElementQualifierHierarchy {
+
+        /**
+         * The non-polymorphic qualifiers as a chain. Queries between two of them are answered from
+         * this table; only queries involving @PolyClassification go through the QualifierKinds.
+         */
+        private final ClassificationLattice lattice;
+
         // private final ProcessingEnvironment processingEnv;
         // protected final Map<QualifierKind, AnnotationMirror> kindToAnnotationMirror;
         // public SubtypeIsSubsetQualifierHierarchy(Collection<Class<? extends
@@ -175,6 +350,107 @@ public class DataClassificationAnnotatedTypeFactory extends BaseAnnotatedTypeFac
         protected DataClassificationQualifierHierarchy(Collection<Class<? extends Annotation>> qualifierClasses,
                 Elements elements) {
             super(qualifierClasses, elements, DataClassificationAnnotatedTypeFactory.this);
+            List<AnnotationMirror> levels = new ArrayList<>();
+            for (Class<? extends Annotation> level : getClassificationLevels()) {
+                levels.add(kindToElementlessQualifier.get(
+                        getQualifierKind(QualifierKindHierarchy.annotationClassName(level))));
+            }
+            this.lattice = new ClassificationLattice(levels);
+        }
+
+        /**
+         * Links the classification levels into the chain declared by {@link
+         * #getClassificationLevels()}, rather than the one implied by their @SubtypeOf
+         * meta-annotations, so that custom levels from -AdccLevels slot into place.
+         */
+        @Override
+        protected QualifierKindHierarchy createQualifierKindHierarchy(
+                final Collection<Class<? extends Annotation>> qualifierClasses) {
+            final List<Class<? extends Annotation>> levels = getClassificationLevels();
+            return new DefaultQualifierKindHierarchy(qualifierClasses) {
+                @Override
+                protected Map<DefaultQualifierKind, Set<DefaultQualifierKind>> createDirectSuperMap() {
+                    Map<DefaultQualifierKind, Set<DefaultQualifierKind>> directSupers = super.createDirectSuperMap();
+                    for (int i = 0; i < levels.size(); i++) {
+                        Set<DefaultQualifierKind> supers = new TreeSet<>();
+                        if (i + 1 < levels.size()) {
+                            supers.add(nameToQualifierKind.get(
+                                    QualifierKindHierarchy.annotationClassName(levels.get(i + 1))));
+                        }
+                        directSupers.put(nameToQualifierKind.get(
+                                QualifierKindHierarchy.annotationClassName(levels.get(i))), supers);
+                    }
+                    return directSupers;
+                }
+            };
+        }
+
+        @Override
+        protected boolean isSubtypeQualifiers(final AnnotationMirror subAnno, final AnnotationMirror superAnno) {
+            int sub = lattice.ordinal(subAnno);
+            int sup = lattice.ordinal(superAnno);
+            if (sub >= 0 && sup >= 0) {
+                if (statistics != null) {
+                    statistics.subtypeQueries++;
+                }
+                return sub <= sup;
+            }
+            if (statistics != null) {
+                statistics.polySubtypeQueries++;
+            }
+            QualifierKind subKind = getQualifierKind(subAnno);
+            QualifierKind superKind = getQualifierKind(superAnno);
+            if (!subKind.isSubtypeOf(superKind)) {
+                return false;
+            }
+            if (subKind.hasElements() && superKind.hasElements()) {
+                return isSubtypeWithElements(subAnno, subKind, superAnno, superKind);
+            }
+            return true;
+        }
+
+        @Override
+        protected AnnotationMirror leastUpperBoundQualifiers(final AnnotationMirror a1, final AnnotationMirror a2) {
+            int o1 = lattice.ordinal(a1);
+            int o2 = lattice.ordinal(a2);
+            if (o1 >= 0 && o2 >= 0) {
+                if (statistics != null) {
+                    statistics.lubQueries++;
+                }
+                return lattice.level(Math.max(o1, o2));
+            }
+            if (statistics != null) {
+                statistics.polyLubQueries++;
+            }
+            QualifierKind qualifierKind1 = getQualifierKind(a1);
+            QualifierKind qualifierKind2 = getQualifierKind(a2);
+            QualifierKind lubKind = qualifierKindHierarchy.leastUpperBound(qualifierKind1, qualifierKind2);
+            if (lubKind.hasElements()) {
+                return leastUpperBoundWithElements(a1, qualifierKind1, a2, qualifierKind2, lubKind);
+            }
+            return kindToElementlessQualifier.get(lubKind);
+        }
+
+        @Override
+        protected AnnotationMirror greatestLowerBoundQualifiers(final AnnotationMirror a1, final AnnotationMirror a2) {
+            int o1 = lattice.ordinal(a1);
+            int o2 = lattice.ordinal(a2);
+            if (o1 >= 0 && o2 >= 0) {
+                if (statistics != null) {
+                    statistics.glbQueries++;
+                }
+                return lattice.level(Math.min(o1, o2));
+            }
+            if (statistics != null) {
+                statistics.polyGlbQueries++;
+            }
+            QualifierKind qualifierKind1 = getQualifierKind(a1);
+            QualifierKind qualifierKind2 = getQualifierKind(a2);
+            QualifierKind glbKind = qualifierKindHierarchy.greatestLowerBound(qualifierKind1, qualifierKind2);
+            if (glbKind.hasElements()) {
+                return greatestLowerBoundWithElements(a1, qualifierKind1, a2, qualifierKind2, glbKind);
+            }
+            return kindToElementlessQualifier.get(glbKind);
         }
 
         @Override
@@ -188,18 +464,8 @@ public class DataClassificationAnnotatedTypeFactory extends BaseAnnotatedTypeFac
                 return null;
             }
 
-            // Retrieves the polymorphic annotation alignign to the QualifierKind kindtoelementlessqualifier is a method in elementqualifierhierarchy 
-            AnnotationMirror poly = kindToElementlessQualifier.get(polyKind);
-
-            // Check if the polymorphic annotation is not found
-            if (poly == null) {
-                // Throws an exception 
-                throw new TypeSystemError(
-                        "NEEDS TO GET FIXED ",
-                        polyKind);
-            }
-
-            // Returns the found polymorphic annotation
+            // @PolyClassification has an element, so it has no elementless mirror in
+            // kindToElementlessQualifier; the canonical one comes from the registry.
             return poly;
         }
         // @Override
@@ -301,8 +567,7 @@ public class DataClassificationAnnotatedTypeFactory extends BaseAnnotatedTypeFac
         // return kindToAnnotationMirror.get(poly);
         // }
 
-        @Override
-        protected AnnotationMirror leastUpperBoundWithElements(
+        private AnnotationMirror leastUpperBoundWithElements(
                 AnnotationMirror a1,
                 QualifierKind qualifierKind1,
                 AnnotationMirror a2,
@@ -310,11 +575,14 @@ public class DataClassificationAnnotatedTypeFactory extends BaseAnnotatedTypeFac
                 QualifierKind lubKind) {
             if (qualifierKind1 == qualifierKind2) {
                 // Case: The qualifiers are of the same kind
-                List<String> a1Values = valuesStringList(a1);
-                List<String> a2Values = valuesStringList(a2);
+                Set<String> a1Values = polyMirrors.values(a1);
+                Set<String> a2Values = polyMirrors.values(a2);
+                if (a1Values.containsAll(a2Values)) {
+                    return polyMirrors.canonicalize(a1);
+                }
                 Set<String> set = new LinkedHashSet<>(a1Values);
                 set.addAll(a2Values);
-                return createAnnotationMirrorWithValue(lubKind, set);
+                return polyMirrors.get(set);
             } else if (lubKind == qualifierKind1) {
                 // Case: lubKind is the same as qualifierKind1
                 return a1;
@@ -327,19 +595,21 @@ public class DataClassificationAnnotatedTypeFactory extends BaseAnnotatedTypeFac
             }
         }
 
-        @Override
-        protected AnnotationMirror greatestLowerBoundWithElements(
+        private AnnotationMirror greatestLowerBoundWithElements(
                 AnnotationMirror a1,
                 QualifierKind qualifierKind1,
                 AnnotationMirror a2,
                 QualifierKind qualifierKind2,
                 QualifierKind glbKind) {
             if (qualifierKind1 == qualifierKind2) {
-                List<String> a1Values = valuesStringList(a1);
-                List<String> a2Values = valuesStringList(a2);
+                Set<String> a1Values = polyMirrors.values(a1);
+                Set<String> a2Values = polyMirrors.values(a2);
+                if (a2Values.containsAll(a1Values)) {
+                    return polyMirrors.canonicalize(a1);
+                }
                 Set<String> set = new LinkedHashSet<>(a1Values);
                 set.retainAll(a2Values);
-                return createAnnotationMirrorWithValue(glbKind, set);
+                return polyMirrors.get(set);
             } else if (glbKind == qualifierKind1) {
                 return a1;
             } else if (glbKind == qualifierKind2) {
@@ -349,9 +619,8 @@ public class DataClassificationAnnotatedTypeFactory extends BaseAnnotatedTypeFac
             }
         }
 
-        @Override
         // Returns true if subAnno is a subtype of superAnno.
-        protected boolean isSubtypeWithElements(
+        private boolean isSubtypeWithElements(
                 AnnotationMirror subAnno,
                 QualifierKind subKind,
                 AnnotationMirror superAnno,
@@ -363,8 +632,11 @@ public class DataClassificationAnnotatedTypeFactory extends BaseAnnotatedTypeFac
                 // it compares their values to determine subtype relationship
 
                 // Extracts the values associated with the super and sub annotations
-                List<String> superValues = valuesStringList(superAnno);
-                List<String> subValues = valuesStringList(subAnno);
+                if (subAnno == superAnno) {
+                    return true;
+                }
+                Set<String> superValues = polyMirrors.values(superAnno);
+                Set<String> subValues = polyMirrors.values(subAnno);
 
                 // Checks if all values of the sub-annotation are present in the super-annotation
                 return subValues.containsAll(superValues);
@@ -375,20 +647,6 @@ public class DataClassificationAnnotatedTypeFactory extends BaseAnnotatedTypeFac
             return subKind.isSubtypeOf(superKind);
         }
 
-        // The valuesStringList method is a helper method that extracts the values
-        // associated with the "value" element of an annotation. It splits the values by
-        // commas and returns them as a list of strings.
-        private List<String> valuesStringList(AnnotationMirror annotation) {
-            String value = AnnotationUtils.getElementValue(annotation, "value", String.class, true);
-            return value.isEmpty() ? Collections.emptyList() : Arrays.asList(value.split("\\s*,\\s*"));
-        }
-
-        private AnnotationMirror createAnnotationMirrorWithValue(QualifierKind kind, Set<String> values) {
-            AnnotationBuilder builder = new AnnotationBuilder(processingEnv, kind.getAnnotationClass());
-            builder.setValue("value", values.toArray());
-            return builder.build();
-        }
-
         // public boolean isSubtypeWithElements(AnnotationMirror subType, QualifierKind
         // subKind,
         // AnnotationMirror superType, QualifierKind superKind) {
@@ -447,11 +705,7 @@ public class DataClassificationAnnotatedTypeFactory extends BaseAnnotatedTypeFac
          * @return true if so, false otherwise.
          */
         private boolean isPolyWithArgs(final AnnotationMirror a1) {
-            if (a1 != null && AnnotationUtils.areSameByClass(a1, PolyClassification.class)) {
-                String arg = AnnotationUtils.getElementValue(a1, "value", String.class, true);
-                return !"".equals(arg);
-            }
-            return false;
+            return polyMirrors.isPoly(a1) && !polyMirrors.values(a1).isEmpty();
         }
 
     }
@@ -498,9 +752,108 @@ public class DataClassificationAnnotatedTypeFactory extends BaseAnnotatedTypeFac
      *
      * <p>
      * This cache effectively replaces part of the element cache used by
-     * AnnotatedTypeFactory.
+     * AnnotatedTypeFactory. Its size is controlled by -AdccClassCacheSize, and
+     * defaults to the size of the framework's own caches.
+     */
+    private final ClassClassificationCache classCache = new ClassClassificationCache(classCacheSize());
+
+    /**
+     * @return the number of classes to keep in {@link #classCache}
+     */
+    private int classCacheSize() {
+        String size = checker.getOption("dccClassCacheSize");
+        if (size == null) {
+            return getCacheSize();
+        }
+        try {
+            return Integer.parseInt(size.trim());
+        } catch (NumberFormatException e) {
+            throw new UserError("-AdccClassCacheSize must be an integer, found: " + size);
+        }
+    }
+
+    /**
+     * @return a one-line summary of how well the class cache performed, for -AdccCacheStats
+     */
+    public String getClassCacheStatistics() {
+        return classCache.statistics();
+    }
+
+    /** @return the counters for the -AdccStats report, or null unless that option was passed */
+    @Nullable CheckerStatistics getStatistics() {
+        return statistics;
+    }
+
+    /** @return the class cache, whose statistics are part of the -AdccStats report */
+    ClassClassificationCache getClassCache() {
+        return classCache;
+    }
+
+    /**
+     * Whether the inferred bound of a class differs from the one the summary store recorded for it
+     * in the last compilation, for -AdccDiff. Must be called before the class is inferred in this
+     * compilation, since inferring it replaces the recorded bound.
+     *
+     * @param type a class declared in source
+     * @return whether the bound changed; true if there is no summary store or no recorded bound
+     */
+    boolean classBoundChanged(final TypeElement type) {
+        String previous = null;
+        if (summaryStore != null) {
+            try {
+                previous = summaryStore.loadLastStored(elements.getBinaryName(type).toString());
+            } catch (IOException e) {
+                previous = null;
+            }
+        }
+        AnnotationMirror bound = getAnnotatedType(type).getAnnotationInHierarchy(critical);
+        return previous == null || bound == null || !previous.equals(AnnotationUtils.annotationName(bound));
+    }
+
+    /**
+     * Whether code that uses a class may need checking, for -AdccPrescan: the class is declared in
+     * source or in the class summary index, and its inferred bound is above the bottom qualifier.
+     * Other classfile classes have no inferred bound, so they are not considered classified.
+     *
+     * @param type a class
+     * @return whether the class is classified
      */
-    private final Map<Element, AnnotatedTypeMirror> classCache = CollectionUtils.createLRUCache(getCacheSize());
+    boolean isClassified(final TypeElement type) {
+        if (!ElementUtils.isElementFromSourceCode(type)
+                && (classSummaryIndex == null || classSummaryIndex.get(elements.getBinaryName(type).toString()) == null)) {
+            return false;
+        }
+        AnnotationMirror bound = getAnnotatedType(type).getAnnotationInHierarchy(critical);
+        return bound != null
+                && !AnnotationUtils.areSame(bound, getQualifierHierarchy().getBottomAnnotation(critical));
+    }
+
+    /**
+     * The results of {@link #getClassQualifier}. A class may have no qualifier, so null values are
+     * cached too.
+     */
+    private final Map<TypeElement, @Nullable AnnotationMirror> classQualifiers =
+            CollectionsPlume.createLruCache(getCacheSize());
+
+    /**
+     * Returns the qualifier of a class, as it applies to uses of the class: the annotation written
+     * on its declaration, or the one inferred by {@link #fromElement}. The visitor needs this on
+     * every method invocation (to compare the receiver with the method's class) and when resolving
+     * polymorphic qualifiers, so it is cached per class. The first lookup of a class completes its
+     * inference, so the cached value is never a partial result.
+     *
+     * @param classElt a class, interface or enum
+     * @return the class' qualifier, or null if it has none
+     */
+    public @Nullable AnnotationMirror getClassQualifier(final TypeElement classElt) {
+        if (classQualifiers.containsKey(classElt)) {
+            return classQualifiers.get(classElt);
+        }
+        AnnotationMirror qualifier =
+                getAnnotatedType(classElt).getAnnotationInHierarchy(getCanonicalPublicAnnotation());
+        classQualifiers.put(classElt, qualifier);
+        return qualifier;
+    }
 
     /**
      * This method is called when determining the "user-written" type to assign to a
@@ -520,13 +873,177 @@ public class DataClassificationAnnotatedTypeFactory extends BaseAnnotatedTypeFac
      * This rule ensures that a "container" class that has access to sensitive data
      * is itself
      * considered sensitive.
+     *
+     * <p>
+     * With -AdccInferenceMode=hierarchy, the implicit type of a class, interface or enum
+     * also includes the implicit types of its superclasses, its interfaces and its enclosing
+     * classes; see {@link HierarchyClassInference}.
+     *
+     * <p>
+     * With -AdccStubIndex, the qualifiers of methods and constructors in the index are applied
+     * here, as the framework would have applied them from the stub file.
      */
     @Override
     public AnnotatedTypeMirror fromElement(final Element elt) {
+        if (statistics != null) {
+            statistics.fromElementCalls++;
+        }
+        AnnotatedTypeMirror type = fromElementWithMemberInference(elt);
+        if (stubIndex != null && type.getKind() == TypeKind.EXECUTABLE) {
+            applyStubIndex((ExecutableElement) elt, (AnnotatedTypeMirror.AnnotatedExecutableType) type);
+        }
+        if (hierarchyInference != null && isHierarchyInferred(elt)) {
+            AnnotationMirror bound = hierarchyInference.bound((TypeElement) elt);
+            AnnotationMirror current = type.getAnnotationInHierarchy(getCanonicalPublicAnnotation());
+            // Leave unannotated declarations alone when nothing is inherited, so that the usual
+            // defaulting still applies to them.
+            if (!AnnotationUtils.areSame(bound, current == null ? getCanonicalPublicAnnotation() : current)) {
+                type.replaceAnnotation(bound);
+            }
+        }
+        return type;
+    }
+
+    /**
+     * Replaces the primary qualifiers of a method's signature with those in {@link #stubIndex}.
+     *
+     * @param method a method or constructor
+     * @param type   its type, which is modified
+     */
+    private void applyStubIndex(final ExecutableElement method,
+            final AnnotatedTypeMirror.AnnotatedExecutableType type) {
+        Integer entry = stubIndexEntries.get(method);
+        if (entry == null) {
+            TypeElement classElt = ElementUtils.enclosingTypeElement(method);
+            String className = classElt.getQualifiedName().toString();
+            entry = -1;
+            if (stubIndex.coversClass(className)) {
+                List<String> parameterTypes = new ArrayList<>();
+                for (VariableElement parameter : method.getParameters()) {
+                    parameterTypes.add(stubTypeName(parameter.asType()));
+                }
+                entry = stubIndex.find(StubIndex.key(className, method.getSimpleName().toString(), parameterTypes));
+            }
+            stubIndexEntries.put(method, entry);
+        }
+        if (entry < 0) {
+            return;
+        }
+        replaceWithStubAnnotation(type.getReturnType(), entry, StubIndex.RETURN_SLOT);
+        replaceWithStubAnnotation(type.getReceiverType(), entry, StubIndex.RECEIVER_SLOT);
+        List<AnnotatedTypeMirror> parameters = type.getParameterTypes();
+        for (int i = 0; i < parameters.size(); i++) {
+            replaceWithStubAnnotation(parameters.get(i), entry, StubIndex.FIRST_PARAMETER_SLOT + i);
+        }
+    }
+
+    /**
+     * @param slotType the type in a slot of a method's signature, or null if the method has no such
+     *                 type (e.g. no receiver)
+     * @param entry    the method's entry in {@link #stubIndex}
+     * @param slot     the slot
+     */
+    private void replaceWithStubAnnotation(final @Nullable AnnotatedTypeMirror slotType,
+            final int entry, final int slot) {
+        int annotation = stubIndex.annotation(entry, slot);
+        if (annotation == 0 || slotType == null || slotType.getKind() == TypeKind.VOID) {
+            return;
+        }
+        if (stubIndexAnnotations == null) {
+            stubIndexAnnotations = new AnnotationMirror[stubIndex.annotationCount() + 1];
+        }
+        AnnotationMirror mirror = stubIndexAnnotations[annotation];
+        if (mirror == null) {
+            String name = stubIndex.annotationName(annotation);
+            String value = stubIndex.annotationValue(annotation);
+            if (name.equals(PolyClassification.class.getCanonicalName())) {
+                mirror = polyMirrors.get(value == null ? "" : value);
+            } else {
+                AnnotationBuilder builder = new AnnotationBuilder(processingEnv, name);
+                if (value != null) {
+                    builder.setValue("value", value);
+                }
+                mirror = builder.build();
+                AnnotationMirror aliased = canonicalAnnotation(mirror);
+                if (aliased != null) {
+                    mirror = aliased;
+                }
+            }
+            stubIndexAnnotations[annotation] = mirror;
+        }
+        slotType.replaceAnnotation(mirror);
+    }
+
+    /**
+     * @param type a parameter type
+     * @return the type as written in a {@link StubIndex#key}
+     */
+    private static String stubTypeName(final TypeMirror type) {
+        switch (type.getKind()) {
+            case ARRAY:
+                return stubTypeName(((ArrayType) type).getComponentType()) + "[]";
+            case DECLARED:
+                return ((DeclaredType) type).asElement().getSimpleName().toString();
+            case TYPEVAR:
+                return ((TypeVariable) type).asElement().getSimpleName().toString();
+            default:
+                return type.getKind().isPrimitive() ? type.getKind().name().toLowerCase(Locale.ROOT) : type.toString();
+        }
+    }
+
+    /**
+     * @param elt an element
+     * @return whether -AdccInferenceMode=hierarchy infers a bound for it
+     */
+    private static boolean isHierarchyInferred(final Element elt) {
+        switch (elt.getKind()) {
+            case CLASS:
+            case INTERFACE:
+            case ENUM:
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * The bound of a class ignoring its supertypes, used by {@link HierarchyClassInference}.
+     *
+     * @param classElt a class, interface or enum
+     * @return the bound inferred from the class' declaration and members
+     */
+    private AnnotationMirror ownClassBound(final TypeElement classElt) {
+        AnnotationMirror bound = fromElementWithMemberInference(classElt)
+                .getAnnotationInHierarchy(getCanonicalPublicAnnotation());
+        if (bound == null || polyMirrors.isPoly(bound)) {
+            return getCanonicalPublicAnnotation();
+        }
+        return bound;
+    }
+
+    /**
+     * Computes the type of an element, inferring the bound of a class declared in source from its
+     * members as described in {@link #fromElement}, and looking up the bound of a class that only
+     * exists as a classfile in the class summary index.
+     *
+     * @param elt an element
+     * @return the type of the element, ignoring the supertypes of classes
+     */
+    private AnnotatedTypeMirror fromElementWithMemberInference(final Element elt) {
 
-        // Always prefer the classCache over recomputation.
-        if (classCache.containsKey(elt)) {
-            return classCache.get(elt);
+        // Always prefer the classCache over recomputation. Only classes are ever
+        // cached, so don't count lookups of other elements.
+        if (elt.getKind() == ElementKind.CLASS) {
+            Byte cached = classCache.get(elt);
+            if (cached != null) {
+                // Re-materialize the type from the declared type and the cached qualifier.
+                AnnotatedTypeMirror type = super.fromElement(elt);
+                AnnotationMirror qualifier = classCache.qualifier(cached);
+                if (qualifier != null) {
+                    type.replaceAnnotation(qualifier);
+                }
+                return type;
+            }
         }
 
         // Use the tree so that we have access to members
@@ -538,7 +1055,20 @@ public class DataClassificationAnnotatedTypeFactory extends BaseAnnotatedTypeFac
             // annotations, if
             // there are any.
             AnnotatedTypeMirror type = super.fromElement(elt);
-            classCache.put(elt, type);
+            classCache.guard(elt);
+
+            // If a previous compilation already inferred the bound of this class from the same
+            // source, reuse it instead of walking the members again.
+            long inferenceStart = System.nanoTime();
+            TypeElement classElt = (TypeElement) elt;
+            String contentHash = compilationUnitHash(classElt);
+            AnnotationMirror storedClassBound = loadClassSummary(classElt, contentHash);
+            if (storedClassBound != null) {
+                type.replaceAnnotation(storedClassBound);
+                classCache.put(elt, type.getAnnotationInHierarchy(critical));
+                classCache.recordInference(System.nanoTime() - inferenceStart);
+                return type;
+            }
 
             // Use an annotation mirror throughout here because that's what
             // QualifierHierachy#leastUpperBound requires
@@ -547,12 +1077,22 @@ public class DataClassificationAnnotatedTypeFactory extends BaseAnnotatedTypeFac
             if (inferredClassLowerbound == null) {
                 inferredClassLowerbound = getCanonicalPublicAnnotation();
             }
+            if (statistics != null) {
+                statistics.classInferenceWalks++;
+            }
+            Object inferenceEvent = CheckerEvents.INSTANCE.beginClassInference();
+            int membersWalked = 0;
 
             // For each member of the class that's a field or a method, update the inferred
             // type
             // with either the type
             // of the field or the return type of the method.
             for (Tree member : tree.getMembers()) {
+                if (isTop(inferredClassLowerbound)) {
+                    // The remaining members cannot raise the bound any further.
+                    break;
+                }
+                membersWalked++;
                 switch (member.getKind()) {
                     case METHOD:
                         MethodTree methodTree = (MethodTree) member;
@@ -600,51 +1140,206 @@ public class DataClassificationAnnotatedTypeFactory extends BaseAnnotatedTypeFac
                         break;
                 }
             }
+            if (inferenceEvent != null) {
+                CheckerEvents.INSTANCE.commitClassInference(inferenceEvent,
+                        classElt.getQualifiedName().toString(), membersWalked, inferredClassLowerbound.toString());
+            }
             // Replace the annotation in the type and return it after updating the cache.
             type.replaceAnnotation(inferredClassLowerbound);
-            classCache.put(elt, type);
+            classCache.put(elt, type.getAnnotationInHierarchy(critical));
+            classCache.recordInference(System.nanoTime() - inferenceStart);
+            storeClassSummary(classElt, contentHash, inferredClassLowerbound);
             return type;
         }
 
+        // A class without source, e.g. from a dependency jar: its members can't be walked, so use
+        // the bound recorded for it in the class summary index, if there is one.
+        if (decl == null && elt.getKind() == ElementKind.CLASS && classSummaryIndex != null) {
+            AnnotationMirror indexedBound = indexedClassBound((TypeElement) elt);
+            if (indexedBound != null) {
+                AnnotatedTypeMirror type = super.fromElement(elt);
+                AnnotationMirror declaredBound = type.getAnnotationInHierarchy(getCanonicalPublicAnnotation());
+                type.replaceAnnotation(declaredBound == null
+                        ? indexedBound
+                        : getQualifierHierarchy().leastUpperBoundQualifiersOnly(declaredBound, indexedBound));
+                classCache.put(elt, type.getAnnotationInHierarchy(critical));
+                return type;
+            }
+        }
+
         return super.fromElement(elt);
     }
 
+    /**
+     * Looks up the bound of a binary class in the class summary index.
+     *
+     * @param classElt a class that has no source in this compilation
+     * @return the indexed bound, or null if the class isn't indexed or its qualifier is unknown
+     */
+    private @Nullable AnnotationMirror indexedClassBound(final TypeElement classElt) {
+        String qualifierName = classSummaryIndex.get(elements.getBinaryName(classElt).toString());
+        if (qualifierName == null || elements.getTypeElement(qualifierName) == null) {
+            return null;
+        }
+        return AnnotationBuilder.fromName(elements, qualifierName);
+    }
+
+    /**
+     * Computes (or looks up) the content hash of the compilation unit that declares a class.
+     *
+     * @param classElt a class declared in source
+     * @return the content hash, or null if there is no summary store or the source is unavailable
+     */
+    private @Nullable String compilationUnitHash(final TypeElement classElt) {
+        if (summaryStore == null) {
+            return null;
+        }
+        TreePath path = trees.getPath(classElt);
+        if (path == null) {
+            return null;
+        }
+        CompilationUnitTree compilationUnit = path.getCompilationUnit();
+        String hash = compilationUnitHashes.get(compilationUnit);
+        if (hash == null) {
+            try {
+                hash = summaryStore.contentHash(compilationUnit.getSourceFile().getCharContent(true));
+            } catch (IOException e) {
+                return null;
+            }
+            compilationUnitHashes.put(compilationUnit, hash);
+        }
+        return hash;
+    }
+
+    /**
+     * Reads the inferred bound of a class from the summaries shared with concurrent compilations,
+     * or else from the summary store.
+     *
+     * @param classElt    a class declared in source
+     * @param contentHash the content hash of its compilation unit, or null if unavailable
+     * @return the stored bound, or null if there is no up-to-date entry for the class
+     */
+    private @Nullable AnnotationMirror loadClassSummary(
+            final TypeElement classElt, final @Nullable String contentHash) {
+        String qualifierName = null;
+        if (sharedSummaries != null) {
+            qualifierName = sharedSummaries.get(elements.getBinaryName(classElt).toString());
+        }
+        if (qualifierName == null && summaryStore != null && contentHash != null) {
+            try {
+                qualifierName = summaryStore.load(elements.getBinaryName(classElt).toString(), contentHash);
+            } catch (IOException e) {
+                return null;
+            }
+        }
+        if (qualifierName == null || elements.getTypeElement(qualifierName) == null) {
+            return null;
+        }
+        return AnnotationBuilder.fromName(elements, qualifierName);
+    }
+
+    /**
+     * Records the inferred bound of a class in the shared summaries and the summary store. Bounds
+     * with element values (i.e. polymorphic ones) are never stored, since they cannot be rebuilt
+     * from a name alone.
+     *
+     * @param classElt    a class declared in source
+     * @param contentHash the content hash of its compilation unit, or null if unavailable
+     * @param bound       the inferred bound of the class
+     */
+    private void storeClassSummary(
+            final TypeElement classElt, final @Nullable String contentHash, final AnnotationMirror bound) {
+        if (!bound.getElementValues().isEmpty()) {
+            return;
+        }
+        if (sharedSummaries != null) {
+            sharedSummaries.put(elements.getBinaryName(classElt).toString(), AnnotationUtils.annotationName(bound));
+        }
+        if (summaryStore == null || contentHash == null) {
+            return;
+        }
+        try {
+            summaryStore.store(elements.getBinaryName(classElt).toString(), contentHash,
+                    AnnotationUtils.annotationName(bound));
+        } catch (IOException e) {
+            // The store is only an optimization; the next compilation will simply infer again.
+        }
+    }
+
+    /**
+     * The classification that a member of this type contributes to the inferred bound of its class.
+     * Only for TypeLubBenchmark, which is in this package.
+     *
+     * @param type a type
+     * @return the least upper bound of the type and all its component types, or null if none of
+     *         them is annotated
+     */
+    @Nullable AnnotationMirror getLeastUpperBoundOfType(final AnnotatedTypeMirror type) {
+        return findLeastUpperBoundOfType(type, getCanonicalPublicAnnotation());
+    }
+
     /**
      * @param type                   the type to lub
-     * @param canonicalHierarchyAnno an annotation in the hierarchy of interest
+     * @param canonicalHierarchyAnno an annotation in the hierarchy of interest; DCC only has one
      * @return the least upper bound of the passed type and all its component types
      */
     @Nullable
     private AnnotationMirror findLeastUpperBoundOfType(final AnnotatedTypeMirror type,
             final AnnotationMirror canonicalHierarchyAnno) {
-        if (type.getKind() == TypeKind.ARRAY) {
-            AnnotatedTypeMirror.AnnotatedArrayType arType = (AnnotatedTypeMirror.AnnotatedArrayType) type;
-            AnnotationMirror arLub = findLeastUpperBoundOfType(arType.getComponentType(), canonicalHierarchyAnno);
-            AnnotationMirror anno = type.getAnnotationInHierarchy(canonicalHierarchyAnno);
-            if (arLub == null) {
-                return anno;
-            } else if (anno == null) {
-                return arLub;
-            } else {
-                return getQualifierHierarchy().leastUpperBoundQualifiersOnly(anno, arLub);
+        if (!hasComponentTypes(type)) {
+            return type.getAnnotationInHierarchy(canonicalHierarchyAnno);
+        }
+
+        // Walk the array components and type arguments with an explicit worklist rather than by
+        // recursion, so deeply nested types can't overflow the stack; the visited set guards
+        // against revisiting a component that is shared or that refers back to itself.
+        AnnotationMirror result = null;
+        Deque<AnnotatedTypeMirror> worklist = new ArrayDeque<>();
+        Set<AnnotatedTypeMirror> visited = Collections.newSetFromMap(new IdentityHashMap<>());
+        worklist.push(type);
+        while (!worklist.isEmpty()) {
+            AnnotatedTypeMirror current = worklist.pop();
+            if (!visited.add(current)) {
+                continue;
             }
-        } else if (type.getKind() == TypeKind.DECLARED) {
-            AnnotatedTypeMirror.AnnotatedDeclaredType declaredType = (AnnotatedTypeMirror.AnnotatedDeclaredType) type;
-            AnnotationMirror result = type.getAnnotationInHierarchy(canonicalHierarchyAnno);
-            List<AnnotatedTypeMirror> typeVars = declaredType.getTypeArguments();
-            for (AnnotatedTypeMirror var : typeVars) {
-                AnnotationMirror varLub = findLeastUpperBoundOfType(var, canonicalHierarchyAnno);
-                if (varLub != null) {
-                    if (result == null) {
-                        result = varLub;
-                    } else {
-                        result = getQualifierHierarchy().leastUpperBoundQualifiersOnly(result, varLub);
-                    }
+            AnnotationMirror anno = current.getAnnotationInHierarchy(canonicalHierarchyAnno);
+            if (anno != null) {
+                result = result == null
+                        ? anno
+                        : getQualifierHierarchy().leastUpperBoundQualifiersOnly(result, anno);
+                if (isTop(result)) {
+                    // Nothing can be above the top qualifier, so the rest of the type is irrelevant.
+                    break;
+                }
+            }
+            if (current.getKind() == TypeKind.ARRAY) {
+                worklist.push(((AnnotatedTypeMirror.AnnotatedArrayType) current).getComponentType());
+            } else if (current.getKind() == TypeKind.DECLARED) {
+                for (AnnotatedTypeMirror typeArg
+                        : ((AnnotatedTypeMirror.AnnotatedDeclaredType) current).getTypeArguments()) {
+                    worklist.push(typeArg);
                 }
             }
-            return result;
-        } else {
-            return type.getAnnotationInHierarchy(canonicalHierarchyAnno);
         }
+        return result;
+    }
+
+    /**
+     * @param type a type
+     * @return true if the type is an array or a parameterized type, i.e. if it has components whose
+     *         annotations contribute to {@link #findLeastUpperBoundOfType}
+     */
+    private static boolean hasComponentTypes(final AnnotatedTypeMirror type) {
+        return type.getKind() == TypeKind.ARRAY
+                || (type.getKind() == TypeKind.DECLARED
+                        && !((AnnotatedTypeMirror.AnnotatedDeclaredType) type).getTypeArguments().isEmpty());
+    }
+
+    /**
+     * @param anno an annotation in DCC's hierarchy
+     * @return true if the annotation is the top qualifier, @Critical
+     */
+    private boolean isTop(final AnnotationMirror anno) {
+        return AnnotationUtils.areSame(anno, critical);
     }
 }
@@ -2,14 +2,555 @@
 // SPDX-License-Identifier: Apache-2.0
 package com.amazon.checkerframework.checker.data_classification;
 
+import com.sun.source.tree.ClassTree;
+import com.sun.source.tree.CompilationUnitTree;
+import com.sun.source.tree.LineMap;
+import com.sun.source.tree.Tree;
+import com.sun.source.util.SourcePositions;
+import com.sun.source.util.TreePath;
+import java.io.IOException;
+import java.net.URI;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Set;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.TypeElement;
+import javax.tools.Diagnostic;
+import org.checkerframework.checker.nullness.qual.Nullable;
 import org.checkerframework.common.basetype.BaseTypeChecker;
+import org.checkerframework.framework.source.DiagMessage;
 //import org.checkerframework.framework.source.SuppressWarningsKeys;
 import org.checkerframework.framework.source.SuppressWarningsPrefix;
+import org.checkerframework.framework.source.SupportedOptions;
+import org.checkerframework.framework.type.GenericAnnotatedTypeFactory;
+import org.checkerframework.javacutil.UserError;
+
 /**
  * A specialized checker for Data Classification.
  *
  * <p>It permits developers to annotate their data with its data classification level, and enforce
  * that data is properly used if they correctly annotate their methods.
+ *
+ * <p>Supported options:
+ *
+ * <ul>
+ *   <li>{@code -AdccSummaryCache=<dir>}: persist inferred class classifications in the given
+ *       directory, so that classes whose compilation unit is unchanged are not re-inferred on the
+ *       next compilation.
+ *   <li>{@code -AdccClassCacheSize=<n>}: the number of inferred class types kept in memory.
+ *       Defaults to the framework's cache size (-AatfCacheSize).
+ *   <li>{@code -AdccCacheStats}: print class cache hits, misses, evictions and inference time, and
+ *       how often resolved poly bounds were reused, at the end of the compilation.
+ *   <li>{@code -AdccLevels=<file>}: declare the chain of classification levels, e.g. to add an
+ *       organization-specific level. See {@link ClassificationLattice#loadLevels}.
+ *   <li>{@code -AdccClassSummaryIndex=<files>}: class summary indexes, built with {@link
+ *       ClassSummaryIndexBuilder}, that give the inferred classifications of classes only available
+ *       as classfiles.
+ *   <li>{@code -AdccInferenceMode=members|hierarchy}: whether the inferred bound of a class also
+ *       includes the bounds of its supertypes and enclosing classes. Defaults to {@code members}.
+ *   <li>{@code -AdccStubIndex[=<file>]}: load the JDK stub annotations from an index compiled by
+ *       {@link StubIndexCompiler}, in place of {@code -Astubs=jdk.astub}. Without a file, the index
+ *       bundled with the checker is used.
+ *   <li>{@code -AdccStats[=<file>]}: count fromElement calls, class inference walks, class cache
+ *       hits and misses, qualifier hierarchy queries and poly replacements, time each compilation
+ *       unit, and write a JSON report with the slowest files to {@code <file>} (default {@code
+ *       dcc-stats.json}) at the end of the compilation.
+ *   <li>{@code -AdccAbiFingerprint[=<file>]}: write a fingerprint of the declared and inferred
+ *       qualifiers of the non-private classes, fields and method signatures checked to {@code
+ *       <file>} (default {@code dcc-abi.sha256}). See {@link ClassificationAbi}.
+ *   <li>{@code -AdccPrescan}: skip checking compilation units whose text neither mentions a
+ *       qualifier nor refers to a classified class. See {@link RelevancePrescan}.
+ *   <li>{@code -AdccDiff=<file>}: only check the changed lines given by a unified diff or a list
+ *       of line ranges, and the compilation units that depend on a class whose inferred
+ *       classification changed. See {@link ChangeImpact}.
+ *   <li>{@code -AdccReport=<file>}: also write every diagnostic, with its source range and found
+ *       and required qualifiers, to {@code <file>} as it is reported, as SARIF if the file name
+ *       ends with {@code .sarif} or {@code .sarif.json} and as newline-delimited JSON otherwise.
+ *       See {@link DiagnosticReport}.
+ *   <li>{@code -AdccGroupDiagnostics}: only report the first error with a given message key,
+ *       found and required qualifier and callee, and summarize the others at the end of the
+ *       compilation. See {@link DiagnosticGroups}.
+ *   <li>{@code -AdccErrorBudget=<n>}: stop checking a compilation unit once {@code n} errors
+ *       were found in it.
+ *   <li>{@code -AdccMethodCache=<dir>}: store the diagnostics of each method in the given
+ *       directory, keyed by a fingerprint of its body and of everything it refers to, and replay
+ *       them instead of checking the method again while the fingerprint is unchanged. See {@link
+ *       MethodBodyCache}.
+ *   <li>{@code -AdccSound}: disable the shortcuts that can miss errors, i.e. -AdccPrescan and
+ *       -AdccDiff, e.g. for release builds.
+ * </ul>
  */
+@SupportedOptions({"dccSummaryCache", "dccClassCacheSize", "dccCacheStats", "dccLevels",
+        "dccClassSummaryIndex", "dccInferenceMode", "dccStubIndex", "dccStats",
+        "dccAbiFingerprint", "dccPrescan", "dccDiff", "dccReport", "dccGroupDiagnostics", "dccErrorBudget",
+        "dccMethodCache", "dccSound"})
 @SuppressWarningsPrefix({"data_classification", "dataClassification"})
-public class DataClassificationChecker extends BaseTypeChecker {}
+public class DataClassificationChecker extends BaseTypeChecker {
+
+    /** The file -AdccStats writes its report to when no file is given. */
+    private static final String DEFAULT_STATS_FILE = "dcc-stats.json";
+
+    /** The file -AdccAbiFingerprint writes the fingerprint to when no file is given. */
+    private static final String DEFAULT_ABI_FILE = "dcc-abi.sha256";
+
+    /** The classification ABI of the classes checked so far, or null without -AdccAbiFingerprint. */
+    private @Nullable ClassificationAbi abi;
+
+    /**
+     * The inferred class classifications shared with concurrent compilations, or null unless set by
+     * {@link ParallelChecker}.
+     */
+    private @Nullable SharedClassSummaries sharedSummaries;
+
+    /** The URIs of the source files to check, or null to check every source file. */
+    private @Nullable Set<URI> checkedFiles;
+
+    /** The -AdccPrescan pass, or null until the first class is processed or if it is disabled. */
+    private @Nullable RelevancePrescan prescan;
+
+    /** What -AdccDiff checks, or null until the first class is processed or if it is disabled. */
+    private @Nullable ChangeImpact changeImpact;
+
+    /** The -AdccReport sink, or null until the first diagnostic or if it is disabled. */
+    private @Nullable DiagnosticReport report;
+
+    /** The -AdccGroupDiagnostics groups, or null until the first diagnostic or if it is disabled. */
+    private @Nullable DiagnosticGroups groups;
+
+    /** Finds the qualifiers of the diagnostics, for -AdccReport and -AdccGroupDiagnostics. */
+    private final MessageQualifiers messageQualifiers = new MessageQualifiers();
+
+    /** The -AdccMethodCache store, or null until the first method or if it is disabled. */
+    private @Nullable MethodBodyCache methodCache;
+
+    /** Whether {@link #methodCache} was opened, or failed to open. */
+    private boolean methodCacheOpened;
+
+    /** The number of errors the checker printed, as opposed to those of javac or of a crash. */
+    private long printedErrors;
+
+    /**
+     * Whether the compilation had an error that the checker didn't print, so that -AdccMethodCache
+     * must not store the entries of this run.
+     */
+    private boolean otherErrors;
+
+    /** The -AdccErrorBudget, 0 if there is none, or -1 until the option is read. */
+    private int errorBudget = -1;
+
+    /** The compilation unit whose errors {@link #budgetErrors} counts. */
+    private @Nullable CompilationUnitTree budgetUnit;
+
+    /** The number of errors found in {@link #budgetUnit}. */
+    private int budgetErrors;
+
+    /**
+     * Shares inferred class classifications with concurrent compilations of the same sources. Must
+     * be called before the compilation starts.
+     *
+     * @param summaries the shared summaries
+     */
+    void shareClassSummaries(final SharedClassSummaries summaries) {
+        this.sharedSummaries = summaries;
+    }
+
+    /** @return the summaries shared with concurrent compilations, or null */
+    @Nullable SharedClassSummaries getSharedSummaries() {
+        return sharedSummaries;
+    }
+
+    /**
+     * Restricts checking to some of the compilation's source files. The other files are still
+     * parsed and attributed, so the classes in them are inferred exactly as in a full compilation,
+     * but their code is not checked and they produce no checker diagnostics.
+     *
+     * @param files the URIs of the source files to check
+     */
+    void checkOnly(final Set<URI> files) {
+        this.checkedFiles = files;
+    }
+
+    /**
+     * @return the factory's counters for the -AdccStats report, or null unless that option was
+     *         passed
+     */
+    private @Nullable CheckerStatistics statistics() {
+        GenericAnnotatedTypeFactory<?, ?, ?, ?> factory = getTypeFactory();
+        return factory instanceof DataClassificationAnnotatedTypeFactory
+                ? ((DataClassificationAnnotatedTypeFactory) factory).getStatistics()
+                : null;
+    }
+
+    @Override
+    public void typeProcess(final TypeElement element, final TreePath tree) {
+        if (checkedFiles != null && !checkedFiles.contains(tree.getCompilationUnit().getSourceFile().toUri())) {
+            return;
+        }
+        if (visitor != null && currentRoot != tree.getCompilationUnit()) {
+            // -AdccDiff and the prescan infer classes before the framework would set the root, and
+            // until it is set the factory finds no declarations to infer source classes from.
+            setRoot(tree.getCompilationUnit());
+        }
+        ChangeImpact changeImpact = changeImpact();
+        RelevancePrescan prescan = prescan();
+        boolean reached = changeImpact == null
+                || changeImpact.reach(tree.getCompilationUnit()) != ChangeImpact.Reach.NONE;
+        if (reached && (prescan == null || prescan.isRelevant(tree.getCompilationUnit()))) {
+            // The framework sets errsOnLastExit to javac's error count after each class, and skips
+            // classes once javac reported errors of its own.
+            int errorsBefore = errsOnLastExit;
+            long printedBefore = printedErrors;
+            timedTypeProcess(element, tree);
+            if (javacErrored || errsOnLastExit - errorsBefore != printedErrors - printedBefore) {
+                otherErrors = true;
+            }
+        } else {
+            if (reached && visitor instanceof DataClassificationVisitor
+                    && tree.getLeaf() instanceof ClassTree) {
+                // The prescan only skips units in which the visitor would find nothing but the
+                // constructor types it can't verify, so report those as a full check would.
+                ((DataClassificationVisitor) visitor).checkConstructorResults((ClassTree) tree.getLeaf());
+            }
+            // The unit isn't checked, but its classes are still inferred, so that the summary
+            // stores see them.
+            ((DataClassificationAnnotatedTypeFactory) getTypeFactory()).getAnnotatedType(element);
+        }
+        if (visitor != null && hasOption("dccAbiFingerprint")) {
+            // The surface is computed from the types the check just inferred.
+            recordAbi(element);
+        }
+    }
+
+    /**
+     * @return the -AdccPrescan pass, created on first use, or null unless that option was passed
+     *         without -AdccSound
+     */
+    private @Nullable RelevancePrescan prescan() {
+        if (prescan == null && visitor != null && hasOption("dccPrescan") && !hasOption("dccSound")
+                && getTypeFactory() instanceof DataClassificationAnnotatedTypeFactory) {
+            prescan = new RelevancePrescan((DataClassificationAnnotatedTypeFactory) getTypeFactory());
+        }
+        return prescan;
+    }
+
+    /**
+     * @return what -AdccDiff checks, computed on first use, or null unless that option was passed
+     *         without -AdccSound
+     */
+    private @Nullable ChangeImpact changeImpact() {
+        if (changeImpact == null && visitor != null && hasOption("dccDiff") && !hasOption("dccSound")
+                && getTypeFactory() instanceof DataClassificationAnnotatedTypeFactory) {
+            changeImpact = new ChangeImpact(DiffScope.read(getOption("dccDiff")),
+                    (DataClassificationAnnotatedTypeFactory) getTypeFactory(), trees);
+        }
+        return changeImpact;
+    }
+
+    /**
+     * @param root the compilation unit being checked
+     * @param tree a tree in it
+     * @return whether -AdccDiff doesn't report the tree, because it contains no changed line of a
+     *         unit that is only reported on its changed lines
+     */
+    boolean isOutsideDiff(final CompilationUnitTree root, final Tree tree) {
+        return changeImpact != null && changeImpact.isOutside(root, tree);
+    }
+
+    @Override
+    public void initChecker() {
+        super.initChecker();
+        // Fails on an invalid budget before any class is checked.
+        errorBudget();
+    }
+
+    @Override
+    public void reportError(final Object source, final String messageKey, final Object... args) {
+        recordInMethodCache(source, Diagnostic.Kind.ERROR, messageKey, args);
+        if (isReported(source, Diagnostic.Kind.ERROR, messageKey, args)) {
+            super.reportError(source, messageKey, args);
+            noteErrorBudget();
+        }
+    }
+
+    @Override
+    public void reportWarning(final Object source, final String messageKey, final Object... args) {
+        recordInMethodCache(source, Diagnostic.Kind.MANDATORY_WARNING, messageKey, args);
+        if (isReported(source, Diagnostic.Kind.MANDATORY_WARNING, messageKey, args)) {
+            super.reportWarning(source, messageKey, args);
+        }
+    }
+
+    @Override
+    public void report(final Object source, final DiagMessage d) {
+        recordInMethodCache(source, d.getKind(), d.getMessageKey(), d.getArgs());
+        if (isReported(source, d.getKind(), d.getMessageKey(), d.getArgs())) {
+            super.report(source, d);
+            noteErrorBudget();
+        }
+    }
+
+    @Override
+    protected void printOrStoreMessage(final Diagnostic.Kind kind, final String message, final Tree source,
+            final CompilationUnitTree root) {
+        if (kind == Diagnostic.Kind.ERROR) {
+            printedErrors++;
+        }
+        super.printOrStoreMessage(kind, message, source, root);
+    }
+
+    /**
+     * @return the -AdccMethodCache store, opened on first use, or null unless that option was passed
+     *         or if the store can't be opened
+     */
+    @Nullable MethodBodyCache getMethodCache() {
+        if (!methodCacheOpened && visitor != null && hasOption("dccMethodCache")
+                && getTypeFactory() instanceof DataClassificationAnnotatedTypeFactory) {
+            methodCacheOpened = true;
+            String directory = getOption("dccMethodCache");
+            try {
+                methodCache = new MethodBodyCache(Paths.get(directory), this,
+                        (DataClassificationAnnotatedTypeFactory) getTypeFactory());
+            } catch (IOException e) {
+                message(Diagnostic.Kind.WARNING, "Cannot open method cache " + directory + ": " + e.getMessage());
+            }
+        }
+        return methodCache;
+    }
+
+    /**
+     * Records a diagnostic of the method -AdccMethodCache is recording, if any. Diagnostics are
+     * recorded before they are filtered, since the filters apply again when they are replayed.
+     *
+     * @param source     the tree or element the diagnostic is reported on
+     * @param kind       its kind
+     * @param messageKey its message key
+     * @param args       the arguments of its message
+     */
+    private void recordInMethodCache(final Object source, final Diagnostic.Kind kind, final String messageKey,
+            final Object[] args) {
+        if (methodCache != null && methodCache.isRecording()) {
+            String[] printed = new String[args.length];
+            for (int i = 0; i < args.length; i++) {
+                printed[i] = String.valueOf(processArg(args[i]));
+            }
+            methodCache.record(source, kind, messageKey, printed);
+        }
+    }
+
+    /**
+     * Drops the diagnostics outside -AdccDiff's changed lines, beyond the -AdccErrorBudget of their
+     * compilation unit, or with the same cause as a reported one under -AdccGroupDiagnostics, and
+     * writes the others to the -AdccReport file unless they are suppressed.
+     *
+     * @param source     the tree or element the diagnostic is reported on
+     * @param kind       its kind
+     * @param messageKey its message key
+     * @param args       the arguments of its message
+     * @return whether the diagnostic is reported
+     */
+    private boolean isReported(final Object source, final Diagnostic.Kind kind, final String messageKey,
+            final Object[] args) {
+        Tree tree = source instanceof Tree ? (Tree) source
+                : source instanceof Element ? trees.getTree((Element) source) : null;
+        if (tree != null && currentRoot != null && isOutsideDiff(currentRoot, tree)) {
+            return false;
+        }
+        boolean budgeted = kind == Diagnostic.Kind.ERROR && errorBudget() > 0 && currentRoot != null;
+        boolean grouped = kind == Diagnostic.Kind.ERROR && hasOption("dccGroupDiagnostics");
+        if (tree == null || !(budgeted || grouped || hasOption("dccReport"))) {
+            return true;
+        }
+        boolean suppressed = source instanceof Element
+                ? shouldSuppressWarnings((Element) source, messageKey)
+                : shouldSuppressWarnings(tree, messageKey);
+        if (suppressed) {
+            return true;
+        }
+        if (budgeted) {
+            if (budgetUnit != currentRoot) {
+                budgetUnit = currentRoot;
+                budgetErrors = 0;
+            }
+            if (budgetErrors >= errorBudget) {
+                return false;
+            }
+            budgetErrors++;
+        }
+
+        TreePath path = source instanceof Element ? trees.getPath((Element) source) : null;
+        CompilationUnitTree root = path != null ? path.getCompilationUnit() : currentRoot;
+        if (root == null) {
+            return true;
+        }
+        String format = fullMessageOf(messageKey, messageKey);
+        Object[] processed = args.clone();
+        for (int i = 0; i < processed.length; i++) {
+            processed[i] = processArg(processed[i]);
+        }
+        String[] qualifiers = messageQualifiers.of(format, processed);
+        SourcePositions positions = trees.getSourcePositions();
+        long start = Math.max(positions.getStartPosition(root, tree), 0);
+        long end = Math.max(positions.getEndPosition(root, tree), start);
+        LineMap lines = root.getLineMap();
+        if (grouped) {
+            if (groups == null) {
+                groups = new DiagnosticGroups();
+            }
+            String location = root.getSourceFile().getName() + ":" + lines.getLineNumber(start);
+            if (!groups.add(messageKey, processed, qualifiers[0], qualifiers[1], location)) {
+                return false;
+            }
+        }
+        if (hasOption("dccReport")) {
+            Path file = Paths.get(getOption("dccReport"));
+            String message;
+            try {
+                message = String.format(format, processed);
+            } catch (RuntimeException e) {
+                message = format;
+            }
+            try {
+                if (report == null) {
+                    report = new DiagnosticReport(file, DiagnosticReport.isSarif(file));
+                }
+                report.add(kind, messageKey, message, root.getSourceFile().getName(),
+                        root.getSourceFile().toUri().toString(), lines.getLineNumber(start),
+                        lines.getColumnNumber(start), lines.getLineNumber(end), lines.getColumnNumber(end),
+                        qualifiers[0], qualifiers[1]);
+            } catch (IOException e) {
+                throw new UserError("Cannot write -AdccReport file %s: %s", file, e.getMessage());
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return the -AdccErrorBudget, or 0 if there is none
+     */
+    private int errorBudget() {
+        if (errorBudget < 0) {
+            String budget = getOption("dccErrorBudget");
+            try {
+                errorBudget = budget == null ? 0 : Math.max(Integer.parseInt(budget.trim()), 0);
+            } catch (NumberFormatException e) {
+                throw new UserError("-AdccErrorBudget must be an integer, found: " + budget);
+            }
+        }
+        return errorBudget;
+    }
+
+    /** Notes that the current compilation unit is not checked further, once it used up its budget. */
+    private void noteErrorBudget() {
+        if (budgetUnit != null && budgetUnit == currentRoot && budgetErrors == errorBudget && errorBudget > 0) {
+            message(Diagnostic.Kind.NOTE, "DCC found " + errorBudget + " errors in "
+                    + budgetUnit.getSourceFile().getName() + " and stopped checking it (-AdccErrorBudget)");
+            // Counted past the budget, so that the note isn't repeated.
+            budgetErrors++;
+        }
+    }
+
+    /**
+     * @param root the compilation unit being checked
+     * @return whether the unit used up its -AdccErrorBudget, so that the visitor can stop
+     */
+    boolean isOverErrorBudget(final CompilationUnitTree root) {
+        return errorBudget > 0 && budgetUnit == root && budgetErrors >= errorBudget;
+    }
+
+    /**
+     * Checks a class, timing it for -AdccStats and for JFR recordings.
+     *
+     * @param element the class
+     * @param tree    the path to its declaration
+     */
+    private void timedTypeProcess(final TypeElement element, final TreePath tree) {
+        CheckerStatistics statistics = visitor == null ? null : statistics();
+        Object event = CheckerEvents.INSTANCE.beginClassCheck();
+        if (statistics == null && event == null) {
+            super.typeProcess(element, tree);
+            return;
+        }
+        long start = System.nanoTime();
+        try {
+            super.typeProcess(element, tree);
+        } finally {
+            String file = tree.getCompilationUnit().getSourceFile().getName();
+            if (statistics != null) {
+                statistics.addClassTime(file, System.nanoTime() - start);
+            }
+            CheckerEvents.INSTANCE.commitClassCheck(event, file, element.getQualifiedName().toString());
+        }
+    }
+
+    /**
+     * Adds a checked class to the -AdccAbiFingerprint surface.
+     *
+     * @param element a top-level class that was just checked
+     */
+    private void recordAbi(final TypeElement element) {
+        GenericAnnotatedTypeFactory<?, ?, ?, ?> factory = getTypeFactory();
+        if (factory instanceof DataClassificationAnnotatedTypeFactory) {
+            if (abi == null) {
+                abi = new ClassificationAbi();
+            }
+            abi.addClass(element, (DataClassificationAnnotatedTypeFactory) factory);
+        }
+    }
+
+    @Override
+    public void typeProcessingOver() {
+        GenericAnnotatedTypeFactory<?, ?, ?, ?> factory = getTypeFactory();
+        if (hasOption("dccCacheStats") && factory instanceof DataClassificationAnnotatedTypeFactory) {
+            message(Diagnostic.Kind.NOTE,
+                    ((DataClassificationAnnotatedTypeFactory) factory).getClassCacheStatistics());
+        }
+        if (hasOption("dccCacheStats") && visitor instanceof DataClassificationVisitor) {
+            message(Diagnostic.Kind.NOTE, ((DataClassificationVisitor) visitor).getPolyCacheStatistics());
+        }
+        CheckerStatistics statistics = visitor == null ? null : statistics();
+        if (prescan != null) {
+            message(Diagnostic.Kind.NOTE, "DCC prescan skipped " + prescan.skippedUnits() + " of "
+                    + prescan.units() + " compilation units");
+            if (statistics != null) {
+                statistics.prescanSkippedUnits = prescan.skippedUnits();
+            }
+        }
+        if (changeImpact != null) {
+            message(Diagnostic.Kind.NOTE, changeImpact.summary());
+        }
+        if (statistics != null && visitor instanceof DataClassificationVisitor) {
+            String file = getOption("dccStats");
+            DataClassificationVisitor dccVisitor = (DataClassificationVisitor) visitor;
+            try {
+                statistics.write(Paths.get(file == null || file.isEmpty() ? DEFAULT_STATS_FILE : file),
+                        ((DataClassificationAnnotatedTypeFactory) factory).getClassCache(),
+                        dccVisitor.getPolyBoundHits(), dccVisitor.getPolyBoundMisses());
+            } catch (IOException e) {
+                message(Diagnostic.Kind.WARNING, "Cannot write the -AdccStats report: " + e.getMessage());
+            }
+        }
+        if (methodCache != null) {
+            methodCache.storeAll(!otherErrors && !javacErrored);
+            message(Diagnostic.Kind.NOTE, methodCache.statistics());
+        }
+        if (groups != null) {
+            message(Diagnostic.Kind.NOTE, groups.summary());
+        }
+        if (report != null) {
+            try {
+                report.close();
+            } catch (IOException e) {
+                message(Diagnostic.Kind.WARNING, "Cannot write the -AdccReport file: " + e.getMessage());
+            }
+        }
+        if (abi != null) {
+            String file = getOption("dccAbiFingerprint");
+            try {
+                abi.write(Paths.get(file == null || file.isEmpty() ? DEFAULT_ABI_FILE : file));
+            } catch (IOException e) {
+                message(Diagnostic.Kind.WARNING, "Cannot write the -AdccAbiFingerprint file: " + e.getMessage());
+            }
+        }
+        super.typeProcessingOver();
+    }
+}
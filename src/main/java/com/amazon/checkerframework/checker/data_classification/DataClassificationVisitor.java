@@ -2,19 +2,23 @@
 // SPDX-License-Identifier: Apache-2.0
 package com.amazon.checkerframework.checker.data_classification;
 
-import com.amazon.checkerframework.checker.data_classification.qual.Critical;
 import com.amazon.checkerframework.checker.data_classification.qual.Public;
+import com.sun.source.tree.ClassTree;
+import com.sun.source.tree.CompilationUnitTree;
 import com.sun.source.tree.MethodInvocationTree;
 import com.sun.source.tree.MethodTree;
 import com.sun.source.tree.Tree;
+import com.sun.source.util.TreePath;
+import com.sun.source.util.TreeScanner;
 import java.util.ArrayList;
-import java.util.Collections;
+import java.util.HashMap;
 import org.checkerframework.javacutil.AnnotationMirrorSet;
 import java.util.List;
-import java.util.Set;
+import java.util.Map;
 import javax.lang.model.element.AnnotationMirror;
-import javax.lang.model.element.Element;
 import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.type.TypeKind;
 import javax.lang.model.type.TypeMirror;
 import org.checkerframework.checker.compilermsgs.qual.CompilerMessageKey;
 //import org.checkerframework.checker.compilermsgs.qual.CompilerMessageKey;
@@ -23,9 +27,6 @@ import org.checkerframework.common.basetype.BaseTypeChecker;
 import org.checkerframework.common.basetype.BaseTypeVisitor;
 import org.checkerframework.framework.type.AnnotatedTypeMirror;
 import org.checkerframework.framework.type.AnnotatedTypeParameterBounds;
-import org.checkerframework.javacutil.AnnotationBuilder;
-import org.checkerframework.javacutil.AnnotationUtils;
-import org.checkerframework.javacutil.ElementUtils;
 import org.checkerframework.javacutil.TreePathUtil;
 import org.checkerframework.javacutil.TreeUtils;
 import org.checkerframework.javacutil.TypesUtils;
@@ -47,8 +48,23 @@ public class DataClassificationVisitor
      */
     public DataClassificationVisitor(final BaseTypeChecker checker) {
         super(checker);
+        dccChecker = (DataClassificationChecker) checker;
+        exceptionParameterLowerBound =
+                AnnotationMirrorSet.singleton(atypeFactory.getCanonicalPublicAnnotation());
+        throwUpperBound =
+                AnnotationMirrorSet.singleton(atypeFactory.getCanonicalCriticalAnnotation());
     }
 
+    /** The checker, for its per-compilation state such as the -AdccErrorBudget. */
+    private final DataClassificationChecker dccChecker;
+
+    /**
+     * The sets returned by {@link #getExceptionParameterLowerBoundAnnotations} and {@link
+     * #getThrowUpperBoundAnnotations}. They are queried for every catch clause and throw statement,
+     * so they are built once from the factory's canonical mirrors.
+     */
+    private final AnnotationMirrorSet exceptionParameterLowerBound, throwUpperBound;
+
     /**
      * Overrides the default lower bound for exception parameters. By default, this
      * is top
@@ -67,9 +83,7 @@ public class DataClassificationVisitor
     // }
     @Override
     protected AnnotationMirrorSet getExceptionParameterLowerBoundAnnotations() {
-        AnnotationMirrorSet annotationSet = new AnnotationMirrorSet();
-        annotationSet.add(AnnotationBuilder.fromClass(elements, Public.class)); // Add your desired annotation here
-        return annotationSet;
+        return exceptionParameterLowerBound;
     }
 
     /**
@@ -83,8 +97,8 @@ public class DataClassificationVisitor
      * @return a singleton set containing the @Critical annotation
      */
     @Override
-    protected Set<? extends AnnotationMirror> getThrowUpperBoundAnnotations() {
-        return Collections.singleton(AnnotationBuilder.fromClass(elements, Critical.class));
+    protected AnnotationMirrorSet getThrowUpperBoundAnnotations() {
+        return throwUpperBound;
     }
     // @Override
     // protected AnnotationMirrorSet getThrowUpperBoundAnnotations() {
@@ -160,28 +174,12 @@ public class DataClassificationVisitor
      *                  enclosing method
      */
     private void replacePoly(final AnnotatedTypeMirror atm, final Tree localTree) {
-        List<TypeMirror> underlyingTypes = new ArrayList<>();
-
-        // Collect the types associated with the parameters and receiver of the
-        // enclosing method;
-        // mirrors polymorphic resolution. Ignore @poly("use") by using
-        // isPolyWithNoArgs(), which
-        // only looks for @PolyClassification with no arguments.
-        MethodTree enclosingMethod = TreePathUtil.enclosingMethod(atypeFactory.getPath(localTree));
-        if (enclosingMethod != null) {
-            ExecutableElement execElem = TreeUtils.elementFromDeclaration(enclosingMethod);
-            AnnotatedTypeMirror.AnnotatedExecutableType methodSignature = atypeFactory.fromElement(execElem);
-            for (AnnotatedTypeMirror param : methodSignature.getParameterTypes()) {
-                if (isPolyWithNoArgs(param)) {
-                    underlyingTypes.add(param.getUnderlyingType());
-                }
-            }
-            if (methodSignature.getReceiverType() != null) {
-                if (isPolyWithNoArgs(methodSignature.getReceiverType())) {
-                    underlyingTypes.add(methodSignature.getReceiverType().getUnderlyingType());
-                }
-            }
+        if (statistics != null) {
+            statistics.replacePolyCalls++;
         }
+        // The contribution of the enclosing method's polymorphic parameters and receiver
+        // depends only on the method, so it is computed once per method.
+        AnnotationMirror finalClassAnnotation = enclosingMethodPolyBound(localTree);
 
         // Always include the underlying type of the input ATM. For fields and other
         // non-method code
@@ -189,39 +187,187 @@ public class DataClassificationVisitor
         // code in methods with no polymorphic arguments), this will be the only type
         // used for
         // resolution.
-        underlyingTypes.add(atm.getUnderlyingType());
+        AnnotationMirror classDefaultAnnotation = classDefaultAnnotation(atm.getUnderlyingType());
+        if (classDefaultAnnotation != null) {
+            finalClassAnnotation = atypeFactory
+                    .getQualifierHierarchy()
+                    .leastUpperBoundQualifiersOnly(finalClassAnnotation, classDefaultAnnotation);
+        }
+        // Take the final LUB and then replace the original polymorphic annotation with
+        // it.
+        atm.replaceAnnotation(finalClassAnnotation);
+    }
 
-        // The annotation that will replace the polymorphic annotation in the
-        // computation.
-        AnnotationMirror finalClassAnnotation = atypeFactory.getCanonicalPublicAnnotation();
+    /**
+     * Resolved poly bounds of the methods in the current compilation unit, as computed by {@link
+     * #enclosingMethodPolyBound}. Cleared by {@link #setRoot}.
+     */
+    private final Map<ExecutableElement, AnnotationMirror> methodPolyBounds = new HashMap<>();
 
-        for (TypeMirror underlyingType : underlyingTypes) {
-            // For each type, first get the underlying class as an element.
-            Element underlyingClassElem = TypesUtils.getTypeElement(underlyingType);
-            if (underlyingClassElem != null) {
-                // And then use the ATF to produce the type the user wrote on the class - and
-                // those
-                // inferred by DataClassificationTypeFactory#fromElement.
-                AnnotatedTypeMirror classDefaultType = atypeFactory.fromElement(underlyingClassElem);
-                if (classDefaultType != null) {
-                    // If the class does have a default type (all should...), try to read an DCC
-                    // annotation from it.
-                    AnnotationMirror classDefaultAnnotation = classDefaultType.getAnnotationInHierarchy(
-                            atypeFactory.getCanonicalPublicAnnotation());
-                    if (classDefaultAnnotation != null) {
-                        // If there was an DCC annotation, LUB it with whatever else has been found
-                        // so far.
-                        finalClassAnnotation = atypeFactory
-                                .getQualifierHierarchy()
-                                .leastUpperBoundQualifiersOnly(
-                                        finalClassAnnotation, classDefaultAnnotation);
-                    }
+    /** Statistics for {@link #methodPolyBounds}, over the whole compilation. */
+    private long polyBoundHits, polyBoundMisses;
+
+    /** The factory's counters for the -AdccStats report, or null unless that option was passed. */
+    private final @Nullable CheckerStatistics statistics = atypeFactory.getStatistics();
+
+    @Override
+    public void setRoot(final CompilationUnitTree root) {
+        super.setRoot(root);
+        methodPolyBounds.clear();
+    }
+
+    /**
+     * Checks the result types of the constructors declared in a class, including those of nested
+     * and local classes, as visiting the class would. This is the only check that can report
+     * anything in the compilation units -AdccPrescan skips.
+     *
+     * @param tree a top-level class
+     */
+    void checkConstructorResults(final ClassTree tree) {
+        new TreeScanner<Void, Void>() {
+            @Override
+            public Void visitMethod(final MethodTree method, final Void p) {
+                if (TreeUtils.isConstructor(method) && !TreeUtils.isAnonymousConstructor(method)) {
+                    checkConstructorResult(atypeFactory.getAnnotatedType(method),
+                            TreeUtils.elementFromDeclaration(method));
                 }
+                return super.visitMethod(method, p);
             }
+        }.scan(tree, null);
+    }
+
+    /** Stops visiting a compilation unit once it used up its -AdccErrorBudget. */
+    @Override
+    public Void scan(final Tree tree, final Void p) {
+        if (dccChecker.isOverErrorBudget(root)) {
+            return null;
         }
-        // Take the final LUB and then replace the original polymorphic annotation with
-        // it.
-        atm.replaceAnnotation(finalClassAnnotation);
+        return super.scan(tree, p);
+    }
+
+    /**
+     * Skips the methods -AdccDiff doesn't report on, since none of their lines changed, and
+     * replays the diagnostics of the methods -AdccMethodCache has an entry for.
+     */
+    @Override
+    public Void visitMethod(final MethodTree tree, final Void p) {
+        MethodBodyCache methodCache = dccChecker.getMethodCache();
+        if (methodCache != null && methodCache.isRecording()) {
+            // A method of a local or anonymous class, whose diagnostics belong to the enclosing
+            // method's entry, so it must be visited in full.
+            return super.visitMethod(tree, p);
+        }
+        if (dccChecker.isOutsideDiff(root, tree)) {
+            return null;
+        }
+        String fingerprint = methodCache == null ? null : methodCache.fingerprint(tree);
+        if (fingerprint == null) {
+            return super.visitMethod(tree, p);
+        }
+        if (methodCache.replay(fingerprint, tree)) {
+            return null;
+        }
+        methodCache.startRecording(tree);
+        boolean complete = false;
+        try {
+            super.visitMethod(tree, p);
+            complete = !dccChecker.isOverErrorBudget(root);
+        } finally {
+            methodCache.stopRecording(fingerprint, complete);
+        }
+        return null;
+    }
+
+    /**
+     * Computes the least upper bound of the classes of the polymorphic parameters and receiver of
+     * the method enclosing a tree. This mirrors polymorphic resolution. Ignore @poly("use") by
+     * using isPolyWithNoArgs(), which only looks for @PolyClassification with no arguments.
+     *
+     * @param localTree a tree being checked
+     * @return the bound, which is @Public if the tree is not in a method or the method has no
+     *         polymorphic parameters
+     */
+    private AnnotationMirror enclosingMethodPolyBound(final Tree localTree) {
+        // The tree being checked is always under the visitor's current path, which is much
+        // cheaper to walk up than to recompute with getPath.
+        TreePath path = getCurrentPath();
+        MethodTree enclosingMethod = TreePathUtil.enclosingMethod(
+                path != null ? path : atypeFactory.getPath(localTree));
+        if (enclosingMethod == null) {
+            return atypeFactory.getCanonicalPublicAnnotation();
+        }
+        ExecutableElement execElem = TreeUtils.elementFromDeclaration(enclosingMethod);
+        AnnotationMirror bound = methodPolyBounds.get(execElem);
+        if (bound != null) {
+            polyBoundHits++;
+            return bound;
+        }
+        polyBoundMisses++;
+
+        // Collect the types associated with the parameters and receiver of the
+        // enclosing method.
+        List<TypeMirror> underlyingTypes = new ArrayList<>();
+        AnnotatedTypeMirror.AnnotatedExecutableType methodSignature = atypeFactory.fromElement(execElem);
+        for (AnnotatedTypeMirror param : methodSignature.getParameterTypes()) {
+            if (isPolyWithNoArgs(param)) {
+                underlyingTypes.add(param.getUnderlyingType());
+            }
+        }
+        if (methodSignature.getReceiverType() != null) {
+            if (isPolyWithNoArgs(methodSignature.getReceiverType())) {
+                underlyingTypes.add(methodSignature.getReceiverType().getUnderlyingType());
+            }
+        }
+
+        bound = atypeFactory.getCanonicalPublicAnnotation();
+        for (TypeMirror underlyingType : underlyingTypes) {
+            AnnotationMirror classDefaultAnnotation = classDefaultAnnotation(underlyingType);
+            if (classDefaultAnnotation != null) {
+                // If there was an DCC annotation, LUB it with whatever else has been found
+                // so far.
+                bound = atypeFactory
+                        .getQualifierHierarchy()
+                        .leastUpperBoundQualifiersOnly(bound, classDefaultAnnotation);
+            }
+        }
+        methodPolyBounds.put(execElem, bound);
+        return bound;
+    }
+
+    /**
+     * @param underlyingType a type
+     * @return the DCC annotation on the declaration of the type's class, including the one
+     *         inferred by DataClassificationTypeFactory#fromElement, or null if there is none
+     */
+    private @Nullable AnnotationMirror classDefaultAnnotation(final TypeMirror underlyingType) {
+        TypeElement underlyingClassElem = TypesUtils.getTypeElement(underlyingType);
+        if (underlyingClassElem == null) {
+            return null;
+        }
+        return atypeFactory.getClassQualifier(underlyingClassElem);
+    }
+
+    /**
+     * @return a one-line summary of how often the resolved poly bound of the enclosing method was
+     *         reused, for -AdccCacheStats
+     */
+    public String getPolyCacheStatistics() {
+        long lookups = polyBoundHits + polyBoundMisses;
+        return String.format("DCC poly cache: lookups=%d, hits=%d (%.1f%%), misses=%d",
+                lookups,
+                polyBoundHits,
+                lookups == 0 ? 0.0 : 100.0 * polyBoundHits / lookups,
+                polyBoundMisses);
+    }
+
+    /** @return how often the resolved poly bound of the enclosing method was reused */
+    long getPolyBoundHits() {
+        return polyBoundHits;
+    }
+
+    /** @return how often the poly bound of an enclosing method was computed */
+    long getPolyBoundMisses() {
+        return polyBoundMisses;
     }
 
     /**
@@ -238,10 +384,7 @@ public class DataClassificationVisitor
             return false;
         }
         AnnotationMirror anm = atm.getAnnotationInHierarchy(atypeFactory.getCanonicalPublicAnnotation());
-        if (anm == null) {
-            return false;
-        }
-        return AnnotationUtils.areSame(anm, atypeFactory.getPolyAnnotation());
+        return atypeFactory.getPolyMirrors().isPolyWithNoArgs(anm);
     }
 
     /**
@@ -259,7 +402,7 @@ public class DataClassificationVisitor
             return false;
         }
         AnnotationMirror anm = atm.getAnnotationInHierarchy(atypeFactory.getCanonicalPublicAnnotation());
-        return !AnnotationUtils.areSameByName(anm, atypeFactory.getPolyAnnotation());
+        return !atypeFactory.getPolyMirrors().isPoly(anm);
     }
 
     /**
@@ -271,28 +414,34 @@ public class DataClassificationVisitor
      * @return true if the type or any of its components has a non-public annotation
      */
     private boolean hasNonPublic(final AnnotatedTypeMirror atm) {
-        boolean result = false;
         switch (atm.getKind()) {
-            case DECLARED:
-                AnnotatedTypeMirror.AnnotatedDeclaredType atmD = (AnnotatedTypeMirror.AnnotatedDeclaredType) atm;
-                for (AnnotatedTypeMirror component : atmD.getTypeArguments()) {
-                    if (hasNonPublic(component)) {
-                        result = true;
-                    }
-                }
-                break;
-            case ARRAY:
-                AnnotatedTypeMirror.AnnotatedArrayType atmA = (AnnotatedTypeMirror.AnnotatedArrayType) atm;
-                result = hasNonPublic(atmA.getComponentType());
-                break;
             case WILDCARD:
-                return false;
             case TYPEVAR:
                 return false;
-            default:
+            case DECLARED:
+            case ARRAY:
                 break;
+            default:
+                return !atm.hasAnnotation(Public.class);
+        }
+        // The type's own annotation is the cheapest thing to check, and settles the answer
+        // without looking at the components if it isn't @Public.
+        if (!atm.hasAnnotation(Public.class)) {
+            return true;
+        }
+        if (atm.getKind() == TypeKind.DECLARED
+                && ((AnnotatedTypeMirror.AnnotatedDeclaredType) atm).getTypeArguments().isEmpty()) {
+            return false;
+        }
+        if (atm.getKind() == TypeKind.ARRAY) {
+            return hasNonPublic(((AnnotatedTypeMirror.AnnotatedArrayType) atm).getComponentType());
+        }
+        for (AnnotatedTypeMirror component : ((AnnotatedTypeMirror.AnnotatedDeclaredType) atm).getTypeArguments()) {
+            if (hasNonPublic(component)) {
+                return true;
+            }
         }
-        return result || !atm.hasAnnotation(Public.class);
+        return false;
     }
 
     /**
@@ -305,6 +454,10 @@ public class DataClassificationVisitor
      * confidential strings). Since this is common, this code disables that check
      * for user-written
      * annotations.
+     *
+     * <p>
+     * This runs for every generic instantiation, so when no type argument has a
+     * user-written annotation, the framework's lists are passed through without copying.
      */
     ///ADDED TWO new parameters
     @Override
@@ -315,9 +468,19 @@ public class DataClassificationVisitor
             final List<? extends Tree> typeargTrees, 
             CharSequence typeOrMethodName,
             List<?> paramNames) {
-        List<AnnotatedTypeParameterBounds> newParamBounds = new ArrayList<>();
-        List<AnnotatedTypeMirror> newTypeArgs = new ArrayList<>();
-        for (int i = 0; i < typeargs.size(); i++) {
+        int firstSkipped = 0;
+        while (firstSkipped < typeargs.size() && !hasNonPublic(typeargs.get(firstSkipped))) {
+            firstSkipped++;
+        }
+        if (firstSkipped == typeargs.size()) {
+            if (!typeargs.isEmpty()) {
+                super.checkTypeArguments(toptree, paramBounds, typeargs, typeargTrees, typeOrMethodName, paramNames);
+            }
+            return;
+        }
+        List<AnnotatedTypeParameterBounds> newParamBounds = new ArrayList<>(paramBounds.subList(0, firstSkipped));
+        List<AnnotatedTypeMirror> newTypeArgs = new ArrayList<>(typeargs.subList(0, firstSkipped));
+        for (int i = firstSkipped + 1; i < typeargs.size(); i++) {
             AnnotatedTypeMirror atm = typeargs.get(i);
             if (!hasNonPublic(atm)) {
                 newParamBounds.add(paramBounds.get(i));
@@ -349,10 +512,9 @@ public class DataClassificationVisitor
             final AnnotatedTypeMirror methodCallReceiver) {
 
         ExecutableElement definition = TreeUtils.elementFromUse(node);
-        Element enclosingClass = ElementUtils.enclosingTypeElement(definition);
-        AnnotatedTypeMirror classType = atypeFactory.getAnnotatedType(enclosingClass);
-
-        AnnotationMirror classAnno = classType.getAnnotationInHierarchy(atypeFactory.getCanonicalPublicAnnotation());
+        // A method's enclosing element is always the class that declares it.
+        TypeElement enclosingClass = (TypeElement) definition.getEnclosingElement();
+        AnnotationMirror classAnno = atypeFactory.getClassQualifier(enclosingClass);
         AnnotationMirror methodCallReceiverAnno = methodCallReceiver.getAnnotationInHierarchy(
                 atypeFactory.getCanonicalPublicAnnotation());
 
@@ -0,0 +1,100 @@
+// Copyright 2017 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+// SPDX-License-Identifier: Apache-2.0
+package com.amazon.checkerframework.checker.data_classification;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+/**
+ * The -AdccGroupDiagnostics grouping: errors with the same message key, found and required
+ * qualifiers and callee usually share a root cause, such as a classified field passed to many
+ * logging calls, so only the first of each group is reported and the others are counted.
+ *
+ * <p>The callee is the method named by an {@code argument}, {@code method.invocation} or {@code
+ * constructor.invocation} error; other errors are grouped without one.
+ */
+final class DiagnosticGroups {
+
+    /** The number of groups listed in the summary. */
+    static final int LARGEST_GROUPS = 10;
+
+    /** The index of the callee argument of the errors that name one, by message key. */
+    private static final Map<String, Integer> CALLEE_ARGUMENT = new HashMap<>();
+
+    static {
+        CALLEE_ARGUMENT.put("argument", 1);
+        CALLEE_ARGUMENT.put("method.invocation", 0);
+        CALLEE_ARGUMENT.put("constructor.invocation", 0);
+    }
+
+    /** A group of errors. */
+    private static final class Group {
+        /** Its description, for the summary. */
+        final String description;
+
+        /** Where its first error was reported. */
+        final String first;
+
+        /** The number of its errors. */
+        long count = 1;
+
+        Group(final String description, final String first) {
+            this.description = description;
+            this.first = first;
+        }
+    }
+
+    /** The groups, by key. */
+    private final Map<String, Group> groups = new HashMap<>();
+
+    /** The number of errors that were not reported because their group already was. */
+    private long grouped;
+
+    /**
+     * Adds an error to its group.
+     *
+     * @param messageKey its message key
+     * @param args       the arguments of its message, processed for printing
+     * @param found      its found qualifier, or null
+     * @param required   its required qualifier, or null
+     * @param location   where it is reported, for the summary
+     * @return whether it is the first of its group, and so must be reported
+     */
+    boolean add(final String messageKey, final Object[] args, final @Nullable String found,
+            final @Nullable String required, final String location) {
+        Integer calleeIndex = CALLEE_ARGUMENT.get(messageKey);
+        Object callee = calleeIndex != null && calleeIndex < args.length ? args[calleeIndex] : null;
+        String description = messageKey + (found == null && required == null ? "" : " " + found + " -> " + required)
+                + (callee == null ? "" : " in a call to " + callee);
+        Group group = groups.get(description);
+        if (group == null) {
+            groups.put(description, new Group(description, location));
+            return true;
+        }
+        group.count++;
+        grouped++;
+        return false;
+    }
+
+    /** @return a summary of the largest groups, for a note */
+    String summary() {
+        List<Group> largest = new ArrayList<>();
+        for (Group group : groups.values()) {
+            if (group.count > 1) {
+                largest.add(group);
+            }
+        }
+        largest.sort((a, b) -> a.count != b.count ? Long.compare(b.count, a.count)
+                : a.description.compareTo(b.description));
+        StringBuilder summary = new StringBuilder("DCC grouped ").append(grouped)
+                .append(" errors with the same cause as a reported one");
+        for (int i = 0; i < largest.size() && i < LARGEST_GROUPS; i++) {
+            Group group = largest.get(i);
+            summary.append(String.format("%n  %d x %s, first at %s", group.count, group.description, group.first));
+        }
+        return summary.toString();
+    }
+}
@@ -0,0 +1,242 @@
+// Copyright 2017 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+// SPDX-License-Identifier: Apache-2.0
+package com.amazon.checkerframework.checker.data_classification;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import javax.tools.Diagnostic;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+/**
+ * The -AdccReport sink: writes each diagnostic as soon as it is reported, as a line of JSON or as
+ * a SARIF 2.1.0 result, so that reports with tens of thousands of errors can be ingested without
+ * parsing javac's output, which -Xmaxerrs also truncates.
+ *
+ * <p>Records are encoded into a fixed-size buffer that is written to a file channel whenever it
+ * fills up, so memory use doesn't grow with the number of diagnostics. A SARIF file is only
+ * complete once {@link #close} wrote the end of its results array.
+ *
+ * <p>Each record carries the message key, the message, the source range (lines and columns from 1,
+ * end column exclusive) and, for type incompatibilities, the found and required qualifiers.
+ */
+final class DiagnosticReport implements Closeable {
+
+    /** The size of the write buffer, in bytes. */
+    static final int BUFFER_SIZE = 64 * 1024;
+
+    /** The channel records are written to. */
+    private final FileChannel channel;
+
+    /** Encoded records not written to the channel yet. */
+    private final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+
+    /** Encodes records as UTF-8. */
+    private final CharsetEncoder encoder = StandardCharsets.UTF_8.newEncoder()
+            .onMalformedInput(CodingErrorAction.REPLACE)
+            .onUnmappableCharacter(CodingErrorAction.REPLACE);
+
+    /** The record being built, reused for every record. */
+    private final StringBuilder record = new StringBuilder();
+
+    /** Whether records are SARIF results rather than lines of JSON. */
+    private final boolean sarif;
+
+    /** The number of records written. */
+    private long records;
+
+    /**
+     * Opens a report, replacing the file.
+     *
+     * @param file  the file to write
+     * @param sarif whether to write SARIF rather than newline-delimited JSON
+     * @throws IOException if the file can't be opened
+     */
+    DiagnosticReport(final Path file, final boolean sarif) throws IOException {
+        this.channel = FileChannel.open(file, StandardOpenOption.WRITE, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+        this.sarif = sarif;
+        if (sarif) {
+            record.append("{\"$schema\":\"https://json.schemastore.org/sarif-2.1.0.json\",\"version\":\"2.1.0\",")
+                    .append("\"runs\":[{\"tool\":{\"driver\":{\"name\":\"Data Classification Checker\"}},")
+                    .append("\"results\":[");
+            flushRecord();
+        }
+    }
+
+    /**
+     * @param file the file given to -AdccReport
+     * @return whether it is written as SARIF, i.e. whether its name ends with {@code .sarif} or
+     *         {@code .sarif.json}
+     */
+    static boolean isSarif(final Path file) {
+        String name = file.getFileName() == null ? "" : file.getFileName().toString();
+        return name.endsWith(".sarif") || name.endsWith(".sarif.json");
+    }
+
+    /** @return the number of diagnostics written so far */
+    long records() {
+        return records;
+    }
+
+    /**
+     * Writes a diagnostic.
+     *
+     * @param kind        its kind
+     * @param key         its message key
+     * @param message     its message
+     * @param file        the name of the source file
+     * @param uri         the URI of the source file
+     * @param startLine   the first line of the source range
+     * @param startColumn its first column
+     * @param endLine     its last line
+     * @param endColumn   the column after its end
+     * @param found       the found qualifier of a type incompatibility, or null
+     * @param required    the required qualifier of a type incompatibility, or null
+     * @throws IOException if the record can't be written
+     */
+    void add(final Diagnostic.Kind kind, final String key, final String message, final String file,
+            final String uri, final long startLine, final long startColumn, final long endLine,
+            final long endColumn, final @Nullable String found, final @Nullable String required)
+            throws IOException {
+        if (sarif) {
+            record.append(records == 0 ? "\n" : ",\n");
+            record.append("{\"ruleId\":");
+            quote(key);
+            record.append(",\"level\":\"").append(level(kind)).append("\",\"message\":{\"text\":");
+            quote(message);
+            record.append("},\"locations\":[{\"physicalLocation\":{\"artifactLocation\":{\"uri\":");
+            quote(uri);
+            record.append("},\"region\":{");
+            region(startLine, startColumn, endLine, endColumn);
+            record.append("}}}]");
+            if (found != null || required != null) {
+                record.append(",\"properties\":{");
+                qualifiers(found, required);
+                record.append('}');
+            }
+            record.append('}');
+        } else {
+            record.append("{\"key\":");
+            quote(key);
+            record.append(",\"kind\":\"").append(level(kind)).append("\",\"message\":");
+            quote(message);
+            record.append(",\"file\":");
+            quote(file);
+            record.append(',');
+            region(startLine, startColumn, endLine, endColumn);
+            if (found != null || required != null) {
+                record.append(',');
+                qualifiers(found, required);
+            }
+            record.append("}\n");
+        }
+        flushRecord();
+        records++;
+    }
+
+    /**
+     * @param kind the kind of a diagnostic
+     * @return its SARIF level, also used in the JSON lines
+     */
+    private static String level(final Diagnostic.Kind kind) {
+        switch (kind) {
+            case ERROR:
+                return "error";
+            case WARNING:
+            case MANDATORY_WARNING:
+                return "warning";
+            default:
+                return "note";
+        }
+    }
+
+    /** Appends the members of a source range. */
+    private void region(final long startLine, final long startColumn, final long endLine, final long endColumn) {
+        record.append("\"startLine\":").append(startLine).append(",\"startColumn\":").append(startColumn)
+                .append(",\"endLine\":").append(endLine).append(",\"endColumn\":").append(endColumn);
+    }
+
+    /** Appends the found and required qualifiers, if known. */
+    private void qualifiers(final @Nullable String found, final @Nullable String required) {
+        if (found != null) {
+            record.append("\"found\":");
+            quote(found);
+        }
+        if (required != null) {
+            record.append(found != null ? ",\"required\":" : "\"required\":");
+            quote(required);
+        }
+    }
+
+    /**
+     * @param text a string, appended to the record as a JSON string literal
+     */
+    private void quote(final String text) {
+        record.append('"');
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c == '"' || c == '\\') {
+                record.append('\\').append(c);
+            } else if (c == '\n') {
+                record.append("\\n");
+            } else if (c < 0x20) {
+                record.append(String.format("\\u%04x", (int) c));
+            } else {
+                record.append(c);
+            }
+        }
+        record.append('"');
+    }
+
+    /**
+     * Encodes the record into the buffer, writing the buffer out whenever it is full.
+     *
+     * @throws IOException if the channel can't be written
+     */
+    private void flushRecord() throws IOException {
+        CharBuffer chars = CharBuffer.wrap(record);
+        encoder.reset();
+        while (encoder.encode(chars, buffer, true).isOverflow()) {
+            drain();
+        }
+        while (encoder.flush(buffer).isOverflow()) {
+            drain();
+        }
+        record.setLength(0);
+    }
+
+    /**
+     * Writes the buffer to the channel.
+     *
+     * @throws IOException if the channel can't be written
+     */
+    private void drain() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    /** Ends the SARIF document, writes the buffer out and closes the file. */
+    @Override
+    public void close() throws IOException {
+        try {
+            if (sarif) {
+                record.append(records == 0 ? "]}]}\n" : "\n]}]}\n");
+                flushRecord();
+            }
+            drain();
+        } finally {
+            channel.close();
+        }
+    }
+}
@@ -0,0 +1,167 @@
+// Copyright 2017 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+// SPDX-License-Identifier: Apache-2.0
+package com.amazon.checkerframework.checker.data_classification;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import org.checkerframework.checker.nullness.qual.Nullable;
+import org.checkerframework.javacutil.UserError;
+
+/**
+ * The changed lines given to -AdccDiff, either as a unified diff (e.g. the output of {@code git diff
+ * -U0}) or as a list with one {@code <file>[:<first>[-<last>]]} per line, where a file without lines
+ * is changed as a whole. Lines are numbered from 1 in the new version of each file.
+ *
+ * <p>In a diff, added lines are changed, and a deletion changes the line that follows it, so that a
+ * method whose body only lost lines is still considered changed. File paths are matched against
+ * the end of the source files' paths, so paths relative to the repository root work.
+ */
+final class DiffScope {
+
+    /** A hunk header, capturing the first line and the line count in the new file. */
+    private static final Pattern HUNK = Pattern.compile("^@@ -\\d+(?:,\\d+)? \\+(\\d+)(?:,(\\d+))? @@");
+
+    /** A line of the list format, capturing the file and the optional line range. */
+    private static final Pattern RANGE = Pattern.compile("^(.+?)(?::(\\d+)(?:-(\\d+))?)?$");
+
+    /** The changed ranges of each file, each a pair of first and last line. */
+    private final Map<Path, List<long[]>> changed = new LinkedHashMap<>();
+
+    private DiffScope() {
+    }
+
+    /**
+     * Reads the file given to -AdccDiff.
+     *
+     * @param file a unified diff or a list of changed ranges
+     * @return the changed lines
+     * @throws UserError if the file can't be read
+     */
+    static DiffScope read(final String file) {
+        try {
+            return parse(Files.readAllLines(Paths.get(file), StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            throw new UserError("Cannot read -AdccDiff file %s: %s", file, e.getMessage());
+        }
+    }
+
+    /**
+     * @param lines the lines of a unified diff or of a list of changed ranges
+     * @return the changed lines
+     */
+    static DiffScope parse(final List<String> lines) {
+        DiffScope scope = new DiffScope();
+        boolean unified = false;
+        for (String line : lines) {
+            if (line.startsWith("+++ ") || line.startsWith("@@ ")) {
+                unified = true;
+                break;
+            }
+        }
+        if (unified) {
+            scope.parseUnified(lines);
+        } else {
+            for (String line : lines) {
+                Matcher range = RANGE.matcher(line.trim());
+                if (line.trim().isEmpty() || !range.matches()) {
+                    continue;
+                }
+                long first = range.group(2) == null ? 1 : Long.parseLong(range.group(2));
+                long last = range.group(2) == null ? Long.MAX_VALUE
+                        : range.group(3) == null ? first : Long.parseLong(range.group(3));
+                scope.add(range.group(1), first, last);
+            }
+        }
+        return scope;
+    }
+
+    /**
+     * @param lines the lines of a unified diff
+     */
+    private void parseUnified(final List<String> lines) {
+        String file = null;
+        long next = 0;
+        for (String line : lines) {
+            if (line.startsWith("+++ ")) {
+                String path = line.substring(4);
+                int tab = path.indexOf('\t');
+                path = tab < 0 ? path.trim() : path.substring(0, tab).trim();
+                // git prefixes the new file with "b/"; a deleted file has no new version.
+                file = "/dev/null".equals(path) ? null : path.startsWith("b/") ? path.substring(2) : path;
+                if (file != null) {
+                    changed.computeIfAbsent(Paths.get(file), f -> new ArrayList<>());
+                }
+            } else if (line.startsWith("@@ ")) {
+                Matcher hunk = HUNK.matcher(line);
+                next = hunk.find() ? Long.parseLong(hunk.group(1)) : 0;
+            } else if (file != null && next > 0 && !line.startsWith("--- ")) {
+                if (line.startsWith("+")) {
+                    add(file, next, next);
+                    next++;
+                } else if (line.startsWith("-")) {
+                    add(file, next, next);
+                } else if (line.startsWith(" ")) {
+                    next++;
+                }
+            }
+        }
+    }
+
+    /**
+     * @param file  a changed file
+     * @param first the first changed line
+     * @param last  the last changed line
+     */
+    private void add(final String file, final long first, final long last) {
+        List<long[]> ranges = changed.computeIfAbsent(Paths.get(file), f -> new ArrayList<>());
+        long[] previous = ranges.isEmpty() ? null : ranges.get(ranges.size() - 1);
+        if (previous != null && first <= previous[1] + 1 && first >= previous[0]) {
+            previous[1] = Math.max(previous[1], last);
+        } else {
+            ranges.add(new long[] {first, last});
+        }
+    }
+
+    /** @return the changed files, as written in the diff */
+    Set<Path> files() {
+        return changed.keySet();
+    }
+
+    /**
+     * @param source the path of a source file
+     * @return the changed ranges of the file, or null if it is unchanged
+     */
+    @Nullable List<long[]> rangesOf(final Path source) {
+        for (Map.Entry<Path, List<long[]>> file : changed.entrySet()) {
+            if (source.endsWith(file.getKey())) {
+                return file.getValue();
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @param ranges the changed ranges of a file
+     * @param first  the first line of a piece of code
+     * @param last   its last line
+     * @return whether the code contains a changed line
+     */
+    static boolean overlaps(final List<long[]> ranges, final long first, final long last) {
+        for (long[] range : ranges) {
+            if (range[0] <= last && first <= range[1]) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,229 @@
+// Copyright 2017 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+// SPDX-License-Identifier: Apache-2.0
+package com.amazon.checkerframework.checker.data_classification;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.BinaryOperator;
+import java.util.function.Function;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.type.TypeMirror;
+import org.checkerframework.checker.nullness.qual.Nullable;
+import org.checkerframework.javacutil.ElementUtils;
+import org.checkerframework.javacutil.TypesUtils;
+
+/**
+ * Computes class bounds for -AdccInferenceMode=hierarchy.
+ *
+ * <p>In that mode, the bound of a class is the least upper bound of its own bound (the one {@link
+ * DataClassificationAnnotatedTypeFactory#fromElement} infers from the class' declaration and
+ * members) and the bounds of its superclass, its interfaces and its enclosing class. Those
+ * dependencies can be cyclic: an inner class depends on its enclosing class, which may in turn
+ * extend or implement one of its own members. So the classes are grouped into strongly connected
+ * components with Tarjan's algorithm, all classes in a component share one bound, and components
+ * are completed dependencies-first. Every bound is memoized, so a supertype shared by many
+ * subclasses is walked only once per compilation.
+ *
+ * <p>The bound of a component is a least upper bound over a fixed set of qualifiers, so it does not
+ * depend on the order in which classes are visited.
+ */
+final class HierarchyClassInference {
+
+    /** Computes the own bound of a class, i.e. its bound when supertypes are ignored. */
+    private final Function<TypeElement, AnnotationMirror> ownBound;
+
+    /** The least upper bound of two qualifiers. */
+    private final BinaryOperator<AnnotationMirror> lub;
+
+    /** The completed bounds. */
+    private final Map<TypeElement, AnnotationMirror> bounds = new HashMap<>();
+
+    /**
+     * Creates an empty inference.
+     *
+     * @param ownBound computes the bound of a class from its declaration and members alone
+     * @param lub      the least upper bound of two qualifiers
+     */
+    HierarchyClassInference(final Function<TypeElement, AnnotationMirror> ownBound,
+            final BinaryOperator<AnnotationMirror> lub) {
+        this.ownBound = ownBound;
+        this.lub = lub;
+    }
+
+    /**
+     * Returns the bound of a class, computing it and the bounds of everything it depends on if
+     * necessary. This may be re-entered from {@link #ownBound}; a nested call uses its own worklist
+     * and only shares completed bounds with the outer one.
+     *
+     * @param root a class or interface
+     * @return the least upper bound of the own bounds of root and everything it depends on
+     */
+    AnnotationMirror bound(final TypeElement root) {
+        AnnotationMirror known = bounds.get(root);
+        if (known != null) {
+            return known;
+        }
+
+        // Tarjan's algorithm, with an explicit stack of frames in place of recursion.
+        Map<TypeElement, Integer> index = new HashMap<>();
+        Map<TypeElement, Integer> lowLink = new HashMap<>();
+        Map<TypeElement, List<TypeElement>> successors = new HashMap<>();
+        Deque<TypeElement> componentStack = new ArrayDeque<>();
+        Set<TypeElement> onComponentStack = new HashSet<>();
+        Deque<Frame> work = new ArrayDeque<>();
+
+        work.push(visit(root, index, lowLink, successors, componentStack, onComponentStack));
+        while (!work.isEmpty()) {
+            Frame frame = work.peek();
+            if (frame.next < frame.successors.size()) {
+                TypeElement successor = frame.successors.get(frame.next++);
+                if (bounds.containsKey(successor)) {
+                    continue;
+                }
+                Integer successorIndex = index.get(successor);
+                if (successorIndex == null) {
+                    work.push(visit(successor, index, lowLink, successors, componentStack, onComponentStack));
+                } else if (onComponentStack.contains(successor)) {
+                    lowLink.put(frame.elt, Math.min(lowLink.get(frame.elt), successorIndex));
+                }
+                continue;
+            }
+
+            work.pop();
+            int low = lowLink.get(frame.elt);
+            if (low == index.get(frame.elt)) {
+                completeComponent(frame.elt, successors, componentStack, onComponentStack);
+            }
+            if (!work.isEmpty()) {
+                TypeElement parent = work.peek().elt;
+                lowLink.put(parent, Math.min(lowLink.get(parent), low));
+            }
+        }
+        return bounds.get(root);
+    }
+
+    /**
+     * Pops a strongly connected component off the stack and records its bound. All of the
+     * component's successors outside the component have already been completed.
+     *
+     * @param head             the first class of the component that was visited
+     * @param successors       the dependencies of each visited class
+     * @param componentStack   Tarjan's stack
+     * @param onComponentStack the classes on Tarjan's stack
+     */
+    private void completeComponent(final TypeElement head,
+            final Map<TypeElement, List<TypeElement>> successors,
+            final Deque<TypeElement> componentStack,
+            final Set<TypeElement> onComponentStack) {
+        List<TypeElement> component = new ArrayList<>();
+        TypeElement member;
+        do {
+            member = componentStack.pop();
+            onComponentStack.remove(member);
+            component.add(member);
+        } while (member != head);
+
+        AnnotationMirror componentBound = null;
+        for (TypeElement elt : component) {
+            componentBound = lubOrFirst(componentBound, ownBound.apply(elt));
+            for (TypeElement successor : successors.get(elt)) {
+                if (!component.contains(successor)) {
+                    componentBound = lubOrFirst(componentBound, bounds.get(successor));
+                }
+            }
+        }
+        for (TypeElement elt : component) {
+            bounds.put(elt, componentBound);
+        }
+    }
+
+    /**
+     * @param a a qualifier, or null
+     * @param b a qualifier
+     * @return b if a is null, or the least upper bound of a and b otherwise
+     */
+    private AnnotationMirror lubOrFirst(final @Nullable AnnotationMirror a, final AnnotationMirror b) {
+        return a == null ? b : lub.apply(a, b);
+    }
+
+    /**
+     * Assigns a class its Tarjan index and pushes it on the component stack.
+     *
+     * @param elt              the class
+     * @param index            the Tarjan index of each visited class
+     * @param lowLink          the low-link of each visited class
+     * @param successors       the dependencies of each visited class
+     * @param componentStack   Tarjan's stack
+     * @param onComponentStack the classes on Tarjan's stack
+     * @return a new frame for the class
+     */
+    private static Frame visit(final TypeElement elt,
+            final Map<TypeElement, Integer> index,
+            final Map<TypeElement, Integer> lowLink,
+            final Map<TypeElement, List<TypeElement>> successors,
+            final Deque<TypeElement> componentStack,
+            final Set<TypeElement> onComponentStack) {
+        int i = index.size();
+        index.put(elt, i);
+        lowLink.put(elt, i);
+        componentStack.push(elt);
+        onComponentStack.add(elt);
+        List<TypeElement> eltSuccessors = dependencies(elt);
+        successors.put(elt, eltSuccessors);
+        return new Frame(elt, eltSuccessors);
+    }
+
+    /**
+     * @param elt a class or interface
+     * @return its superclass, interfaces and enclosing class, in that order
+     */
+    private static List<TypeElement> dependencies(final TypeElement elt) {
+        List<TypeElement> result = new ArrayList<>();
+        TypeElement superclass = TypesUtils.getTypeElement(elt.getSuperclass());
+        if (superclass != null) {
+            result.add(superclass);
+        }
+        for (TypeMirror iface : elt.getInterfaces()) {
+            TypeElement ifaceElt = TypesUtils.getTypeElement(iface);
+            if (ifaceElt != null) {
+                result.add(ifaceElt);
+            }
+        }
+        if (elt.getEnclosingElement() != null) {
+            TypeElement enclosing = ElementUtils.enclosingTypeElement(elt.getEnclosingElement());
+            if (enclosing != null) {
+                result.add(enclosing);
+            }
+        }
+        return result;
+    }
+
+    /** A class whose dependencies are being visited. */
+    private static final class Frame {
+
+        /** The class. */
+        final TypeElement elt;
+
+        /** Its dependencies. */
+        final List<TypeElement> successors;
+
+        /** The index of the next dependency to visit. */
+        int next;
+
+        /**
+         * @param elt        the class
+         * @param successors its dependencies
+         */
+        Frame(final TypeElement elt, final List<TypeElement> successors) {
+            this.elt = elt;
+            this.successors = successors;
+        }
+    }
+}
@@ -0,0 +1,137 @@
+// Copyright 2017 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+// SPDX-License-Identifier: Apache-2.0
+package com.amazon.checkerframework.checker.data_classification;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.EventType;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+/**
+ * The {@link CheckerEvents} of a JVM with Java Flight Recorder. This is the only class that
+ * refers to {@code jdk.jfr}; {@link CheckerEvents} loads it reflectively.
+ */
+final class JfrCheckerEvents extends CheckerEvents {
+
+    /** The category of all events, as shown by JDK Mission Control. */
+    private static final String CATEGORY = "Data Classification Checker";
+
+    /** The check of a top-level class. */
+    @Name("com.amazon.dcc.ClassCheck")
+    @Label("Class Check")
+    @Description("The data classification checker checked a top-level class")
+    @Category(CATEGORY)
+    static final class ClassCheckEvent extends Event {
+        /** The source file. */
+        @Label("File")
+        String file;
+
+        /** The class. */
+        @Label("Class")
+        String className;
+    }
+
+    /** The walk over the members of a class to infer its bound. */
+    @Name("com.amazon.dcc.ClassInference")
+    @Label("Class Inference")
+    @Description("The data classification checker inferred the bound of a class from its members")
+    @Category(CATEGORY)
+    static final class ClassInferenceEvent extends Event {
+        /** The class. */
+        @Label("Class")
+        String className;
+
+        /** The number of members walked. */
+        @Label("Members")
+        int members;
+
+        /** The inferred bound. */
+        @Label("Qualifier")
+        String qualifier;
+    }
+
+    /** The loading of stub files or of a stub index. */
+    @Name("com.amazon.dcc.StubLoad")
+    @Label("Stub Load")
+    @Description("The data classification checker loaded stub annotations")
+    @Category(CATEGORY)
+    static final class StubLoadEvent extends Event {
+        /** The stub files or index. */
+        @Label("Source")
+        String source;
+
+        /** The number of methods loaded, or -1 if unknown. */
+        @Label("Entries")
+        int entries;
+    }
+
+    /** The types of the events, which know whether a recording enabled them. */
+    private final EventType classCheckType = EventType.getEventType(ClassCheckEvent.class);
+    private final EventType classInferenceType = EventType.getEventType(ClassInferenceEvent.class);
+    private final EventType stubLoadType = EventType.getEventType(StubLoadEvent.class);
+
+    @Override
+    @Nullable Object beginClassCheck() {
+        if (!classCheckType.isEnabled()) {
+            return null;
+        }
+        ClassCheckEvent event = new ClassCheckEvent();
+        event.begin();
+        return event;
+    }
+
+    @Override
+    void commitClassCheck(final @Nullable Object event, final String file, final String className) {
+        if (event instanceof ClassCheckEvent) {
+            ClassCheckEvent check = (ClassCheckEvent) event;
+            check.file = file;
+            check.className = className;
+            check.commit();
+        }
+    }
+
+    @Override
+    @Nullable Object beginClassInference() {
+        if (!classInferenceType.isEnabled()) {
+            return null;
+        }
+        ClassInferenceEvent event = new ClassInferenceEvent();
+        event.begin();
+        return event;
+    }
+
+    @Override
+    void commitClassInference(final @Nullable Object event, final String className, final int members,
+            final String qualifier) {
+        if (event instanceof ClassInferenceEvent) {
+            ClassInferenceEvent inference = (ClassInferenceEvent) event;
+            inference.className = className;
+            inference.members = members;
+            inference.qualifier = qualifier;
+            inference.commit();
+        }
+    }
+
+    @Override
+    @Nullable Object beginStubLoad() {
+        if (!stubLoadType.isEnabled()) {
+            return null;
+        }
+        StubLoadEvent event = new StubLoadEvent();
+        event.begin();
+        return event;
+    }
+
+    @Override
+    void commitStubLoad(final @Nullable Object event, final String source, final int entries) {
+        if (event instanceof StubLoadEvent) {
+            StubLoadEvent load = (StubLoadEvent) event;
+            load.source = source;
+            load.entries = entries;
+            load.commit();
+        }
+    }
+}
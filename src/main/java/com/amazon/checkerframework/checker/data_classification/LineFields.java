@@ -0,0 +1,40 @@
+// Copyright 2017 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+// SPDX-License-Identifier: Apache-2.0
+package com.amazon.checkerframework.checker.data_classification;
+
+/**
+ * The escaping of the fields of the checker's line-based formats, the {@link CheckerDaemon}
+ * protocol and the {@link MethodBodyCache} entries, which separate fields with tabs and records
+ * with line breaks.
+ */
+final class LineFields {
+
+    private LineFields() {
+    }
+
+    /**
+     * @param text a field
+     * @return the field with backslashes, tabs and line breaks escaped, so it fits on a line
+     */
+    static String escape(final String text) {
+        return text.replace("\\", "\\\\").replace("\t", "\\t").replace("\n", "\\n").replace("\r", "\\r");
+    }
+
+    /**
+     * @param text an escaped field
+     * @return the original field
+     */
+    static String unescape(final String text) {
+        StringBuilder original = new StringBuilder(text.length());
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c == '\\' && i + 1 < text.length()) {
+                char next = text.charAt(++i);
+                original.append(next == 't' ? '\t' : next == 'n' ? '\n' : next == 'r' ? '\r' : next);
+            } else {
+                original.append(c);
+            }
+        }
+        return original.toString();
+    }
+}
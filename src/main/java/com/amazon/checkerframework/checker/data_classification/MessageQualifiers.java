@@ -0,0 +1,76 @@
+// Copyright 2017 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+// SPDX-License-Identifier: Apache-2.0
+package com.amazon.checkerframework.checker.data_classification;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+/**
+ * Finds the found and required qualifiers of a type incompatibility diagnostic. The framework
+ * passes both types as formatted strings, so they are located by the labels of their placeholders
+ * in the message format, e.g. {@code found   : %s}, and their first annotation is taken.
+ */
+final class MessageQualifiers {
+
+    /** The labels of the found type's placeholder, e.g. in {@code argument} and {@code return}. */
+    private static final String[] FOUND_LABELS = {"found   : %s", "type of expression: %s", "found: %s"};
+
+    /** The labels of the required type's placeholder. */
+    private static final String[] REQUIRED_LABELS = {"required: %s", "method return type: %s", "declared type: %s"};
+
+    /** The first annotation of a type, capturing its simple name. */
+    private static final Pattern QUALIFIER = Pattern.compile("@(?:[\\w$]+\\.)*([\\w$]+)");
+
+    /**
+     * The indexes of the found and required arguments of each message format, or -1 if the
+     * message has none.
+     */
+    private final Map<String, int[]> indexes = new HashMap<>();
+
+    /**
+     * @param format the format of a message
+     * @param args   its arguments, processed for printing
+     * @return the simple names of the found and required qualifiers, each null if the message has
+     *         none
+     */
+    @Nullable String[] of(final String format, final Object[] args) {
+        int[] index = indexes.computeIfAbsent(format,
+                f -> new int[] {argumentIndex(f, FOUND_LABELS), argumentIndex(f, REQUIRED_LABELS)});
+        return new String[] {qualifier(args, index[0]), qualifier(args, index[1])};
+    }
+
+    /**
+     * @param format a message format
+     * @param labels the possible labels of an argument's placeholder
+     * @return the index of the argument, or -1 if the format has none of the labels
+     */
+    private static int argumentIndex(final String format, final String[] labels) {
+        for (String label : labels) {
+            int at = format.indexOf(label);
+            if (at >= 0) {
+                int index = 0;
+                for (int i = format.indexOf("%s"); i >= 0 && i < at; i = format.indexOf("%s", i + 2)) {
+                    index++;
+                }
+                return index;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * @param args  the arguments of a message
+     * @param index the index of a type argument, or -1
+     * @return the simple name of the type's first annotation, or null
+     */
+    private static @Nullable String qualifier(final Object[] args, final int index) {
+        if (index < 0 || index >= args.length || args[index] == null) {
+            return null;
+        }
+        Matcher qualifier = QUALIFIER.matcher(args[index].toString());
+        return qualifier.find() ? qualifier.group(1) : null;
+    }
+}
@@ -0,0 +1,498 @@
+// Copyright 2017 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+// SPDX-License-Identifier: Apache-2.0
+package com.amazon.checkerframework.checker.data_classification;
+
+import com.sun.source.tree.MethodTree;
+import com.sun.source.tree.Tree;
+import com.sun.source.util.TreeScanner;
+import com.sun.source.util.Trees;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.type.ArrayType;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.type.TypeVariable;
+import javax.lang.model.type.WildcardType;
+import javax.tools.Diagnostic;
+import org.checkerframework.checker.nullness.qual.Nullable;
+import org.checkerframework.common.basetype.BaseTypeChecker;
+import org.checkerframework.framework.source.DiagMessage;
+import org.checkerframework.framework.util.AnnotatedTypes;
+import org.checkerframework.javacutil.ElementUtils;
+import org.checkerframework.javacutil.TreeUtils;
+
+/**
+ * The -AdccMethodCache store: the diagnostics the visitor reported in each method, keyed by a
+ * fingerprint of everything the method's check depends on, so that a method whose fingerprint is
+ * unchanged is not visited again and its diagnostics are replayed instead.
+ *
+ * <p>The fingerprint is a SHA-256 digest of
+ *
+ * <ul>
+ *   <li>the method's tree, as printed by javac, which ignores layout and comments, and the name
+ *       of its class;
+ *   <li>the annotated types that {@link DataClassificationAnnotatedTypeFactory#fromElement}, and
+ *       so the stub files and class summary indexes, give to the method, the methods it overrides
+ *       and every element its body refers to;
+ *   <li>the {@link DataClassificationAnnotatedTypeFactory#getClassQualifier qualifier} of its
+ *       class, of the classes declaring the elements it refers to, and of every class in the types
+ *       of its subtrees, which polymorphic resolution uses;
+ *   <li>the {@link CacheSalt salt} of the checker's options, except those that only filter or
+ *       export diagnostics, which includes the contents of the stub and levels files.
+ * </ul>
+ *
+ * Anything else that changes the result is a bug in the fingerprint, so when in doubt, a method is
+ * not cached: methods with a diagnostic on a tree outside their body, and methods whose check was
+ * cut short by -AdccErrorBudget, are not stored. Diagnostics are recorded before suppression and
+ * the other filters, which apply again when they are replayed.
+ *
+ * <p>Entries are only written at the end of a clean run, one in which every error javac reported
+ * came from the checker: after a crash, or errors from javac itself, some methods may have been
+ * checked against incompletely attributed code, so none of the run's entries are stored.
+ *
+ * <p>Entries are content-addressed, so a changed method just gets a new entry. Entries are never
+ * removed; delete the directory to reclaim space. Like {@link ClassSummaryStore}, entries are
+ * written to a temporary file first, so concurrent compilations can share a store.
+ */
+final class MethodBodyCache {
+
+    /**
+     * Bumped whenever the fingerprint or the file format change, so that entries written by an
+     * older checker are never trusted.
+     */
+    private static final String FORMAT_VERSION = "dcc-method-2";
+
+    /** The suffix of each entry file. */
+    private static final String ENTRY_SUFFIX = ".dcc";
+
+    /** The options that only filter or export diagnostics, and so don't change what is reported. */
+    private static final Set<String> UNSALTED_OPTIONS = new HashSet<>(Arrays.asList("dccMethodCache",
+            "dccCacheStats", "dccStats", "dccAbiFingerprint", "dccPrescan", "dccDiff", "dccReport",
+            "dccGroupDiagnostics", "dccErrorBudget", "dccSound"));
+
+    /** A diagnostic reported while a method was recorded. */
+    private static final class Recorded {
+        /** Its kind. */
+        final Diagnostic.Kind kind;
+
+        /** Its message key. */
+        final String key;
+
+        /** The arguments of its message, as printed. */
+        final String[] args;
+
+        /** The index of the tree it was reported on, in the method's {@link #nodes}. */
+        final int node;
+
+        Recorded(final Diagnostic.Kind kind, final String key, final String[] args, final int node) {
+            this.kind = kind;
+            this.key = key;
+            this.args = args;
+            this.node = node;
+        }
+    }
+
+    /** The directory holding the entries. */
+    private final Path directory;
+
+    /** The checker, which replayed diagnostics are reported through. */
+    private final BaseTypeChecker checker;
+
+    /** The factory that gives the annotated types and class qualifiers. */
+    private final DataClassificationAnnotatedTypeFactory factory;
+
+    /** The compiler's trees. */
+    private final Trees trees;
+
+    /** Everything outside the sources that the fingerprints depend on. */
+    private final String salt;
+
+    /** The trees of the method being recorded, in scan order, or null when none is. */
+    private @Nullable List<Tree> recordedNodes;
+
+    /** The diagnostics of the method being recorded. */
+    private final List<Recorded> recorded = new ArrayList<>();
+
+    /** Whether a diagnostic of the method being recorded was on a tree outside it. */
+    private boolean outsideDiagnostic;
+
+    /** The entries of the methods visited so far, written by {@link #storeAll}, by fingerprint. */
+    private final Map<String, List<Recorded>> pending = new LinkedHashMap<>();
+
+    /** Methods replayed from an entry, visited and stored, and visited but not stored. */
+    private long hits, stores, uncached;
+
+    /**
+     * Opens a store rooted at the given directory, creating it if necessary.
+     *
+     * @param directory the directory holding the entries
+     * @param checker   the checker
+     * @param factory   the checker's type factory
+     * @throws IOException if the directory cannot be created
+     */
+    MethodBodyCache(final Path directory, final BaseTypeChecker checker,
+            final DataClassificationAnnotatedTypeFactory factory) throws IOException {
+        this.directory = Files.createDirectories(directory);
+        this.checker = checker;
+        this.factory = factory;
+        this.trees = Trees.instance(checker.getProcessingEnvironment());
+        this.salt = FORMAT_VERSION + "\n" + CacheSalt.of(checker, option -> !UNSALTED_OPTIONS.contains(option));
+    }
+
+    /**
+     * Computes the fingerprint of a method.
+     *
+     * @param tree a method
+     * @return the fingerprint, or null if the method can't be cached
+     */
+    @Nullable String fingerprint(final MethodTree tree) {
+        ExecutableElement method = TreeUtils.elementFromDeclaration(tree);
+        TypeElement owner = method == null ? null : ElementUtils.enclosingTypeElement(method);
+        if (owner == null) {
+            return null;
+        }
+        String text;
+        try {
+            text = tree.toString();
+        } catch (RuntimeException e) {
+            return null;
+        }
+        Set<String> summaries = new TreeSet<>();
+        summaries.add("method " + factory.fromElement(method));
+        for (ExecutableElement overridden
+                : AnnotatedTypes.overriddenMethods(factory.getElementUtils(), factory, method).values()) {
+            addElement(overridden, summaries);
+        }
+        addClass(owner, summaries);
+        Set<Element> typeVariables = new HashSet<>();
+        new TreeScanner<Void, Void>() {
+            @Override
+            public Void scan(final Tree node, final Void p) {
+                if (node != null) {
+                    switch (node.getKind()) {
+                        case IDENTIFIER:
+                        case MEMBER_SELECT:
+                        case METHOD_INVOCATION:
+                        case NEW_CLASS:
+                        case MEMBER_REFERENCE:
+                            addElement(TreeUtils.elementFromTree(node), summaries);
+                            break;
+                        default:
+                            break;
+                    }
+                    addType(TreeUtils.typeOf(node), summaries, typeVariables);
+                }
+                return super.scan(node, p);
+            }
+        }.scan(tree, null);
+
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            // Every Java platform is required to support SHA-256.
+            throw new AssertionError(e);
+        }
+        digest.update(salt.getBytes(StandardCharsets.UTF_8));
+        digest.update((owner.getQualifiedName() + "\n" + text + "\n").getBytes(StandardCharsets.UTF_8));
+        for (String summary : summaries) {
+            digest.update((summary + "\n").getBytes(StandardCharsets.UTF_8));
+        }
+        StringBuilder hex = new StringBuilder();
+        for (byte b : digest.digest()) {
+            hex.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+        }
+        return hex.toString();
+    }
+
+    /**
+     * Adds the summary of an element a method refers to.
+     *
+     * @param element   the element, or null
+     * @param summaries the summaries so far
+     */
+    private void addElement(final @Nullable Element element, final Set<String> summaries) {
+        if (element == null || element.getKind() == ElementKind.PACKAGE) {
+            return;
+        }
+        if (element instanceof TypeElement) {
+            addClass((TypeElement) element, summaries);
+            return;
+        }
+        TypeElement owner = ElementUtils.enclosingTypeElement(element);
+        summaries.add(element.getKind() + " " + (owner == null ? "" : owner.getQualifiedName() + "#")
+                + element + "=" + factory.fromElement(element));
+        if (owner != null) {
+            addClass(owner, summaries);
+        }
+    }
+
+    /**
+     * Adds the qualifier of a class.
+     *
+     * @param type      the class
+     * @param summaries the summaries so far
+     */
+    private void addClass(final TypeElement type, final Set<String> summaries) {
+        summaries.add("class " + type.getQualifiedName() + "=" + factory.getClassQualifier(type));
+    }
+
+    /**
+     * Adds the qualifiers of the classes in a type.
+     *
+     * @param type          the type of a subtree, or null
+     * @param summaries     the summaries so far
+     * @param typeVariables the type variables already added, so that recursive bounds end
+     */
+    private void addType(final @Nullable TypeMirror type, final Set<String> summaries,
+            final Set<Element> typeVariables) {
+        if (type instanceof DeclaredType) {
+            addClass((TypeElement) ((DeclaredType) type).asElement(), summaries);
+            for (TypeMirror argument : ((DeclaredType) type).getTypeArguments()) {
+                addType(argument, summaries, typeVariables);
+            }
+        } else if (type instanceof ArrayType) {
+            addType(((ArrayType) type).getComponentType(), summaries, typeVariables);
+        } else if (type instanceof WildcardType) {
+            addType(((WildcardType) type).getExtendsBound(), summaries, typeVariables);
+            addType(((WildcardType) type).getSuperBound(), summaries, typeVariables);
+        } else if (type instanceof TypeVariable && typeVariables.add(((TypeVariable) type).asElement())) {
+            addType(((TypeVariable) type).getUpperBound(), summaries, typeVariables);
+        }
+    }
+
+    /**
+     * Replays the diagnostics of a method, if it has an entry.
+     *
+     * @param fingerprint the method's fingerprint
+     * @param tree        the method
+     * @return whether the method had an entry, so that it doesn't need to be visited
+     */
+    boolean replay(final String fingerprint, final MethodTree tree) {
+        List<Recorded> entry;
+        try {
+            entry = load(fingerprint);
+        } catch (IOException | RuntimeException e) {
+            // An unreadable or corrupt entry is a miss; visiting the method replaces it.
+            entry = null;
+        }
+        List<Tree> nodes = entry == null || entry.isEmpty() ? null : nodes(tree);
+        if (entry == null || (nodes != null && !validNodes(entry, nodes))) {
+            return false;
+        }
+        for (Recorded diagnostic : entry) {
+            Tree source = nodes.get(diagnostic.node);
+            if (diagnostic.kind == Diagnostic.Kind.ERROR) {
+                checker.reportError(source, diagnostic.key, (Object[]) diagnostic.args);
+            } else if (diagnostic.kind == Diagnostic.Kind.MANDATORY_WARNING) {
+                checker.reportWarning(source, diagnostic.key, (Object[]) diagnostic.args);
+            } else {
+                checker.report(source, new DiagMessage(diagnostic.kind, diagnostic.key, (Object[]) diagnostic.args));
+            }
+        }
+        hits++;
+        return true;
+    }
+
+    /**
+     * @param entry the diagnostics of an entry
+     * @param nodes the trees of the method
+     * @return whether every diagnostic is on one of the trees
+     */
+    private static boolean validNodes(final List<Recorded> entry, final List<Tree> nodes) {
+        for (Recorded diagnostic : entry) {
+            if (diagnostic.node < 0 || diagnostic.node >= nodes.size()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @param tree a method
+     * @return its trees, in scan order
+     */
+    private static List<Tree> nodes(final MethodTree tree) {
+        List<Tree> nodes = new ArrayList<>();
+        new TreeScanner<Void, Void>() {
+            @Override
+            public Void scan(final Tree node, final Void p) {
+                if (node != null) {
+                    nodes.add(node);
+                }
+                return super.scan(node, p);
+            }
+        }.scan(tree, null);
+        return nodes;
+    }
+
+    /** @return whether a method is being recorded */
+    boolean isRecording() {
+        return recordedNodes != null;
+    }
+
+    /**
+     * Starts recording the diagnostics of a method that had no entry.
+     *
+     * @param tree the method
+     */
+    void startRecording(final MethodTree tree) {
+        recordedNodes = nodes(tree);
+        recorded.clear();
+        outsideDiagnostic = false;
+    }
+
+    /**
+     * Records a diagnostic of the method being recorded.
+     *
+     * @param source the tree or element it is reported on
+     * @param kind   its kind
+     * @param key    its message key
+     * @param args   the arguments of its message, as printed
+     */
+    void record(final Object source, final Diagnostic.Kind kind, final String key, final String[] args) {
+        Tree tree = source instanceof Tree ? (Tree) source
+                : source instanceof Element ? trees.getTree((Element) source) : null;
+        int node = -1;
+        for (int i = 0; tree != null && recordedNodes != null && i < recordedNodes.size(); i++) {
+            if (recordedNodes.get(i) == tree) {
+                node = i;
+                break;
+            }
+        }
+        if (node < 0) {
+            outsideDiagnostic = true;
+        } else {
+            recorded.add(new Recorded(kind, key, args, node));
+        }
+    }
+
+    /**
+     * Stops recording, and keeps the method's diagnostics for {@link #storeAll} unless they may be
+     * incomplete.
+     *
+     * @param fingerprint the method's fingerprint
+     * @param complete    whether the method was visited completely
+     */
+    void stopRecording(final String fingerprint, final boolean complete) {
+        recordedNodes = null;
+        if (!complete || outsideDiagnostic) {
+            uncached++;
+            return;
+        }
+        pending.put(fingerprint, new ArrayList<>(recorded));
+    }
+
+    /**
+     * Ends the run: writes the entries of the methods visited if the run was clean, or drops them.
+     *
+     * @param clean whether every error of the compilation was reported by the checker
+     */
+    void storeAll(final boolean clean) {
+        for (Map.Entry<String, List<Recorded>> entry : pending.entrySet()) {
+            if (!clean) {
+                uncached++;
+                continue;
+            }
+            try {
+                store(entry.getKey(), entry.getValue());
+                stores++;
+            } catch (IOException e) {
+                uncached++;
+            }
+        }
+        pending.clear();
+    }
+
+    /**
+     * @param fingerprint a method's fingerprint
+     * @return the method's diagnostics, or null if it has no entry
+     * @throws IOException if the entry exists but cannot be read
+     */
+    private @Nullable List<Recorded> load(final String fingerprint) throws IOException {
+        try (BufferedReader reader = Files.newBufferedReader(entry(fingerprint), StandardCharsets.UTF_8)) {
+            if (!FORMAT_VERSION.equals(reader.readLine())) {
+                return null;
+            }
+            List<Recorded> diagnostics = new ArrayList<>();
+            for (String line = reader.readLine(); line != null; line = reader.readLine()) {
+                String[] fields = line.split("\t", -1);
+                String[] args = new String[fields.length - 3];
+                for (int i = 0; i < args.length; i++) {
+                    args[i] = LineFields.unescape(fields[i + 3]);
+                }
+                diagnostics.add(new Recorded(Diagnostic.Kind.valueOf(fields[0]), fields[1], args,
+                        Integer.parseInt(fields[2])));
+            }
+            return diagnostics;
+        } catch (NoSuchFileException e) {
+            return null;
+        }
+    }
+
+    /**
+     * @param fingerprint a method's fingerprint
+     * @param diagnostics its diagnostics
+     * @throws IOException if the entry cannot be written
+     */
+    private void store(final String fingerprint, final List<Recorded> diagnostics) throws IOException {
+        Path target = entry(fingerprint);
+        Files.createDirectories(target.getParent());
+        Path temp = Files.createTempFile(target.getParent(), fingerprint, ".tmp");
+        try {
+            try (BufferedWriter writer = Files.newBufferedWriter(temp, StandardCharsets.UTF_8)) {
+                writer.write(FORMAT_VERSION);
+                writer.newLine();
+                for (Recorded diagnostic : diagnostics) {
+                    writer.write(diagnostic.kind + "\t" + diagnostic.key + "\t" + diagnostic.node);
+                    for (String arg : diagnostic.args) {
+                        writer.write("\t" + LineFields.escape(arg));
+                    }
+                    writer.newLine();
+                }
+            }
+            try {
+                Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    /**
+     * @param fingerprint a method's fingerprint
+     * @return the path of its entry file, in a subdirectory named after the first two digits
+     */
+    private Path entry(final String fingerprint) {
+        return directory.resolve(fingerprint.substring(0, 2)).resolve(fingerprint + ENTRY_SUFFIX);
+    }
+
+    /** @return the number of methods replayed, stored and not stored, for a note */
+    String statistics() {
+        return "DCC method cache: " + hits + " methods replayed, " + stores + " checked and stored, "
+                + uncached + " checked but not stored";
+    }
+}
@@ -0,0 +1,430 @@
+// Copyright 2017 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+// SPDX-License-Identifier: Apache-2.0
+package com.amazon.checkerframework.checker.data_classification;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import javax.tools.Diagnostic;
+import javax.tools.DiagnosticCollector;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
+
+/**
+ * Checks a large source set on several threads. javac checks a module on a single thread, so this
+ * driver partitions the source files and checks the partitions concurrently, each in its own
+ * compilation.
+ *
+ * <p>Every compilation parses and attributes all the source files, so that each class is inferred
+ * from the same declarations as in a single compilation, but it only checks the files of its
+ * partition (see {@link DataClassificationChecker#checkOnly}). The compilations share the classes
+ * they infer through {@link SharedClassSummaries}, so each class is walked about once. The
+ * diagnostics of a file are only kept from the compilation that checks it, and the merged
+ * diagnostics are sorted by file, position, kind and message, so the output is the same for any
+ * number of threads and partitions.
+ *
+ * <p>The files are grouped by package, or, with {@code -groupBy cluster}, by clusters of packages
+ * that import each other, so that related classes are checked by the same compilation. The groups
+ * are then spread over the partitions by size; a group larger than a partition's share is split.
+ *
+ * <p>Usage:
+ *
+ * <pre>
+ * ParallelChecker [-threads &lt;n&gt;] [-partitions &lt;n&gt;] [-groupBy package|cluster] [&lt;javac option&gt;...] &lt;source&gt;...
+ * </pre>
+ *
+ * Arguments can also be read from {@code @<file>}, one per line. The exit status is 1 if there are
+ * errors.
+ */
+public final class ParallelChecker {
+
+    /** The package declaration of a compilation unit. */
+    private static final Pattern PACKAGE = Pattern.compile("^\\s*package\\s+([\\w.]+)\\s*;", Pattern.MULTILINE);
+
+    /** An import declaration, capturing the imported name without a trailing {@code .*}. */
+    private static final Pattern IMPORT =
+            Pattern.compile("^\\s*import\\s+(?:static\\s+)?([\\w.]+?)(?:\\.\\*)?\\s*;", Pattern.MULTILINE);
+
+    /** The order of the merged diagnostics. */
+    static final Comparator<Diagnostic<? extends JavaFileObject>> DIAGNOSTIC_ORDER =
+            Comparator.<Diagnostic<? extends JavaFileObject>, String>comparing(
+                    d -> d.getSource() == null ? "" : d.getSource().toUri().toString())
+                    .thenComparingLong(Diagnostic::getLineNumber)
+                    .thenComparingLong(Diagnostic::getColumnNumber)
+                    .thenComparing(Diagnostic::getKind)
+                    .thenComparing(d -> d.getMessage(Locale.ROOT));
+
+    /** The system compiler. */
+    private final JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+
+    /** The javac options of every compilation. */
+    private final List<String> options;
+
+    /** The number of compilations run at the same time. */
+    private final int threads;
+
+    /**
+     * @param options the javac and checker options of every compilation
+     * @param threads the number of compilations run at the same time
+     */
+    ParallelChecker(final List<String> options, final int threads) {
+        this.options = new ArrayList<>();
+        this.options.add("-proc:only");
+        this.options.addAll(options);
+        this.threads = threads;
+    }
+
+    /**
+     * Checks the source files of each partition concurrently.
+     *
+     * @param partitions the partitions of the source files, whose union is the source set
+     * @return the diagnostics of all partitions, in {@link #DIAGNOSTIC_ORDER}
+     * @throws ExecutionException if a compilation failed with an exception
+     */
+    List<Diagnostic<? extends JavaFileObject>> check(final List<List<Path>> partitions) throws ExecutionException {
+        List<File> sources = new ArrayList<>();
+        for (List<Path> partition : partitions) {
+            for (Path source : partition) {
+                sources.add(source.toFile());
+            }
+        }
+        SharedClassSummaries shared = new SharedClassSummaries();
+        ExecutorService workers = Executors.newFixedThreadPool(Math.max(1, Math.min(threads, partitions.size())));
+        try {
+            List<Future<List<Diagnostic<? extends JavaFileObject>>>> results = new ArrayList<>();
+            for (int i = 0; i < partitions.size(); i++) {
+                Set<Path> partition = new HashSet<>(partitions.get(i));
+                boolean first = i == 0;
+                results.add(workers.submit(() -> checkPartition(sources, partition, first, shared)));
+            }
+            List<Diagnostic<? extends JavaFileObject>> diagnostics = new ArrayList<>();
+            for (Future<List<Diagnostic<? extends JavaFileObject>>> result : results) {
+                diagnostics.addAll(result.get());
+            }
+            diagnostics.sort(DIAGNOSTIC_ORDER);
+            return diagnostics;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ExecutionException(e);
+        } finally {
+            workers.shutdownNow();
+        }
+    }
+
+    /**
+     * Runs one compilation of all the sources that only checks one partition.
+     *
+     * @param sources   all the source files
+     * @param partition the absolute, normalized paths of the files to check
+     * @param first     whether this is the first partition, which keeps the diagnostics that are not
+     *                  about a source file
+     * @param shared    the class summaries shared by all compilations
+     * @return the diagnostics about the partition's files
+     * @throws IOException if the file manager can't be closed
+     */
+    private List<Diagnostic<? extends JavaFileObject>> checkPartition(final List<File> sources,
+            final Set<Path> partition, final boolean first, final SharedClassSummaries shared) throws IOException {
+        DiagnosticCollector<JavaFileObject> collector = new DiagnosticCollector<>();
+        try (StandardJavaFileManager files = compiler.getStandardFileManager(null, Locale.ROOT, StandardCharsets.UTF_8)) {
+            Iterable<? extends JavaFileObject> units = files.getJavaFileObjectsFromFiles(sources);
+            Set<URI> checked = new HashSet<>();
+            for (JavaFileObject unit : units) {
+                if (partition.contains(Paths.get(unit.toUri()))) {
+                    checked.add(unit.toUri());
+                }
+            }
+            DataClassificationChecker checker = new DataClassificationChecker();
+            checker.shareClassSummaries(shared);
+            checker.checkOnly(checked);
+            JavaCompiler.CompilationTask task = compiler.getTask(new StringWriter(), files, collector, options, null, units);
+            task.setProcessors(Collections.singletonList(checker));
+            task.call();
+
+            List<Diagnostic<? extends JavaFileObject>> diagnostics = new ArrayList<>();
+            for (Diagnostic<? extends JavaFileObject> diagnostic : collector.getDiagnostics()) {
+                JavaFileObject source = diagnostic.getSource();
+                if (source == null ? first : checked.contains(source.toUri())) {
+                    diagnostics.add(diagnostic);
+                }
+            }
+            return diagnostics;
+        }
+    }
+
+    /**
+     * Groups source files by package and spreads the groups over partitions.
+     *
+     * @param sources    the absolute, normalized paths of the source files
+     * @param partitions the number of partitions
+     * @return the partitions, none of them empty
+     */
+    static List<List<Path>> partitionByPackage(final List<Path> sources, final int partitions) {
+        Map<String, List<Path>> packages = new TreeMap<>();
+        for (Path source : sources) {
+            packages.computeIfAbsent(packageOf(read(source)), p -> new ArrayList<>()).add(source);
+        }
+        return spread(new ArrayList<>(packages.values()), partitions);
+    }
+
+    /**
+     * Groups source files by clusters of packages connected by imports, and spreads the groups over
+     * partitions.
+     *
+     * @param sources    the absolute, normalized paths of the source files
+     * @param partitions the number of partitions
+     * @return the partitions, none of them empty
+     */
+    static List<List<Path>> partitionByCluster(final List<Path> sources, final int partitions) {
+        Map<String, List<Path>> packages = new TreeMap<>();
+        Map<Path, String> contents = new HashMap<>();
+        for (Path source : sources) {
+            String content = read(source);
+            contents.put(source, content);
+            packages.computeIfAbsent(packageOf(content), p -> new ArrayList<>()).add(source);
+        }
+
+        // Union-find over the packages of the source set.
+        Map<String, String> parents = new HashMap<>();
+        for (String pkg : packages.keySet()) {
+            parents.put(pkg, pkg);
+        }
+        for (Path source : sources) {
+            String pkg = packageOf(contents.get(source));
+            Matcher imported = IMPORT.matcher(contents.get(source));
+            while (imported.find()) {
+                // The package of an import is its longest prefix that is a package of the source set.
+                String name = imported.group(1);
+                while (!parents.containsKey(name) && name.lastIndexOf('.') > 0) {
+                    name = name.substring(0, name.lastIndexOf('.'));
+                }
+                if (parents.containsKey(name)) {
+                    String a = root(parents, pkg);
+                    String b = root(parents, name);
+                    // Keep the smallest name as the root, so the clusters don't depend on file order.
+                    if (a.compareTo(b) < 0) {
+                        parents.put(b, a);
+                    } else {
+                        parents.put(a, b);
+                    }
+                }
+            }
+        }
+        Map<String, List<Path>> clusters = new TreeMap<>();
+        for (Map.Entry<String, List<Path>> pkg : packages.entrySet()) {
+            clusters.computeIfAbsent(root(parents, pkg.getKey()), r -> new ArrayList<>()).addAll(pkg.getValue());
+        }
+        return spread(new ArrayList<>(clusters.values()), partitions);
+    }
+
+    /**
+     * @param parents the union-find parents
+     * @param pkg     a package
+     * @return the root of the package's cluster
+     */
+    private static String root(final Map<String, String> parents, final String pkg) {
+        String root = pkg;
+        while (!parents.get(root).equals(root)) {
+            root = parents.get(root);
+        }
+        parents.put(pkg, root);
+        return root;
+    }
+
+    /**
+     * Spreads groups of files over partitions, largest first, each into the partition with the
+     * fewest bytes so far. Groups larger than a partition's share are split into single files, so
+     * one big package doesn't leave the other threads idle.
+     *
+     * @param groups     groups of files, in a deterministic order
+     * @param partitions the number of partitions
+     * @return the non-empty partitions
+     */
+    private static List<List<Path>> spread(final List<List<Path>> groups, final int partitions) {
+        long total = 0;
+        for (List<Path> group : groups) {
+            total += size(group);
+        }
+        long share = total / Math.max(1, partitions) + 1;
+        List<List<Path>> items = new ArrayList<>();
+        for (List<Path> group : groups) {
+            if (size(group) > share) {
+                for (Path file : group) {
+                    items.add(new ArrayList<>(Arrays.asList(file)));
+                }
+            } else {
+                items.add(group);
+            }
+        }
+        // A stable sort, so equally large items keep their deterministic order.
+        items.sort(Comparator.comparingLong(ParallelChecker::size).reversed());
+
+        List<List<Path>> result = new ArrayList<>();
+        long[] loads = new long[Math.max(1, partitions)];
+        for (int i = 0; i < loads.length; i++) {
+            result.add(new ArrayList<>());
+        }
+        for (List<Path> item : items) {
+            int lightest = 0;
+            for (int i = 1; i < loads.length; i++) {
+                if (loads[i] < loads[lightest]) {
+                    lightest = i;
+                }
+            }
+            result.get(lightest).addAll(item);
+            loads[lightest] += size(item);
+        }
+        result.removeIf(List::isEmpty);
+        return result;
+    }
+
+    /**
+     * @param files source files
+     * @return their total size in bytes
+     */
+    private static long size(final List<Path> files) {
+        long size = 0;
+        for (Path file : files) {
+            size += file.toFile().length();
+        }
+        return size;
+    }
+
+    /**
+     * @param content the text of a compilation unit
+     * @return its package, or the empty string for the unnamed package
+     */
+    private static String packageOf(final String content) {
+        Matcher pkg = PACKAGE.matcher(content);
+        return pkg.find() ? pkg.group(1) : "";
+    }
+
+    /**
+     * @param source a source file
+     * @return its text
+     */
+    private static String read(final Path source) {
+        try {
+            return new String(Files.readAllBytes(source), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * @param kind the kind of a diagnostic
+     * @return the label javac prints before its message
+     */
+    private static String label(final Diagnostic.Kind kind) {
+        switch (kind) {
+            case ERROR:
+                return "error: ";
+            case WARNING:
+            case MANDATORY_WARNING:
+                return "warning: ";
+            case NOTE:
+                return "Note: ";
+            default:
+                return "";
+        }
+    }
+
+    /**
+     * Checks the source files given as arguments and prints the diagnostics.
+     *
+     * @param args {@code [-threads <n>] [-partitions <n>] [-groupBy package|cluster] [<javac
+     *             option>...] <source>...}
+     * @throws IOException        if an argument file can't be read
+     * @throws ExecutionException if a compilation failed with an exception
+     */
+    public static void main(final String[] args) throws IOException, ExecutionException {
+        List<String> arguments = new ArrayList<>();
+        for (String arg : args) {
+            if (arg.startsWith("@")) {
+                for (String line : Files.readAllLines(Paths.get(arg.substring(1)), StandardCharsets.UTF_8)) {
+                    if (!line.trim().isEmpty()) {
+                        arguments.add(line.trim());
+                    }
+                }
+            } else {
+                arguments.add(arg);
+            }
+        }
+
+        int threads = Runtime.getRuntime().availableProcessors();
+        int partitions = -1;
+        boolean cluster = false;
+        List<String> options = new ArrayList<>();
+        List<Path> sources = new ArrayList<>();
+        boolean usage = false;
+        for (int i = 0; i < arguments.size(); i++) {
+            String arg = arguments.get(i);
+            if ("-threads".equals(arg) && i + 1 < arguments.size()) {
+                threads = Integer.parseInt(arguments.get(++i));
+            } else if ("-partitions".equals(arg) && i + 1 < arguments.size()) {
+                partitions = Integer.parseInt(arguments.get(++i));
+            } else if ("-groupBy".equals(arg) && i + 1 < arguments.size()) {
+                String grouping = arguments.get(++i);
+                cluster = "cluster".equals(grouping);
+                usage |= !cluster && !"package".equals(grouping);
+            } else if (arg.startsWith("-AdccStats") || arg.startsWith("-AdccAbiFingerprint")
+                    || arg.startsWith("-AdccReport")) {
+                // Every compilation would write its own, partial, file.
+                System.err.println(arg + " is not supported by ParallelChecker");
+                usage = true;
+            } else if (arg.endsWith(".java") && !arg.startsWith("-")) {
+                sources.add(Paths.get(arg).toAbsolutePath().normalize());
+            } else {
+                options.add(arg);
+            }
+        }
+        if (usage || sources.isEmpty() || threads < 1) {
+            System.err.println("Usage: ParallelChecker [-threads <n>] [-partitions <n>] [-groupBy package|cluster] "
+                    + "[<javac option>...] <source>...");
+            System.exit(1);
+        }
+        if (partitions < 1) {
+            partitions = threads;
+        }
+
+        List<List<Path>> parts = cluster
+                ? partitionByCluster(sources, partitions)
+                : partitionByPackage(sources, partitions);
+        int errors = 0;
+        for (Diagnostic<? extends JavaFileObject> diagnostic : new ParallelChecker(options, threads).check(parts)) {
+            String location = diagnostic.getSource() == null
+                    ? ""
+                    : diagnostic.getSource().getName() + ":" + diagnostic.getLineNumber() + ": ";
+            System.err.println(location + label(diagnostic.getKind()) + diagnostic.getMessage(Locale.ROOT));
+            errors += diagnostic.getKind() == Diagnostic.Kind.ERROR ? 1 : 0;
+        }
+        if (errors > 0) {
+            System.err.println(errors + (errors == 1 ? " error" : " errors"));
+            System.exit(1);
+        }
+    }
+}
@@ -0,0 +1,153 @@
+// Copyright 2017 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+// SPDX-License-Identifier: Apache-2.0
+package com.amazon.checkerframework.checker.data_classification;
+
+import com.amazon.checkerframework.checker.data_classification.qual.PolyClassification;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import javax.annotation.processing.ProcessingEnvironment;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ExecutableElement;
+import org.checkerframework.checker.nullness.qual.Nullable;
+import org.checkerframework.javacutil.AnnotationBuilder;
+import org.checkerframework.javacutil.AnnotationUtils;
+import org.checkerframework.javacutil.TreeUtils;
+
+/**
+ * A registry of canonical {@code @PolyClassification} mirrors.
+ *
+ * <p>Each distinct set of values (e.g. {@code ""}, {@code "use"}, {@code "a, b"}) is interned to a
+ * single AnnotationMirror, and its parsed values are cached as an immutable set. This lets the
+ * qualifier hierarchy and the visitor compare poly qualifiers by identity and read their values
+ * without re-parsing the value string on every subtype or LUB/GLB query.
+ */
+final class PolyClassificationMirrors {
+
+    /** The processing environment, used to build new mirrors. */
+    private final ProcessingEnvironment processingEnv;
+
+    /** The annotation type element of {@code @PolyClassification}. */
+    private final Element polyElement;
+
+    /** The {@code value} element of {@code @PolyClassification}. */
+    private final ExecutableElement valueElement;
+
+    /** Parsed values, keyed by the raw value string as written in an annotation. */
+    private final Map<String, Set<String>> parsedValues = new HashMap<>();
+
+    /** The canonical mirror for each set of values. */
+    private final Map<Set<String>, AnnotationMirror> canonicalMirrors = new HashMap<>();
+
+    /** The values of each canonical mirror, so they can be found without reading the mirror. */
+    private final Map<AnnotationMirror, Set<String>> canonicalValues = new IdentityHashMap<>();
+
+    /**
+     * Creates an empty registry.
+     *
+     * @param processingEnv the processing environment
+     */
+    PolyClassificationMirrors(final ProcessingEnvironment processingEnv) {
+        this.processingEnv = processingEnv;
+        this.polyElement = processingEnv.getElementUtils()
+                .getTypeElement(PolyClassification.class.getCanonicalName());
+        this.valueElement = TreeUtils.getMethod(PolyClassification.class, "value", 0, processingEnv);
+    }
+
+    /**
+     * @param anno an annotation, or null
+     * @return true if the annotation is a {@code @PolyClassification}, with or without values
+     */
+    boolean isPoly(final @Nullable AnnotationMirror anno) {
+        return anno != null && anno.getAnnotationType().asElement() == polyElement;
+    }
+
+    /**
+     * @param anno an annotation, or null
+     * @return true if the annotation is {@code @PolyClassification} with no values
+     */
+    boolean isPolyWithNoArgs(final @Nullable AnnotationMirror anno) {
+        return isPoly(anno) && values(anno).isEmpty();
+    }
+
+    /**
+     * Returns the parsed values of a {@code @PolyClassification} annotation, which need not be
+     * canonical.
+     *
+     * @param polyAnno a {@code @PolyClassification} annotation
+     * @return its values, as an immutable set in the order written
+     */
+    Set<String> values(final AnnotationMirror polyAnno) {
+        Set<String> values = canonicalValues.get(polyAnno);
+        if (values == null) {
+            values = parse(AnnotationUtils.getElementValue(polyAnno, valueElement, String.class, ""));
+        }
+        return values;
+    }
+
+    /**
+     * @param polyAnno a {@code @PolyClassification} annotation, which need not be canonical
+     * @return the canonical mirror with the same values
+     */
+    AnnotationMirror canonicalize(final AnnotationMirror polyAnno) {
+        if (canonicalValues.containsKey(polyAnno)) {
+            return polyAnno;
+        }
+        return get(values(polyAnno));
+    }
+
+    /**
+     * @param rawValue the value string of a {@code @PolyClassification}, e.g. {@code "use"}
+     * @return the canonical mirror for that value
+     */
+    AnnotationMirror get(final String rawValue) {
+        return get(parse(rawValue));
+    }
+
+    /**
+     * @param values the values of a {@code @PolyClassification}
+     * @return the canonical mirror for that set of values, creating it if this set is new
+     */
+    AnnotationMirror get(final Set<String> values) {
+        AnnotationMirror mirror = canonicalMirrors.get(values);
+        if (mirror == null) {
+            Set<String> key = Collections.unmodifiableSet(new LinkedHashSet<>(values));
+            AnnotationBuilder builder = new AnnotationBuilder(processingEnv, PolyClassification.class);
+            builder.setValue("value", String.join(", ", key));
+            mirror = builder.build();
+            canonicalMirrors.put(key, mirror);
+            canonicalValues.put(mirror, key);
+        }
+        return mirror;
+    }
+
+    /**
+     * Splits a value string on commas, trimming whitespace, and caches the result.
+     *
+     * @param rawValue the value string of a {@code @PolyClassification}
+     * @return the values, as an immutable set
+     */
+    private Set<String> parse(final String rawValue) {
+        Set<String> values = parsedValues.get(rawValue);
+        if (values == null) {
+            Set<String> parsed = new LinkedHashSet<>();
+            int start = 0;
+            while (start <= rawValue.length()) {
+                int comma = rawValue.indexOf(',', start);
+                int end = comma < 0 ? rawValue.length() : comma;
+                String value = rawValue.substring(start, end).trim();
+                if (!value.isEmpty() || comma >= 0) {
+                    parsed.add(value);
+                }
+                start = end + 1;
+            }
+            values = Collections.unmodifiableSet(parsed);
+            parsedValues.put(rawValue, values);
+        }
+        return values;
+    }
+}
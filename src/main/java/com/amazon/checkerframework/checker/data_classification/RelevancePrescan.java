@@ -0,0 +1,307 @@
+// Copyright 2017 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+// SPDX-License-Identifier: Apache-2.0
+package com.amazon.checkerframework.checker.data_classification;
+
+import com.sun.source.tree.ClassTree;
+import com.sun.source.tree.CompilationUnitTree;
+import com.sun.source.tree.Tree;
+import com.sun.source.util.TreePath;
+import com.sun.source.util.Trees;
+import java.io.IOException;
+import java.lang.annotation.Annotation;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.ArrayType;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.lang.model.util.Elements;
+import javax.lang.model.util.Types;
+import org.checkerframework.checker.nullness.qual.Nullable;
+import org.checkerframework.javacutil.TreeUtils;
+
+/**
+ * The -AdccPrescan pass: a scan of a compilation unit's text that decides whether the unit can be
+ * relevant to DCC at all, so that the visitor can skip the units that aren't.
+ *
+ * <p>A unit is relevant if its text mentions the qualifier package or writes a qualifier
+ * annotation, or if it {@link UnitReferences refers} to a classified class, by its simple or its
+ * qualified name, or if one of its classes inherits a classified member type whose simple name the
+ * unit mentions. A class is classified if its bound {@link
+ * DataClassificationAnnotatedTypeFactory#isClassified is above the bottom qualifier}, or if it or
+ * one of its supertypes writes a qualifier on any member: the bound is inferred from the instance
+ * fields only, so a class whose only classified members are static, e.g. a method returning a
+ * secret, has the bottom bound. In any other unit every value has the default classification, and
+ * the JDK stubs only have polymorphic qualifiers, which keep it, so the visitor would find no
+ * errors. It would
+ * only warn that the constructor types of the unit's classes can't be verified, which the checker
+ * still does for skipped units, see {@link DataClassificationVisitor#checkConstructorResults}.
+ *
+ * <p>The pass is not sound: it misses non-polymorphic annotations in custom stub files.
+ * -AdccSound disables it.
+ */
+final class RelevancePrescan {
+
+    /** The package of DCC's qualifiers, as it appears in imports and qualified annotations. */
+    private static final String QUALIFIER_PACKAGE = "checker.data_classification";
+
+    /** An annotation, capturing its simple name. */
+    private static final Pattern ANNOTATION = Pattern.compile("@\\s*(?:[\\w]+\\s*\\.\\s*)*([\\w$]+)");
+
+    /** The factory that knows which classes are classified. */
+    private final DataClassificationAnnotatedTypeFactory factory;
+
+    /** The compiler's elements. */
+    private final Elements elements;
+
+    /** The compiler's types. */
+    private final Types types;
+
+    /** The compiler's trees, to find the compilation units of source classes. */
+    private final Trees trees;
+
+    /** The simple names of the qualifiers, including the levels declared with -AdccLevels. */
+    private final Set<String> qualifierNames = new HashSet<>();
+
+    /** Whether each class, by qualified name, is classified; false for names that aren't classes. */
+    private final Map<String, Boolean> classified = new HashMap<>();
+
+    /** The decision for each unit, since a unit with several top-level classes is asked repeatedly. */
+    private final Map<CompilationUnitTree, Boolean> relevance = new IdentityHashMap<>();
+
+    /** Whether the text of each unit that declares a referred class writes a qualifier. */
+    private final Map<CompilationUnitTree, Boolean> qualifiedUnits = new IdentityHashMap<>();
+
+    /** Whether each class or one of its supertypes writes a qualifier, see {@link #writesQualifier}. */
+    private final Map<TypeElement, Boolean> qualifiedClasses = new HashMap<>();
+
+    /**
+     * @param factory the checker's type factory
+     */
+    RelevancePrescan(final DataClassificationAnnotatedTypeFactory factory) {
+        this.factory = factory;
+        this.elements = factory.getElementUtils();
+        this.types = factory.getProcessingEnv().getTypeUtils();
+        this.trees = Trees.instance(factory.getProcessingEnv());
+        for (Class<? extends Annotation> qualifier : factory.getSupportedTypeQualifiers()) {
+            qualifierNames.add(qualifier.getSimpleName());
+        }
+    }
+
+    /** @return the number of units scanned so far */
+    int units() {
+        return relevance.size();
+    }
+
+    /** @return the number of units found irrelevant so far */
+    int skippedUnits() {
+        int skipped = 0;
+        for (boolean relevant : relevance.values()) {
+            skipped += relevant ? 0 : 1;
+        }
+        return skipped;
+    }
+
+    /**
+     * @param unit a compilation unit
+     * @return whether the unit must be checked
+     */
+    boolean isRelevant(final CompilationUnitTree unit) {
+        Boolean relevant = relevance.get(unit);
+        if (relevant == null) {
+            relevant = scan(unit);
+            relevance.put(unit, relevant);
+        }
+        return relevant;
+    }
+
+    /**
+     * @param unit a compilation unit
+     * @return whether the unit must be checked
+     */
+    private boolean scan(final CompilationUnitTree unit) {
+        String text;
+        try {
+            text = unit.getSourceFile().getCharContent(true).toString();
+        } catch (IOException e) {
+            return true;
+        }
+        if (writesQualifier(text)) {
+            return true;
+        }
+        if (UnitReferences.refersTo(text, this::isClassified)) {
+            return true;
+        }
+        Set<String> typeNames = UnitReferences.typeNames(text);
+        for (Tree declaration : unit.getTypeDecls()) {
+            if (declaration instanceof ClassTree
+                    && hasClassifiedMemberType(TreeUtils.elementFromDeclaration((ClassTree) declaration), typeNames)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @param text the text of a compilation unit
+     * @return whether it mentions the qualifier package or writes a qualifier annotation
+     */
+    private boolean writesQualifier(final String text) {
+        if (text.contains(QUALIFIER_PACKAGE)) {
+            return true;
+        }
+        Matcher annotation = ANNOTATION.matcher(text);
+        while (annotation.find()) {
+            if (qualifierNames.contains(annotation.group(1))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @param type      a class declared in a compilation unit
+     * @param typeNames the capitalized names in the unit's text
+     * @return whether the class or one of its nested classes has a classified member type, declared
+     *         or inherited, that the unit may refer to by its simple name
+     */
+    private boolean hasClassifiedMemberType(final @Nullable TypeElement type, final Set<String> typeNames) {
+        if (type == null) {
+            return false;
+        }
+        for (TypeElement member : ElementFilter.typesIn(elements.getAllMembers(type))) {
+            if (typeNames.contains(member.getSimpleName().toString())
+                    && isClassified(member.getQualifiedName().toString())) {
+                return true;
+            }
+        }
+        for (TypeElement nested : ElementFilter.typesIn(type.getEnclosedElements())) {
+            if (hasClassifiedMemberType(nested, typeNames)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @param className the qualified name of a possible class
+     * @return whether it names a classified class
+     */
+    private boolean isClassified(final String className) {
+        Boolean result = classified.get(className);
+        if (result == null) {
+            TypeElement type = className.isEmpty() ? null : elements.getTypeElement(className);
+            result = type != null && (factory.isClassified(type) || writesQualifier(type));
+            classified.put(className, result);
+        }
+        return result;
+    }
+
+    /**
+     * @param type a class
+     * @return whether the class or one of its supertypes writes a qualifier on itself or on one of
+     *         its members: for a class declared in source, whether the text of its unit does, and
+     *         for a classfile class, whether its members' types carry a qualifier
+     */
+    private boolean writesQualifier(final TypeElement type) {
+        Boolean result = qualifiedClasses.get(type);
+        if (result == null) {
+            // Guards against cycles through erroneous supertypes.
+            qualifiedClasses.put(type, false);
+            result = declaresQualifier(type);
+            for (TypeMirror supertype : types.directSupertypes(type.asType())) {
+                if (!result && supertype.getKind() == TypeKind.DECLARED) {
+                    result = writesQualifier((TypeElement) ((DeclaredType) supertype).asElement());
+                }
+            }
+            qualifiedClasses.put(type, result);
+        }
+        return result;
+    }
+
+    /**
+     * @param type a class
+     * @return whether the class itself writes a qualifier, ignoring its supertypes
+     */
+    private boolean declaresQualifier(final TypeElement type) {
+        TreePath path = trees.getPath(type);
+        if (path != null) {
+            CompilationUnitTree unit = path.getCompilationUnit();
+            Boolean qualified = qualifiedUnits.get(unit);
+            if (qualified == null) {
+                try {
+                    qualified = writesQualifier(unit.getSourceFile().getCharContent(true).toString());
+                } catch (IOException e) {
+                    qualified = true;
+                }
+                qualifiedUnits.put(unit, qualified);
+            }
+            return qualified;
+        }
+        if (hasQualifier(type.getAnnotationMirrors())) {
+            return true;
+        }
+        for (Element member : type.getEnclosedElements()) {
+            if (hasQualifier(member.getAnnotationMirrors()) || hasQualifier(member.asType())) {
+                return true;
+            }
+            if (member instanceof ExecutableElement) {
+                ExecutableElement method = (ExecutableElement) member;
+                if (hasQualifier(method.getReturnType())) {
+                    return true;
+                }
+                for (VariableElement parameter : method.getParameters()) {
+                    if (hasQualifier(parameter.getAnnotationMirrors()) || hasQualifier(parameter.asType())) {
+                        return true;
+                    }
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @param type a type from a classfile
+     * @return whether it, its type arguments or its component type carry a qualifier
+     */
+    private boolean hasQualifier(final TypeMirror type) {
+        if (hasQualifier(type.getAnnotationMirrors())) {
+            return true;
+        }
+        if (type.getKind() == TypeKind.ARRAY) {
+            return hasQualifier(((ArrayType) type).getComponentType());
+        }
+        if (type.getKind() == TypeKind.DECLARED) {
+            for (TypeMirror argument : ((DeclaredType) type).getTypeArguments()) {
+                if (hasQualifier(argument)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @param annotations some annotations
+     * @return whether one of them is a qualifier
+     */
+    private boolean hasQualifier(final Iterable<? extends AnnotationMirror> annotations) {
+        for (AnnotationMirror annotation : annotations) {
+            if (factory.isSupportedQualifier(annotation)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
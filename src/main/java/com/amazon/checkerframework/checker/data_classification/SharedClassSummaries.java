@@ -0,0 +1,52 @@
+// Copyright 2017 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+// SPDX-License-Identifier: Apache-2.0
+package com.amazon.checkerframework.checker.data_classification;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+/**
+ * The inferred classifications of source classes, shared by concurrent compilations of the same
+ * sources, so that a class inferred by one compilation is not walked again by the others.
+ *
+ * <p>The factories' class caches hold annotated types, which belong to a single compilation, so
+ * they can't be shared. This store holds qualifier names instead, keyed by binary class name, like
+ * {@link ClassSummaryStore} does on disk. It is backed by a {@link ConcurrentHashMap}, whose reads
+ * don't lock and whose writes only lock one bin. Since every compilation sees the same sources,
+ * no content hash is needed; two compilations that infer the same class at the same time store the
+ * same qualifier.
+ */
+final class SharedClassSummaries {
+
+    /** The fully-qualified name of each class' inferred qualifier, keyed by binary class name. */
+    private final ConcurrentMap<String, String> qualifiers = new ConcurrentHashMap<>();
+
+    /** Lookups that found a class, and lookups that didn't. */
+    private final LongAdder hits = new LongAdder(), misses = new LongAdder();
+
+    /**
+     * @param binaryName the binary name of a class
+     * @return the name of its inferred qualifier, or null if no compilation inferred it yet
+     */
+    @Nullable String get(final String binaryName) {
+        String qualifier = qualifiers.get(binaryName);
+        (qualifier == null ? misses : hits).increment();
+        return qualifier;
+    }
+
+    /**
+     * @param binaryName    the binary name of a class
+     * @param qualifierName the fully-qualified name of its inferred qualifier
+     */
+    void put(final String binaryName, final String qualifierName) {
+        qualifiers.put(binaryName, qualifierName);
+    }
+
+    /** @return the number of classes, hits and misses, for messages */
+    String statistics() {
+        return "Shared class summaries: " + qualifiers.size() + " classes, " + hits.sum() + " hits, "
+                + misses.sum() + " misses";
+    }
+}
@@ -0,0 +1,105 @@
+// Copyright 2017 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+// SPDX-License-Identifier: Apache-2.0
+package com.amazon.checkerframework.checker.data_classification;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+/**
+ * The stub indexes and class summary indexes loaded in this JVM, shared by every compilation that
+ * asks for the same files. Both kinds of index are immutable and independent of the compiler, so a
+ * JVM that runs many compilations, such as {@link CheckerDaemon}, only reads each file once.
+ *
+ * <p>An index is reloaded when the size or modification time of one of its files changes.
+ */
+final class SharedIndexes {
+
+    /** A loaded index and the state of its files when it was loaded. */
+    private static final class Loaded {
+        /** The size and modification time of each file. */
+        final String stamp;
+
+        /** The index. */
+        final Object index;
+
+        /**
+         * @param stamp the size and modification time of each file
+         * @param index the index
+         */
+        Loaded(final String stamp, final Object index) {
+            this.stamp = stamp;
+            this.index = index;
+        }
+    }
+
+    /** The loaded indexes, keyed by kind and option value. */
+    private static final Map<String, Loaded> LOADED = new HashMap<>();
+
+    private SharedIndexes() {
+    }
+
+    /**
+     * @param file the value of -AdccStubIndex
+     * @return the index, see {@link StubIndex#load}
+     */
+    static StubIndex stubIndex(final @Nullable String file) {
+        String files = file == null ? "" : file;
+        return (StubIndex) get("stubs:" + files, files, () -> StubIndex.load(file));
+    }
+
+    /**
+     * @param paths the value of -AdccClassSummaryIndex
+     * @return the merged index, see {@link ClassSummaryIndex#read}
+     */
+    static ClassSummaryIndex classSummaryIndex(final String paths) {
+        return (ClassSummaryIndex) get("classes:" + paths, paths, () -> ClassSummaryIndex.read(paths));
+    }
+
+    /**
+     * @param key    the kind and option value of an index
+     * @param files  the index files, separated by the platform's path separator
+     * @param loader loads the index
+     * @return the loaded index, loading it unless it was loaded from the same files before
+     */
+    private static synchronized Object get(final String key, final String files, final Supplier<Object> loader) {
+        String stamp = stamp(files);
+        Loaded loaded = LOADED.get(key);
+        if (loaded == null || !loaded.stamp.equals(stamp)) {
+            // Loading only happens once per file, so holding the lock meanwhile is simpler than
+            // letting concurrent compilations race to load the same index.
+            loaded = new Loaded(stamp, loader.get());
+            LOADED.put(key, loaded);
+        }
+        return loaded.index;
+    }
+
+    /**
+     * @param files files separated by the platform's path separator
+     * @return the size and modification time of each file, or "missing" for files that don't exist
+     */
+    private static String stamp(final String files) {
+        StringBuilder stamp = new StringBuilder();
+        for (String file : files.split(File.pathSeparator)) {
+            if (file.isEmpty()) {
+                continue;
+            }
+            Path path = Paths.get(file);
+            try {
+                BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+                stamp.append(attributes.size()).append('@').append(attributes.lastModifiedTime().toMillis());
+            } catch (IOException e) {
+                stamp.append("missing");
+            }
+            stamp.append(File.pathSeparatorChar);
+        }
+        return stamp.toString();
+    }
+}
@@ -0,0 +1,321 @@
+// Copyright 2017 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+// SPDX-License-Identifier: Apache-2.0
+package com.amazon.checkerframework.checker.data_classification;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import org.checkerframework.checker.nullness.qual.Nullable;
+import org.checkerframework.javacutil.UserError;
+
+/**
+ * A precompiled form of a stub file such as jdk.astub, loaded by -AdccStubIndex in place of
+ * -Astubs.
+ *
+ * <p>Parsing a stub file with JavaParser and matching every declaration against the JDK is a fixed
+ * cost paid at the start of every compilation. DCC's stub files only annotate the primary types of
+ * method and constructor signatures, so {@link StubIndexCompiler} reduces them ahead of time to a
+ * table of annotations per method, which is read here with no parsing at all.
+ *
+ * <p>A method is identified by the hash of its key, see {@link #key}. Each entry holds one
+ * annotation slot for the return type (the result type of a constructor), one for the receiver and
+ * one per parameter; an empty slot leaves the type as the framework computes it.
+ *
+ * <p>The file format is, in order: the magic number, {@value #FORMAT_VERSION} as a short, the
+ * SHA-256 digest of the source stub files, the annotation table (a short count, then each
+ * annotation's fully-qualified name and an optional {@code value}), the qualified names of the
+ * classes that have entries, and the entries sorted by hash (the hash, the number of slots, and
+ * each slot as a 1-based index into the annotation table, or 0).
+ */
+final class StubIndex {
+
+    /** The first four bytes of every index: "DCCS". */
+    static final int MAGIC = 0x44434353;
+
+    /** The version of the file format. Bumped whenever the format or the key changes. */
+    static final short FORMAT_VERSION = 1;
+
+    /** The name of the index of jdk.astub that the build bundles next to the checker's classes. */
+    static final String BUNDLED_RESOURCE = "jdk.dccstub";
+
+    /** The slot of the return type, or of the result type of a constructor. */
+    static final int RETURN_SLOT = 0;
+
+    /** The slot of the receiver. */
+    static final int RECEIVER_SLOT = 1;
+
+    /** The slot of the first parameter. */
+    static final int FIRST_PARAMETER_SLOT = 2;
+
+    /** The SHA-256 digest of the stub files this index was compiled from. */
+    private final byte[] sourceDigest;
+
+    /** The fully-qualified name of each annotation. */
+    private final String[] annotationNames;
+
+    /** The {@code value} of each annotation, or null if it has none. */
+    private final @Nullable String[] annotationValues;
+
+    /** The qualified names of the classes with at least one entry. */
+    private final Set<String> classNames;
+
+    /** The hash of each entry's key, in ascending order. */
+    private final long[] hashes;
+
+    /** Where each entry's slots start in {@link #slots}; one more element than {@link #hashes}. */
+    private final int[] slotOffsets;
+
+    /** The slots of all entries: 0 for an empty slot, or a 1-based annotation index. */
+    private final short[] slots;
+
+    /**
+     * Creates an index. The arrays are not copied.
+     *
+     * @param sourceDigest     the SHA-256 digest of the source stub files
+     * @param annotationNames  the fully-qualified name of each annotation
+     * @param annotationValues the {@code value} of each annotation, or null if it has none
+     * @param classNames       the qualified names of the classes with entries
+     * @param hashes           the hash of each entry's key, in ascending order
+     * @param slotOffsets      where each entry's slots start, plus the total number of slots
+     * @param slots            the slots of all entries
+     */
+    StubIndex(final byte[] sourceDigest, final String[] annotationNames,
+            final @Nullable String[] annotationValues, final Set<String> classNames,
+            final long[] hashes, final int[] slotOffsets, final short[] slots) {
+        this.sourceDigest = sourceDigest;
+        this.annotationNames = annotationNames;
+        this.annotationValues = annotationValues;
+        this.classNames = Collections.unmodifiableSet(classNames);
+        this.hashes = hashes;
+        this.slotOffsets = slotOffsets;
+        this.slots = slots;
+    }
+
+    /**
+     * Returns the key of a method: its class, name and parameter types, e.g. {@code
+     * java.lang.StringBuilder#append(char[],int,int)}. Parameter types are written as in the stub
+     * file with their type arguments removed: the simple name of a class or of a type variable, or
+     * a primitive, followed by one {@code []} per array dimension (including varargs).
+     *
+     * @param className      the qualified name of the method's class
+     * @param methodName     the method's name, or {@code <init>} for a constructor
+     * @param parameterTypes the parameter types, written as above
+     * @return the key
+     */
+    static String key(final String className, final String methodName, final List<String> parameterTypes) {
+        return className + '#' + methodName + '(' + String.join(",", parameterTypes) + ')';
+    }
+
+    /**
+     * @param key a method key, see {@link #key}
+     * @return its 64-bit FNV-1a hash
+     */
+    static long hash(final String key) {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < key.length(); i++) {
+            hash ^= key.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+        return hash;
+    }
+
+    /** @return the SHA-256 digest of the stub files this index was compiled from */
+    byte[] sourceDigest() {
+        return sourceDigest.clone();
+    }
+
+    /**
+     * @param className the qualified name of a class
+     * @return whether any method of the class has an entry
+     */
+    boolean coversClass(final String className) {
+        return classNames.contains(className);
+    }
+
+    /** @return the number of methods in the index */
+    int size() {
+        return hashes.length;
+    }
+
+    /**
+     * @param key a method key, see {@link #key}
+     * @return the method's entry, or -1 if it has none
+     */
+    int find(final String key) {
+        int entry = Arrays.binarySearch(hashes, hash(key));
+        return entry < 0 ? -1 : entry;
+    }
+
+    /**
+     * @param entry an entry returned by {@link #find}
+     * @return its number of slots: two plus the number of parameters
+     */
+    int slotCount(final int entry) {
+        return slotOffsets[entry + 1] - slotOffsets[entry];
+    }
+
+    /**
+     * @param entry an entry returned by {@link #find}
+     * @param slot  one of its slots
+     * @return 0 if the slot is empty, or the 1-based index of its annotation
+     */
+    int annotation(final int entry, final int slot) {
+        return slots[slotOffsets[entry] + slot];
+    }
+
+    /** @return the number of distinct annotations in the index */
+    int annotationCount() {
+        return annotationNames.length;
+    }
+
+    /**
+     * @param annotation a 1-based annotation index
+     * @return the annotation's fully-qualified name
+     */
+    String annotationName(final int annotation) {
+        return annotationNames[annotation - 1];
+    }
+
+    /**
+     * @param annotation a 1-based annotation index
+     * @return the annotation's {@code value}, or null if it has none
+     */
+    @Nullable
+    String annotationValue(final int annotation) {
+        return annotationValues[annotation - 1];
+    }
+
+    /**
+     * Loads the index requested by -AdccStubIndex.
+     *
+     * @param file the value of the option: an index file, or null or empty for the index of jdk.astub
+     *             bundled with the checker
+     * @return the index
+     * @throws UserError if the index can't be found or read
+     */
+    static StubIndex load(final @Nullable String file) {
+        if (file == null || file.isEmpty()) {
+            InputStream bundled = StubIndex.class.getResourceAsStream(BUNDLED_RESOURCE);
+            if (bundled == null) {
+                throw new UserError("This build of DCC has no bundled %s; pass -AdccStubIndex=<file> or use -Astubs",
+                        BUNDLED_RESOURCE);
+            }
+            return read(bundled, BUNDLED_RESOURCE);
+        }
+        try {
+            return read(Files.newInputStream(Paths.get(file)), file);
+        } catch (IOException e) {
+            throw new UserError("Cannot read stub index %s: %s", file, e.getMessage());
+        }
+    }
+
+    /**
+     * Reads an index and closes the stream.
+     *
+     * @param stream the index
+     * @param source where the index comes from, for error messages
+     * @return the index
+     * @throws UserError if the stream isn't an index of the current format or can't be read
+     */
+    static StubIndex read(final InputStream stream, final String source) {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(stream))) {
+            if (in.readInt() != MAGIC) {
+                throw new UserError("%s is not a DCC stub index", source);
+            }
+            short version = in.readShort();
+            if (version != FORMAT_VERSION) {
+                throw new UserError("%s is a version %d stub index, but this checker reads version %d; recompile it",
+                        source, version, FORMAT_VERSION);
+            }
+            byte[] digest = new byte[32];
+            in.readFully(digest);
+
+            int annotationCount = in.readUnsignedShort();
+            String[] names = new String[annotationCount];
+            String[] values = new String[annotationCount];
+            for (int i = 0; i < annotationCount; i++) {
+                names[i] = in.readUTF();
+                values[i] = in.readBoolean() ? in.readUTF() : null;
+            }
+
+            int classCount = in.readUnsignedShort();
+            Set<String> classNames = new HashSet<>();
+            for (int i = 0; i < classCount; i++) {
+                classNames.add(in.readUTF());
+            }
+
+            int entryCount = in.readInt();
+            long[] hashes = new long[entryCount];
+            int[] slotOffsets = new int[entryCount + 1];
+            short[] slots = new short[entryCount * FIRST_PARAMETER_SLOT];
+            int slotCount = 0;
+            for (int i = 0; i < entryCount; i++) {
+                hashes[i] = in.readLong();
+                int entrySlots = in.readUnsignedByte();
+                if (slots.length < slotCount + entrySlots) {
+                    slots = Arrays.copyOf(slots, Math.max(slots.length * 2, slotCount + entrySlots));
+                }
+                for (int slot = 0; slot < entrySlots; slot++) {
+                    int annotation = in.readUnsignedShort();
+                    if (annotation > annotationCount) {
+                        throw new UserError("Corrupt stub index %s: annotation %d of %d", source, annotation,
+                                annotationCount);
+                    }
+                    slots[slotCount++] = (short) annotation;
+                }
+                slotOffsets[i + 1] = slotCount;
+            }
+            return new StubIndex(digest, names, values, classNames, hashes, slotOffsets,
+                    Arrays.copyOf(slots, slotCount));
+        } catch (IOException e) {
+            throw new UserError("Cannot read stub index %s: %s", source, e.getMessage());
+        }
+    }
+
+    /**
+     * Writes this index. Entries are already sorted, so the same stub files always produce the same
+     * bytes.
+     *
+     * @param stream where to write it; not closed
+     * @throws IOException if it can't be written
+     */
+    void write(final OutputStream stream) throws IOException {
+        DataOutputStream out = new DataOutputStream(stream);
+        out.writeInt(MAGIC);
+        out.writeShort(FORMAT_VERSION);
+        out.write(sourceDigest);
+        out.writeShort(annotationNames.length);
+        for (int i = 0; i < annotationNames.length; i++) {
+            out.writeUTF(annotationNames[i]);
+            out.writeBoolean(annotationValues[i] != null);
+            if (annotationValues[i] != null) {
+                out.writeUTF(annotationValues[i]);
+            }
+        }
+        String[] sortedClasses = classNames.toArray(new String[0]);
+        Arrays.sort(sortedClasses);
+        out.writeShort(sortedClasses.length);
+        for (String className : sortedClasses) {
+            out.writeUTF(className);
+        }
+        out.writeInt(hashes.length);
+        for (int i = 0; i < hashes.length; i++) {
+            out.writeLong(hashes[i]);
+            out.writeByte(slotCount(i));
+            for (int slot = 0; slot < slotCount(i); slot++) {
+                out.writeShort(annotation(i, slot));
+            }
+        }
+        out.flush();
+    }
+}
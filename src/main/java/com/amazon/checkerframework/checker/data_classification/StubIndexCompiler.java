@@ -0,0 +1,448 @@
+// Copyright 2017 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+// SPDX-License-Identifier: Apache-2.0
+package com.amazon.checkerframework.checker.data_classification;
+
+import com.github.javaparser.StaticJavaParser;
+import com.github.javaparser.ast.CompilationUnit;
+import com.github.javaparser.ast.ImportDeclaration;
+import com.github.javaparser.ast.NodeList;
+import com.github.javaparser.ast.body.BodyDeclaration;
+import com.github.javaparser.ast.body.CallableDeclaration;
+import com.github.javaparser.ast.body.ConstructorDeclaration;
+import com.github.javaparser.ast.body.MethodDeclaration;
+import com.github.javaparser.ast.body.Parameter;
+import com.github.javaparser.ast.body.ReceiverParameter;
+import com.github.javaparser.ast.body.TypeDeclaration;
+import com.github.javaparser.ast.expr.AnnotationExpr;
+import com.github.javaparser.ast.expr.Expression;
+import com.github.javaparser.ast.expr.MemberValuePair;
+import com.github.javaparser.ast.expr.NormalAnnotationExpr;
+import com.github.javaparser.ast.expr.SingleMemberAnnotationExpr;
+import com.github.javaparser.ast.type.ArrayType;
+import com.github.javaparser.ast.type.ClassOrInterfaceType;
+import com.github.javaparser.ast.type.Type;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Target;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import org.checkerframework.checker.nullness.qual.Nullable;
+import org.checkerframework.javacutil.UserError;
+
+/**
+ * Compiles stub files into a {@link StubIndex}, for use with -AdccStubIndex. The build runs it on
+ * jdk.astub and bundles the result with the checker.
+ *
+ * <p>Only primary qualifiers on method and constructor signatures are supported, which is all that
+ * DCC's stub files contain. Anything else that a stub file could express (qualifiers on fields,
+ * classes, type arguments or array components) is rejected rather than silently dropped; such a
+ * stub file has to be passed with -Astubs instead.
+ *
+ * <p>Usage:
+ *
+ * <pre>
+ * java -cp checker.jar:dataclassificationchecker.jar \
+ *     com.amazon.checkerframework.checker.data_classification.StubIndexCompiler \
+ *     -o jdk.dccstub jdk.astub ...
+ * </pre>
+ *
+ * The output is left untouched if it was already compiled from the same stub files by the same
+ * format version.
+ */
+public final class StubIndexCompiler {
+
+    /** The interned annotations, keyed by name and value, in the order they were first seen. */
+    private final Map<List<String>, Integer> annotations = new LinkedHashMap<>();
+
+    /** The slots of each method, keyed by the method's hash. */
+    private final Map<Long, short[]> entries = new TreeMap<>();
+
+    /** The key of each method, to detect hash collisions. */
+    private final Map<Long, String> keys = new HashMap<>();
+
+    /** The classes with at least one entry. */
+    private final Set<String> classNames = new TreeSet<>();
+
+    /** Whether each annotation name seen so far is a type qualifier. */
+    private final Map<String, Boolean> qualifierNames = new HashMap<>();
+
+    /** Creates a compiler with no entries. */
+    private StubIndexCompiler() {
+    }
+
+    /**
+     * Compiles stub files into an index, unless the output is already up to date.
+     *
+     * @param stubs  the stub files; a method declared in several of them gets the union of their
+     *               qualifiers, the later file winning for the same slot
+     * @param output the index file to write
+     * @return whether the output was (re)written
+     * @throws IOException if a file can't be read or written
+     * @throws UserError   if a stub file contains something the index can't represent
+     */
+    public static boolean compile(final List<Path> stubs, final Path output) throws IOException {
+        MessageDigest sha256;
+        try {
+            sha256 = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IOException(e);
+        }
+        List<byte[]> contents = new ArrayList<>();
+        for (Path stub : stubs) {
+            byte[] content = Files.readAllBytes(stub);
+            sha256.update(content);
+            contents.add(content);
+        }
+        byte[] digest = sha256.digest();
+        if (Files.isRegularFile(output) && isCompiledFrom(output, digest)) {
+            return false;
+        }
+
+        StubIndexCompiler compiler = new StubIndexCompiler();
+        for (int i = 0; i < stubs.size(); i++) {
+            for (CompilationUnit unit : StaticJavaParser.parseStubUnit(
+                    new ByteArrayInputStream(contents.get(i))).getCompilationUnits()) {
+                compiler.addCompilationUnit(unit, stubs.get(i));
+            }
+        }
+        if (output.getParent() != null) {
+            Files.createDirectories(output.getParent());
+        }
+        try (OutputStream out = Files.newOutputStream(output)) {
+            compiler.toIndex(digest).write(out);
+        }
+        return true;
+    }
+
+    /**
+     * @param index  an existing index file
+     * @param digest the digest of the stub files about to be compiled
+     * @return whether the index is of the current format and was compiled from the same stub files
+     */
+    private static boolean isCompiledFrom(final Path index, final byte[] digest) {
+        try {
+            return Arrays.equals(StubIndex.read(Files.newInputStream(index), index.toString()).sourceDigest(), digest);
+        } catch (IOException | UserError e) {
+            return false;
+        }
+    }
+
+    /**
+     * Adds the methods and constructors of every type in a compilation unit of a stub file.
+     *
+     * @param unit the compilation unit
+     * @param stub the stub file, for error messages
+     */
+    private void addCompilationUnit(final CompilationUnit unit, final Path stub) {
+        String packagePrefix = unit.getPackageDeclaration().map(p -> p.getNameAsString() + ".").orElse("");
+        for (TypeDeclaration<?> type : unit.getTypes()) {
+            addType(type, packagePrefix + type.getNameAsString(), unit.getImports(), stub);
+        }
+    }
+
+    /**
+     * Adds the methods and constructors of a type and of its member types.
+     *
+     * @param type      the type's declaration
+     * @param className the type's qualified name
+     * @param imports   the imports in scope, to resolve annotation names
+     * @param stub      the stub file, for error messages
+     */
+    private void addType(final TypeDeclaration<?> type, final String className,
+            final NodeList<ImportDeclaration> imports, final Path stub) {
+        rejectQualifiers(type.getAnnotations(), stub + ": class " + className, imports);
+        for (BodyDeclaration<?> member : type.getMembers()) {
+            if (member instanceof TypeDeclaration) {
+                TypeDeclaration<?> memberType = (TypeDeclaration<?>) member;
+                addType(memberType, className + "." + memberType.getNameAsString(), imports, stub);
+            } else if (member instanceof CallableDeclaration) {
+                addCallable((CallableDeclaration<?>) member, className, imports, stub);
+            } else {
+                rejectQualifiers(member.findAll(AnnotationExpr.class), stub + ": a field of " + className, imports);
+            }
+        }
+    }
+
+    /**
+     * Adds a method or constructor.
+     *
+     * @param callable  its declaration
+     * @param className the qualified name of its type
+     * @param imports   the imports in scope, to resolve annotation names
+     * @param stub      the stub file, for error messages
+     */
+    private void addCallable(final CallableDeclaration<?> callable, final String className,
+            final NodeList<ImportDeclaration> imports, final Path stub) {
+        String name = callable instanceof ConstructorDeclaration ? "<init>" : callable.getNameAsString();
+        NodeList<Parameter> parameters = callable.getParameters();
+        if (parameters.size() + StubIndex.FIRST_PARAMETER_SLOT > 0xff) {
+            throw new UserError("%s: %s.%s has too many parameters for a stub index", stub, className, name);
+        }
+        String where = stub + ": " + callable.getDeclarationAsString(false, false, false);
+        List<AnnotationExpr> primary = new ArrayList<>();
+        short[] slots = new short[parameters.size() + StubIndex.FIRST_PARAMETER_SLOT];
+
+        List<AnnotationExpr> returnAnnotations = new ArrayList<>();
+        if (callable instanceof MethodDeclaration && ((MethodDeclaration) callable).getType() instanceof ArrayType) {
+            returnAnnotations.addAll(((MethodDeclaration) callable).getType().getAnnotations());
+        } else {
+            // Declaration annotations of a method apply to a non-array return type, and those of a
+            // constructor to the type it constructs.
+            returnAnnotations.addAll(callable.getAnnotations());
+            if (callable instanceof MethodDeclaration) {
+                returnAnnotations.addAll(((MethodDeclaration) callable).getType().getAnnotations());
+            }
+        }
+        slots[StubIndex.RETURN_SLOT] = slot(returnAnnotations, primary, imports, where);
+
+        ReceiverParameter receiver = callable.getReceiverParameter().orElse(null);
+        if (receiver != null) {
+            List<AnnotationExpr> receiverAnnotations = new ArrayList<>(receiver.getAnnotations());
+            receiverAnnotations.addAll(receiver.getType().getAnnotations());
+            slots[StubIndex.RECEIVER_SLOT] = slot(receiverAnnotations, primary, imports, where);
+        }
+
+        List<String> parameterTypes = new ArrayList<>();
+        for (int i = 0; i < parameters.size(); i++) {
+            Parameter parameter = parameters.get(i);
+            List<AnnotationExpr> parameterAnnotations = new ArrayList<>();
+            if (parameter.isVarArgs()) {
+                parameterAnnotations.addAll(parameter.getVarArgsAnnotations());
+                parameterTypes.add(typeName(parameter.getType()) + "[]");
+            } else {
+                parameterAnnotations.addAll(parameter.getType().getAnnotations());
+                if (!(parameter.getType() instanceof ArrayType)) {
+                    parameterAnnotations.addAll(parameter.getAnnotations());
+                }
+                parameterTypes.add(typeName(parameter.getType()));
+            }
+            slots[StubIndex.FIRST_PARAMETER_SLOT + i] = slot(parameterAnnotations, primary, imports, where);
+        }
+
+        List<AnnotationExpr> nested = callable.findAll(AnnotationExpr.class);
+        nested.removeIf(a -> primary.stream().anyMatch(p -> p == a));
+        rejectQualifiers(nested, where + " (only primary qualifiers are supported)", imports);
+
+        String key = StubIndex.key(className, name, parameterTypes);
+        long hash = StubIndex.hash(key);
+        String previousKey = keys.putIfAbsent(hash, key);
+        if (previousKey != null && !previousKey.equals(key)) {
+            throw new UserError("%s and %s have the same stub index hash", previousKey, key);
+        }
+        short[] previous = entries.get(hash);
+        if (previous != null) {
+            for (int i = 0; i < slots.length; i++) {
+                if (slots[i] == 0) {
+                    slots[i] = previous[i];
+                }
+            }
+        }
+        entries.put(hash, slots);
+        classNames.add(className);
+    }
+
+    /**
+     * Interns the qualifier among the annotations of one slot.
+     *
+     * @param slotAnnotations the annotations written on the slot's type
+     * @param primary         collects every annotation that was read as a primary annotation
+     * @param imports         the imports in scope, to resolve annotation names
+     * @param where           the declaration, for error messages
+     * @return the slot: 0 if it has no qualifier, or the qualifier's 1-based index
+     */
+    private short slot(final List<AnnotationExpr> slotAnnotations, final List<AnnotationExpr> primary,
+            final NodeList<ImportDeclaration> imports, final String where) {
+        primary.addAll(slotAnnotations);
+        List<String> qualifier = null;
+        for (AnnotationExpr annotation : slotAnnotations) {
+            String name = resolve(annotation.getNameAsString(), imports);
+            if (!isQualifier(name)) {
+                continue;
+            }
+            if (qualifier != null) {
+                throw new UserError("%s: more than one qualifier on the same type", where);
+            }
+            qualifier = Arrays.asList(name, value(annotation, where));
+        }
+        if (qualifier == null) {
+            return 0;
+        }
+        Integer index = annotations.get(qualifier);
+        if (index == null) {
+            index = annotations.size() + 1;
+            annotations.put(qualifier, index);
+        }
+        return (short) (int) index;
+    }
+
+    /**
+     * @param annotations annotations that the index cannot represent
+     * @param where       the stub file and the declaration they were found on, for error messages
+     * @param imports     the imports in scope, to resolve annotation names
+     * @throws UserError if one of them is a type qualifier
+     */
+    private void rejectQualifiers(final List<AnnotationExpr> annotations, final String where,
+            final NodeList<ImportDeclaration> imports) {
+        for (AnnotationExpr annotation : annotations) {
+            if (isQualifier(resolve(annotation.getNameAsString(), imports))) {
+                throw new UserError("The stub index cannot represent %s in %s; pass this stub file with -Astubs",
+                        annotation, where);
+            }
+        }
+    }
+
+    /**
+     * @param annotation an annotation
+     * @param where      the declaration, for error messages
+     * @return its {@code value}, or null if it has none
+     */
+    private static @Nullable String value(final AnnotationExpr annotation, final String where) {
+        Expression value = null;
+        if (annotation instanceof SingleMemberAnnotationExpr) {
+            value = ((SingleMemberAnnotationExpr) annotation).getMemberValue();
+        } else if (annotation instanceof NormalAnnotationExpr) {
+            for (MemberValuePair pair : ((NormalAnnotationExpr) annotation).getPairs()) {
+                if (!"value".equals(pair.getNameAsString())) {
+                    throw new UserError("%s: %s has an element other than value", where, annotation);
+                }
+                value = pair.getValue();
+            }
+        }
+        if (value == null) {
+            return null;
+        }
+        if (!value.isStringLiteralExpr()) {
+            throw new UserError("%s: the value of %s is not a string literal", where, annotation);
+        }
+        return value.asStringLiteralExpr().asString();
+    }
+
+    /**
+     * @param name    an annotation name as written in the stub file
+     * @param imports the imports in scope
+     * @return the fully-qualified name it refers to, or the name itself if it can't be resolved
+     */
+    private static String resolve(final String name, final NodeList<ImportDeclaration> imports) {
+        if (name.indexOf('.') >= 0) {
+            return name;
+        }
+        for (ImportDeclaration anImport : imports) {
+            if (!anImport.isStatic() && !anImport.isAsterisk()
+                    && anImport.getName().getIdentifier().equals(name)) {
+                return anImport.getNameAsString();
+            }
+        }
+        for (ImportDeclaration anImport : imports) {
+            if (!anImport.isStatic() && anImport.isAsterisk()) {
+                String candidate = anImport.getNameAsString() + "." + name;
+                if (loadAnnotation(candidate) != null) {
+                    return candidate;
+                }
+            }
+        }
+        return name;
+    }
+
+    /**
+     * @param name the fully-qualified name of an annotation
+     * @return whether it is a type annotation, i.e. one the checker could treat as a qualifier
+     */
+    private boolean isQualifier(final String name) {
+        return qualifierNames.computeIfAbsent(name, n -> {
+            Class<?> annotation = loadAnnotation(n);
+            Target target = annotation == null ? null : annotation.getAnnotation(Target.class);
+            return target != null && Arrays.asList(target.value()).contains(ElementType.TYPE_USE);
+        });
+    }
+
+    /**
+     * @param name the fully-qualified name of an annotation
+     * @return the annotation type, or null if it isn't on the classpath
+     */
+    private static @Nullable Class<?> loadAnnotation(final String name) {
+        try {
+            Class<?> type = Class.forName(name, false, StubIndexCompiler.class.getClassLoader());
+            return type.isAnnotation() ? type : null;
+        } catch (ClassNotFoundException | LinkageError e) {
+            return null;
+        }
+    }
+
+    /**
+     * @param type a type as written in a stub file
+     * @return the type as written in a {@link StubIndex#key}
+     */
+    private static String typeName(final Type type) {
+        if (type instanceof ArrayType) {
+            return typeName(((ArrayType) type).getComponentType()) + "[]";
+        }
+        if (type instanceof ClassOrInterfaceType) {
+            return ((ClassOrInterfaceType) type).getNameAsString();
+        }
+        return type.asString();
+    }
+
+    /**
+     * @param digest the digest of the stub files
+     * @return the index of everything added so far
+     */
+    private StubIndex toIndex(final byte[] digest) {
+        String[] names = new String[annotations.size()];
+        String[] values = new String[annotations.size()];
+        for (Map.Entry<List<String>, Integer> annotation : annotations.entrySet()) {
+            names[annotation.getValue() - 1] = annotation.getKey().get(0);
+            values[annotation.getValue() - 1] = annotation.getKey().get(1);
+        }
+        long[] hashes = new long[entries.size()];
+        int[] slotOffsets = new int[entries.size() + 1];
+        List<short[]> slotLists = new ArrayList<>(entries.values());
+        int i = 0;
+        for (long hash : entries.keySet()) {
+            hashes[i] = hash;
+            slotOffsets[i + 1] = slotOffsets[i] + slotLists.get(i).length;
+            i++;
+        }
+        short[] slots = new short[slotOffsets[entries.size()]];
+        for (i = 0; i < slotLists.size(); i++) {
+            System.arraycopy(slotLists.get(i), 0, slots, slotOffsets[i], slotLists.get(i).length);
+        }
+        return new StubIndex(digest, names, values, classNames, hashes, slotOffsets, slots);
+    }
+
+    /**
+     * Compiles stub files into an index.
+     *
+     * @param args {@code -o <index> <stub>...}
+     * @throws IOException if a file can't be read or written
+     */
+    public static void main(final String[] args) throws IOException {
+        Path output = null;
+        List<Path> stubs = new ArrayList<>();
+        for (int i = 0; i < args.length; i++) {
+            if ("-o".equals(args[i]) && i + 1 < args.length) {
+                output = Paths.get(args[++i]);
+            } else {
+                stubs.add(Paths.get(args[i]));
+            }
+        }
+        if (output == null || stubs.isEmpty()) {
+            System.err.println("Usage: StubIndexCompiler -o <index> <stub>...");
+            System.exit(1);
+        }
+        compile(stubs, output);
+    }
+}
@@ -0,0 +1,141 @@
+// Copyright 2017 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+// SPDX-License-Identifier: Apache-2.0
+package com.amazon.checkerframework.checker.data_classification;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Predicate;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Finds the classes a compilation unit refers to from its text alone, without attributing it: each
+ * capitalized name is resolved through the unit's single-type imports, or else tried in the unit's
+ * package and in each on-demand import. Statically imported classes, and qualified names such as
+ * {@code com.example.Account} or {@code Map.Entry}, are referred to as well.
+ *
+ * <p>The result is approximate: names in comments and strings count as references, and classes
+ * referred to as inherited member types are missed; see {@link #typeNames} for those.
+ */
+final class UnitReferences {
+
+    /** The package declaration of a compilation unit. */
+    private static final Pattern PACKAGE = Pattern.compile("^\\s*package\\s+([\\w.]+)\\s*;", Pattern.MULTILINE);
+
+    /** An import declaration: whether it is static, the imported name, and whether it ends in .*. */
+    private static final Pattern IMPORT =
+            Pattern.compile("^\\s*import\\s+(static\\s+)?([\\w.]+?)(\\.\\*)?\\s*;", Pattern.MULTILINE);
+
+    /** A capitalized identifier, i.e. a probable type name. */
+    private static final Pattern TYPE_NAME = Pattern.compile("\\b[A-Z][\\w$]*\\b");
+
+    /** A dotted name, such as a qualified class name or a field access. */
+    private static final Pattern DOTTED_NAME = Pattern.compile("\\b[\\w$]+(?:\\s*\\.\\s*[\\w$]+)+");
+
+    private UnitReferences() {
+    }
+
+    /**
+     * @param text the text of a compilation unit
+     * @return the unit's package, or the empty string for the unnamed package
+     */
+    static String packageOf(final CharSequence text) {
+        Matcher pkg = PACKAGE.matcher(text);
+        return pkg.find() ? pkg.group(1) : "";
+    }
+
+    /**
+     * @param text the text of a compilation unit
+     * @return the capitalized names in it, i.e. the simple names of the classes it may refer to
+     */
+    static Set<String> typeNames(final CharSequence text) {
+        Set<String> names = new HashSet<>();
+        Matcher typeName = TYPE_NAME.matcher(text);
+        while (typeName.find()) {
+            names.add(typeName.group());
+        }
+        return names;
+    }
+
+    /**
+     * Whether a compilation unit refers to a class. The predicate is called with candidate
+     * qualified names, most of which don't name a class at all, and the search stops at the first
+     * one it accepts.
+     *
+     * @param text     the text of the unit
+     * @param isTarget whether a qualified name is a class being looked for
+     * @return whether the unit refers to such a class
+     */
+    static boolean refersTo(final CharSequence text, final Predicate<String> isTarget) {
+        String packageName = packageOf(text);
+        Map<String, String> singleImports = new HashMap<>();
+        List<String> onDemandPrefixes = new ArrayList<>();
+        onDemandPrefixes.add(packageName.isEmpty() ? "" : packageName + ".");
+        Matcher imported = IMPORT.matcher(text);
+        while (imported.find()) {
+            String name = imported.group(2);
+            boolean isStatic = imported.group(1) != null;
+            boolean onDemand = imported.group(3) != null;
+            if (isStatic) {
+                // Static imports name a member of a class, or all of them.
+                String className = onDemand ? name : name.substring(0, Math.max(0, name.lastIndexOf('.')));
+                if (!className.isEmpty() && isTarget.test(className)) {
+                    return true;
+                }
+            } else if (onDemand) {
+                onDemandPrefixes.add(name + ".");
+            } else {
+                singleImports.put(name.substring(name.lastIndexOf('.') + 1), name);
+            }
+        }
+
+        for (String simpleName : typeNames(text)) {
+            String single = singleImports.get(simpleName);
+            if (single != null) {
+                if (isTarget.test(single)) {
+                    return true;
+                }
+                continue;
+            }
+            for (String prefix : onDemandPrefixes) {
+                if (isTarget.test(prefix + simpleName)) {
+                    return true;
+                }
+            }
+        }
+
+        // A qualified name refers to a class at each of its capitalized components, e.g.
+        // com.example.Outer.Inner to com.example.Outer and to com.example.Outer.Inner. A name that
+        // starts with a class, e.g. Outer.Inner, starts where that class resolves to.
+        Set<String> seen = new HashSet<>();
+        Matcher dotted = DOTTED_NAME.matcher(text);
+        while (dotted.find()) {
+            String[] components = dotted.group().split("\\s*\\.\\s*");
+            List<String> starts = new ArrayList<>();
+            if (singleImports.containsKey(components[0])) {
+                starts.add(singleImports.get(components[0]));
+            } else if (Character.isUpperCase(components[0].charAt(0))) {
+                for (String prefix : onDemandPrefixes) {
+                    starts.add(prefix + components[0]);
+                }
+            } else {
+                starts.add(components[0]);
+            }
+            for (String start : starts) {
+                StringBuilder name = new StringBuilder(start);
+                for (int i = 1; i < components.length; i++) {
+                    name.append('.').append(components[i]);
+                    if (Character.isUpperCase(components[i].charAt(0)) && seen.add(name.toString())
+                            && isTarget.test(name.toString())) {
+                        return true;
+                    }
+                }
+            }
+        }
+        return false;
+    }
+}
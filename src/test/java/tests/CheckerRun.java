@@ -0,0 +1,173 @@
+// Copyright 2017 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+// SPDX-License-Identifier: Apache-2.0
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import javax.tools.Diagnostic;
+import javax.tools.DiagnosticCollector;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
+
+import com.amazon.checkerframework.checker.data_classification.DataClassificationChecker;
+
+/**
+ * Runs DCC in-process on the files of a test directory, for the tests that look at more than the
+ * diagnostics, e.g. the notes and files an option writes, or how two compilations relate.
+ * Expected diagnostics are written as for the Checker Framework's test runners, in
+ * {@code // :: error: (key)} comments on the line before the one they are reported on.
+ */
+final class CheckerRun {
+
+    /** The JDK stub that the main tests pass. */
+    static final String JDK_STUB =
+            "-Astubs=src/main/java/com/amazon/checkerframework/checker/data_classification/jdk.astub";
+
+    /** An expected diagnostic, e.g. {@code :: error: (argument)}. */
+    private static final Pattern EXPECTED = Pattern.compile("::\\s*(error|warning):\\s*(\\([^)]*\\))");
+
+    /** The errors and warnings, as {@code File.java:12: error: (key)}, in the order reported. */
+    final List<String> diagnostics = new ArrayList<>();
+
+    /** The notes, such as the checker's summaries, and the warnings without a source position. */
+    final List<String> notes = new ArrayList<>();
+
+    /** The checker that ran, for the tests that look at its state after the compilation. */
+    final DataClassificationChecker checker;
+
+    private CheckerRun(final DataClassificationChecker checker) {
+        this.checker = checker;
+    }
+
+    /**
+     * @param directory the name of a directory under {@code tests}
+     * @return its Java files, sorted by name
+     */
+    static List<File> testFiles(final String directory) {
+        File[] files = new File("tests", directory).listFiles((dir, name) -> name.endsWith(".java"));
+        if (files == null) {
+            throw new IllegalArgumentException("No test directory tests/" + directory);
+        }
+        Arrays.sort(files);
+        return Arrays.asList(files);
+    }
+
+    /**
+     * Checks the files of a test directory.
+     *
+     * @param directory the name of a directory under {@code tests}
+     * @param options   the checker's options, e.g. {@code -AdccPrescan}
+     * @return the result
+     */
+    static CheckerRun check(final String directory, final String... options) {
+        return check(testFiles(directory), options);
+    }
+
+    /**
+     * Checks some files, with the test classpath.
+     *
+     * @param files   the files
+     * @param options the checker's options, e.g. {@code -AdccPrescan}
+     * @return the result
+     */
+    static CheckerRun check(final List<File> files, final String... options) {
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        DiagnosticCollector<JavaFileObject> collector = new DiagnosticCollector<>();
+        List<String> arguments = new ArrayList<>(Arrays.asList("-proc:only", "-Anomsgtext",
+                "-classpath", System.getProperty("java.class.path")));
+        arguments.addAll(Arrays.asList(options));
+        DataClassificationChecker checker = new DataClassificationChecker();
+        try (StandardJavaFileManager fileManager = compiler.getStandardFileManager(collector, Locale.ROOT,
+                StandardCharsets.UTF_8)) {
+            JavaCompiler.CompilationTask task = compiler.getTask(null, fileManager, collector, arguments, null,
+                    fileManager.getJavaFileObjectsFromFiles(files));
+            task.setProcessors(Collections.singletonList(checker));
+            task.call();
+        } catch (IOException e) {
+            throw new AssertionError(e);
+        }
+        CheckerRun run = new CheckerRun(checker);
+        for (Diagnostic<? extends JavaFileObject> diagnostic : collector.getDiagnostics()) {
+            String message = diagnostic.getMessage(Locale.ROOT).trim();
+            if (diagnostic.getKind() == Diagnostic.Kind.NOTE) {
+                run.notes.add(message);
+                continue;
+            }
+            if (diagnostic.getSource() == null) {
+                if (diagnostic.getKind() == Diagnostic.Kind.ERROR) {
+                    throw new AssertionError("The compilation failed: " + message);
+                }
+                run.notes.add(message);
+                continue;
+            }
+            String kind = diagnostic.getKind() == Diagnostic.Kind.ERROR ? "error" : "warning";
+            run.diagnostics.add(new File(diagnostic.getSource().getName()).getName() + ":"
+                    + diagnostic.getLineNumber() + ": " + kind + ": " + message.split("\\s")[0]);
+        }
+        return run;
+    }
+
+    /**
+     * Reads the diagnostics that the files of a test directory expect.
+     *
+     * @param directory the name of a directory under {@code tests}
+     * @return the expected diagnostics, sorted
+     */
+    static List<String> expectedDiagnostics(final String directory) {
+        List<String> expected = new ArrayList<>();
+        for (File file : testFiles(directory)) {
+            List<String> lines;
+            try {
+                lines = Files.readAllLines(file.toPath(), StandardCharsets.UTF_8);
+            } catch (IOException e) {
+                throw new AssertionError(e);
+            }
+            List<String> pending = new ArrayList<>();
+            for (int i = 0; i < lines.size(); i++) {
+                String line = lines.get(i).trim();
+                if (line.startsWith("// ::")) {
+                    Matcher matcher = EXPECTED.matcher(line);
+                    while (matcher.find()) {
+                        pending.add(matcher.group(1) + ": " + matcher.group(2));
+                    }
+                    continue;
+                }
+                for (String diagnostic : pending) {
+                    expected.add(file.getName() + ":" + (i + 1) + ": " + diagnostic);
+                }
+                pending.clear();
+            }
+        }
+        Collections.sort(expected);
+        return expected;
+    }
+
+    /** @return the diagnostics, sorted */
+    List<String> sortedDiagnostics() {
+        List<String> sorted = new ArrayList<>(diagnostics);
+        Collections.sort(sorted);
+        return sorted;
+    }
+
+    /**
+     * @param prefix the start of a note
+     * @return the first note that starts with it
+     */
+    String note(final String prefix) {
+        for (String note : notes) {
+            if (note.startsWith(prefix)) {
+                return note;
+            }
+        }
+        throw new AssertionError("No note starting with \"" + prefix + "\" in " + notes);
+    }
+}
@@ -0,0 +1,165 @@
+// Copyright 2017 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+// SPDX-License-Identifier: Apache-2.0
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+import javax.tools.JavaCompiler;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
+
+import com.amazon.checkerframework.checker.data_classification.ClassSummaryIndexBuilder;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Tests the classfile parser of ClassSummaryIndexBuilder on classes compiled from the fixtures in
+ * tests/data_classification_class_index, each of which says what its bound should be.
+ */
+public class ClassSummaryIndexBuilderTest {
+
+    /** The fixtures. */
+    private static final String DIRECTORY = "data_classification_class_index";
+
+    /** The qualifier package, as it appears in the index. */
+    private static final String QUAL = "com.amazon.checkerframework.checker.data_classification.qual.";
+
+    /** The index the fixtures must produce. */
+    private static final List<String> EXPECTED_INDEX = Arrays.asList(
+            "dcc-class-index-1",
+            "Account " + QUAL + "Confidential",
+            "Contacts " + QUAL + "HighlyConfidential",
+            "Credentials " + QUAL + "Restricted",
+            "Credentials$Token " + QUAL + "Confidential",
+            "Vault " + QUAL + "Critical");
+
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
+    /** The directory the fixtures are compiled to. */
+    private File classes;
+
+    @Before
+    public void compileFixtures() throws IOException {
+        classes = folder.newFolder("classes");
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        try (StandardJavaFileManager fileManager = compiler.getStandardFileManager(null, Locale.ROOT,
+                StandardCharsets.UTF_8)) {
+            List<String> options = Arrays.asList("-proc:none", "-d", classes.getPath(),
+                    "-classpath", System.getProperty("java.class.path"));
+            assertTrue(compiler.getTask(null, fileManager, null, options, null,
+                    fileManager.getJavaFileObjectsFromFiles(CheckerRun.testFiles(DIRECTORY))).call());
+        }
+    }
+
+    @Test
+    public void indexesADirectory() throws IOException {
+        Build build = build(classes);
+        assertEquals(EXPECTED_INDEX, build.index);
+        assertEquals("", build.err);
+    }
+
+    @Test
+    public void indexesAJarAndSkipsWhatIsNotAClass() throws IOException {
+        File jar = folder.newFile("fixtures.jar");
+        try (ZipOutputStream zip = new ZipOutputStream(Files.newOutputStream(jar.toPath()))) {
+            List<Path> classFiles;
+            try (Stream<Path> files = Files.walk(classes.toPath())) {
+                classFiles = files.filter(Files::isRegularFile).sorted().collect(Collectors.toList());
+            }
+            for (Path classFile : classFiles) {
+                entry(zip, classes.toPath().relativize(classFile).toString(), Files.readAllBytes(classFile));
+            }
+            entry(zip, "README.txt", bytes("Not a class."));
+            entry(zip, "META-INF/versions/9/Account.class", bytes("Skipped like every META-INF entry."));
+            entry(zip, "NotAClass.class", bytes("Not a class either."));
+            // The header and the start of a constant pool that the entry ends in the middle of.
+            entry(zip, "Truncated.class", new byte[] {(byte) 0xCA, (byte) 0xFE, (byte) 0xBA, (byte) 0xBE,
+                0, 0, 0, 52, 0, 10, 1, 0, 8, 'A', 'c'});
+        }
+
+        Build build = build(jar);
+        assertEquals(EXPECTED_INDEX, build.index);
+        assertEquals(Arrays.asList(
+                "Skipping " + jar + "!/NotAClass.class: not a classfile",
+                "Skipping " + jar + "!/Truncated.class: malformed classfile"),
+                Arrays.asList(build.err.split("\\R")));
+    }
+
+    @Test
+    public void indexesSingleClassfiles() throws IOException {
+        assertEquals(Arrays.asList("dcc-class-index-1", "Vault " + QUAL + "Critical"),
+                build(new File(classes, "Vault.class")).index);
+        assertEquals(Arrays.asList("dcc-class-index-1"), build(new File(classes, "Secrets.class")).index);
+    }
+
+    /** The result of running the builder. */
+    private static final class Build {
+        /** The lines of the index. */
+        final List<String> index;
+
+        /** What the builder printed on standard error. */
+        final String err;
+
+        Build(final List<String> index, final String err) {
+            this.index = index;
+            this.err = err;
+        }
+    }
+
+    /**
+     * Runs the builder from its command line.
+     *
+     * @param input a jar, directory or classfile
+     * @return the index and the messages
+     */
+    private Build build(final File input) throws IOException {
+        File index = new File(folder.getRoot(), "index-" + input.getName() + ".dccidx");
+        ByteArrayOutputStream err = new ByteArrayOutputStream();
+        PrintStream systemErr = System.err;
+        System.setErr(new PrintStream(err, true, "UTF-8"));
+        try {
+            ClassSummaryIndexBuilder.main(new String[] {"-o", index.getPath(), input.getPath()});
+        } finally {
+            System.setErr(systemErr);
+        }
+        return new Build(new ArrayList<>(Files.readAllLines(index.toPath(), StandardCharsets.UTF_8)),
+                new String(err.toByteArray(), StandardCharsets.UTF_8).trim());
+    }
+
+    /**
+     * @param zip      the jar being written
+     * @param name     the name of a new entry, relative to the jar's root
+     * @param contents its contents
+     */
+    private static void entry(final ZipOutputStream zip, final String name, final byte[] contents)
+            throws IOException {
+        zip.putNextEntry(new ZipEntry(name.replace(File.separatorChar, '/')));
+        zip.write(contents);
+        zip.closeEntry();
+    }
+
+    /**
+     * @param text some text
+     * @return its UTF-8 encoding
+     */
+    private static byte[] bytes(final String text) {
+        return text.getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,121 @@
+// Copyright 2017 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+// SPDX-License-Identifier: Apache-2.0
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Tests that the -AdccAbiFingerprint file only changes when the classification surface does: not
+ * across runs, orders of the files, method bodies or private members, but when a qualifier of a
+ * non-private member changes.
+ */
+public class DataClassificationAbiFingerprintTest {
+
+    /** The test directory, whose files are copied so that they can be edited. */
+    private static final String DIRECTORY = "data_classification_abi";
+
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
+    /** The copies of the test files. */
+    private File sources;
+
+    /** The fingerprint file. */
+    private File fingerprint;
+
+    @Before
+    public void copyTestFiles() throws IOException {
+        sources = folder.newFolder("src");
+        for (File file : CheckerRun.testFiles(DIRECTORY)) {
+            Files.copy(file.toPath(), new File(sources, file.getName()).toPath());
+        }
+        fingerprint = new File(folder.getRoot(), "dcc-abi.sha256");
+    }
+
+    @Test
+    public void isStableAcrossRunsAndLeavesTheFileUntouched() throws IOException {
+        String first = check(files());
+        assertEquals(64, first.length());
+        assertEquals(CheckerRun.expectedDiagnostics(DIRECTORY),
+                CheckerRun.check(files(), CheckerRun.JDK_STUB).sortedDiagnostics());
+
+        long modified = 1_000_000_000L;
+        assertTrue(fingerprint.setLastModified(modified));
+        assertEquals(first, check(files()));
+        assertEquals(modified, fingerprint.lastModified());
+
+        List<File> reversed = files();
+        Collections.reverse(reversed);
+        assertEquals(first, check(reversed));
+    }
+
+    @Test
+    public void ignoresMethodBodiesAndPrivateMembers() throws IOException {
+        String first = check(files());
+        edit("Customer.java", "return \"Hello\";", "return name;");
+        edit("Customer.java", "private @Confidential String note;", "private @Public String note;");
+        edit("Customer.java", "private @Public String initials()", "private @Confidential String initials()");
+        assertEquals(first, check(files()));
+    }
+
+    @Test
+    public void changesWithTheQualifierOfAField() throws IOException {
+        String first = check(files());
+        edit("Customer.java", "@Public String name;", "@Confidential String name;");
+        assertNotEquals(first, check(files()));
+    }
+
+    @Test
+    public void changesWithTheQualifierOfAReturnType() throws IOException {
+        String first = check(files());
+        edit("Customer.java", "@Public String greeting()", "@Confidential String greeting()");
+        assertNotEquals(first, check(files()));
+    }
+
+    /** @return the copies of the test files, in a list that can be reordered */
+    private List<File> files() {
+        List<File> files = new ArrayList<>();
+        for (File file : CheckerRun.testFiles(DIRECTORY)) {
+            files.add(new File(sources, file.getName()));
+        }
+        return files;
+    }
+
+    /**
+     * Checks the files and reads the fingerprint.
+     *
+     * @param files the files, in the order javac gets them
+     * @return the fingerprint
+     */
+    private String check(final List<File> files) throws IOException {
+        CheckerRun.check(files, CheckerRun.JDK_STUB, "-AdccAbiFingerprint=" + fingerprint);
+        return new String(Files.readAllBytes(fingerprint.toPath()), StandardCharsets.UTF_8).trim();
+    }
+
+    /**
+     * Replaces text in one of the copied files.
+     *
+     * @param file the file's name
+     * @param from the text to replace, which must occur in the file
+     * @param to   the new text
+     */
+    private void edit(final String file, final String from, final String to) throws IOException {
+        File copy = new File(sources, file);
+        String text = new String(Files.readAllBytes(copy.toPath()), StandardCharsets.UTF_8);
+        assertTrue(text, text.contains(from));
+        Files.write(copy.toPath(), text.replace(from, to).getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,56 @@
+// Copyright 2017 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+// SPDX-License-Identifier: Apache-2.0
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.junit.Test;
+
+/**
+ * Tests the class cache statistics printed with -AdccCacheStats, and that -AdccClassCacheSize only
+ * changes them, not the diagnostics.
+ */
+public class DataClassificationCacheStatsTest {
+
+    /** The test directory: the main tests, which refer to many classes. */
+    private static final String DIRECTORY = "data_classification";
+
+    @Test
+    public void cacheSizeDefaultsToTheFrameworkCacheSize() {
+        String note = CheckerRun.check(DIRECTORY, CheckerRun.JDK_STUB, "-AatfCacheSize=500", "-AdccCacheStats")
+                .note("DCC class cache:");
+        assertEquals(500, field(note, "capacity"));
+        assertEquals(0, field(note, "evictions"));
+        // Without evictions, each class is inferred once.
+        assertEquals(field(note, "size"), field(note, "misses"));
+        assertEquals(field(note, "lookups"), field(note, "hits") + field(note, "misses"));
+    }
+
+    @Test
+    public void smallCacheEvictsWithoutChangingTheDiagnostics() {
+        CheckerRun unbounded = CheckerRun.check(DIRECTORY, CheckerRun.JDK_STUB, "-AdccCacheStats");
+        CheckerRun small = CheckerRun.check(DIRECTORY, CheckerRun.JDK_STUB, "-AdccClassCacheSize=2",
+                "-AdccCacheStats");
+        assertEquals(unbounded.sortedDiagnostics(), small.sortedDiagnostics());
+
+        String note = small.note("DCC class cache:");
+        assertEquals(2, field(note, "capacity"));
+        assertTrue(note, field(note, "size") <= 2);
+        assertTrue(note, field(note, "evictions") > 0);
+        assertTrue(note, field(note, "misses") > field(unbounded.note("DCC class cache:"), "misses"));
+        assertEquals(field(note, "lookups"), field(note, "hits") + field(note, "misses"));
+    }
+
+    /**
+     * @param note  a statistics note
+     * @param name  the name of a field in it, e.g. {@code hits}
+     * @return the field's value
+     */
+    static long field(final String note, final String name) {
+        Matcher matcher = Pattern.compile("\\b" + name + "=(\\d+)").matcher(note);
+        assertTrue("No " + name + " in " + note, matcher.find());
+        return Long.parseLong(matcher.group(1));
+    }
+}
@@ -0,0 +1,147 @@
+// Copyright 2017 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+// SPDX-License-Identifier: Apache-2.0
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.Element;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Tests that the class cache, which keeps each class' qualifier as a code into a table of the
+ * distinct qualifiers, gives classes the same qualifiers whether they are found in it, evicted
+ * from it, or never cached, and that the cache retains no more than those codes, so that it stays
+ * small enough to hold every class of a large module.
+ */
+public class DataClassificationClassCacheTest {
+
+    /** The test directory, with a class for each of four distinct qualifiers. */
+    private static final String DIRECTORY = "data_classification_class_cache";
+
+    /** The number of classes generated for the retention test. */
+    private static final int CLASSES = 300;
+
+    /** The qualifiers the generated classes write, in turn. */
+    private static final String[] LEVELS = {"Public", "Confidential", "Restricted", "Critical"};
+
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void cachedQualifiersComeBackOut() {
+        CheckerRun run = CheckerRun.check(DIRECTORY, CheckerRun.JDK_STUB, "-AdccCacheStats");
+        assertEquals(CheckerRun.expectedDiagnostics(DIRECTORY), run.sortedDiagnostics());
+
+        String note = run.note("DCC class cache:");
+        // @Public, @Critical, @Restricted and the inferred @Confidential, each once.
+        assertEquals(4, DataClassificationCacheStatsTest.field(note, "qualifiers"));
+        assertEquals(5, DataClassificationCacheStatsTest.field(note, "size"));
+        assertEquals(0, DataClassificationCacheStatsTest.field(note, "evictions"));
+        assertTrue(note, DataClassificationCacheStatsTest.field(note, "hits") > 0);
+    }
+
+    @Test
+    public void evictedClassesAreInferredAgain() {
+        CheckerRun run = CheckerRun.check(DIRECTORY, CheckerRun.JDK_STUB, "-AdccCacheStats", "-AdccClassCacheSize=1");
+        assertEquals(CheckerRun.expectedDiagnostics(DIRECTORY), run.sortedDiagnostics());
+
+        String note = run.note("DCC class cache:");
+        assertEquals(1, DataClassificationCacheStatsTest.field(note, "size"));
+        // Evicting classes doesn't grow the table of qualifiers.
+        assertEquals(4, DataClassificationCacheStatsTest.field(note, "qualifiers"));
+        // The classes are used alternately, so each class after the first evicts the previous one.
+        assertTrue(note, DataClassificationCacheStatsTest.field(note, "evictions") >= 4);
+        assertEquals(DataClassificationCacheStatsTest.field(note, "misses"),
+                DataClassificationCacheStatsTest.field(note, "evictions") + 1);
+    }
+
+    @Test
+    public void cachedClassesOnlyRetainQualifierCodes() throws Exception {
+        List<File> files = new ArrayList<>();
+        for (int i = 0; i < CLASSES; i++) {
+            // Each class writes a qualifier on a field and refers to the previous one, so that its
+            // bound is inferred from its members rather than declared.
+            File file = new File(folder.getRoot(), "Record" + i + ".java");
+            String text = "import com.amazon.checkerframework.checker.data_classification.qual.*;\n"
+                    + "class Record" + i + " {\n"
+                    + "    @" + LEVELS[i % LEVELS.length] + " String value;\n"
+                    + (i == 0 ? "" : "    Record" + (i - 1) + " previous;\n")
+                    + "}\n";
+            Files.write(file.toPath(), text.getBytes(StandardCharsets.UTF_8));
+            files.add(file);
+        }
+        CheckerRun run = CheckerRun.check(files, CheckerRun.JDK_STUB, "-AdccCacheStats");
+        for (String diagnostic : run.diagnostics) {
+            assertFalse(diagnostic, diagnostic.contains(": error:"));
+        }
+        String note = run.note("DCC class cache:");
+        assertTrue(note, DataClassificationCacheStatsTest.field(note, "size") >= CLASSES);
+
+        Method getClassCache = run.checker.getTypeFactory().getClass().getDeclaredMethod("getClassCache");
+        getClassCache.setAccessible(true);
+        Set<Object> retained = Collections.newSetFromMap(new IdentityHashMap<>());
+        retain(getClassCache.invoke(run.checker.getTypeFactory()), Collections.newSetFromMap(new IdentityHashMap<>()),
+                retained);
+        // Beyond a map entry per class, the cache only keeps the shared boxed codes and one
+        // annotation per distinct qualifier: nothing it retains grows with the number of classes.
+        long qualifiers = DataClassificationCacheStatsTest.field(note, "qualifiers");
+        for (Object object : retained) {
+            assertTrue(object.getClass().getName(), object instanceof Byte || object instanceof AnnotationMirror);
+        }
+        assertTrue(retained.size() + " objects retained", retained.size() <= 2 * qualifiers + 1);
+    }
+
+    /**
+     * Collects the objects that the cache keeps alive, apart from its own objects, the maps and
+     * lists that hold them, and the compiler's elements, which the compiler keeps alive anyway.
+     *
+     * @param object   an object reachable from the cache
+     * @param seen     the objects visited so far
+     * @param retained the objects collected so far
+     */
+    private static void retain(final Object object, final Set<Object> seen, final Set<Object> retained)
+            throws IllegalAccessException {
+        if (object == null || object instanceof Element || !seen.add(object)) {
+            return;
+        }
+        if (object instanceof Map) {
+            for (Map.Entry<?, ?> entry : ((Map<?, ?>) object).entrySet()) {
+                retain(entry.getKey(), seen, retained);
+                retain(entry.getValue(), seen, retained);
+            }
+        } else if (object instanceof Collection) {
+            for (Object element : (Collection<?>) object) {
+                retain(element, seen, retained);
+            }
+        } else if (object.getClass().getName().startsWith("com.amazon.checkerframework.")) {
+            for (Class<?> type = object.getClass(); type != Object.class; type = type.getSuperclass()) {
+                for (Field field : type.getDeclaredFields()) {
+                    if (!Modifier.isStatic(field.getModifiers()) && !field.getType().isPrimitive()) {
+                        field.setAccessible(true);
+                        retain(field.get(object), seen, retained);
+                    }
+                }
+            }
+        } else {
+            retained.add(object);
+        }
+    }
+}
@@ -0,0 +1,156 @@
+// Copyright 2017 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+// SPDX-License-Identifier: Apache-2.0
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import com.amazon.checkerframework.checker.data_classification.CheckerClient;
+import com.amazon.checkerframework.checker.data_classification.CheckerDaemon;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Tests a round trip through CheckerDaemon and CheckerClient: the daemon runs in this JVM, and the
+ * client, which exits with its status, in its own process. The client must print the diagnostics
+ * that checking in-process reports.
+ */
+public class DataClassificationDaemonTest {
+
+    /** A diagnostic as the client prints it, e.g. {@code /tmp/A.java:3: error: (argument)}. */
+    private static final Pattern DIAGNOSTIC =
+            Pattern.compile("([^/\\\\]+\\.java):(\\d+): (error|warning): (\\(\\S+\\))");
+
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
+    /** The daemon's port file. */
+    private File portFile;
+
+    /** The thread serving the daemon. */
+    private Thread daemon;
+
+    @Before
+    public void startDaemon() throws IOException, InterruptedException {
+        portFile = new File(folder.getRoot(), "dcc-daemon.port");
+        daemon = new Thread(() -> {
+            try {
+                CheckerDaemon.main(new String[] {"-portFile", portFile.getPath(), "-threads", "2"});
+            } catch (IOException e) {
+                throw new AssertionError(e);
+            }
+        }, "CheckerDaemon");
+        daemon.setDaemon(true);
+        daemon.start();
+        // The daemon writes the port file once its warm-up compilation is done.
+        for (int i = 0; i < 600 && !portFile.exists(); i++) {
+            Thread.sleep(100);
+        }
+        assertTrue("The daemon did not start", portFile.exists());
+    }
+
+    @After
+    public void stopDaemon() throws IOException, InterruptedException {
+        assertEquals(0, client(Collections.singletonList("-stop")).status);
+        daemon.join(TimeUnit.MINUTES.toMillis(1));
+        assertFalse(daemon.isAlive());
+        assertFalse("The daemon left its port file behind", portFile.exists());
+    }
+
+    @Test
+    public void clientPrintsTheDiagnosticsOfTheMainTests() throws IOException, InterruptedException {
+        List<String> arguments = new ArrayList<>(Arrays.asList("-Anomsgtext", absoluteStubOption()));
+        for (File file : CheckerRun.testFiles("data_classification")) {
+            arguments.add(file.getPath());
+        }
+        Client client = client(arguments);
+        assertEquals(client.output, 1, client.status);
+        assertEquals(CheckerRun.check("data_classification", CheckerRun.JDK_STUB).sortedDiagnostics(),
+                client.diagnostics());
+    }
+
+    @Test
+    public void daemonServesSeveralRequests() throws IOException, InterruptedException {
+        File clean = folder.newFile("Clean.java");
+        Files.write(clean.toPath(),
+                "class Clean {\n    String name = \"clean\";\n}\n".getBytes(StandardCharsets.UTF_8));
+        for (int i = 0; i < 2; i++) {
+            Client client = client(Arrays.asList("-Anomsgtext", clean.getPath()));
+            assertEquals(client.output, 0, client.status);
+            assertEquals(Collections.singletonList("Clean.java:1: warning: (inconsistent.constructor.type)"),
+                    client.diagnostics());
+        }
+        File broken = folder.newFile("Broken.java");
+        Files.write(broken.toPath(),
+                "class Broken {\n    int number = \"one\";\n}\n".getBytes(StandardCharsets.UTF_8));
+        Client client = client(Arrays.asList("-Anomsgtext", broken.getPath()));
+        assertEquals(client.output, 1, client.status);
+        assertTrue(client.output, client.output.contains("Broken.java:2: error: "));
+    }
+
+    /** The result of running the client. */
+    private static final class Client {
+        /** The exit status. */
+        final int status;
+
+        /** What it printed. */
+        final String output;
+
+        Client(final int status, final String output) {
+            this.status = status;
+            this.output = output;
+        }
+
+        /** @return the diagnostics printed, as {@code File.java:12: error: (key)}, sorted */
+        List<String> diagnostics() {
+            List<String> diagnostics = new ArrayList<>();
+            Matcher matcher = DIAGNOSTIC.matcher(output);
+            while (matcher.find()) {
+                diagnostics.add(matcher.group(1) + ":" + matcher.group(2) + ": " + matcher.group(3) + ": "
+                        + matcher.group(4));
+            }
+            Collections.sort(diagnostics);
+            return diagnostics;
+        }
+    }
+
+    /**
+     * Runs the client in its own process with the test classpath, which it also sends as the
+     * classpath of the sources.
+     *
+     * @param arguments the client's arguments, after the port file and the classpath
+     * @return the client's status and output
+     */
+    private Client client(final List<String> arguments) throws IOException, InterruptedException {
+        String classpath = System.getProperty("java.class.path");
+        List<String> command = new ArrayList<>(Arrays.asList(
+                new File(System.getProperty("java.home"), "bin" + File.separator + "java").getPath(),
+                "-cp", classpath, CheckerClient.class.getName(),
+                "-portFile", portFile.getPath(), "-classpath", classpath));
+        command.addAll(arguments);
+        File output = folder.newFile();
+        Process process = new ProcessBuilder(command).redirectErrorStream(true).redirectOutput(output).start();
+        assertTrue("The client did not finish", process.waitFor(5, TimeUnit.MINUTES));
+        return new Client(process.exitValue(), new String(Files.readAllBytes(output.toPath()), StandardCharsets.UTF_8));
+    }
+
+    /** @return the JDK stub option, with the stub file's path made absolute for the daemon */
+    private static String absoluteStubOption() {
+        String stub = CheckerRun.JDK_STUB.substring("-Astubs=".length());
+        return "-Astubs=" + new File(stub).getAbsolutePath();
+    }
+}
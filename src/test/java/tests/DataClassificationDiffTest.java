@@ -0,0 +1,143 @@
+// Copyright 2017 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+// SPDX-License-Identifier: Apache-2.0
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Tests which files and lines -AdccDiff checks and reports. Each test first checks the files in
+ * full to fill the summary store, as the build of the target branch would.
+ */
+public class DataClassificationDiffTest {
+
+    /** The test directory, whose files are copied so that they can be edited. */
+    private static final String DIRECTORY = "data_classification_diff";
+
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
+    /** The copies of the test files. */
+    private File sources;
+
+    /** The summary store. */
+    private File store;
+
+    /** The changed lines, one {@code <file>:<first>-<last>} per line. */
+    private File diff;
+
+    @Before
+    public void copyTestFiles() throws IOException {
+        sources = folder.newFolder("src");
+        for (File file : CheckerRun.testFiles(DIRECTORY)) {
+            Files.copy(file.toPath(), new File(sources, file.getName()).toPath());
+        }
+        store = new File(folder.getRoot(), "summaries");
+        diff = new File(folder.getRoot(), "changes.txt");
+        CheckerRun full = CheckerRun.check(files(), CheckerRun.JDK_STUB, "-AdccSummaryCache=" + store);
+        assertEquals(CheckerRun.expectedDiagnostics(DIRECTORY), full.sortedDiagnostics());
+    }
+
+    @Test
+    public void changedFileIsOnlyReportedOnItsChangedLines() throws IOException {
+        changed("Report.java:14-15");
+        CheckerRun run = check("-AdccSummaryCache=" + store);
+        assertEquals(Arrays.asList("Report.java:15: error: (argument)"), run.sortedDiagnostics());
+        assertEquals("DCC diff scope: 0 classes with changed bounds; checked 0 compilation units in full and 1 on"
+                + " changed lines, skipped 2", run.note("DCC diff scope:"));
+    }
+
+    @Test
+    public void changedBoundChecksTheFilesThatReferToTheClass() throws IOException {
+        edit("Account.java", "@Confidential String number;", "@Public String number;");
+        changed("Account.java:7");
+        CheckerRun run = check("-AdccSummaryCache=" + store);
+        // Account is public now, so neither of the errors in Report is reported again.
+        assertEquals(Arrays.asList("Account.java:5: warning: (inconsistent.constructor.type)",
+                "Report.java:5: warning: (inconsistent.constructor.type)"), run.sortedDiagnostics());
+        assertEquals("DCC diff scope: 1 classes with changed bounds; checked 2 compilation units in full and 0 on"
+                + " changed lines, skipped 1", run.note("DCC diff scope:"));
+    }
+
+    @Test
+    public void unchangedBoundOnlyReportsTheChangedLines() throws IOException {
+        edit("Account.java", "@Public String name;", "@Public String name, nickname;");
+        changed("Account.java:6");
+        CheckerRun run = check("-AdccSummaryCache=" + store);
+        assertEquals(Arrays.asList(), run.sortedDiagnostics());
+        assertEquals("DCC diff scope: 0 classes with changed bounds; checked 0 compilation units in full and 1 on"
+                + " changed lines, skipped 2", run.note("DCC diff scope:"));
+    }
+
+    @Test
+    public void withoutAStoreEveryClassOfAChangedFileCountsAsChanged() throws IOException {
+        changed("Account.java:6");
+        CheckerRun run = check();
+        List<String> expected = new ArrayList<>();
+        for (String diagnostic : CheckerRun.expectedDiagnostics(DIRECTORY)) {
+            if (!diagnostic.startsWith("Unrelated.java:")) {
+                expected.add(diagnostic);
+            }
+        }
+        assertEquals(expected, run.sortedDiagnostics());
+    }
+
+    /**
+     * Writes the changed lines.
+     *
+     * @param changes {@code <file>:<first>[-<last>]}, with the file's name in the copied directory
+     */
+    private void changed(final String... changes) throws IOException {
+        StringBuilder text = new StringBuilder();
+        for (String change : changes) {
+            text.append(new File(sources, change).getPath()).append('\n');
+        }
+        Files.write(diff.toPath(), text.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Checks the copied files with -AdccDiff.
+     *
+     * @param options more options
+     * @return the result
+     */
+    private CheckerRun check(final String... options) {
+        List<String> arguments = new ArrayList<>(Arrays.asList(CheckerRun.JDK_STUB, "-AdccDiff=" + diff));
+        arguments.addAll(Arrays.asList(options));
+        return CheckerRun.check(files(), arguments.toArray(new String[0]));
+    }
+
+    /** @return the copies of the test files */
+    private List<File> files() {
+        List<File> files = new ArrayList<>();
+        for (File file : CheckerRun.testFiles(DIRECTORY)) {
+            files.add(new File(sources, file.getName()));
+        }
+        return files;
+    }
+
+    /**
+     * Replaces text in one of the copied files.
+     *
+     * @param file the file's name
+     * @param from the text to replace, which must occur in the file
+     * @param to   the new text
+     */
+    private void edit(final String file, final String from, final String to) throws IOException {
+        File copy = new File(sources, file);
+        String text = new String(Files.readAllBytes(copy.toPath()), StandardCharsets.UTF_8);
+        assertTrue(text, text.contains(from));
+        Files.write(copy.toPath(), text.replace(from, to).getBytes(StandardCharsets.UTF_8));
+    }
+}
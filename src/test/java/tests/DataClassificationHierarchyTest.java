@@ -0,0 +1,28 @@
+// Copyright 2017 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+// SPDX-License-Identifier: Apache-2.0
+import java.io.File;
+import java.util.List;
+
+import org.checkerframework.framework.test.CheckerFrameworkPerDirectoryTest;
+import org.junit.runners.Parameterized.Parameters;
+
+/**
+ * Test runner for the supertype-aware class inference (-AdccInferenceMode=hierarchy).
+ */
+public class DataClassificationHierarchyTest extends CheckerFrameworkPerDirectoryTest {
+    public DataClassificationHierarchyTest(List<File> testFiles) {
+        super(
+              testFiles,
+              com.amazon.checkerframework.checker.data_classification.DataClassificationChecker.class,
+              "data_classification_hierarchy",
+              "-Anomsgtext",
+              "-nowarn",
+              "-AdccInferenceMode=hierarchy",
+              "-Astubs=src/main/java/com/amazon/checkerframework/checker/data_classification/jdk.astub");
+    }
+
+    @Parameters
+    public static String[] getTestDirs() {
+        return new String[] {"data_classification_hierarchy"};
+    }
+}
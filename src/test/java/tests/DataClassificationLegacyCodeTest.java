@@ -0,0 +1,66 @@
+// Copyright 2017 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+// SPDX-License-Identifier: Apache-2.0
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+/**
+ * Tests the options for a first run over unannotated code, -AdccErrorBudget and
+ * -AdccGroupDiagnostics, which report a subset of the errors that the test files expect.
+ */
+public class DataClassificationLegacyCodeTest {
+
+    /** The test directory. */
+    private static final String DIRECTORY = "data_classification_budget";
+
+    @Test
+    public void expectedDiagnosticsWithoutTheOptions() {
+        assertEquals(CheckerRun.expectedDiagnostics(DIRECTORY),
+                CheckerRun.check(DIRECTORY, CheckerRun.JDK_STUB).sortedDiagnostics());
+    }
+
+    @Test
+    public void errorBudgetStopsEachUnitSeparately() {
+        CheckerRun run = CheckerRun.check(DIRECTORY, CheckerRun.JDK_STUB, "-AdccErrorBudget=2");
+        // The first two errors of Logging, all of Assignments, and the warnings, which don't count.
+        assertEquals(without(CheckerRun.expectedDiagnostics(DIRECTORY),
+                "Logging.java:17: error: (argument)",
+                "Logging.java:19: error: (argument)",
+                "Logging.java:21: error: (argument)"), run.sortedDiagnostics());
+        assertTrue(run.note("DCC found 2 errors in ").endsWith("Logging.java and stopped checking it (-AdccErrorBudget)"));
+        for (String note : run.notes) {
+            assertFalse(note, note.contains("Assignments.java"));
+        }
+    }
+
+    @Test
+    public void groupingReportsTheFirstErrorOfEachCause() {
+        CheckerRun run = CheckerRun.check(DIRECTORY, CheckerRun.JDK_STUB, "-AdccGroupDiagnostics");
+        // Passing @Confidential values to log is one cause, passing a @Restricted one another.
+        assertEquals(without(CheckerRun.expectedDiagnostics(DIRECTORY),
+                "Logging.java:15: error: (argument)",
+                "Logging.java:17: error: (argument)",
+                "Logging.java:21: error: (argument)"), run.sortedDiagnostics());
+        String summary = run.note("DCC grouped 3 errors with the same cause as a reported one");
+        assertTrue(summary, summary.contains("4 x argument Confidential -> Public in a call to Logging.log, first at "));
+        assertTrue(summary, summary.endsWith("Logging.java:13"));
+    }
+
+    /**
+     * @param diagnostics some diagnostics
+     * @param removed     diagnostics to remove, each of which must be in the list
+     * @return the remaining diagnostics
+     */
+    private static List<String> without(final List<String> diagnostics, final String... removed) {
+        List<String> remaining = new ArrayList<>(diagnostics);
+        for (String diagnostic : removed) {
+            assertTrue(diagnostic, remaining.remove(diagnostic));
+        }
+        return remaining;
+    }
+}
@@ -0,0 +1,29 @@
+// Copyright 2017 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+// SPDX-License-Identifier: Apache-2.0
+import java.io.File;
+import java.util.List;
+
+import org.checkerframework.framework.test.CheckerFrameworkPerDirectoryTest;
+import org.junit.runners.Parameterized.Parameters;
+
+/**
+ * Test runner for a custom chain of levels (-AdccLevels) that puts the {@link Internal} level in
+ * another place than its @SubtypeOf.
+ */
+public class DataClassificationLevelsTest extends CheckerFrameworkPerDirectoryTest {
+    public DataClassificationLevelsTest(List<File> testFiles) {
+        super(
+              testFiles,
+              com.amazon.checkerframework.checker.data_classification.DataClassificationChecker.class,
+              "data_classification_levels",
+              "-Anomsgtext",
+              "-nowarn",
+              "-AdccLevels=tests/data_classification_levels/internal.levels",
+              "-Astubs=src/main/java/com/amazon/checkerframework/checker/data_classification/jdk.astub");
+    }
+
+    @Parameters
+    public static String[] getTestDirs() {
+        return new String[] {"data_classification_levels"};
+    }
+}
@@ -0,0 +1,177 @@
+// Copyright 2017 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+// SPDX-License-Identifier: Apache-2.0
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Tests that -AdccMethodCache replays the diagnostics of unchanged methods, and checks a method
+ * again when its body, a class it refers to, a stub file or an option changed.
+ */
+public class DataClassificationMethodCacheTest {
+
+    /** The test directory, whose files are copied so that they can be edited. */
+    private static final String DIRECTORY = "data_classification_method_cache";
+
+    /** The stub file, which starts out empty. */
+    private static final String EMPTY_STUB = "package java.lang;\n\nclass Integer {\n}\n";
+
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
+    /** The copies of the test files. */
+    private File sources;
+
+    /** The method cache. */
+    private File cache;
+
+    /** The stub file. */
+    private File stub;
+
+    @Before
+    public void copyTestFiles() throws IOException {
+        sources = folder.newFolder("src");
+        for (File file : CheckerRun.testFiles(DIRECTORY)) {
+            Files.copy(file.toPath(), new File(sources, file.getName()).toPath());
+        }
+        cache = new File(folder.getRoot(), "cache");
+        stub = folder.newFile("integer.astub");
+        write(stub, EMPTY_STUB);
+    }
+
+    @Test
+    public void replaysTheDiagnosticsOfUnchangedMethods() {
+        CheckerRun first = check();
+        assertEquals(CheckerRun.expectedDiagnostics(DIRECTORY), first.sortedDiagnostics());
+        assertEquals("DCC method cache: 0 methods replayed, 6 checked and stored, 0 checked but not stored",
+                first.note("DCC method cache:"));
+
+        CheckerRun second = check();
+        assertEquals(first.sortedDiagnostics(), second.sortedDiagnostics());
+        assertEquals("DCC method cache: 6 methods replayed, 0 checked and stored, 0 checked but not stored",
+                second.note("DCC method cache:"));
+    }
+
+    @Test
+    public void editedBodyIsCheckedAgain() throws IOException {
+        check();
+        edit("Report.java", "log(account.number);", "log(account.name);");
+        CheckerRun run = check();
+        assertEquals(without(CheckerRun.expectedDiagnostics(DIRECTORY), "Report.java:15: error: (argument)"),
+                run.sortedDiagnostics());
+        assertEquals("DCC method cache: 5 methods replayed, 1 checked and stored, 0 checked but not stored",
+                run.note("DCC method cache:"));
+    }
+
+    @Test
+    public void editedFieldOfAReferencedClassIsCheckedAgain() throws IOException {
+        check();
+        edit("Account.java", "@Public String name;", "@Confidential String name;");
+        CheckerRun run = check();
+        List<String> expected = new ArrayList<>(CheckerRun.expectedDiagnostics(DIRECTORY));
+        expected.add("Report.java:10: error: (argument)");
+        expected.sort(null);
+        assertEquals(expected, run.sortedDiagnostics());
+        assertTrue(run.note("DCC method cache:"), !run.note("DCC method cache:").startsWith("DCC method cache: 6 "));
+    }
+
+    @Test
+    public void editedStubIsCheckedAgain() throws IOException {
+        check();
+        write(stub, "package java.lang;\n\n"
+                + "import com.amazon.checkerframework.checker.data_classification.qual.*;\n\n"
+                + "class Integer {\n    static @Confidential String toHexString(int i);\n}\n");
+        CheckerRun run = check();
+        List<String> expected = new ArrayList<>(CheckerRun.expectedDiagnostics(DIRECTORY));
+        expected.add("Report.java:19: error: (argument)");
+        expected.sort(null);
+        assertEquals(expected, run.sortedDiagnostics());
+        assertEquals("DCC method cache: 0 methods replayed, 6 checked and stored, 0 checked but not stored",
+                run.note("DCC method cache:"));
+    }
+
+    @Test
+    public void otherOptionsMissEveryEntry() {
+        check();
+        CheckerRun run = check("-AdccInferenceMode=hierarchy");
+        assertEquals(CheckerRun.expectedDiagnostics(DIRECTORY), run.sortedDiagnostics());
+        assertEquals("DCC method cache: 0 methods replayed, 6 checked and stored, 0 checked but not stored",
+                run.note("DCC method cache:"));
+        // Options that only filter or export the diagnostics don't.
+        assertEquals("DCC method cache: 6 methods replayed, 0 checked and stored, 0 checked but not stored",
+                check("-AdccGroupDiagnostics").note("DCC method cache:"));
+    }
+
+    @Test
+    public void runWithOtherErrorsStoresNothing() throws IOException {
+        File broken = new File(sources, "Broken.java");
+        write(broken, "class Broken {\n    int count = \"many\";\n}\n");
+        CheckerRun run = check();
+        assertTrue(run.diagnostics.toString(), run.diagnostics.stream().anyMatch(d -> d.startsWith("Broken.java:2: error:")));
+        assertTrue(run.note("DCC method cache:"), run.note("DCC method cache:").contains(" 0 checked and stored"));
+
+        Files.delete(broken.toPath());
+        assertEquals("DCC method cache: 0 methods replayed, 6 checked and stored, 0 checked but not stored",
+                check().note("DCC method cache:"));
+    }
+
+    /**
+     * @param options more checker options
+     * @return the result of checking the copies of the test files with the method cache
+     */
+    private CheckerRun check(final String... options) {
+        List<String> arguments = new ArrayList<>(Arrays.asList(
+                CheckerRun.JDK_STUB + File.pathSeparator + stub, "-AdccMethodCache=" + cache));
+        arguments.addAll(Arrays.asList(options));
+        File[] files = sources.listFiles();
+        Arrays.sort(files);
+        return CheckerRun.check(Arrays.asList(files), arguments.toArray(new String[0]));
+    }
+
+    /**
+     * Replaces some text in a copy of a test file.
+     *
+     * @param file the name of the file
+     * @param from the text to replace, which must be in the file
+     * @param to   its replacement
+     * @throws IOException if the file can't be rewritten
+     */
+    private void edit(final String file, final String from, final String to) throws IOException {
+        File copy = new File(sources, file);
+        String text = new String(Files.readAllBytes(copy.toPath()), StandardCharsets.UTF_8);
+        assertTrue(text, text.contains(from));
+        write(copy, text.replace(from, to));
+    }
+
+    /**
+     * @param file a file
+     * @param text its new contents
+     * @throws IOException if it can't be written
+     */
+    private static void write(final File file, final String text) throws IOException {
+        Files.write(file.toPath(), text.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * @param diagnostics some diagnostics
+     * @param removed     a diagnostic to remove, which must be in the list
+     * @return the remaining diagnostics
+     */
+    private static List<String> without(final List<String> diagnostics, final String removed) {
+        List<String> remaining = new ArrayList<>(diagnostics);
+        assertTrue(removed, remaining.remove(removed));
+        return remaining;
+    }
+}
@@ -0,0 +1,89 @@
+// Copyright 2017 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+// SPDX-License-Identifier: Apache-2.0
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import com.amazon.checkerframework.checker.data_classification.ParallelChecker;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Tests that ParallelChecker reports the same diagnostics as a single compilation, for any number
+ * of partitions and either grouping. The driver exits with its status, so it runs in its own
+ * process.
+ */
+public class DataClassificationParallelTest {
+
+    /** A diagnostic as the driver prints it, e.g. {@code /tmp/A.java:3: error: (argument)}. */
+    private static final Pattern DIAGNOSTIC =
+            Pattern.compile("([^/\\\\]+\\.java):(\\d+): (error|warning): (\\(\\S+\\))");
+
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void mainTestsInOnePackage() throws IOException, InterruptedException {
+        List<String> serial = CheckerRun.check("data_classification", CheckerRun.JDK_STUB).sortedDiagnostics();
+        for (String partitions : Arrays.asList("1", "3", "8")) {
+            assertEquals("-partitions " + partitions, serial,
+                    parallel("data_classification", "-partitions", partitions, "-groupBy", "package"));
+        }
+    }
+
+    @Test
+    public void unitsInSeveralPackages() throws IOException, InterruptedException {
+        // The prescan tests refer to classes of another package by qualified name and by inheritance.
+        List<String> serial = CheckerRun.check("data_classification_prescan", CheckerRun.JDK_STUB).sortedDiagnostics();
+        assertEquals(serial, parallel("data_classification_prescan", "-partitions", "2", "-groupBy", "package"));
+        assertEquals(serial, parallel("data_classification_prescan", "-partitions", "2", "-groupBy", "cluster"));
+    }
+
+    /**
+     * Runs ParallelChecker on two threads with the JDK stub.
+     *
+     * @param directory the name of a directory under {@code tests}
+     * @param arguments the partitioning arguments
+     * @return the diagnostics printed, as {@code File.java:12: error: (key)}, sorted
+     */
+    private List<String> parallel(final String directory, final String... arguments)
+            throws IOException, InterruptedException {
+        String classpath = System.getProperty("java.class.path");
+        List<String> command = new ArrayList<>(Arrays.asList(
+                new File(System.getProperty("java.home"), "bin" + File.separator + "java").getPath(),
+                "-cp", classpath, ParallelChecker.class.getName(), "-threads", "2"));
+        command.addAll(Arrays.asList(arguments));
+        command.addAll(Arrays.asList("-classpath", classpath, "-Anomsgtext", CheckerRun.JDK_STUB));
+        List<File> files = CheckerRun.testFiles(directory);
+        for (File file : files) {
+            command.add(file.getPath());
+        }
+        File output = folder.newFile();
+        Process process = new ProcessBuilder(command).redirectErrorStream(true).redirectOutput(output).start();
+        assertTrue("ParallelChecker did not finish", process.waitFor(5, TimeUnit.MINUTES));
+        String printed = new String(Files.readAllBytes(output.toPath()), StandardCharsets.UTF_8);
+
+        List<String> diagnostics = new ArrayList<>();
+        Matcher matcher = DIAGNOSTIC.matcher(printed);
+        while (matcher.find()) {
+            diagnostics.add(matcher.group(1) + ":" + matcher.group(2) + ": " + matcher.group(3) + ": "
+                    + matcher.group(4));
+        }
+        Collections.sort(diagnostics);
+        boolean errors = diagnostics.stream().anyMatch(d -> d.contains(": error: "));
+        assertEquals(printed, errors ? 1 : 0, process.exitValue());
+        return diagnostics;
+    }
+}
@@ -0,0 +1,36 @@
+// Copyright 2017 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+// SPDX-License-Identifier: Apache-2.0
+import static org.junit.Assert.assertEquals;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Test;
+
+/**
+ * Tests the cache of resolved poly bounds, which the visitor keeps per method until it moves to the
+ * next compilation unit, through the statistics printed with -AdccCacheStats.
+ */
+public class DataClassificationPolyBoundCacheTest {
+
+    /** The test directory: two units with methods whose poly parameters are used several times. */
+    private static final String DIRECTORY = "data_classification_poly_bounds";
+
+    @Test
+    public void resolvesEachMethodOnce() {
+        CheckerRun run = CheckerRun.check(DIRECTORY, CheckerRun.JDK_STUB, "-AdccCacheStats");
+        assertEquals(CheckerRun.expectedDiagnostics(DIRECTORY), run.sortedDiagnostics());
+        // Accounts.copy, Names.copy and Names.copyBoth are each resolved once, on their first use.
+        assertEquals("DCC poly cache: lookups=6, hits=3 (50.0%), misses=3", run.note("DCC poly cache:"));
+    }
+
+    @Test
+    public void countsDoNotDependOnTheOrderOfTheUnits() {
+        List<File> reversed = new ArrayList<>(CheckerRun.testFiles(DIRECTORY));
+        Collections.reverse(reversed);
+        CheckerRun run = CheckerRun.check(reversed, CheckerRun.JDK_STUB, "-AdccCacheStats");
+        assertEquals("DCC poly cache: lookups=6, hits=3 (50.0%), misses=3", run.note("DCC poly cache:"));
+    }
+}
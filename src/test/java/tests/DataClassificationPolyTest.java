@@ -0,0 +1,28 @@
+// Copyright 2017 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+// SPDX-License-Identifier: Apache-2.0
+import java.io.File;
+import java.util.List;
+
+import org.checkerframework.framework.test.CheckerFrameworkPerDirectoryTest;
+import org.junit.runners.Parameterized.Parameters;
+
+/**
+ * Test runner for @PolyClassification qualifiers with values, which stand for their set of values
+ * however it is written, and for the resolution of plain @PolyClassification.
+ */
+public class DataClassificationPolyTest extends CheckerFrameworkPerDirectoryTest {
+    public DataClassificationPolyTest(List<File> testFiles) {
+        super(
+              testFiles,
+              com.amazon.checkerframework.checker.data_classification.DataClassificationChecker.class,
+              "data_classification_poly",
+              "-Anomsgtext",
+              "-nowarn",
+              "-Astubs=src/main/java/com/amazon/checkerframework/checker/data_classification/jdk.astub");
+    }
+
+    @Parameters
+    public static String[] getTestDirs() {
+        return new String[] {"data_classification_poly"};
+    }
+}
@@ -0,0 +1,36 @@
+// Copyright 2017 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+// SPDX-License-Identifier: Apache-2.0
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+/**
+ * Tests that -AdccPrescan only skips work, never diagnostics.
+ */
+public class DataClassificationPrescanTest {
+
+    /** The test directory: units that only refer to classified classes in ways the scan must see. */
+    private static final String DIRECTORY = "data_classification_prescan";
+
+    @Test
+    public void reportsTheSameDiagnosticsOnTheMainTests() {
+        CheckerRun full = CheckerRun.check("data_classification", CheckerRun.JDK_STUB);
+        CheckerRun prescanned = CheckerRun.check("data_classification", CheckerRun.JDK_STUB, "-AdccPrescan");
+        assertEquals(full.sortedDiagnostics(), prescanned.sortedDiagnostics());
+        prescanned.note("DCC prescan skipped ");
+    }
+
+    @Test
+    public void checksQualifiedNamesAndInheritedMemberTypes() {
+        CheckerRun run = CheckerRun.check(DIRECTORY, CheckerRun.JDK_STUB, "-AdccPrescan");
+        assertEquals(CheckerRun.expectedDiagnostics(DIRECTORY), run.sortedDiagnostics());
+        // Only Unrelated.java is skipped, and it keeps its constructor warning.
+        assertEquals("DCC prescan skipped 1 of 10 compilation units", run.note("DCC prescan skipped "));
+    }
+
+    @Test
+    public void reportsTheSameDiagnosticsWithoutThePrescan() {
+        assertEquals(CheckerRun.expectedDiagnostics(DIRECTORY),
+                CheckerRun.check(DIRECTORY, CheckerRun.JDK_STUB).sortedDiagnostics());
+    }
+}
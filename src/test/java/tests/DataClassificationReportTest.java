@@ -0,0 +1,82 @@
+// Copyright 2017 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+// SPDX-License-Identifier: Apache-2.0
+import static org.junit.Assert.assertEquals;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Tests the records that -AdccReport writes, as lines of JSON and as SARIF.
+ */
+public class DataClassificationReportTest {
+
+    /** The test directory: a unit with one warning and one type incompatibility. */
+    private static final String DIRECTORY = "data_classification_report";
+
+    /** The message of the warning. */
+    private static final String WARNING_MESSAGE = "Constructor type (@Public) is a subtype of the top type"
+            + " (@Critical), therefore it cannot be statically verified.";
+
+    /** The message of the error, as a JSON string literal. */
+    private static final String ERROR_MESSAGE = "\"incompatible argument for parameter value of Audit.log.\\n"
+            + "found   : @Confidential String\\nrequired: @Public Object\"";
+
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void writesOneLineOfJsonPerDiagnostic() throws IOException {
+        File report = new File(folder.getRoot(), "report.jsonl");
+        CheckerRun run = CheckerRun.check(DIRECTORY, CheckerRun.JDK_STUB, "-AdccReport=" + report);
+        assertEquals(CheckerRun.expectedDiagnostics(DIRECTORY), run.sortedDiagnostics());
+        String file = "\"" + source().getPath() + "\"";
+        assertEquals(Arrays.asList(
+                "{\"key\":\"inconsistent.constructor.type\",\"kind\":\"warning\",\"message\":\"" + WARNING_MESSAGE
+                        + "\",\"file\":" + file + ",\"startLine\":5,\"startColumn\":1,\"endLine\":5,\"endColumn\":1}",
+                "{\"key\":\"argument\",\"kind\":\"error\",\"message\":" + ERROR_MESSAGE + ",\"file\":" + file
+                        + ",\"startLine\":11,\"startColumn\":13,\"endLine\":11,\"endColumn\":19,"
+                        + "\"found\":\"Confidential\",\"required\":\"Public\"}"),
+                lines(report));
+    }
+
+    @Test
+    public void writesASarifDocumentForASarifFile() throws IOException {
+        File report = new File(folder.getRoot(), "report.sarif");
+        CheckerRun run = CheckerRun.check(DIRECTORY, CheckerRun.JDK_STUB, "-AdccReport=" + report);
+        assertEquals(CheckerRun.expectedDiagnostics(DIRECTORY), run.sortedDiagnostics());
+        String location = "\"locations\":[{\"physicalLocation\":{\"artifactLocation\":{\"uri\":\""
+                + source().getAbsoluteFile().toPath().toUri() + "\"},\"region\":{";
+        assertEquals(Arrays.asList(
+                "{\"$schema\":\"https://json.schemastore.org/sarif-2.1.0.json\",\"version\":\"2.1.0\","
+                        + "\"runs\":[{\"tool\":{\"driver\":{\"name\":\"Data Classification Checker\"}},\"results\":[",
+                "{\"ruleId\":\"inconsistent.constructor.type\",\"level\":\"warning\",\"message\":{\"text\":\""
+                        + WARNING_MESSAGE + "\"}," + location
+                        + "\"startLine\":5,\"startColumn\":1,\"endLine\":5,\"endColumn\":1}}}]},",
+                "{\"ruleId\":\"argument\",\"level\":\"error\",\"message\":{\"text\":" + ERROR_MESSAGE + "},"
+                        + location + "\"startLine\":11,\"startColumn\":13,\"endLine\":11,\"endColumn\":19}}}],"
+                        + "\"properties\":{\"found\":\"Confidential\",\"required\":\"Public\"}}",
+                "]}]}"),
+                lines(report));
+    }
+
+    /** @return the test file */
+    private static File source() {
+        return CheckerRun.testFiles(DIRECTORY).get(0);
+    }
+
+    /**
+     * @param report a report
+     * @return its lines
+     */
+    private static List<String> lines(final File report) throws IOException {
+        return Files.readAllLines(report.toPath(), StandardCharsets.UTF_8);
+    }
+}
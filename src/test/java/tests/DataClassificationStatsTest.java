@@ -0,0 +1,59 @@
+// Copyright 2017 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+// SPDX-License-Identifier: Apache-2.0
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Tests the -AdccStats report.
+ */
+public class DataClassificationStatsTest {
+
+    /** The test directory: the main tests, one of which declares several top-level classes. */
+    private static final String DIRECTORY = "data_classification";
+
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void timesEachCompilationUnitOnce() throws IOException {
+        File report = folder.newFile("dcc-stats.json");
+        CheckerRun.check(DIRECTORY, CheckerRun.JDK_STUB, "-AdccStats=" + report);
+        String json = new String(Files.readAllBytes(report.toPath()), StandardCharsets.UTF_8);
+
+        int files = CheckerRun.testFiles(DIRECTORY).size();
+        assertEquals(json, files, number(json, "compilationUnits"));
+        List<String> slowest = new ArrayList<>();
+        Matcher matcher = Pattern.compile("\"file\": \"([^\"]*)\"").matcher(json);
+        while (matcher.find()) {
+            slowest.add(new File(matcher.group(1)).getName());
+        }
+        // InterfaceInference.java declares four classes, but is listed once.
+        assertEquals(json, files, slowest.size());
+        assertEquals(json, 1, slowest.stream().filter("InterfaceInference.java"::equals).count());
+        assertTrue(json, number(json, "classInferenceWalks") > 0);
+    }
+
+    /**
+     * @param json the report
+     * @param name the name of a top-level number in it
+     * @return its value
+     */
+    private static long number(final String json, final String name) {
+        Matcher matcher = Pattern.compile("\"" + name + "\": (\\d+)").matcher(json);
+        assertTrue("No " + name + " in " + json, matcher.find());
+        return Long.parseLong(matcher.group(1));
+    }
+}
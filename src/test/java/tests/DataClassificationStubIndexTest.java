@@ -0,0 +1,28 @@
+// Copyright 2017 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+// SPDX-License-Identifier: Apache-2.0
+import java.io.File;
+import java.util.List;
+
+import org.checkerframework.framework.test.CheckerFrameworkPerDirectoryTest;
+import org.junit.runners.Parameterized.Parameters;
+
+/**
+ * Runs the main tests with the bundled, precompiled jdk.astub (-AdccStubIndex) instead of the stub
+ * file, which must give the same results.
+ */
+public class DataClassificationStubIndexTest extends CheckerFrameworkPerDirectoryTest {
+    public DataClassificationStubIndexTest(List<File> testFiles) {
+        super(
+              testFiles,
+              com.amazon.checkerframework.checker.data_classification.DataClassificationChecker.class,
+              "data_classification",
+              "-Anomsgtext",
+              "-nowarn",
+              "-AdccStubIndex");
+    }
+
+    @Parameters
+    public static String[] getTestDirs() {
+        return new String[] {"data_classification"};
+    }
+}
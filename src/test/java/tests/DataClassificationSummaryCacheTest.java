@@ -0,0 +1,100 @@
+// Copyright 2017 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+// SPDX-License-Identifier: Apache-2.0
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.List;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Tests that -AdccSummaryCache reuses a stored class summary only under the options it was
+ * inferred with. Each test overwrites the stored bound of Holder with @Critical, which no
+ * compilation infers, so that a compilation that reuses it reports an error it would not report
+ * otherwise.
+ */
+public class DataClassificationSummaryCacheTest {
+
+    /** The test directory. */
+    private static final String DIRECTORY = "data_classification_summary_cache";
+
+    @Rule
+    public TemporaryFolder temp = new TemporaryFolder();
+
+    @Test
+    public void reusesSummariesUnderTheSameOptions() throws IOException {
+        String cache = "-AdccSummaryCache=" + temp.newFolder("cache");
+        String levels = levels("internal-below-confidential");
+        CheckerRun fresh = CheckerRun.check(DIRECTORY, cache, levels);
+        overwriteStoredBound();
+
+        CheckerRun cached = CheckerRun.check(DIRECTORY, cache, levels);
+        assertNotEquals(fresh.sortedDiagnostics(), cached.sortedDiagnostics());
+    }
+
+    @Test
+    public void otherLevelsMissTheStoredSummaries() throws IOException {
+        String cache = "-AdccSummaryCache=" + temp.newFolder("cache");
+        CheckerRun below = CheckerRun.check(DIRECTORY, cache, levels("internal-below-confidential"));
+        overwriteStoredBound();
+
+        CheckerRun above = CheckerRun.check(DIRECTORY, cache, levels("internal-above-confidential"));
+        List<String> expected = CheckerRun.check(DIRECTORY, levels("internal-above-confidential")).sortedDiagnostics();
+        assertNotEquals(below.sortedDiagnostics(), expected);
+        assertEquals(expected, above.sortedDiagnostics());
+    }
+
+    @Test
+    public void editedLevelsFileMissesTheStoredSummaries() throws IOException {
+        String cache = "-AdccSummaryCache=" + temp.newFolder("cache");
+        Path levelsFile = temp.newFile("levels").toPath();
+        copyLevels("internal-below-confidential", levelsFile);
+        CheckerRun.check(DIRECTORY, cache, "-AdccLevels=" + levelsFile);
+        overwriteStoredBound();
+
+        copyLevels("internal-above-confidential", levelsFile);
+        CheckerRun edited = CheckerRun.check(DIRECTORY, cache, "-AdccLevels=" + levelsFile);
+        assertEquals(CheckerRun.check(DIRECTORY, "-AdccLevels=" + levelsFile).sortedDiagnostics(),
+                edited.sortedDiagnostics());
+    }
+
+    /**
+     * @param name the name of a levels file in the test directory
+     * @return the option that passes it
+     */
+    private static String levels(final String name) {
+        return "-AdccLevels=" + levelsFile(name);
+    }
+
+    /**
+     * @param name the name of a levels file in the test directory
+     * @return the file
+     */
+    private static File levelsFile(final String name) {
+        return new File(new File("tests", DIRECTORY), name + ".levels");
+    }
+
+    /**
+     * @param name   the name of a levels file in the test directory
+     * @param target where to copy it
+     */
+    private static void copyLevels(final String name, final Path target) throws IOException {
+        Files.copy(levelsFile(name).toPath(), target, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    /** Replaces the stored bound of Holder with @Critical, keeping its content hash. */
+    private void overwriteStoredBound() throws IOException {
+        Path entry = new File(new File(temp.getRoot(), "cache"), "Holder.dcc").toPath();
+        List<String> lines = Files.readAllLines(entry, StandardCharsets.UTF_8);
+        lines.set(1, "com.amazon.checkerframework.checker.data_classification.qual.Critical");
+        Files.write(entry, lines, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,28 @@
+// Copyright 2017 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+// SPDX-License-Identifier: Apache-2.0
+import java.io.File;
+import java.util.List;
+
+import org.checkerframework.framework.test.CheckerFrameworkPerDirectoryTest;
+import org.junit.runners.Parameterized.Parameters;
+
+/**
+ * Test runner for the type arguments whose bounds DCC checks, i.e. those without a user-written
+ * qualifier.
+ */
+public class DataClassificationTypeArgumentsTest extends CheckerFrameworkPerDirectoryTest {
+    public DataClassificationTypeArgumentsTest(List<File> testFiles) {
+        super(
+              testFiles,
+              com.amazon.checkerframework.checker.data_classification.DataClassificationChecker.class,
+              "data_classification_type_arguments",
+              "-Anomsgtext",
+              "-nowarn",
+              "-Astubs=src/main/java/com/amazon/checkerframework/checker/data_classification/jdk.astub");
+    }
+
+    @Parameters
+    public static String[] getTestDirs() {
+        return new String[] {"data_classification_type_arguments"};
+    }
+}
@@ -0,0 +1,18 @@
+// Copyright 2017 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+// SPDX-License-Identifier: Apache-2.0
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+import com.amazon.checkerframework.checker.data_classification.qual.Confidential;
+import org.checkerframework.framework.qual.SubtypeOf;
+
+/**
+ * An organization-specific classification level for the -AdccLevels tests. Its place in the chain
+ * comes from the levels file the test passes, not from its @SubtypeOf.
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target({ElementType.TYPE_USE, ElementType.TYPE_PARAMETER})
+@SubtypeOf(Confidential.class)
+public @interface Internal {}
@@ -0,0 +1,348 @@
+// Copyright 2017 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+// SPDX-License-Identifier: Apache-2.0
+package com.amazon.checkerframework.checker.data_classification.stubgen;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The parts of a classfile that the stub generator needs: the class' name and kind, and the name,
+ * descriptor and generic signature of each method. Read straight from the classfile bytes, without
+ * loading the class.
+ */
+final class ClassSummary {
+
+    /** Access flags from the JVM specification. */
+    static final int ACC_PUBLIC = 0x0001,
+            ACC_PRIVATE = 0x0002,
+            ACC_PROTECTED = 0x0004,
+            ACC_STATIC = 0x0008,
+            ACC_BRIDGE = 0x0040,
+            ACC_VARARGS = 0x0080,
+            ACC_INTERFACE = 0x0200,
+            ACC_SYNTHETIC = 0x1000,
+            ACC_ANNOTATION = 0x2000,
+            ACC_ENUM = 0x4000,
+            ACC_MODULE = 0x8000;
+
+    /** The class' name in internal form, e.g. {@code java/util/Map$Entry}. */
+    final String internalName;
+
+    /** The class' access flags. */
+    final int access;
+
+    /** The class' generic signature, or null if it has none. */
+    final String signature;
+
+    /** Whether the class is an inner class, i.e. a nested class with an enclosing instance. */
+    final boolean isInner;
+
+    /** The class' methods and constructors, in classfile order. */
+    final List<Method> methods;
+
+    /**
+     * @param internalName the class' name in internal form
+     * @param access       the class' access flags
+     * @param signature    the class' generic signature, or null
+     * @param isInner      whether the class is an inner class
+     * @param methods      the class' methods and constructors
+     */
+    private ClassSummary(final String internalName, final int access, final String signature,
+            final boolean isInner, final List<Method> methods) {
+        this.internalName = internalName;
+        this.access = access;
+        this.signature = signature;
+        this.isInner = isInner;
+        this.methods = Collections.unmodifiableList(methods);
+    }
+
+    /** @return the class' qualified name, with nested classes separated by dots */
+    String qualifiedName() {
+        return internalName.replace('/', '.').replace('$', '.');
+    }
+
+    /** @return the class' package, or the empty string for the unnamed package */
+    String packageName() {
+        int slash = internalName.lastIndexOf('/');
+        return slash < 0 ? "" : internalName.substring(0, slash).replace('/', '.');
+    }
+
+    /** @return the class' simple name and the simple names of its enclosing classes, outermost first */
+    List<String> nestedNames() {
+        List<String> names = new ArrayList<>();
+        for (String name : internalName.substring(internalName.lastIndexOf('/') + 1).split("\\$")) {
+            names.add(name);
+        }
+        return names;
+    }
+
+    /** @return whether the class is visible to other packages and has a name that source can use */
+    boolean isAccessible() {
+        if ((access & ACC_PUBLIC) == 0 || (access & (ACC_SYNTHETIC | ACC_MODULE | ACC_ANNOTATION)) != 0) {
+            return false;
+        }
+        for (String name : nestedNames()) {
+            if (name.isEmpty() || Character.isDigit(name.charAt(0))) {
+                // An anonymous or local class.
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /** @return whether the class is an interface */
+    boolean isInterface() {
+        return (access & ACC_INTERFACE) != 0;
+    }
+
+    /** @return whether the class is an enum */
+    boolean isEnum() {
+        return (access & ACC_ENUM) != 0;
+    }
+
+    /** A method or constructor. */
+    static final class Method {
+
+        /** The method's access flags. */
+        final int access;
+
+        /** The method's name, {@code <init>} for a constructor. */
+        final String name;
+
+        /** The method's descriptor, e.g. {@code (Ljava/lang/String;I)V}. */
+        final String descriptor;
+
+        /** The method's generic signature, or null if it has none. */
+        final String signature;
+
+        /**
+         * @param access     the method's access flags
+         * @param name       the method's name
+         * @param descriptor the method's descriptor
+         * @param signature  the method's generic signature, or null
+         */
+        Method(final int access, final String name, final String descriptor, final String signature) {
+            this.access = access;
+            this.name = name;
+            this.descriptor = descriptor;
+            this.signature = signature;
+        }
+
+        /** @return whether the method is a constructor */
+        boolean isConstructor() {
+            return "<init>".equals(name);
+        }
+
+        /** @return whether the method is static */
+        boolean isStatic() {
+            return (access & ACC_STATIC) != 0;
+        }
+
+        /** @return whether the method is a varargs method */
+        boolean isVarargs() {
+            return (access & ACC_VARARGS) != 0;
+        }
+
+        /** @return whether the method is part of the class' API and was written in source */
+        boolean isApi() {
+            return (access & (ACC_PUBLIC | ACC_PROTECTED)) != 0
+                    && (access & (ACC_PRIVATE | ACC_SYNTHETIC | ACC_BRIDGE)) == 0
+                    && !"<clinit>".equals(name);
+        }
+    }
+
+    /**
+     * Parses a classfile.
+     *
+     * @param classFile the classfile's bytes
+     * @param source    where the classfile comes from, for error messages
+     * @return its summary
+     * @throws IllegalArgumentException if the bytes are not a well-formed classfile
+     */
+    static ClassSummary parse(final ByteBuffer classFile, final String source) {
+        try {
+            if (classFile.getInt() != 0xCAFEBABE) {
+                throw new IllegalArgumentException(source + " is not a classfile");
+            }
+            classFile.getInt(); // minor and major version
+            int[] utf8Offsets = readConstantPool(classFile);
+            int access = classFile.getShort() & 0xffff;
+            int thisClass = classFile.getShort() & 0xffff;
+            classFile.getShort(); // super_class
+            skip(classFile, 2 * (classFile.getShort() & 0xffff)); // interfaces
+            int fieldCount = classFile.getShort() & 0xffff;
+            for (int i = 0; i < fieldCount; i++) {
+                skip(classFile, 6);
+                skipAttributes(classFile);
+            }
+            int methodCount = classFile.getShort() & 0xffff;
+            List<Method> methods = new ArrayList<>(methodCount);
+            for (int i = 0; i < methodCount; i++) {
+                int methodAccess = classFile.getShort() & 0xffff;
+                String name = utf8(classFile, utf8Offsets, classFile.getShort() & 0xffff);
+                String descriptor = utf8(classFile, utf8Offsets, classFile.getShort() & 0xffff);
+                methods.add(new Method(methodAccess, name, descriptor, readSignature(classFile, utf8Offsets)));
+            }
+            String signature = null;
+            boolean isInner = false;
+            int attributeCount = classFile.getShort() & 0xffff;
+            for (int a = 0; a < attributeCount; a++) {
+                String attributeName = utf8(classFile, utf8Offsets, classFile.getShort() & 0xffff);
+                int length = classFile.getInt();
+                int end = classFile.position() + length;
+                if ("Signature".equals(attributeName)) {
+                    signature = utf8(classFile, utf8Offsets, classFile.getShort() & 0xffff);
+                } else if ("InnerClasses".equals(attributeName)) {
+                    // A nested class' own entry has the access flags it was declared with, in
+                    // particular whether it is static.
+                    int classCount = classFile.getShort() & 0xffff;
+                    for (int c = 0; c < classCount; c++) {
+                        int innerClass = classFile.getShort() & 0xffff;
+                        skip(classFile, 4);
+                        int innerAccess = classFile.getShort() & 0xffff;
+                        if (innerClass == thisClass) {
+                            isInner = (innerAccess & (ACC_STATIC | ACC_INTERFACE | ACC_ENUM)) == 0;
+                        }
+                    }
+                }
+                classFile.position(end);
+            }
+            // this_class refers to a CONSTANT_Class, whose name_index was recorded in its place.
+            String internalName = utf8(classFile, utf8Offsets, utf8Offsets[thisClass]);
+            return new ClassSummary(internalName, access, signature, isInner, methods);
+        } catch (BufferUnderflowException | IndexOutOfBoundsException e) {
+            throw new IllegalArgumentException(source + " is truncated or malformed", e);
+        }
+    }
+
+    /**
+     * Reads the constant pool, leaving the buffer after it.
+     *
+     * @param classFile the classfile, positioned at the constant pool count
+     * @return for each CONSTANT_Utf8 entry, the offset of its length; for each CONSTANT_Class
+     *         entry, the index of its name; 0 for all other entries
+     */
+    private static int[] readConstantPool(final ByteBuffer classFile) {
+        int count = classFile.getShort() & 0xffff;
+        int[] offsets = new int[count];
+        int[] classNames = new int[count];
+        for (int i = 1; i < count; i++) {
+            int tag = classFile.get();
+            switch (tag) {
+                case 1: // Utf8
+                    offsets[i] = classFile.position();
+                    skip(classFile, classFile.getShort() & 0xffff);
+                    break;
+                case 7: // Class
+                    classNames[i] = classFile.getShort() & 0xffff;
+                    break;
+                case 8: // String
+                case 16: // MethodType
+                case 19: // Module
+                case 20: // Package
+                    skip(classFile, 2);
+                    break;
+                case 15: // MethodHandle
+                    skip(classFile, 3);
+                    break;
+                case 3: // Integer
+                case 4: // Float
+                case 9: // Fieldref
+                case 10: // Methodref
+                case 11: // InterfaceMethodref
+                case 12: // NameAndType
+                case 17: // Dynamic
+                case 18: // InvokeDynamic
+                    skip(classFile, 4);
+                    break;
+                case 5: // Long
+                case 6: // Double
+                    skip(classFile, 8);
+                    i++;
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown constant pool tag " + tag);
+            }
+        }
+        // A Utf8 entry is never a Class entry, so one array can hold both.
+        for (int i = 1; i < count; i++) {
+            if (classNames[i] != 0) {
+                offsets[i] = classNames[i];
+            }
+        }
+        return offsets;
+    }
+
+    /**
+     * Decodes a CONSTANT_Utf8 entry without moving the buffer.
+     *
+     * @param classFile   the classfile
+     * @param utf8Offsets the offsets returned by {@link #readConstantPool}
+     * @param index       the constant pool index of the entry
+     * @return the string
+     */
+    private static String utf8(final ByteBuffer classFile, final int[] utf8Offsets, final int index) {
+        int offset = utf8Offsets[index];
+        int length = classFile.getShort(offset) & 0xffff;
+        StringBuilder result = new StringBuilder(length);
+        int end = offset + 2 + length;
+        for (int i = offset + 2; i < end; i++) {
+            int b = classFile.get(i) & 0xff;
+            if (b < 0x80) {
+                result.append((char) b);
+            } else if ((b & 0xe0) == 0xc0) {
+                result.append((char) (((b & 0x1f) << 6) | (classFile.get(++i) & 0x3f)));
+            } else {
+                int b2 = classFile.get(++i) & 0x3f;
+                int b3 = classFile.get(++i) & 0x3f;
+                result.append((char) (((b & 0x0f) << 12) | (b2 << 6) | b3));
+            }
+        }
+        return result.toString();
+    }
+
+    /**
+     * Reads a list of attributes, keeping only the Signature attribute.
+     *
+     * @param classFile   the classfile, positioned at the attribute count
+     * @param utf8Offsets the offsets returned by {@link #readConstantPool}
+     * @return the generic signature, or null if there is none
+     */
+    private static String readSignature(final ByteBuffer classFile, final int[] utf8Offsets) {
+        String signature = null;
+        int count = classFile.getShort() & 0xffff;
+        for (int i = 0; i < count; i++) {
+            String name = utf8(classFile, utf8Offsets, classFile.getShort() & 0xffff);
+            int length = classFile.getInt();
+            if ("Signature".equals(name)) {
+                signature = utf8(classFile, utf8Offsets, classFile.getShort(classFile.position()) & 0xffff);
+            }
+            skip(classFile, length);
+        }
+        return signature;
+    }
+
+    /**
+     * Skips a list of attributes.
+     *
+     * @param classFile the classfile, positioned at the attribute count
+     */
+    private static void skipAttributes(final ByteBuffer classFile) {
+        int count = classFile.getShort() & 0xffff;
+        for (int i = 0; i < count; i++) {
+            classFile.getShort();
+            skip(classFile, classFile.getInt());
+        }
+    }
+
+    /**
+     * @param classFile the classfile
+     * @param bytes     the number of bytes to skip
+     */
+    private static void skip(final ByteBuffer classFile, final int bytes) {
+        classFile.position(classFile.position() + bytes);
+    }
+}
@@ -0,0 +1,409 @@
+// Copyright 2017 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+// SPDX-License-Identifier: Apache-2.0
+package com.amazon.checkerframework.checker.data_classification.stubgen;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/**
+ * Generates stub files for third-party libraries from their classfiles, writing DCC qualifiers on
+ * the methods selected by a {@link StubRules rules file}. Libraries without stubs are unannotated,
+ * so their methods default to {@code @Public}; the generator saves writing stubs like jdk.astub by
+ * hand for every method of a large library.
+ *
+ * <p>The classfiles are parsed and matched against the rules in parallel on a fork-join pool. Each
+ * class is processed independently and the results are sorted before they are written, so the
+ * stub file is the same whatever the number of threads. If a class appears in several inputs, the
+ * first one wins, as on a classpath.
+ *
+ * <p>Usage:
+ *
+ * <pre>
+ * java -jar dcc-stubgen.jar -rules rules.txt -o library.astub [-threads n] library.jar classes/ ...
+ * </pre>
+ *
+ * Inputs may be jars, directories of classfiles or single classfiles. Pass the output to the
+ * checker with {@code -Astubs=library.astub}.
+ */
+public final class StubGenerator {
+
+    /** The number of classes below which a task parses its classes itself instead of splitting. */
+    private static final int SEQUENTIAL_THRESHOLD = 64;
+
+    /** The rules to apply. */
+    private final StubRules rules;
+
+    /** The classfiles to read, in input order. */
+    private final List<ClassFile> classFiles = new ArrayList<>();
+
+    /** The jars opened so far, closed by {@link #close}. */
+    private final List<ZipFile> jars = new ArrayList<>();
+
+    /** A class with annotated methods. */
+    static final class ClassStub {
+
+        /** The class. */
+        final ClassSummary summary;
+
+        /** Its annotated methods, sorted by name and descriptor. */
+        final List<MethodStub> methods;
+
+        /**
+         * @param summary the class
+         * @param methods its annotated methods, sorted
+         */
+        ClassStub(final ClassSummary summary, final List<MethodStub> methods) {
+            this.summary = summary;
+            this.methods = methods;
+        }
+    }
+
+    /** An annotated method. */
+    static final class MethodStub {
+
+        /** The method. */
+        final ClassSummary.Method method;
+
+        /** The simple names of its types. */
+        final TypeNames.MethodNames names;
+
+        /** The qualifier of each slot, or null; see {@link StubRules#annotate}. */
+        final String[] slots;
+
+        /**
+         * @param method the method
+         * @param names  the simple names of its types
+         * @param slots  the qualifier of each slot
+         */
+        MethodStub(final ClassSummary.Method method, final TypeNames.MethodNames names, final String[] slots) {
+            this.method = method;
+            this.names = names;
+            this.slots = slots;
+        }
+    }
+
+    /** A classfile in a jar, a directory or on its own. */
+    private interface ClassFile {
+
+        /** @return where the classfile comes from, for messages */
+        String source();
+
+        /**
+         * @return the classfile's bytes
+         * @throws IOException if it can't be read
+         */
+        ByteBuffer read() throws IOException;
+    }
+
+    /** What a task found in one classfile. */
+    private static final class Result {
+
+        /** The class, if it is accessible. */
+        ClassSummary summary;
+
+        /** The class and its annotated methods, if it has any. */
+        ClassStub stub;
+
+        /** Why the classfile was skipped, if it was. */
+        String warning;
+    }
+
+    /**
+     * Creates a generator.
+     *
+     * @param rules the rules to apply
+     */
+    StubGenerator(final StubRules rules) {
+        this.rules = rules;
+    }
+
+    /**
+     * Lists the classfiles in a jar, a directory tree or a single classfile. Only the listing
+     * happens here; the classfiles are read by {@link #generate}.
+     *
+     * @param input the path of the input
+     * @throws IOException if the input cannot be listed
+     */
+    void add(final Path input) throws IOException {
+        if (Files.isDirectory(input)) {
+            List<Path> files;
+            try (Stream<Path> walk = Files.walk(input)) {
+                files = walk.filter(f -> isClassFile(f.toString())).sorted().collect(Collectors.toList());
+            }
+            for (Path file : files) {
+                classFiles.add(fileClassFile(file));
+            }
+        } else if (input.toString().endsWith(".class")) {
+            classFiles.add(fileClassFile(input));
+        } else {
+            ZipFile jar = new ZipFile(input.toFile());
+            jars.add(jar);
+            List<ZipEntry> entries = jar.stream()
+                    .filter(e -> isClassFile(e.getName()) && !e.getName().startsWith("META-INF/"))
+                    .sorted(Comparator.comparing(ZipEntry::getName))
+                    .collect(Collectors.toList());
+            for (ZipEntry entry : entries) {
+                classFiles.add(new ClassFile() {
+                    @Override
+                    public String source() {
+                        return input + "!/" + entry.getName();
+                    }
+
+                    @Override
+                    public ByteBuffer read() throws IOException {
+                        try (InputStream in = jar.getInputStream(entry)) {
+                            return ByteBuffer.wrap(readAll(in, (int) entry.getSize()));
+                        }
+                    }
+                });
+            }
+        }
+    }
+
+    /**
+     * @param name a file or jar entry name
+     * @return whether it is a classfile that can declare a class
+     */
+    private static boolean isClassFile(final String name) {
+        return name.endsWith(".class") && !name.endsWith("module-info.class") && !name.endsWith("package-info.class");
+    }
+
+    /**
+     * @param file a classfile on disk
+     * @return a source that reads it
+     */
+    private static ClassFile fileClassFile(final Path file) {
+        return new ClassFile() {
+            @Override
+            public String source() {
+                return file.toString();
+            }
+
+            @Override
+            public ByteBuffer read() throws IOException {
+                return ByteBuffer.wrap(Files.readAllBytes(file));
+            }
+        };
+    }
+
+    /**
+     * @param in   a stream
+     * @param size the number of bytes in the stream, or -1 if unknown
+     * @return all of its bytes
+     * @throws IOException if it can't be read
+     */
+    private static byte[] readAll(final InputStream in, final int size) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(size > 0 ? size : 8192);
+        byte[] buffer = new byte[8192];
+        int read;
+        while ((read = in.read(buffer)) > 0) {
+            out.write(buffer, 0, read);
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * Parses every classfile added so far and applies the rules to it.
+     *
+     * @param threads  the parallelism of the fork-join pool
+     * @param warnings collects a message for each classfile that could not be parsed, in input order
+     * @return the writer for the stub file
+     */
+    StubWriter generate(final int threads, final List<String> warnings) {
+        Result[] results = new Result[classFiles.size()];
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        try {
+            pool.invoke(new ScanTask(results, 0, results.length));
+        } finally {
+            pool.shutdown();
+        }
+
+        // Merge in input order, so that the first definition of a class wins whatever the threads did.
+        Map<String, ClassStub> stubs = new TreeMap<>();
+        Map<String, ClassSummary> classes = new HashMap<>();
+        for (Result result : results) {
+            if (result.warning != null) {
+                warnings.add(result.warning);
+            }
+            if (result.summary == null || classes.containsKey(result.summary.internalName)) {
+                continue;
+            }
+            classes.put(result.summary.internalName, result.summary);
+            if (result.stub != null) {
+                stubs.put(result.summary.internalName, result.stub);
+            }
+        }
+        StubWriter writer = new StubWriter();
+        for (ClassStub stub : stubs.values()) {
+            writer.add(stub, classes);
+        }
+        return writer;
+    }
+
+    /** Parses a range of the classfiles, splitting it in halves while it is large. */
+    private final class ScanTask extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        /** Where to store the result of each classfile, by index. */
+        private final Result[] results;
+
+        /** The first classfile of the range. */
+        private final int from;
+
+        /** The end of the range, exclusive. */
+        private final int to;
+
+        /**
+         * @param results where to store the results
+         * @param from    the first classfile of the range
+         * @param to      the end of the range, exclusive
+         */
+        ScanTask(final Result[] results, final int from, final int to) {
+            this.results = results;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > SEQUENTIAL_THRESHOLD) {
+                int middle = (from + to) >>> 1;
+                invokeAll(new ScanTask(results, from, middle), new ScanTask(results, middle, to));
+                return;
+            }
+            for (int i = from; i < to; i++) {
+                results[i] = scan(classFiles.get(i));
+            }
+        }
+    }
+
+    /**
+     * @param classFile a classfile
+     * @return the class and its annotated methods
+     */
+    private Result scan(final ClassFile classFile) {
+        Result result = new Result();
+        ClassSummary summary;
+        try {
+            summary = ClassSummary.parse(classFile.read(), classFile.source());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } catch (IllegalArgumentException e) {
+            result.warning = "Skipping " + classFile.source() + ": " + e.getMessage();
+            return result;
+        }
+        if (!summary.isAccessible()) {
+            return result;
+        }
+        List<MethodStub> methods = new ArrayList<>();
+        try {
+            for (ClassSummary.Method method : summary.methods) {
+                if (!method.isApi()) {
+                    continue;
+                }
+                String[] slots = rules.annotate(summary, method);
+                if (slots != null) {
+                    methods.add(new MethodStub(method, TypeNames.simple(summary, method), slots));
+                }
+            }
+        } catch (IllegalArgumentException | IndexOutOfBoundsException e) {
+            result.warning = "Skipping " + classFile.source() + ": " + e.getMessage();
+            return result;
+        }
+        result.summary = summary;
+        if (!methods.isEmpty()) {
+            methods.sort(Comparator.comparing((MethodStub m) -> m.method.name).thenComparing(m -> m.method.descriptor));
+            result.stub = new ClassStub(summary, methods);
+        }
+        return result;
+    }
+
+    /** Closes the jars opened by {@link #add}. */
+    void close() {
+        for (ZipFile jar : jars) {
+            try {
+                jar.close();
+            } catch (IOException e) {
+                // Only read from, so nothing can be lost.
+            }
+        }
+    }
+
+    /**
+     * Generates a stub file.
+     *
+     * @param args {@code -rules <file> -o <stub> [-threads <n>] <jar|dir|classfile>...}
+     * @throws IOException if a file can't be read or written
+     */
+    public static void main(final String[] args) throws IOException {
+        Path rulesFile = null;
+        Path output = null;
+        int threads = Runtime.getRuntime().availableProcessors();
+        List<Path> inputs = new ArrayList<>();
+        for (int i = 0; i < args.length; i++) {
+            if ("-rules".equals(args[i]) && i + 1 < args.length) {
+                rulesFile = Paths.get(args[++i]);
+            } else if ("-o".equals(args[i]) && i + 1 < args.length) {
+                output = Paths.get(args[++i]);
+            } else if ("-threads".equals(args[i]) && i + 1 < args.length) {
+                threads = Integer.parseInt(args[++i]);
+            } else {
+                inputs.add(Paths.get(args[i]));
+            }
+        }
+        if (rulesFile == null || output == null || inputs.isEmpty() || threads < 1) {
+            System.err.println("Usage: StubGenerator -rules <file> -o <stub> [-threads <n>] <jar|dir|classfile>...");
+            System.exit(1);
+        }
+
+        long start = System.nanoTime();
+        StubRules rules;
+        try {
+            rules = StubRules.read(rulesFile);
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.exit(1);
+            return;
+        }
+        StubGenerator generator = new StubGenerator(rules);
+        List<String> warnings = new ArrayList<>();
+        StubWriter writer;
+        try {
+            for (Path input : inputs) {
+                generator.add(input);
+            }
+            writer = generator.generate(threads, warnings);
+        } finally {
+            generator.close();
+        }
+        try (Writer out = Files.newBufferedWriter(output, StandardCharsets.UTF_8)) {
+            writer.write(out, "Generated by the DCC stub generator with " + rulesFile.getFileName() + "; do not edit.");
+        }
+        for (String warning : warnings) {
+            System.err.println(warning);
+        }
+        System.err.printf("Scanned %d classfiles in %d ms%n", generator.classFiles.size(),
+                (System.nanoTime() - start) / 1_000_000);
+    }
+}
@@ -0,0 +1,330 @@
+// Copyright 2017 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+// SPDX-License-Identifier: Apache-2.0
+package com.amazon.checkerframework.checker.data_classification.stubgen;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * The rules that decide which qualifiers the stub generator writes on which methods.
+ *
+ * <p>A rules file has one rule per line; blank lines and lines starting with {@code #} are
+ * ignored. A rule is a list of conditions, an arrow, and a list of qualifiers:
+ *
+ * <pre>
+ * # Methods from String to String are polymorphic.
+ * returns=java.lang.String params=java.lang.String -&gt; return=@PolyClassification receiver=@PolyClassification params=@PolyClassification
+ * # Logging methods only accept public data.
+ * class=org.slf4j.Logger method=trace|debug|info|warn|error -&gt; params=@Public
+ * </pre>
+ *
+ * <p>The conditions, all of which must hold, are:
+ *
+ * <ul>
+ *   <li>{@code class=}: the qualified name of the method's class, with nested classes separated by
+ *       dots;
+ *   <li>{@code method=}: the method's name, {@code <init>} for constructors;
+ *   <li>{@code returns=}: the qualified name of the return type, e.g. {@code java.lang.String},
+ *       {@code int} or {@code byte[]}; a constructor returns its class;
+ *   <li>{@code params=}: the qualified name of every parameter type, of which there must be at least
+ *       one; {@code params=none} only matches methods without parameters;
+ *   <li>{@code static=true|false}: whether the method is static.
+ * </ul>
+ *
+ * Condition values are glob patterns: {@code *} matches any sequence of characters and {@code |}
+ * separates alternatives. The qualifiers are written on the return type ({@code return=}), on the
+ * receiver of an instance method ({@code receiver=}), and on every parameter ({@code params=}).
+ * They are annotations as they would be written in a stub file, without spaces, and they are
+ * resolved against the DCC qualifier package unless they are fully qualified.
+ *
+ * <p>Rules are tried in order, and for each position the first matching rule that annotates it
+ * wins, so specific rules should come before general ones.
+ */
+final class StubRules {
+
+    /** The slot of the return type in the arrays returned by {@link #annotate}. */
+    static final int RETURN = 0;
+
+    /** The slot of the receiver. */
+    static final int RECEIVER = 1;
+
+    /** The slot of the first parameter. */
+    static final int FIRST_PARAMETER = 2;
+
+    /** What a qualifier may look like: an annotation name with an optional string value. */
+    private static final Pattern QUALIFIER = Pattern.compile("@[\\w.$]+(\\(\"[^\"]*\"\\))?");
+
+    /** The rules, in order. */
+    private final List<Rule> rules;
+
+    /**
+     * @param rules the rules, in order
+     */
+    private StubRules(final List<Rule> rules) {
+        this.rules = Collections.unmodifiableList(rules);
+    }
+
+    /**
+     * Reads a rules file.
+     *
+     * @param file the file
+     * @return its rules
+     * @throws IOException              if the file can't be read
+     * @throws IllegalArgumentException if a rule is malformed
+     */
+    static StubRules read(final Path file) throws IOException {
+        List<Rule> rules = new ArrayList<>();
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            String line;
+            int lineNumber = 0;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                line = line.trim();
+                if (line.isEmpty() || line.startsWith("#")) {
+                    continue;
+                }
+                try {
+                    rules.add(Rule.parse(line));
+                } catch (IllegalArgumentException e) {
+                    throw new IllegalArgumentException(file + ":" + lineNumber + ": " + e.getMessage(), e);
+                }
+            }
+        }
+        return new StubRules(rules);
+    }
+
+    /**
+     * Applies the rules to a method. This only depends on the class and the method, so classes can
+     * be processed in any order and on any thread.
+     *
+     * @param owner  the method's class
+     * @param method the method
+     * @return the qualifier of each slot (null for none), or null if no rule annotates the method
+     */
+    String[] annotate(final ClassSummary owner, final ClassSummary.Method method) {
+        TypeNames.MethodNames names = TypeNames.qualified(owner, method);
+        String[] slots = null;
+        for (Rule rule : rules) {
+            if (!rule.matches(owner, method, names)) {
+                continue;
+            }
+            if (slots == null) {
+                slots = new String[FIRST_PARAMETER + names.parameters.size()];
+            }
+            fill(slots, RETURN, rule.returnQualifier);
+            if (!method.isStatic() && !method.isConstructor()) {
+                fill(slots, RECEIVER, rule.receiverQualifier);
+            }
+            for (int i = FIRST_PARAMETER; i < slots.length; i++) {
+                fill(slots, i, rule.parameterQualifier);
+            }
+        }
+        if (slots != null) {
+            for (String slot : slots) {
+                if (slot != null) {
+                    return slots;
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @param slots     the slots of a method
+     * @param slot      one of them
+     * @param qualifier the qualifier a rule writes there, or null; ignored if the slot is already set
+     */
+    private static void fill(final String[] slots, final int slot, final String qualifier) {
+        if (slots[slot] == null) {
+            slots[slot] = qualifier;
+        }
+    }
+
+    /** One line of a rules file. */
+    private static final class Rule {
+
+        /** The {@code class=} condition, or null. */
+        Pattern classPattern;
+
+        /** The {@code method=} condition, or null. */
+        Pattern methodPattern;
+
+        /** The {@code returns=} condition, or null. */
+        Pattern returnsPattern;
+
+        /** The {@code params=} condition, or null. */
+        Pattern paramsPattern;
+
+        /** Whether the rule only matches methods without parameters. */
+        boolean noParams;
+
+        /** The {@code static=} condition, or null. */
+        Boolean isStatic;
+
+        /** The qualifier to write on the return type, or null. */
+        String returnQualifier;
+
+        /** The qualifier to write on the receiver, or null. */
+        String receiverQualifier;
+
+        /** The qualifier to write on every parameter, or null. */
+        String parameterQualifier;
+
+        /**
+         * @param line a rule
+         * @return the parsed rule
+         * @throws IllegalArgumentException if the rule is malformed
+         */
+        static Rule parse(final String line) {
+            int arrow = line.indexOf("->");
+            if (arrow < 0) {
+                throw new IllegalArgumentException("expected <conditions> -> <qualifiers>");
+            }
+            Rule rule = new Rule();
+            for (String condition : tokens(line.substring(0, arrow))) {
+                String value = value(condition);
+                switch (condition.substring(0, condition.indexOf('='))) {
+                    case "class":
+                        rule.classPattern = glob(value);
+                        break;
+                    case "method":
+                        rule.methodPattern = glob(value);
+                        break;
+                    case "returns":
+                        rule.returnsPattern = glob(value);
+                        break;
+                    case "params":
+                        if ("none".equals(value)) {
+                            rule.noParams = true;
+                        } else {
+                            rule.paramsPattern = glob(value);
+                        }
+                        break;
+                    case "static":
+                        rule.isStatic = Boolean.valueOf(value);
+                        break;
+                    default:
+                        throw new IllegalArgumentException("unknown condition " + condition);
+                }
+            }
+            List<String> qualifiers = tokens(line.substring(arrow + 2));
+            if (qualifiers.isEmpty()) {
+                throw new IllegalArgumentException("a rule must write at least one qualifier");
+            }
+            for (String qualifier : qualifiers) {
+                String value = value(qualifier);
+                if (!QUALIFIER.matcher(value).matches()) {
+                    throw new IllegalArgumentException("malformed qualifier " + value);
+                }
+                switch (qualifier.substring(0, qualifier.indexOf('='))) {
+                    case "return":
+                        rule.returnQualifier = value;
+                        break;
+                    case "receiver":
+                        rule.receiverQualifier = value;
+                        break;
+                    case "params":
+                        rule.parameterQualifier = value;
+                        break;
+                    default:
+                        throw new IllegalArgumentException("unknown position " + qualifier);
+                }
+            }
+            return rule;
+        }
+
+        /**
+         * @param owner  the method's class
+         * @param method the method
+         * @param names  the qualified names of the method's types
+         * @return whether all of the rule's conditions hold
+         */
+        boolean matches(final ClassSummary owner, final ClassSummary.Method method,
+                final TypeNames.MethodNames names) {
+            if (isStatic != null && isStatic != method.isStatic()) {
+                return false;
+            }
+            if (noParams && !names.parameters.isEmpty()) {
+                return false;
+            }
+            if (classPattern != null && !classPattern.matcher(owner.qualifiedName()).matches()) {
+                return false;
+            }
+            if (methodPattern != null && !methodPattern.matcher(method.name).matches()) {
+                return false;
+            }
+            if (returnsPattern != null) {
+                String returnType = method.isConstructor() ? owner.qualifiedName() : names.returnType;
+                if (!returnsPattern.matcher(returnType).matches()) {
+                    return false;
+                }
+            }
+            if (paramsPattern != null) {
+                if (names.parameters.isEmpty()) {
+                    return false;
+                }
+                for (String parameter : names.parameters) {
+                    if (!paramsPattern.matcher(parameter).matches()) {
+                        return false;
+                    }
+                }
+            }
+            return true;
+        }
+
+        /**
+         * @param text part of a rule
+         * @return its whitespace-separated tokens
+         */
+        private static List<String> tokens(final String text) {
+            List<String> tokens = new ArrayList<>();
+            for (String token : text.trim().split("\\s+")) {
+                if (!token.isEmpty()) {
+                    tokens.add(token);
+                }
+            }
+            return tokens;
+        }
+
+        /**
+         * @param token a {@code key=value} token
+         * @return its value
+         * @throws IllegalArgumentException if the token has no value
+         */
+        private static String value(final String token) {
+            int equals = token.indexOf('=');
+            if (equals <= 0 || equals == token.length() - 1) {
+                throw new IllegalArgumentException("expected key=value, found " + token);
+            }
+            return token.substring(equals + 1);
+        }
+
+        /**
+         * @param glob alternatives separated by {@code |}, in which {@code *} matches anything
+         * @return the equivalent regular expression
+         */
+        private static Pattern glob(final String glob) {
+            StringBuilder regex = new StringBuilder();
+            for (String alternative : glob.split("\\|")) {
+                if (regex.length() > 0) {
+                    regex.append('|');
+                }
+                String[] literals = alternative.split("\\*", -1);
+                for (int i = 0; i < literals.length; i++) {
+                    if (i > 0) {
+                        regex.append(".*");
+                    }
+                    regex.append(Pattern.quote(literals[i]));
+                }
+            }
+            return Pattern.compile(regex.toString());
+        }
+    }
+}
@@ -0,0 +1,173 @@
+// Copyright 2017 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+// SPDX-License-Identifier: Apache-2.0
+package com.amazon.checkerframework.checker.data_classification.stubgen;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Writes the generated stubs in the style of jdk.astub: one {@code package} section per package,
+ * classes nested as in source, and simple type names. Packages, classes and methods are sorted, so
+ * the output only depends on the classes and the rules.
+ */
+final class StubWriter {
+
+    /** The package of DCC's qualifiers, imported so that rules can use simple names. */
+    private static final String QUAL_PACKAGE = "com.amazon.checkerframework.checker.data_classification.qual";
+
+    /** The classes to write, keyed by package and then by nested name, e.g. {@code Map.Entry}. */
+    private final Map<String, Map<String, Node>> packages = new TreeMap<>();
+
+    /** A class to write, and the classes nested in it. */
+    private static final class Node {
+
+        /** The class' simple name. */
+        final String simpleName;
+
+        /** The keyword that declares the class: {@code class}, {@code interface} or {@code enum}. */
+        String keyword = "class";
+
+        /** The names of the class' type parameters. */
+        List<String> typeParameters = new ArrayList<>();
+
+        /** The annotated methods, sorted. */
+        List<StubGenerator.MethodStub> methods = new ArrayList<>();
+
+        /** The nested classes that have annotated methods, keyed by simple name. */
+        final Map<String, Node> nested = new TreeMap<>();
+
+        /** @param simpleName the class' simple name */
+        Node(final String simpleName) {
+            this.simpleName = simpleName;
+        }
+    }
+
+    /**
+     * Adds a class with annotated methods. Its enclosing classes are written too, declared as in
+     * {@code classes}, or as plain classes if the generator didn't see them.
+     *
+     * @param stub    the class and its annotated methods
+     * @param classes the classes seen by the generator, by internal name
+     */
+    void add(final StubGenerator.ClassStub stub, final Map<String, ClassSummary> classes) {
+        Map<String, Node> level = packages.computeIfAbsent(stub.summary.packageName(), p -> new TreeMap<>());
+        String internalName = stub.summary.internalName.substring(0, stub.summary.internalName.lastIndexOf('/') + 1);
+        Node node = null;
+        for (String name : stub.summary.nestedNames()) {
+            internalName = node == null ? internalName + name : internalName + '$' + name;
+            node = level.computeIfAbsent(name, Node::new);
+            ClassSummary summary = classes.get(internalName);
+            if (summary != null) {
+                node.keyword = summary.isInterface() ? "interface" : summary.isEnum() ? "enum" : "class";
+                node.typeParameters = TypeNames.classTypeParameters(summary.signature);
+            }
+            level = node.nested;
+        }
+        node.methods = stub.methods;
+    }
+
+    /**
+     * Writes the stub file.
+     *
+     * @param out    where to write it
+     * @param header a comment for the first line, e.g. where the stubs come from
+     * @throws IOException if it can't be written
+     */
+    void write(final Writer out, final String header) throws IOException {
+        out.write("// " + header + "\n");
+        out.write("import " + QUAL_PACKAGE + ".*;\n");
+        for (Map.Entry<String, Map<String, Node>> aPackage : packages.entrySet()) {
+            out.write("\n");
+            if (!aPackage.getKey().isEmpty()) {
+                out.write("package " + aPackage.getKey() + ";\n\n");
+            }
+            for (Node node : aPackage.getValue().values()) {
+                writeClass(out, node, "");
+            }
+        }
+    }
+
+    /**
+     * @param out    where to write
+     * @param node   the class
+     * @param indent the indentation of the class declaration
+     * @throws IOException if it can't be written
+     */
+    private static void writeClass(final Writer out, final Node node, final String indent) throws IOException {
+        out.write(indent + node.keyword + " " + node.simpleName);
+        if (!node.typeParameters.isEmpty()) {
+            out.write("<" + String.join(", ", node.typeParameters) + ">");
+        }
+        out.write(" {\n");
+        if ("enum".equals(node.keyword)) {
+            // The constants aren't annotated, but the members must come after the semicolon.
+            out.write(indent + "    ;\n");
+        }
+        for (StubGenerator.MethodStub method : node.methods) {
+            out.write(indent + "    " + declaration(method, node.simpleName) + ";\n");
+        }
+        for (Node nested : node.nested.values()) {
+            writeClass(out, nested, indent + "    ");
+        }
+        out.write(indent + "}\n");
+    }
+
+    /**
+     * @param stub      an annotated method
+     * @param className the simple name of its class
+     * @return its declaration, without the semicolon
+     */
+    private static String declaration(final StubGenerator.MethodStub stub, final String className) {
+        TypeNames.MethodNames names = stub.names;
+        String[] slots = stub.slots;
+        StringBuilder result = new StringBuilder();
+        if (!names.typeParameters.isEmpty()) {
+            result.append('<').append(String.join(", ", names.typeParameters)).append("> ");
+        }
+        if (stub.method.isConstructor()) {
+            if (slots[StubRules.RETURN] != null) {
+                result.append(slots[StubRules.RETURN]).append(' ');
+            }
+            result.append(className);
+        } else {
+            String returnQualifier = "void".equals(names.returnType) ? null : slots[StubRules.RETURN];
+            result.append(annotated(names.returnType, returnQualifier, false)).append(' ').append(stub.method.name);
+        }
+        List<String> parameters = new ArrayList<>();
+        if (slots[StubRules.RECEIVER] != null) {
+            parameters.add(slots[StubRules.RECEIVER] + " " + className + " this");
+        }
+        for (int i = 0; i < names.parameters.size(); i++) {
+            boolean varargs = stub.method.isVarargs() && i == names.parameters.size() - 1;
+            parameters.add(annotated(names.parameters.get(i), slots[StubRules.FIRST_PARAMETER + i], varargs)
+                    + " arg" + i);
+        }
+        return result.append('(').append(String.join(", ", parameters)).append(')').toString();
+    }
+
+    /**
+     * @param type      a type, e.g. {@code String} or {@code byte[]}
+     * @param qualifier its primary qualifier, or null
+     * @param varargs   whether the type is that of a varargs parameter
+     * @return the type as written in a stub file, with the qualifier in the primary position, e.g.
+     *         {@code @Public String}, {@code byte @Public []} or {@code String @Public ...}
+     */
+    private static String annotated(final String type, final String qualifier, final boolean varargs) {
+        int brackets = type.indexOf("[]");
+        if (brackets < 0) {
+            return qualifier == null ? type : qualifier + " " + type;
+        }
+        String element = type.substring(0, brackets);
+        String q = qualifier == null ? "" : " " + qualifier + " ";
+        if (varargs) {
+            // The ellipsis stands for the outermost dimension.
+            return element + type.substring(brackets + 2) + q + "...";
+        }
+        // The first pair of brackets is the outermost dimension.
+        return element + q + type.substring(brackets);
+    }
+}
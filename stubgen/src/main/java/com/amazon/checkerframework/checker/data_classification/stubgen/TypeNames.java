@@ -0,0 +1,215 @@
+// Copyright 2017 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+// SPDX-License-Identifier: Apache-2.0
+package com.amazon.checkerframework.checker.data_classification.stubgen;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Converts method descriptors and generic signatures into the type names used by the stub
+ * generator: qualified names (e.g. {@code java.util.Map.Entry}, {@code byte[]}) for matching rules,
+ * and simple names as written in source (e.g. {@code Entry}, {@code T}) for the stub file, which is
+ * how jdk.astub writes them too.
+ */
+final class TypeNames {
+
+    /** The signature or descriptor being parsed. */
+    private final String text;
+
+    /** Whether to produce simple names instead of qualified ones. */
+    private final boolean simple;
+
+    /** The position of the next character to parse. */
+    private int pos;
+
+    /**
+     * @param text   a signature or descriptor
+     * @param simple whether to produce simple names instead of qualified ones
+     */
+    private TypeNames(final String text, final boolean simple) {
+        this.text = text;
+        this.simple = simple;
+    }
+
+    /** The names of a method's type parameters, parameter types and return type. */
+    static final class MethodNames {
+
+        /** The names of the method's type parameters, or an empty list. */
+        final List<String> typeParameters;
+
+        /** The method's parameter types. */
+        final List<String> parameters;
+
+        /** The method's return type. */
+        final String returnType;
+
+        /**
+         * @param typeParameters the names of the type parameters
+         * @param parameters     the parameter types
+         * @param returnType     the return type
+         */
+        MethodNames(final List<String> typeParameters, final List<String> parameters, final String returnType) {
+            this.typeParameters = typeParameters;
+            this.parameters = parameters;
+            this.returnType = returnType;
+        }
+    }
+
+    /**
+     * @param owner  the method's class
+     * @param method a method
+     * @return the qualified names of its parameter and return types
+     */
+    static MethodNames qualified(final ClassSummary owner, final ClassSummary.Method method) {
+        return withoutEnclosingInstance(owner, method, new TypeNames(method.descriptor, false).method());
+    }
+
+    /**
+     * Returns the simple names of a method's types, from its generic signature if it has one. Falls
+     * back to the descriptor if the signature doesn't match it, which javac allows.
+     *
+     * @param owner  the method's class
+     * @param method a method
+     * @return the simple names of its type parameters, parameter and return types
+     */
+    static MethodNames simple(final ClassSummary owner, final ClassSummary.Method method) {
+        MethodNames fromDescriptor =
+                withoutEnclosingInstance(owner, method, new TypeNames(method.descriptor, true).method());
+        if (method.signature == null) {
+            return fromDescriptor;
+        }
+        MethodNames fromSignature = new TypeNames(method.signature, true).method();
+        return fromSignature.parameters.size() == fromDescriptor.parameters.size() ? fromSignature : fromDescriptor;
+    }
+
+    /**
+     * @param owner  the method's class
+     * @param method a method
+     * @param names  the names from the method's descriptor
+     * @return the names without the enclosing instance that the descriptor of an inner class'
+     *         constructor starts with, and which source doesn't declare
+     */
+    private static MethodNames withoutEnclosingInstance(final ClassSummary owner, final ClassSummary.Method method,
+            final MethodNames names) {
+        if (!owner.isInner || !method.isConstructor() || names.parameters.isEmpty()) {
+            return names;
+        }
+        return new MethodNames(names.typeParameters, names.parameters.subList(1, names.parameters.size()),
+                names.returnType);
+    }
+
+    /**
+     * @param signature a class' generic signature, or null
+     * @return the names of the class' type parameters, or an empty list
+     */
+    static List<String> classTypeParameters(final String signature) {
+        return signature == null ? new ArrayList<>() : new TypeNames(signature, true).typeParameters();
+    }
+
+    /** @return the names of the method whose signature or descriptor is {@link #text} */
+    private MethodNames method() {
+        List<String> typeParameters = typeParameters();
+        expect('(');
+        List<String> parameters = new ArrayList<>();
+        while (peek() != ')') {
+            parameters.add(type());
+        }
+        pos++;
+        return new MethodNames(typeParameters, parameters, type());
+    }
+
+    /** @return the names of the type parameters at the current position, which are consumed */
+    private List<String> typeParameters() {
+        List<String> typeParameters = new ArrayList<>();
+        if (peek() == '<') {
+            pos++;
+            while (peek() != '>') {
+                int colon = text.indexOf(':', pos);
+                typeParameters.add(text.substring(pos, colon));
+                pos = colon;
+                // A class bound, which may be empty, then any number of interface bounds.
+                while (peek() == ':') {
+                    pos++;
+                    if (peek() != ':') {
+                        type();
+                    }
+                }
+            }
+            pos++;
+        }
+        return typeParameters;
+    }
+
+    /** @return the name of the type at the current position, which is consumed */
+    private String type() {
+        char c = text.charAt(pos++);
+        switch (c) {
+            case 'B': return "byte";
+            case 'C': return "char";
+            case 'D': return "double";
+            case 'F': return "float";
+            case 'I': return "int";
+            case 'J': return "long";
+            case 'S': return "short";
+            case 'Z': return "boolean";
+            case 'V': return "void";
+            case '[': return type() + "[]";
+            case 'T': {
+                int semicolon = text.indexOf(';', pos);
+                String name = text.substring(pos, semicolon);
+                pos = semicolon + 1;
+                return name;
+            }
+            case 'L': return classType();
+            default:
+                throw new IllegalArgumentException("Malformed signature " + text);
+        }
+    }
+
+    /** @return the name of the class type after an {@code L}, which is consumed with its type arguments */
+    private String classType() {
+        StringBuilder name = new StringBuilder();
+        while (true) {
+            char c = text.charAt(pos++);
+            if (c == ';') {
+                break;
+            } else if (c == '<') {
+                skipTypeArguments();
+            } else if (c == '/' || c == '$' || c == '.') {
+                if (simple) {
+                    name.setLength(0);
+                } else {
+                    name.append('.');
+                }
+            } else {
+                name.append(c);
+            }
+        }
+        return name.toString();
+    }
+
+    /** Skips type arguments, up to and including the closing {@code >}. */
+    private void skipTypeArguments() {
+        int depth = 1;
+        while (depth > 0) {
+            char c = text.charAt(pos++);
+            if (c == '<') {
+                depth++;
+            } else if (c == '>') {
+                depth--;
+            }
+        }
+    }
+
+    /** @return the character at the current position */
+    private char peek() {
+        return text.charAt(pos);
+    }
+
+    /** @param c the character expected at the current position, which is consumed */
+    private void expect(final char c) {
+        if (text.charAt(pos++) != c) {
+            throw new IllegalArgumentException("Malformed signature " + text);
+        }
+    }
+}
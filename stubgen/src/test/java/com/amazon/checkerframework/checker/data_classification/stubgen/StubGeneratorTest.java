@@ -0,0 +1,166 @@
+// Copyright 2017 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+// SPDX-License-Identifier: Apache-2.0
+package com.amazon.checkerframework.checker.data_classification.stubgen;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.jar.JarOutputStream;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.ZipEntry;
+import javax.tools.JavaCompiler;
+import javax.tools.ToolProvider;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Runs the stub generator on classfiles compiled from {@code tests/fixture}, with rules that use
+ * every kind of condition, and compares the stub file with {@code tests/fixture.astub}.
+ */
+public class StubGeneratorTest {
+
+    /** The sources of the fixture classes. */
+    private static final Path FIXTURE = Paths.get("tests", "fixture");
+
+    /** The rules for the fixture. */
+    private static final Path RULES = Paths.get("tests", "fixture.rules");
+
+    /** The expected stub file. */
+    private static final Path EXPECTED = Paths.get("tests", "fixture.astub");
+
+    /** The number of classes generated for the thread count test, enough to split the work. */
+    private static final int CLASSES = 500;
+
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void writesTheStubsOfADirectory() throws IOException {
+        Path classes = compile(sources(FIXTURE));
+        assertEquals(read(EXPECTED), read(generate(RULES, 2, classes.toString())));
+    }
+
+    @Test
+    public void writesTheStubsOfAJar() throws IOException {
+        Path jar = jar(compile(sources(FIXTURE)));
+        assertEquals(read(EXPECTED), read(generate(RULES, 2, jar.toString())));
+    }
+
+    @Test
+    public void outputDoesNotDependOnTheThreadCount() throws IOException {
+        Path generated = folder.newFolder("generated").toPath();
+        List<Path> sources = new ArrayList<>();
+        for (int i = 0; i < CLASSES; i++) {
+            Path source = generated.resolve("Strings" + i + ".java");
+            Files.write(source, ("package p" + i % 7 + ";\n"
+                    + "public class Strings" + i + " {\n"
+                    + "    public static String trim(String s) { return s; }\n"
+                    + "    public String join(CharSequence a, String b) { return b; }\n"
+                    + "    public int length(String s) { return 0; }\n"
+                    + "}\n").getBytes(StandardCharsets.UTF_8));
+            sources.add(source);
+        }
+        Path classes = compile(sources);
+        byte[] sequential = Files.readAllBytes(generate(RULES, 1, classes.toString()));
+        byte[] parallel = Files.readAllBytes(generate(RULES, 4, classes.toString()));
+        assertArrayEquals(sequential, parallel);
+        String stub = new String(sequential, StandardCharsets.UTF_8);
+        for (int i = 0; i < CLASSES; i++) {
+            assertTrue("Strings" + i, stub.contains("class Strings" + i + " {"));
+        }
+    }
+
+    @Test
+    public void reportsTheLineOfAMalformedRule() throws IOException {
+        Path rules = folder.newFile("bad.rules").toPath();
+        Files.write(rules, Arrays.asList("# A comment.", "", "method=info -> params=Public"), StandardCharsets.UTF_8);
+        try {
+            StubRules.read(rules);
+            fail("a qualifier without @ was accepted");
+        } catch (IllegalArgumentException e) {
+            assertEquals(rules + ":3: malformed qualifier Public", e.getMessage());
+        }
+    }
+
+    /**
+     * @param directory a directory of Java sources
+     * @return its Java files, sorted
+     */
+    private static List<Path> sources(final Path directory) throws IOException {
+        try (Stream<Path> walk = Files.walk(directory)) {
+            return walk.filter(f -> f.toString().endsWith(".java")).sorted().collect(Collectors.toList());
+        }
+    }
+
+    /**
+     * @param sources Java sources
+     * @return a directory with their classfiles
+     */
+    private Path compile(final List<Path> sources) throws IOException {
+        Path classes = folder.newFolder().toPath();
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        List<String> arguments = new ArrayList<>(Arrays.asList("-d", classes.toString()));
+        for (Path source : sources) {
+            arguments.add(source.toString());
+        }
+        assertEquals("javac failed", 0, compiler.run(null, null, null, arguments.toArray(new String[0])));
+        return classes;
+    }
+
+    /**
+     * @param classes a directory of classfiles
+     * @return a jar with the same classfiles
+     */
+    private Path jar(final Path classes) throws IOException {
+        Path jar = folder.newFile("fixture.jar").toPath();
+        try (OutputStream file = Files.newOutputStream(jar); JarOutputStream out = new JarOutputStream(file);
+                Stream<Path> walk = Files.walk(classes)) {
+            for (Path classFile : walk.filter(Files::isRegularFile).sorted().collect(Collectors.toList())) {
+                out.putNextEntry(new ZipEntry(classes.relativize(classFile).toString().replace(File.separatorChar, '/')));
+                out.write(Files.readAllBytes(classFile));
+                out.closeEntry();
+            }
+        }
+        return jar;
+    }
+
+    /**
+     * Runs the generator as from the command line.
+     *
+     * @param rules   the rules file
+     * @param threads the number of threads
+     * @param inputs  the jars, directories and classfiles to read
+     * @return the stub file
+     */
+    private Path generate(final Path rules, final int threads, final String... inputs) throws IOException {
+        Path stub = folder.newFile().toPath();
+        List<String> args = new ArrayList<>(Arrays.asList(
+                "-rules", rules.toString(), "-o", stub.toString(), "-threads", Integer.toString(threads)));
+        args.addAll(Arrays.asList(inputs));
+        StubGenerator.main(args.toArray(new String[0]));
+        return stub;
+    }
+
+    /**
+     * @param file a text file
+     * @return its contents
+     */
+    private static String read(final Path file) throws IOException {
+        return new String(Files.readAllBytes(file), StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,7 @@
+package com.example.fixture;
+
+class Internal {
+    public static String trim(final String s) {
+        return s;
+    }
+}
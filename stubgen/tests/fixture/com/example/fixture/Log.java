@@ -0,0 +1,9 @@
+package com.example.fixture;
+
+public interface Log {
+    void info(String message, Object... arguments);
+
+    void debug(String message);
+
+    boolean isEnabled();
+}
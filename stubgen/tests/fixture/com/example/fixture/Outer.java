@@ -0,0 +1,9 @@
+package com.example.fixture;
+
+public class Outer {
+    public static class Inner<T> {
+        public T get(final String key) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package com.example.fixture;
+
+public final class Text {
+    private final String value;
+
+    public Text(final String value) {
+        this.value = value;
+    }
+
+    public static String trim(final String s) {
+        return s.trim();
+    }
+
+    public String join(final CharSequence prefix, final String suffix) {
+        return prefix + value + suffix;
+    }
+
+    public String name() {
+        return value;
+    }
+
+    public static String repeat(final String s, final int times) {
+        return s;
+    }
+
+    public static byte[] bytes(final String s) {
+        return s.getBytes();
+    }
+
+    private static String hidden(final String s) {
+        return s;
+    }
+}
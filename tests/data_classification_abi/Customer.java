@@ -0,0 +1,17 @@
+import com.amazon.checkerframework.checker.data_classification.qual.Confidential;
+import com.amazon.checkerframework.checker.data_classification.qual.Public;
+
+// :: warning: (inconsistent.constructor.type)
+public class Customer {
+    @Public String name;
+    @Confidential String email;
+    private @Confidential String note;
+
+    @Public String greeting() {
+        return "Hello";
+    }
+
+    private @Public String initials() {
+        return "";
+    }
+}
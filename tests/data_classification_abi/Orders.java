@@ -0,0 +1,13 @@
+import com.amazon.checkerframework.checker.data_classification.qual.Public;
+
+// :: warning: (inconsistent.constructor.type)
+public class Orders {
+    static void print(@Public Object value) {
+    }
+
+    void ship(Customer customer) {
+        print(customer.name);
+        // :: error: (argument)
+        print(customer.email);
+    }
+}
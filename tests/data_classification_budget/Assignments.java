@@ -0,0 +1,12 @@
+// Copyright 2017 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+// SPDX-License-Identifier: Apache-2.0
+import com.amazon.checkerframework.checker.data_classification.qual.*;
+
+// A compilation unit with a single error, within any budget.
+// :: warning: (inconsistent.constructor.type)
+class Assignments {
+    void copy(@Confidential String account) {
+        // :: error: (assignment)
+        @Public String copy = account;
+    }
+}
@@ -0,0 +1,23 @@
+// Copyright 2017 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+// SPDX-License-Identifier: Apache-2.0
+import com.amazon.checkerframework.checker.data_classification.qual.*;
+
+// The same classified value passed to the same logging method, over and over: the errors that
+// -AdccGroupDiagnostics groups and that use up an -AdccErrorBudget.
+// :: warning: (inconsistent.constructor.type)
+class Logging {
+    static void log(@Public String message) { }
+
+    void logAccount(@Confidential String account, @Restricted String key) {
+        // :: error: (argument)
+        log(account);
+        // :: error: (argument)
+        log(account);
+        // :: error: (argument)
+        log("account " + account);
+        // :: error: (argument)
+        log(key);
+        // :: error: (argument)
+        log(account);
+    }
+}
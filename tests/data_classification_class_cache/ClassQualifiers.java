@@ -0,0 +1,37 @@
+// Copyright 2017 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+// SPDX-License-Identifier: Apache-2.0
+import com.amazon.checkerframework.checker.data_classification.qual.*;
+
+// Classes whose qualifier is declared, inferred, or neither, used alternately so that a small
+// class cache evicts them between uses.
+// :: warning: (inconsistent.constructor.type)
+@Public class PublicClass { }
+
+@Critical class CriticalClass { }
+
+// :: warning: (inconsistent.constructor.type)
+@Restricted class RestrictedClass { }
+
+// :: warning: (inconsistent.constructor.type)
+class InferredClass {
+    @Confidential String secret;
+}
+
+// :: warning: (inconsistent.constructor.type)
+class ClassQualifiers {
+    void uses(PublicClass p, CriticalClass c, RestrictedClass r, InferredClass i) {
+        @Public Object p1 = p;
+        @Public Object p2 = p;
+        // :: error: (assignment)
+        @Restricted Object c1 = c;
+        @Critical Object c2 = c;
+        // :: error: (assignment)
+        @Confidential Object r1 = r;
+        @Restricted Object r2 = r;
+        // :: error: (assignment)
+        @Public Object i1 = i;
+        @Confidential Object i2 = i;
+        @Public Object p3 = p;
+        @Critical Object c3 = c;
+    }
+}
@@ -0,0 +1,7 @@
+import com.amazon.checkerframework.checker.data_classification.qual.Confidential;
+
+// Bound: an instance field.
+public class Account {
+    @Confidential String number;
+    String name;
+}
@@ -0,0 +1,15 @@
+import com.amazon.checkerframework.checker.data_classification.qual.Critical;
+import com.amazon.checkerframework.checker.data_classification.qual.PolyClassification;
+
+// No bound: static members and polymorphic qualifiers don't count.
+public class Constants {
+    static @Critical String masterKey;
+
+    static @Critical String masterKey() {
+        return masterKey;
+    }
+
+    @PolyClassification String echo(@PolyClassification String value) {
+        return value;
+    }
+}
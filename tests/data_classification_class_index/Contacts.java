@@ -0,0 +1,7 @@
+import java.util.List;
+import com.amazon.checkerframework.checker.data_classification.qual.HighlyConfidential;
+
+// Bound: a type argument of an instance field.
+public class Contacts {
+    List<@HighlyConfidential String> phoneNumbers;
+}
@@ -0,0 +1,16 @@
+import com.amazon.checkerframework.checker.data_classification.qual.Confidential;
+import com.amazon.checkerframework.checker.data_classification.qual.Restricted;
+
+// Bound: the highest level, here an instance method's return type.
+public class Credentials {
+    @Confidential String user;
+
+    @Restricted String password() {
+        return null;
+    }
+
+    // Bound: indexed under its binary name, Credentials$Token.
+    static class Token {
+        @Confidential String value;
+    }
+}
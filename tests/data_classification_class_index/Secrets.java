@@ -0,0 +1,6 @@
+import com.amazon.checkerframework.checker.data_classification.qual.Critical;
+
+// No bound: interfaces are never inferred.
+public interface Secrets {
+    @Critical String secret();
+}
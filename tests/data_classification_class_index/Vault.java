@@ -0,0 +1,6 @@
+import com.amazon.checkerframework.checker.data_classification.qual.Critical;
+
+// Bound: the annotation on the declaration.
+@Critical
+public class Vault {
+}
@@ -0,0 +1,8 @@
+import com.amazon.checkerframework.checker.data_classification.qual.Confidential;
+import com.amazon.checkerframework.checker.data_classification.qual.Public;
+
+// :: warning: (inconsistent.constructor.type)
+class Account {
+    @Public String name;
+    @Confidential String number;
+}
@@ -0,0 +1,22 @@
+import com.amazon.checkerframework.checker.data_classification.qual.Public;
+
+// Refers to Account, so it is checked in full when the bound of Account changes.
+// :: warning: (inconsistent.constructor.type)
+class Report {
+    static void log(@Public Object value) {
+    }
+
+    void name(Account account) {
+        log(account.name);
+    }
+
+    void number(Account account) {
+        // :: error: (argument)
+        log(account.number);
+    }
+
+    void account(Account account) {
+        // :: error: (argument)
+        log(account);
+    }
+}
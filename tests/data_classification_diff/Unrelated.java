@@ -0,0 +1,14 @@
+import com.amazon.checkerframework.checker.data_classification.qual.Confidential;
+import com.amazon.checkerframework.checker.data_classification.qual.Public;
+
+// Refers to no class of the other files, so it is skipped unless it changed itself.
+// :: warning: (inconsistent.constructor.type)
+class Unrelated {
+    static void log(@Public Object value) {
+    }
+
+    void secret(@Confidential String secret) {
+        // :: error: (argument)
+        log(secret);
+    }
+}
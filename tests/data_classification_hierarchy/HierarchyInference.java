@@ -0,0 +1,72 @@
+// Copyright 2017 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+// SPDX-License-Identifier: Apache-2.0
+import com.amazon.checkerframework.checker.data_classification.qual.*;
+
+/**
+ * Test that, with -AdccInferenceMode=hierarchy, the inferred type of a class includes the
+ * inferred types of its supertypes and enclosing classes.
+ */
+// :: warning: (inconsistent.constructor.type)
+public class HierarchyInference {
+
+    // :: warning: (inconsistent.constructor.type)
+    static class Entity {
+        @Confidential String id;
+    }
+
+    // :: warning: (inconsistent.constructor.type)
+    static class Customer extends Entity { }
+
+    // :: warning: (inconsistent.constructor.type)
+    static class PremiumCustomer extends Customer { }
+
+    static void testSubclass(PremiumCustomer c) {
+        @Confidential PremiumCustomer c2 = c;
+
+        // :: error: (assignment)
+        @Public PremiumCustomer c3 = c;
+    }
+
+    interface Secret {
+        @Restricted String secret();
+    }
+
+    // :: warning: (inconsistent.constructor.type)
+    static class SecretHolder implements Secret {
+        public @Restricted String secret() {
+            return null;
+        }
+    }
+
+    // :: warning: (inconsistent.constructor.type)
+    static class SecretHolderChild extends SecretHolder { }
+
+    static void testInterface(SecretHolderChild s) {
+        @Restricted SecretHolderChild s2 = s;
+
+        // :: error: (assignment)
+        @Confidential SecretHolderChild s3 = s;
+    }
+
+    // :: warning: (inconsistent.constructor.type)
+    static class Outer {
+        @HighlyConfidential String key;
+
+        // :: warning: (inconsistent.constructor.type)
+        class Inner { }
+    }
+
+    static void testEnclosing(Outer.Inner i) {
+        Outer.@HighlyConfidential Inner i2 = i;
+
+        // :: error: (assignment)
+        Outer.@Confidential Inner i3 = i;
+    }
+
+    // :: warning: (inconsistent.constructor.type)
+    static class Plain { }
+
+    static void testUnrelated(Plain p) {
+        @Public Plain p2 = p;
+    }
+}
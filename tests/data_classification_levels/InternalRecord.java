@@ -0,0 +1,16 @@
+import com.amazon.checkerframework.checker.data_classification.qual.Confidential;
+
+// A class with an @Internal field is inferred @Internal, the highest level of its members.
+// :: warning: (inconsistent.constructor.type)
+class InternalRecord {
+    @Confidential String owner;
+    @Internal String note;
+
+    static void store(@Confidential Object value) {
+    }
+
+    static void use(InternalRecord record) {
+        // :: error: (argument)
+        store(record);
+    }
+}
@@ -0,0 +1,27 @@
+import com.amazon.checkerframework.checker.data_classification.qual.Confidential;
+import com.amazon.checkerframework.checker.data_classification.qual.HighlyConfidential;
+import com.amazon.checkerframework.checker.data_classification.qual.Public;
+
+// The order of the levels comes from internal.levels: @Internal is above @Confidential.
+// :: warning: (inconsistent.constructor.type)
+class Levels {
+
+    void assignments(@Public String p, @Confidential String c, @Internal String i, @HighlyConfidential String h) {
+        @Internal String fromPublic = p;
+        @Internal String fromConfidential = c;
+        @HighlyConfidential String fromInternal = i;
+        // :: error: (assignment)
+        @Confidential String toConfidential = i;
+        // :: error: (assignment)
+        @Internal String fromHighlyConfidential = h;
+    }
+
+    @Internal String lub(boolean b, @Confidential String c, @Internal String i) {
+        return b ? c : i;
+    }
+
+    @Confidential String lubTooHigh(boolean b, @Confidential String c, @Internal String i) {
+        // :: error: (return)
+        return b ? c : i;
+    }
+}
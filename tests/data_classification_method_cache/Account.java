@@ -0,0 +1,9 @@
+// Copyright 2017 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+// SPDX-License-Identifier: Apache-2.0
+import com.amazon.checkerframework.checker.data_classification.qual.*;
+
+// :: warning: (inconsistent.constructor.type)
+class Account {
+    @Public String name;
+    @Confidential String number;
+}
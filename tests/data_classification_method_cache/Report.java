@@ -0,0 +1,21 @@
+// Copyright 2017 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+// SPDX-License-Identifier: Apache-2.0
+import com.amazon.checkerframework.checker.data_classification.qual.*;
+
+// :: warning: (inconsistent.constructor.type)
+class Report {
+    static void log(@Public String message) { }
+
+    void name(Account account) {
+        log(account.name);
+    }
+
+    void number(Account account) {
+        // :: error: (argument)
+        log(account.number);
+    }
+
+    void hex(int value) {
+        log(Integer.toHexString(value));
+    }
+}
@@ -0,0 +1,34 @@
+import com.amazon.checkerframework.checker.data_classification.qual.Confidential;
+import com.amazon.checkerframework.checker.data_classification.qual.Critical;
+import com.amazon.checkerframework.checker.data_classification.qual.PolyClassification;
+import com.amazon.checkerframework.checker.data_classification.qual.Public;
+
+// A @PolyClassification stands for its set of values, however they are written. A plain
+// @PolyClassification resolves to the least upper bound of its arguments.
+// :: warning: (inconsistent.constructor.type)
+class PolyValues {
+
+    void spellings(@PolyClassification("use") String use, @PolyClassification("a,b") String ab) {
+        @PolyClassification(" use ") String spaced = use;
+        @PolyClassification("b, a") String reordered = ab;
+        @PolyClassification("a, b, a") String repeated = ab;
+        // :: error: (assignment)
+        @PolyClassification("a") String other = use;
+        // :: error: (assignment)
+        @PolyClassification("a, b, c") String more = ab;
+    }
+
+    static @PolyClassification Object either(
+            boolean first, @PolyClassification Object a, @PolyClassification Object b) {
+        return first ? a : b;
+    }
+
+    void resolution(boolean first, @Public Object name, @Confidential Object number, @Critical Object key) {
+        @Confidential Object r1 = either(first, name, number);
+        @Critical Object r2 = either(first, number, key);
+        // :: error: (assignment)
+        @Confidential Object r3 = either(first, number, key);
+        // :: error: (assignment)
+        @Public Object r4 = either(first, name, number);
+    }
+}
@@ -0,0 +1,14 @@
+import com.amazon.checkerframework.checker.data_classification.qual.Confidential;
+import com.amazon.checkerframework.checker.data_classification.qual.PolyClassification;
+
+// Resolves the poly bound of copy once, and reuses it for the two other uses of account.
+// :: warning: (inconsistent.constructor.type)
+class Accounts {
+    @Confidential String number;
+
+    static void copy(@PolyClassification Accounts account) {
+        Object first = account;
+        Object second = account;
+        Object third = account;
+    }
+}
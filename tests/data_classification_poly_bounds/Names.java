@@ -0,0 +1,16 @@
+import com.amazon.checkerframework.checker.data_classification.qual.PolyClassification;
+
+// Declares a method like Accounts.copy, whose poly bound is resolved in this unit.
+// :: warning: (inconsistent.constructor.type)
+class Names {
+    String name;
+
+    static void copy(@PolyClassification Names names) {
+        Object first = names;
+        Object second = names;
+    }
+
+    static void copyBoth(@PolyClassification Names names, @PolyClassification Accounts account) {
+        Object first = names;
+    }
+}
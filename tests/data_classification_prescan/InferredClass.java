@@ -0,0 +1,6 @@
+// The prescan has to check this unit: it only names a class classified by its fields alone.
+// :: warning: (inconsistent.constructor.type)
+class InferredClass {
+    // :: error: (assignment)
+    Object ledger = new secrets.Ledger();
+}
@@ -0,0 +1,6 @@
+// The prescan has to check this unit: it only names a classified class that it inherits.
+// :: warning: (inconsistent.constructor.type)
+class InheritedMemberType extends secrets.Vault {
+    // :: error: (assignment)
+    Object key = new Key();
+}
@@ -0,0 +1,10 @@
+package secrets;
+
+import com.amazon.checkerframework.checker.data_classification.qual.Critical;
+
+// :: warning: (inconsistent.constructor.type)
+public class Keys {
+    public static @Critical String secret() {
+        return "key";
+    }
+}
@@ -0,0 +1,6 @@
+// The prescan has to check this unit: it only names a classified class by its qualified name.
+// :: warning: (inconsistent.constructor.type)
+class QualifiedName {
+    // :: error: (assignment)
+    Object secret = new secrets.Secret();
+}
@@ -0,0 +1,8 @@
+package secrets;
+
+import com.amazon.checkerframework.checker.data_classification.qual.Confidential;
+
+@Confidential
+// :: warning: (inconsistent.constructor.type)
+public class Secret {
+}
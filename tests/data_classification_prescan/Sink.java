@@ -0,0 +1,9 @@
+package secrets;
+
+import com.amazon.checkerframework.checker.data_classification.qual.Public;
+
+// :: warning: (inconsistent.constructor.type)
+public class Sink {
+    public static void log(@Public String value) {
+    }
+}
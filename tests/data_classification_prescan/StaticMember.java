@@ -0,0 +1,8 @@
+// The prescan has to check this unit: it only names classes whose qualified members are static.
+// :: warning: (inconsistent.constructor.type)
+class StaticMember {
+    void leak() {
+        // :: error: (argument)
+        secrets.Sink.log(secrets.Keys.secret());
+    }
+}
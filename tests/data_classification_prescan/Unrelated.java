@@ -0,0 +1,5 @@
+// The prescan skips this unit, but still reports that its constructor type can't be verified.
+// :: warning: (inconsistent.constructor.type)
+class Unrelated {
+    String name = "unrelated";
+}
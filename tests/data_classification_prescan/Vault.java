@@ -0,0 +1,11 @@
+package secrets;
+
+import com.amazon.checkerframework.checker.data_classification.qual.Confidential;
+
+// :: warning: (inconsistent.constructor.type)
+public class Vault {
+    @Confidential
+    // :: warning: (inconsistent.constructor.type)
+    public static class Key {
+    }
+}
@@ -0,0 +1,13 @@
+import com.amazon.checkerframework.checker.data_classification.qual.Confidential;
+import com.amazon.checkerframework.checker.data_classification.qual.Public;
+
+// :: warning: (inconsistent.constructor.type)
+class Audit {
+    static void log(@Public Object value) {
+    }
+
+    void record(@Confidential String secret) {
+        // :: error: (argument)
+        log(secret);
+    }
+}
@@ -0,0 +1,18 @@
+// Copyright 2017 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+// SPDX-License-Identifier: Apache-2.0
+import com.amazon.checkerframework.checker.data_classification.qual.*;
+
+/**
+ * The inferred bound of Holder is the higher of @Internal and @Confidential, which depends on the
+ * chain of levels passed with -AdccLevels.
+ */
+class Holder {
+    @Internal String team;
+    @Confidential String account;
+}
+
+class UseHolder {
+    void test(Holder h) {
+        @Confidential Holder confidential = h;
+    }
+}
@@ -0,0 +1,40 @@
+// Copyright 2017 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+// SPDX-License-Identifier: Apache-2.0
+import java.util.List;
+
+import com.amazon.checkerframework.checker.data_classification.qual.*;
+
+// Type arguments with a user-written qualifier anywhere in them skip the bound check; the others
+// are still checked, whatever their position.
+// :: warning: (inconsistent.constructor.type)
+class TypeArguments {
+    // :: warning: (inconsistent.constructor.type)
+    static class Pair<A extends List<@Confidential String>, B extends List<@Confidential String>> { }
+
+    Pair<List<@Confidential String>, List<@Confidential String>> bothWritten;
+
+    // :: error: (type.argument)
+    Pair<List<String>, List<@Confidential String>> firstChecked;
+
+    // :: error: (type.argument)
+    Pair<List<@Confidential String>, List<String>> secondChecked;
+
+    // :: error: (type.argument) :: error: (type.argument)
+    Pair<List<String>, List<String>> bothChecked;
+
+    // :: warning: (inconsistent.constructor.type)
+    static class Nested<A extends List<List<@Confidential String>>> { }
+
+    Nested<List<List<@Confidential String>>> nestedWritten;
+
+    // :: error: (type.argument)
+    Nested<List<List<String>>> nestedChecked;
+
+    // :: warning: (inconsistent.constructor.type)
+    static class Arrays<A extends List<@Confidential String @Public []>> { }
+
+    Arrays<List<@Confidential String @Public []>> componentWritten;
+
+    // :: error: (type.argument)
+    Arrays<List<String[]>> componentChecked;
+}